@@ -31,12 +31,14 @@ package net.sf.jasperreports.ant;
 
 import java.io.File;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import net.sf.jasperreports.engine.JRException;
-import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.design.BatchCompileResult;
+import net.sf.jasperreports.engine.design.BatchReportCompiler;
 import net.sf.jasperreports.engine.design.JRCompiler;
 import net.sf.jasperreports.engine.xml.JRReportSaxParserFactory;
 
@@ -63,6 +65,7 @@ import org.apache.tools.ant.util.SourceFileScanner;
  * <li>tempdir
  * <li>keepjava
  * <li>xmlvalidation
+ * <li>threads
  * </ul>
  * Of these arguments, the <code>src</code> and <code>destdir</code> are required.
  * When this task executes, it will recursively scan the <code>src</code> and 
@@ -87,6 +90,7 @@ public class JRAntCompileTask extends JRBaseAntTask
 	private String compiler;
 	private Path classpath;
 	private boolean xmlvalidation = true;
+	private int threads = 1;
 
 	private Map<String, String> reportFilesMap;
 
@@ -210,6 +214,19 @@ public class JRAntCompileTask extends JRBaseAntTask
 	}
 
 
+	/**
+	 * Sets the number of report design files compiled in parallel.
+	 * <p>
+	 * By default the files are compiled one at a time.
+	 * 
+	 * @param threads number of compilation threads
+	 */
+	public void setThreads(int threads)
+	{
+		this.threads = threads;
+	}
+
+
 	/**
 	 * Executes the task.
 	 */
@@ -218,7 +235,7 @@ public class JRAntCompileTask extends JRBaseAntTask
 	{
 		checkParameters();
 
-		reportFilesMap = new HashMap<String, String>();
+		reportFilesMap = new LinkedHashMap<String, String>();
 
 		if (tempdir != null)
 		{
@@ -384,33 +401,39 @@ public class JRAntCompileTask extends JRBaseAntTask
 		{
 			boolean isError = false;
 		
-			System.out.println("Compiling " + files.size() + " report design files.");
+			System.out.println("Compiling " + files.size() + " report design files"
+					+ (threads > 1 ? " using " + threads + " threads." : "."));
 
-			for (Iterator<String> it = files.iterator(); it.hasNext();)
-			{
-				String srcFileName = it.next();
-				String destFileName = reportFilesMap.get(srcFileName);
-				File destFileParent = new File(destFileName).getParentFile();
-				if(!destFileParent.exists())
+			BatchReportCompiler batchCompiler = 
+				new BatchReportCompiler(jasperReportsContext, threads)
 				{
-					destFileParent.mkdirs();
-				}
-
-				try
-				{
-					System.out.print("File : " + srcFileName + " ... ");
-					JasperCompileManager.getInstance(jasperReportsContext).compileToFile(srcFileName, destFileName);
-					System.out.println("OK.");
-				}
-				catch(JRException e)
+					@Override
+					protected void reportCompiled(BatchCompileResult result)
+					{
+						BatchReportCompiler.printResult(result);
+					}
+				};
+
+			long start = System.currentTimeMillis();
+			try
+			{
+				List<BatchCompileResult> results = batchCompiler.compileToFiles(reportFilesMap);
+				for (BatchCompileResult result : results)
 				{
-					System.out.println("FAILED.");
-					System.out.println("Error compiling report design : " + srcFileName);
-					e.printStackTrace(System.out);
-					isError = true;
+					if (!result.isSuccess())
+					{
+						isError = true;
+					}
 				}
 			}
+			catch (JRException e)
+			{
+				throw new BuildException(e);
+			}
 		
+			System.out.println("Compiled " + files.size() + " report design files in " 
+					+ (System.currentTimeMillis() - start) + " ms.");
+
 			if(isError)
 			{
 				throw new BuildException("Errors were encountered when compiling report designs.");
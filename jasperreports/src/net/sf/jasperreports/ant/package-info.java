@@ -75,6 +75,7 @@
 * <li><code>xmlvalidation</code>: Flag to indicate whether the XML validation should be performed on the source report template files (true by default).</li>
 * <li><code>tempdir</code>: Location to store the temporarily generated files (the current working directory by default).</li>
 * <li><code>keepjava</code>: Flag to indicate if the temporary Java files generated on the fly should be kept and not deleted automatically (false by default).</li>
+* <li><code>threads</code>: Number of report template files to compile in parallel (1 by default).</li>
 * </ul>
 * The report template compilation task supports nested <code>&lt;src&gt;</code> and <code>&lt;classpath&gt;</code> 
 * elements, just like the Ant <code>&lt;javac&gt;</code> built-in task.
@@ -0,0 +1,731 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRRuntimeException;
+
+/**
+ * Pool of JDBC connections created for a JDBC data adapter definition.
+ * <p>
+ * The connections handed out by the pool are returned to the pool when closed.
+ * Idle connections are closed when they have not been used for longer than the idle timeout,
+ * by a background thread shared by all pools, and are validated before being reused
+ * if a validation query is configured.
+ * When a connection is returned, pending transactions are rolled back and the auto commit,
+ * read only, transaction isolation, catalog and schema settings of the connection are restored
+ * to the values they had when the connection was created.
+ * <p>
+ * The statements, database metadata and result sets obtained from a pooled connection return
+ * the pooled connection, and not the physical one, from their <code>getConnection()</code>
+ * and <code>getStatement()</code> methods.
+ * 
+ * @see JdbcConnectionPools
+ */
+public class JdbcConnectionPool
+{
+	private static final Log log = LogFactory.getLog(JdbcConnectionPool.class);
+	
+	public static final String EXCEPTION_MESSAGE_KEY_POOL_CLOSED = "data.jdbc.pool.closed";
+	public static final String EXCEPTION_MESSAGE_KEY_POOL_INTERRUPTED = "data.jdbc.pool.interrupted";
+	public static final String EXCEPTION_MESSAGE_KEY_POOL_WAIT_TIMEOUT = "data.jdbc.pool.wait.timeout";
+
+	private static ScheduledThreadPoolExecutor evictionExecutor;
+
+	private final String url;
+	private final int maxSize;
+	private final long maxWait;
+	private final long idleTimeout;
+	private final String validationQuery;
+	
+	private final Deque<IdleConnection> idleConnections = new ArrayDeque<IdleConnection>();
+	private int activeCount;
+	private boolean closed;
+	private ScheduledFuture<?> evictionTask;
+	
+	private long createdCount;
+	private long borrowedCount;
+	private long waitCount;
+	private long timeoutCount;
+	private long validationFailureCount;
+	private long evictedCount;
+
+	/**
+	 * Creates a connection pool.
+	 * 
+	 * @param url the JDBC URL, used for logging and error messages
+	 * @param maxSize the maximum number of connections in use at the same time
+	 * @param maxWait the maximum number of milliseconds to wait for a connection when all are in use
+	 * @param idleTimeout the number of milliseconds after which an unused connection is closed, 
+	 * <code>0</code> if idle connections are not closed
+	 * @param validationQuery the query used to validate idle connections before reusing them, 
+	 * <code>null</code> if idle connections are not validated
+	 */
+	public JdbcConnectionPool(String url, int maxSize, long maxWait, long idleTimeout, String validationQuery)
+	{
+		this.url = url;
+		this.maxSize = maxSize;
+		this.maxWait = maxWait;
+		this.idleTimeout = idleTimeout;
+		this.validationQuery = validationQuery == null || validationQuery.trim().isEmpty() 
+				? null : validationQuery;
+		
+		if (idleTimeout > 0)
+		{
+			// checking often enough to close idle connections within 1.5 times the idle timeout
+			long evictionPeriod = Math.max(idleTimeout / 2, 1);
+			this.evictionTask = evictionExecutor().scheduleWithFixedDelay(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					evict();
+				}
+			}, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	protected static synchronized ScheduledThreadPoolExecutor evictionExecutor()
+	{
+		if (evictionExecutor == null)
+		{
+			evictionExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread thread = new Thread(r, "JasperReports JDBC connection pool eviction");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			evictionExecutor.setRemoveOnCancelPolicy(true);
+		}
+		return evictionExecutor;
+	}
+
+	/**
+	 * Returns a connection from the pool, creating a new one via the data adapter service if 
+	 * no idle connection is available.
+	 * 
+	 * @param dataAdapterService the service used to create new connections
+	 * @return a pooled connection, which is returned to the pool when closed
+	 * @throws SQLException
+	 */
+	public Connection getConnection(JdbcDataAdapterService dataAdapterService) throws SQLException
+	{
+		long deadline = System.currentTimeMillis() + maxWait;
+		boolean waited = false;
+		PhysicalConnection connection = null;
+		while (connection == null)
+		{
+			IdleConnection idle;
+			List<IdleConnection> evicted;
+			synchronized (this)
+			{
+				if (closed)
+				{
+					throw new JRRuntimeException(EXCEPTION_MESSAGE_KEY_POOL_CLOSED, new Object[]{url});
+				}
+				
+				evicted = evictIdleConnections();
+				idle = idleConnections.pollFirst();
+				if (idle == null && activeCount >= maxSize)
+				{
+					if (!waited)
+					{
+						waited = true;
+						++waitCount;
+					}
+					
+					long remaining = deadline - System.currentTimeMillis();
+					if (remaining <= 0)
+					{
+						++timeoutCount;
+						throw new JRRuntimeException(EXCEPTION_MESSAGE_KEY_POOL_WAIT_TIMEOUT, 
+								new Object[]{url, maxSize});
+					}
+					
+					try
+					{
+						wait(remaining);
+					}
+					catch (InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+						throw new JRRuntimeException(EXCEPTION_MESSAGE_KEY_POOL_INTERRUPTED, new Object[]{url}, e);
+					}
+					continue;
+				}
+				
+				// reserving the slot while the connection is validated or created
+				++activeCount;
+			}
+			
+			closeConnections(evicted);
+			
+			if (idle == null)
+			{
+				connection = createConnection(dataAdapterService);
+			}
+			else if (isValid(idle.connection.connection))
+			{
+				connection = idle.connection;
+			}
+			else
+			{
+				closeConnection(idle.connection.connection);
+				synchronized (this)
+				{
+					++validationFailureCount;
+					--activeCount;
+					notifyAll();
+				}
+			}
+		}
+		
+		synchronized (this)
+		{
+			++borrowedCount;
+		}
+		return pooledConnection(connection);
+	}
+
+	protected PhysicalConnection createConnection(JdbcDataAdapterService dataAdapterService) throws SQLException
+	{
+		PhysicalConnection connection = null;
+		try
+		{
+			Connection created = dataAdapterService.createConnection();
+			if (created != null)
+			{
+				connection = new PhysicalConnection(created, saveState(created));
+			}
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				if (connection == null)
+				{
+					--activeCount;
+					notifyAll();
+				}
+				else
+				{
+					++createdCount;
+				}
+			}
+		}
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("created pooled connection to " + url);
+		}
+		return connection;
+	}
+
+	protected boolean isValid(Connection connection)
+	{
+		try
+		{
+			if (connection.isClosed())
+			{
+				return false;
+			}
+			
+			if (validationQuery != null)
+			{
+				Statement statement = connection.createStatement();
+				try
+				{
+					statement.execute(validationQuery);
+				}
+				finally
+				{
+					statement.close();
+				}
+			}
+			return true;
+		}
+		catch (SQLException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("pooled connection to " + url + " failed validation", e);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Closes the connections that have been idle for longer than the idle timeout.
+	 * <p>
+	 * The method is called periodically by the eviction thread, and idle connections are also
+	 * evicted when a connection is requested.
+	 */
+	protected void evict()
+	{
+		List<IdleConnection> evicted;
+		synchronized (this)
+		{
+			if (closed)
+			{
+				return;
+			}
+			evicted = evictIdleConnections();
+		}
+		
+		if (evicted != null && log.isDebugEnabled())
+		{
+			log.debug("closing " + evicted.size() + " idle connections to " + url);
+		}
+		closeConnections(evicted);
+	}
+
+	protected List<IdleConnection> evictIdleConnections()
+	{
+		if (idleTimeout <= 0 || idleConnections.isEmpty())
+		{
+			return null;
+		}
+		
+		long evictTime = System.currentTimeMillis() - idleTimeout;
+		List<IdleConnection> evicted = null;
+		// the least recently used connections are at the end of the queue
+		for (Iterator<IdleConnection> it = idleConnections.descendingIterator(); it.hasNext();)
+		{
+			IdleConnection idle = it.next();
+			if (idle.releaseTime > evictTime)
+			{
+				break;
+			}
+			
+			it.remove();
+			++evictedCount;
+			if (evicted == null)
+			{
+				evicted = new ArrayList<IdleConnection>();
+			}
+			evicted.add(idle);
+		}
+		return evicted;
+	}
+
+	protected ConnectionState saveState(Connection connection)
+	{
+		ConnectionState state = new ConnectionState();
+		try
+		{
+			state.autoCommit = connection.getAutoCommit();
+			state.readOnly = connection.isReadOnly();
+			state.transactionIsolation = connection.getTransactionIsolation();
+			state.catalog = connection.getCatalog();
+			state.catalogSaved = true;
+		}
+		catch (SQLException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to read the state of the connection to " + url, e);
+			}
+		}
+		
+		try
+		{
+			state.schema = connection.getSchema();
+			state.schemaSaved = true;
+		}
+		catch (SQLException | AbstractMethodError e)
+		{
+			// schemas not supported by the driver
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to read the schema of the connection to " + url, e);
+			}
+		}
+		return state;
+	}
+
+	protected void release(PhysicalConnection connection)
+	{
+		boolean reusable = reset(connection);
+		boolean keep;
+		synchronized (this)
+		{
+			--activeCount;
+			keep = reusable && !closed;
+			if (keep)
+			{
+				idleConnections.addFirst(new IdleConnection(connection, System.currentTimeMillis()));
+			}
+			notifyAll();
+		}
+		
+		if (!keep)
+		{
+			closeConnection(connection.connection);
+		}
+	}
+
+	protected boolean reset(PhysicalConnection pooled)
+	{
+		Connection connection = pooled.connection;
+		ConnectionState state = pooled.state;
+		try
+		{
+			if (connection.isClosed())
+			{
+				return false;
+			}
+			
+			boolean autoCommit = connection.getAutoCommit();
+			if (!autoCommit)
+			{
+				connection.rollback();
+			}
+			if (state.autoCommit != null && state.autoCommit != autoCommit)
+			{
+				connection.setAutoCommit(state.autoCommit);
+			}
+			if (state.readOnly != null && state.readOnly != connection.isReadOnly())
+			{
+				connection.setReadOnly(state.readOnly);
+			}
+			if (state.transactionIsolation != null 
+					&& state.transactionIsolation != connection.getTransactionIsolation())
+			{
+				connection.setTransactionIsolation(state.transactionIsolation);
+			}
+			if (state.catalogSaved && !equals(state.catalog, connection.getCatalog()))
+			{
+				connection.setCatalog(state.catalog);
+			}
+			if (state.schemaSaved && !equals(state.schema, connection.getSchema()))
+			{
+				connection.setSchema(state.schema);
+			}
+			connection.clearWarnings();
+			return true;
+		}
+		catch (SQLException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to reset pooled connection to " + url, e);
+			}
+			return false;
+		}
+	}
+
+	private static boolean equals(String value1, String value2)
+	{
+		return value1 == null ? value2 == null : value1.equals(value2);
+	}
+
+	protected Connection pooledConnection(final PhysicalConnection pooled)
+	{
+		final Connection connection = pooled.connection;
+		return 
+			(Connection)Proxy.newProxyInstance(
+				JdbcConnectionPool.class.getClassLoader(), 
+				new Class<?>[]{Connection.class}, 
+				new InvocationHandler()
+				{
+					private volatile boolean released;
+					
+					@Override
+					public Object invoke(
+						Object proxy, 
+						Method method, 
+						Object[] args
+						) throws Throwable
+					{
+						String methodName = method.getName();
+						if ("close".equals(methodName) && method.getParameterTypes().length == 0)
+						{
+							if (!released)
+							{
+								released = true;
+								release(pooled);
+							}
+							return null;
+						}
+						if ("isClosed".equals(methodName) && method.getParameterTypes().length == 0)
+						{
+							return released || connection.isClosed();
+						}
+						if (method.getDeclaringClass() == Object.class)
+						{
+							if ("equals".equals(methodName))
+							{
+								return proxy == args[0];
+							}
+							if ("hashCode".equals(methodName))
+							{
+								return System.identityHashCode(proxy);
+							}
+							return method.invoke(this, args);
+						}
+						if (released)
+						{
+							throw new SQLException("Connection has been returned to the pool");
+						}
+						
+						Object result;
+						try
+						{
+							result = method.invoke(connection, args);
+						}
+						catch (InvocationTargetException e)
+						{
+							throw e.getCause();
+						}
+						
+						Class<?> returnType = method.getReturnType();
+						if (result != null 
+								&& (Statement.class.isAssignableFrom(returnType) || returnType == DatabaseMetaData.class))
+						{
+							// statements and metadata need to expose the pooled connection, not the physical one
+							result = connectionChild(result, returnType, (Connection) proxy, null);
+						}
+						return result;
+					}
+				}
+			);
+	}
+
+	/**
+	 * Wraps a statement, database metadata or result set obtained from a pooled connection.
+	 * 
+	 * @param child the object to wrap
+	 * @param type the interface of the object
+	 * @param pooledConnection the pooled connection
+	 * @param parent the wrapped statement that created a result set, or <code>null</code>
+	 * @return the wrapped object
+	 */
+	protected Object connectionChild(final Object child, Class<?> type, final Connection pooledConnection, 
+			final Object parent)
+	{
+		return 
+			Proxy.newProxyInstance(
+				JdbcConnectionPool.class.getClassLoader(), 
+				new Class<?>[]{type}, 
+				new InvocationHandler()
+				{
+					@Override
+					public Object invoke(
+						Object proxy, 
+						Method method, 
+						Object[] args
+						) throws Throwable
+					{
+						String methodName = method.getName();
+						if ("getConnection".equals(methodName) && method.getParameterTypes().length == 0)
+						{
+							return pooledConnection;
+						}
+						if (method.getDeclaringClass() == Object.class)
+						{
+							if ("equals".equals(methodName))
+							{
+								return proxy == args[0];
+							}
+							if ("hashCode".equals(methodName))
+							{
+								return System.identityHashCode(proxy);
+							}
+							return method.invoke(this, args);
+						}
+						
+						Object result;
+						try
+						{
+							result = method.invoke(child, args);
+						}
+						catch (InvocationTargetException e)
+						{
+							throw e.getCause();
+						}
+						
+						if (result == null)
+						{
+							return null;
+						}
+						
+						Class<?> returnType = method.getReturnType();
+						if (returnType == ResultSet.class)
+						{
+							// result sets need to expose the wrapped statement
+							return connectionChild(result, ResultSet.class, pooledConnection, 
+									child instanceof Statement ? proxy : null);
+						}
+						if ("getStatement".equals(methodName) && method.getParameterTypes().length == 0)
+						{
+							// the statement that created the result set, or an internal statement for metadata result sets
+							return parent != null ? parent : connectionChild(result, Statement.class, pooledConnection, null);
+						}
+						return result;
+					}
+				}
+			);
+	}
+
+	/**
+	 * Closes the idle connections and prevents further use of the pool.
+	 * Connections currently in use are closed when returned to the pool.
+	 */
+	public void close()
+	{
+		List<IdleConnection> idle;
+		synchronized (this)
+		{
+			closed = true;
+			idle = new ArrayList<IdleConnection>(idleConnections);
+			idleConnections.clear();
+			notifyAll();
+		}
+		
+		if (evictionTask != null)
+		{
+			evictionTask.cancel(false);
+		}
+		closeConnections(idle);
+	}
+
+	protected void closeConnections(List<IdleConnection> connections)
+	{
+		if (connections != null)
+		{
+			for (IdleConnection idle : connections)
+			{
+				closeConnection(idle.connection.connection);
+			}
+		}
+	}
+
+	protected void closeConnection(Connection connection)
+	{
+		try
+		{
+			connection.close();
+		}
+		catch (Exception e)
+		{
+			if (log.isErrorEnabled())
+			{
+				log.error("Error while closing the connection.", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the JDBC URL of the pooled connections.
+	 */
+	public String getUrl()
+	{
+		return url;
+	}
+
+	/**
+	 * Returns the maximum number of connections in use at the same time.
+	 */
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	/**
+	 * Returns a snapshot of the pool statistics.
+	 */
+	public synchronized JdbcConnectionPoolStatistics getStatistics()
+	{
+		return new JdbcConnectionPoolStatistics(activeCount, idleConnections.size(), 
+				createdCount, borrowedCount, waitCount, timeoutCount, 
+				validationFailureCount, evictedCount);
+	}
+
+	/**
+	 * A physical connection and the state it had when created.
+	 */
+	protected static class PhysicalConnection
+	{
+		protected final Connection connection;
+		protected final ConnectionState state;
+		
+		protected PhysicalConnection(Connection connection, ConnectionState state)
+		{
+			this.connection = connection;
+			this.state = state;
+		}
+	}
+
+	/**
+	 * Connection settings restored when a connection is returned to the pool,
+	 * <code>null</code> values and unsaved flags mark settings that could not be read.
+	 */
+	protected static class ConnectionState
+	{
+		protected Boolean autoCommit;
+		protected Boolean readOnly;
+		protected Integer transactionIsolation;
+		protected String catalog;
+		protected boolean catalogSaved;
+		protected String schema;
+		protected boolean schemaSaved;
+	}
+
+	protected static class IdleConnection
+	{
+		protected final PhysicalConnection connection;
+		protected final long releaseTime;
+		
+		protected IdleConnection(PhysicalConnection connection, long releaseTime)
+		{
+			this.connection = connection;
+			this.releaseTime = releaseTime;
+		}
+	}
+}
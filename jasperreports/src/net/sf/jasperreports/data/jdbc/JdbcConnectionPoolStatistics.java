@@ -0,0 +1,137 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.jdbc;
+
+import java.io.Serializable;
+
+import net.sf.jasperreports.engine.JRConstants;
+
+/**
+ * Snapshot of the statistics of a {@link JdbcConnectionPool}.
+ */
+public class JdbcConnectionPoolStatistics implements Serializable
+{
+	private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+
+	private final int activeCount;
+	private final int idleCount;
+	private final long createdCount;
+	private final long borrowedCount;
+	private final long waitCount;
+	private final long timeoutCount;
+	private final long validationFailureCount;
+	private final long evictedCount;
+
+	public JdbcConnectionPoolStatistics(int activeCount, int idleCount, 
+			long createdCount, long borrowedCount, long waitCount, long timeoutCount, 
+			long validationFailureCount, long evictedCount)
+	{
+		this.activeCount = activeCount;
+		this.idleCount = idleCount;
+		this.createdCount = createdCount;
+		this.borrowedCount = borrowedCount;
+		this.waitCount = waitCount;
+		this.timeoutCount = timeoutCount;
+		this.validationFailureCount = validationFailureCount;
+		this.evictedCount = evictedCount;
+	}
+
+	/**
+	 * Returns the number of connections currently in use.
+	 */
+	public int getActiveCount()
+	{
+		return activeCount;
+	}
+
+	/**
+	 * Returns the number of open connections waiting to be reused.
+	 */
+	public int getIdleCount()
+	{
+		return idleCount;
+	}
+
+	/**
+	 * Returns the number of physical connections created by the pool.
+	 */
+	public long getCreatedCount()
+	{
+		return createdCount;
+	}
+
+	/**
+	 * Returns the number of times a connection has been handed out by the pool.
+	 */
+	public long getBorrowedCount()
+	{
+		return borrowedCount;
+	}
+
+	/**
+	 * Returns the number of requests that had to wait for a connection to be returned to the pool.
+	 */
+	public long getWaitCount()
+	{
+		return waitCount;
+	}
+
+	/**
+	 * Returns the number of requests that failed after waiting for the maximum wait time.
+	 */
+	public long getTimeoutCount()
+	{
+		return timeoutCount;
+	}
+
+	/**
+	 * Returns the number of idle connections that were discarded after failing validation.
+	 */
+	public long getValidationFailureCount()
+	{
+		return validationFailureCount;
+	}
+
+	/**
+	 * Returns the number of idle connections closed after the idle timeout.
+	 */
+	public long getEvictedCount()
+	{
+		return evictedCount;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "{active: " + activeCount 
+				+ ", idle: " + idleCount
+				+ ", created: " + createdCount
+				+ ", borrowed: " + borrowedCount
+				+ ", waits: " + waitCount
+				+ ", timeouts: " + timeoutCount
+				+ ", validation failures: " + validationFailureCount
+				+ ", evicted: " + evictedCount
+				+ "}";
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.data.jdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+/**
+ * Registry of the {@link JdbcConnectionPool JDBC connection pools} used by JDBC data adapters
+ * in a JasperReports context.
+ * <p>
+ * A pool is created for each distinct JDBC data adapter definition, and is shared by all
+ * report fills that use an equivalent data adapter in the same context.
+ * 
+ * @see JdbcDataAdapterService
+ */
+public class JdbcConnectionPools
+{
+	private static final String CONTEXT_KEY_CONNECTION_POOLS = "net.sf.jasperreports.data.jdbc.connection.pools";
+
+	/**
+	 * Property that specifies whether connections created by JDBC data adapters are pooled and reused
+	 * across report fills.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_POOL_ENABLED = JRPropertiesUtil.PROPERTY_PREFIX + "data.jdbc.pool";
+
+	/**
+	 * Property that specifies the maximum number of connections of a JDBC data adapter
+	 * that can be in use at the same time.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = "10",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_POOL_MAX_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "data.jdbc.pool.max.size";
+
+	/**
+	 * Property that specifies the maximum number of milliseconds to wait for a pooled connection
+	 * when all connections are in use.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = "30000",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Long.class
+			)
+	public static final String PROPERTY_POOL_MAX_WAIT = JRPropertiesUtil.PROPERTY_PREFIX + "data.jdbc.pool.max.wait";
+
+	/**
+	 * Property that specifies the number of milliseconds after which an unused pooled connection is closed.
+	 * Idle connections are checked by a background thread, even when the pool is not used.
+	 * A value of <code>0</code> means that idle connections are kept open.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = "300000",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Long.class
+			)
+	public static final String PROPERTY_POOL_IDLE_TIMEOUT = JRPropertiesUtil.PROPERTY_PREFIX + "data.jdbc.pool.idle.timeout";
+
+	/**
+	 * Property that specifies a query used to check whether an idle pooled connection is still usable.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0
+			)
+	public static final String PROPERTY_POOL_VALIDATION_QUERY = JRPropertiesUtil.PROPERTY_PREFIX + "data.jdbc.pool.validation.query";
+
+	public static final int DEFAULT_MAX_SIZE = 10;
+	public static final long DEFAULT_MAX_WAIT = 30000;
+	public static final long DEFAULT_IDLE_TIMEOUT = 300000;
+
+	/**
+	 * Returns the connection pools registry of a JasperReports context, creating it if needed.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @return the connection pools registry
+	 */
+	public static JdbcConnectionPools getInstance(JasperReportsContext jasperReportsContext)
+	{
+		JdbcConnectionPools pools = (JdbcConnectionPools) jasperReportsContext.getValue(CONTEXT_KEY_CONNECTION_POOLS);
+		if (pools == null)
+		{
+			// the pools hold connections, we do need to avoid creating more than one registry per context
+			synchronized (JdbcConnectionPools.class)
+			{
+				pools = (JdbcConnectionPools) jasperReportsContext.getValue(CONTEXT_KEY_CONNECTION_POOLS);
+				if (pools == null)
+				{
+					pools = new JdbcConnectionPools(jasperReportsContext);
+					jasperReportsContext.setValue(CONTEXT_KEY_CONNECTION_POOLS, pools);
+				}
+			}
+		}
+		return pools;
+	}
+
+	/**
+	 * Determines whether JDBC data adapter connections are pooled in a JasperReports context.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @see #PROPERTY_POOL_ENABLED
+	 */
+	public static boolean isPoolingEnabled(JasperReportsContext jasperReportsContext)
+	{
+		return JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(PROPERTY_POOL_ENABLED, false);
+	}
+
+	private final JasperReportsContext jasperReportsContext;
+	private final Map<List<Object>, JdbcConnectionPool> pools = new ConcurrentHashMap<List<Object>, JdbcConnectionPool>();
+
+	protected JdbcConnectionPools(JasperReportsContext jasperReportsContext)
+	{
+		this.jasperReportsContext = jasperReportsContext;
+	}
+
+	/**
+	 * Returns the pool for a JDBC data adapter definition, creating it if needed.
+	 * 
+	 * @param dataAdapter the data adapter
+	 * @return the connection pool
+	 */
+	public JdbcConnectionPool getPool(JdbcDataAdapter dataAdapter)
+	{
+		List<Object> key = poolKey(dataAdapter);
+		JdbcConnectionPool pool = pools.get(key);
+		if (pool == null)
+		{
+			synchronized (pools)
+			{
+				pool = pools.get(key);
+				if (pool == null)
+				{
+					pool = createPool(dataAdapter);
+					pools.put(key, pool);
+				}
+			}
+		}
+		return pool;
+	}
+
+	protected List<Object> poolKey(JdbcDataAdapter dataAdapter)
+	{
+		Map<String, String> properties = dataAdapter.getProperties();
+		List<String> classpath = dataAdapter.getClasspath();
+		return Arrays.<Object>asList(
+				dataAdapter.getDriver(),
+				dataAdapter.getUrl(),
+				dataAdapter.getUsername(),
+				dataAdapter.getPassword(),
+				properties == null ? null : new HashMap<String, String>(properties),
+				classpath == null ? null : new ArrayList<String>(classpath)
+				);
+	}
+
+	protected JdbcConnectionPool createPool(JdbcDataAdapter dataAdapter)
+	{
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(jasperReportsContext);
+		int maxSize = propertiesUtil.getIntegerProperty(PROPERTY_POOL_MAX_SIZE, DEFAULT_MAX_SIZE);
+		long maxWait = propertiesUtil.getLongProperty(PROPERTY_POOL_MAX_WAIT, DEFAULT_MAX_WAIT);
+		long idleTimeout = propertiesUtil.getLongProperty(PROPERTY_POOL_IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+		String validationQuery = propertiesUtil.getProperty(PROPERTY_POOL_VALIDATION_QUERY);
+		return new JdbcConnectionPool(dataAdapter.getUrl(), maxSize, maxWait, idleTimeout, validationQuery);
+	}
+
+	/**
+	 * Returns the connection pools created so far, e.g. for monitoring their statistics.
+	 * 
+	 * @see JdbcConnectionPool#getStatistics()
+	 */
+	public List<JdbcConnectionPool> getPools()
+	{
+		return new ArrayList<JdbcConnectionPool>(pools.values());
+	}
+
+	/**
+	 * Closes and removes all the connection pools.
+	 */
+	public void close()
+	{
+		synchronized (pools)
+		{
+			for (JdbcConnectionPool pool : pools.values())
+			{
+				pool.close();
+			}
+			pools.clear();
+		}
+	}
+}
@@ -135,10 +135,35 @@ public class JdbcDataAdapterService extends AbstractClasspathAwareDataAdapterSer
 		parameters.put(JRParameter.REPORT_CONNECTION, connection);
 	}
 	
+	/**
+	 * Returns a connection for the data adapter.
+	 * <p>
+	 * If {@link JdbcConnectionPools#PROPERTY_POOL_ENABLED pooling} is enabled, the connection
+	 * is obtained from the pool associated with the data adapter definition and is returned
+	 * to the pool when closed.
+	 */
 	public Connection getConnection() throws SQLException{
+		JdbcDataAdapter jdbcDataAdapter = getJdbcDataAdapter();
+		if (jdbcDataAdapter != null 
+				&& JdbcConnectionPools.isPoolingEnabled(getJasperReportsContext()))
+		{
+			JdbcConnectionPool pool = JdbcConnectionPools.getInstance(getJasperReportsContext()).getPool(jdbcDataAdapter);
+			connection = pool.getConnection(this);
+			return connection;
+		}
+		
+		connection = createConnection();
+		return connection;
+	}
+	
+	/**
+	 * Creates a new physical connection for the data adapter.
+	 */
+	public Connection createConnection() throws SQLException{
 		JdbcDataAdapter jdbcDataAdapter = getJdbcDataAdapter();
 		if (jdbcDataAdapter != null) 
 		{
+			Connection connection;
 			ClassLoader oldThreadClassLoader = Thread.currentThread().getContextClassLoader();
 
 			try 
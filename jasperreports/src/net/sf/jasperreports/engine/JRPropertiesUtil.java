@@ -754,6 +754,20 @@ public final class JRPropertiesUtil
 		return asLong(getProperty(key));
 	}
 
+	/**
+	 * Returns the value of a property as a long.
+	 * 
+	 * @param key the key
+	 * @param defaultValue the default value used if the property is not found
+	 * @return the property value
+	 */
+	public long getLongProperty(String key, long defaultValue)
+	{
+		String value = getProperty(key);
+		
+		return value == null || value.trim().length() == 0 ? defaultValue : asLong(value);
+	}
+
 	/**
 	 * Returns the value of a property as a long, looking first in the supplied properties map
 	 * and then in the system properties.
@@ -31,6 +31,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.Collection;
 
 import net.sf.jasperreports.crosstabs.JRCrosstab;
+import net.sf.jasperreports.engine.design.CompiledReportCache;
 import net.sf.jasperreports.engine.design.JRCompiler;
 import net.sf.jasperreports.engine.design.JRJavacCompiler;
 import net.sf.jasperreports.engine.design.JRJdk13Compiler;
@@ -349,13 +350,39 @@ public final class JasperCompileManager
 	 * Compiles the report design object received as parameter and
 	 * returns the generated compiled report design object.
 	 *
+	 * <p>
+	 * If the {@link CompiledReportCache#PROPERTY_CACHE_DIR} property is set, the compiled report
+	 * is looked up in the cache first, and stored in the cache after compiling.
+	 * </p>
+	 * 
 	 * @param jasperDesign source report design object
 	 * @return compiled report design object 
 	 * @see net.sf.jasperreports.engine.design.JRCompiler
+	 * @see CompiledReportCache
 	 */
 	public JasperReport compile(JasperDesign jasperDesign) throws JRException
 	{
-		return getCompiler(jasperDesign).compileReport(jasperDesign);
+		JRCompiler compiler = getCompiler(jasperDesign);
+
+		CompiledReportCache cache = CompiledReportCache.getInstance(jasperReportsContext);
+		if (cache == null)
+		{
+			return compiler.compileReport(jasperDesign);
+		}
+
+		String cacheKey = cache.getKey(jasperDesign, compiler);
+		if (cacheKey == null)
+		{
+			return compiler.compileReport(jasperDesign);
+		}
+		
+		JasperReport jasperReport = cache.get(cacheKey);
+		if (jasperReport == null)
+		{
+			jasperReport = compiler.compileReport(jasperDesign);
+			cache.put(cacheKey, jasperReport);
+		}
+		return jasperReport;
 	}
 
 
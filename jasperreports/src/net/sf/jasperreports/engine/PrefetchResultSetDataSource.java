@@ -0,0 +1,437 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+
+/**
+ * Result set data source that reads the rows on a background thread, ahead of the report filling.
+ * <p>
+ * The values of the fields are read from the result set by a producer thread in blocks of rows,
+ * using the same conversions as {@link JRResultSetDataSource}.
+ * The blocks are kept in a bounded ring: the producer waits when all the blocks contain rows
+ * not yet consumed by the filling thread, and reuses blocks once their rows have been consumed.
+ * This way the database round trips done while advancing the result set overlap with the filling.
+ * <p>
+ * The fields for which values are read need to be known when the data source is created,
+ * and only these fields can be used with the data source.
+ * The data source should be {@link #close() closed} after use in order to stop the producer thread,
+ * and it can be {@link #cancel() canceled} from any thread.
+ * The producer thread is not interrupted, as that could break the connection while the driver
+ * is reading from the database; if the producer is reading rows when the data source is stopped,
+ * the statement of the result set is canceled.
+ *
+ * @see net.sf.jasperreports.engine.query.JRJdbcQueryExecuterFactory#PROPERTY_JDBC_PREFETCH
+ */
+public class PrefetchResultSetDataSource extends JRResultSetDataSource
+{
+	private static final Log log = LogFactory.getLog(PrefetchResultSetDataSource.class);
+
+	public static final String EXCEPTION_MESSAGE_KEY_PREFETCH_CANCELED = "data.result.set.prefetch.canceled";
+	public static final String EXCEPTION_MESSAGE_KEY_PREFETCH_INTERRUPTED = "data.result.set.prefetch.interrupted";
+	public static final String EXCEPTION_MESSAGE_KEY_PREFETCH_UNKNOWN_FIELD = "data.result.set.prefetch.unknown.field";
+
+	/**
+	 * The default number of rows in a block.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 256;
+
+	/**
+	 * The default number of blocks.
+	 */
+	public static final int DEFAULT_BLOCK_COUNT = 4;
+
+	private static final AtomicInteger prefetchCounter = new AtomicInteger();
+
+	private static final RowBlock CANCELED_BLOCK = new RowBlock(0, 0);
+	private static final RowBlock STOPPED_BLOCK = new RowBlock(0, 0);
+
+	private final ResultSet prefetchedResultSet;
+	private final JRField[] fields;
+	private final Map<String, Integer> fieldIndexes;
+	private final int blockSize;
+	private final BlockingQueue<RowBlock> freeBlocks;
+	private final BlockingQueue<RowBlock> filledBlocks;
+
+	private Thread producerThread;
+	private volatile boolean stopped;
+	private volatile boolean reading;
+
+	private RowBlock currentBlock;
+	private int currentRow;
+
+	/**
+	 * Creates a data source using the default block size and count.
+	 *
+	 * @param jasperReportsContext the JasperReports context
+	 * @param resultSet the result set
+	 * @param fields the fields for which values are read
+	 */
+	public PrefetchResultSetDataSource(JasperReportsContext jasperReportsContext, ResultSet resultSet,
+			JRField[] fields)
+	{
+		this(jasperReportsContext, resultSet, fields, DEFAULT_BLOCK_SIZE, DEFAULT_BLOCK_COUNT);
+	}
+
+	/**
+	 * Creates a data source.
+	 *
+	 * @param jasperReportsContext the JasperReports context
+	 * @param resultSet the result set
+	 * @param fields the fields for which values are read
+	 * @param blockSize the number of rows in a block
+	 * @param blockCount the number of blocks, i.e. the maximum number of blocks read ahead
+	 */
+	public PrefetchResultSetDataSource(JasperReportsContext jasperReportsContext, ResultSet resultSet,
+			JRField[] fields, int blockSize, int blockCount)
+	{
+		super(jasperReportsContext, resultSet);
+
+		this.prefetchedResultSet = resultSet;
+		this.fields = fields == null ? new JRField[0] : fields;
+		this.fieldIndexes = new HashMap<String, Integer>();
+		for (int i = 0; i < this.fields.length; i++)
+		{
+			fieldIndexes.put(this.fields[i].getName(), i);
+		}
+
+		this.blockSize = Math.max(blockSize, 1);
+		int blocks = Math.max(blockCount, 1);
+		// leaving room for the stop marker
+		this.freeBlocks = new ArrayBlockingQueue<RowBlock>(blocks + 1);
+		for (int i = 0; i < blocks; i++)
+		{
+			freeBlocks.add(new RowBlock(this.fields.length, this.blockSize));
+		}
+		// leaving room for the cancel marker
+		this.filledBlocks = new ArrayBlockingQueue<RowBlock>(blocks + 1);
+	}
+
+	/**
+	 * Starts reading rows on the producer thread.
+	 * <p>
+	 * The method is called on the first {@link #next()} call,
+	 * it can also be called explicitly after the data source has been configured.
+	 */
+	public synchronized void start()
+	{
+		if (producerThread == null && !stopped)
+		{
+			producerThread = new Thread(new Producer(), "JasperReports result set prefetch #" + prefetchCounter.incrementAndGet());
+			producerThread.setDaemon(true);
+			producerThread.start();
+		}
+	}
+
+	@Override
+	public boolean next() throws JRException
+	{
+		if (producerThread == null)
+		{
+			start();
+		}
+
+		while (true)
+		{
+			if (stopped)
+			{
+				throw 
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_PREFETCH_CANCELED,
+						(Object[]) null);
+			}
+
+			if (currentBlock != null)
+			{
+				if (currentRow + 1 < currentBlock.rowCount)
+				{
+					++currentRow;
+					return true;
+				}
+
+				if (currentBlock.error != null)
+				{
+					// the rows read before the error have been consumed
+					Exception error = currentBlock.error;
+					currentBlock.error = null;
+					if (error instanceof JRException)
+					{
+						throw (JRException) error;
+					}
+					throw (RuntimeException) error;
+				}
+
+				if (currentBlock.last)
+				{
+					return false;
+				}
+
+				// the block can be reused by the producer
+				freeBlocks.add(currentBlock);
+				currentBlock = null;
+			}
+
+			currentBlock = takeBlock();
+			currentRow = -1;
+		}
+	}
+
+	protected RowBlock takeBlock() throws JRException
+	{
+		RowBlock block;
+		try
+		{
+			block = filledBlocks.take();
+		}
+		catch (InterruptedException e)
+		{
+			cancel();
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_PREFETCH_INTERRUPTED,
+					null,
+					e);
+		}
+
+		if (block == CANCELED_BLOCK)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_PREFETCH_CANCELED,
+					(Object[]) null);
+		}
+		return block;
+	}
+
+	@Override
+	public Object getFieldValue(JRField field) throws JRException
+	{
+		if (field == null || currentBlock == null || currentRow >= currentBlock.rowCount)
+		{
+			return null;
+		}
+
+		Integer fieldIndex = fieldIndexes.get(field.getName());
+		if (fieldIndex == null)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_PREFETCH_UNKNOWN_FIELD,
+					new Object[]{field.getName()});
+		}
+		return currentBlock.values[fieldIndex][currentRow];
+	}
+
+	/**
+	 * Stops reading rows, the filling thread receives an exception on the next {@link #next()} call.
+	 * <p>
+	 * The method can be called from any thread.
+	 */
+	public void cancel()
+	{
+		stopProducer();
+
+		// waking up the filling thread if waiting for rows
+		filledBlocks.offer(CANCELED_BLOCK);
+	}
+
+	/**
+	 * Stops the producer thread and waits for it to end.
+	 * <p>
+	 * The result set needs to be closed after calling this method.
+	 */
+	public void close()
+	{
+		stopProducer();
+
+		Thread thread;
+		synchronized (this)
+		{
+			thread = producerThread;
+		}
+
+		if (thread != null)
+		{
+			try
+			{
+				// waiting for the producer to stop using the result set
+				thread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	protected void stopProducer()
+	{
+		stopped = true;
+
+		// waking up the producer if waiting for a free block
+		freeBlocks.offer(STOPPED_BLOCK);
+
+		if (reading)
+		{
+			cancelStatement();
+		}
+	}
+
+	/**
+	 * Cancels the statement of the result set, so that the producer does not wait
+	 * for the database to return the rows it is reading.
+	 */
+	protected void cancelStatement()
+	{
+		try
+		{
+			Statement statement = prefetchedResultSet.getStatement();
+			if (statement != null)
+			{
+				statement.cancel();
+			}
+		}
+		catch (SQLException | RuntimeException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("error canceling the prefetch statement", e);
+			}
+		}
+	}
+
+	protected boolean readNext() throws JRException
+	{
+		return super.next();
+	}
+
+	protected Object readValue(JRField field) throws JRException
+	{
+		return super.getFieldValue(field);
+	}
+
+	protected void produce() throws InterruptedException
+	{
+		boolean hasNext = true;
+		while (hasNext && !stopped)
+		{
+			RowBlock block = freeBlocks.take();
+			if (block == STOPPED_BLOCK)
+			{
+				return;
+			}
+
+			block.rowCount = 0;
+			// checking the stopped flag after setting the reading flag, stopProducer() does it the other way around
+			reading = true;
+			try
+			{
+				while (block.rowCount < blockSize && !stopped && (hasNext = readNext()))
+				{
+					for (int i = 0; i < fields.length; i++)
+					{
+						block.values[i][block.rowCount] = readValue(fields[i]);
+					}
+					++block.rowCount;
+				}
+			}
+			catch (JRException | RuntimeException e)
+			{
+				if (stopped)
+				{
+					// the result set might have been closed, the exception is expected
+					if (log.isDebugEnabled())
+					{
+						log.debug("error reading rows after the prefetch has stopped", e);
+					}
+					return;
+				}
+
+				block.error = e;
+				hasNext = false;
+			}
+			finally
+			{
+				reading = false;
+			}
+
+			block.last = !hasNext;
+			if (!stopped)
+			{
+				filledBlocks.add(block);
+			}
+		}
+	}
+
+	protected class Producer implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("starting result set prefetch on " + Thread.currentThread().getName());
+			}
+
+			try
+			{
+				produce();
+			}
+			catch (InterruptedException e)
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("result set prefetch interrupted");
+				}
+			}
+		}
+	}
+
+	/**
+	 * A block of rows, holding the values of each field in an array.
+	 */
+	protected static class RowBlock
+	{
+		protected final Object[][] values;
+		protected int rowCount;
+		protected boolean last;
+		protected Exception error;
+
+		protected RowBlock(int fieldCount, int size)
+		{
+			values = new Object[fieldCount][size];
+		}
+	}
+}
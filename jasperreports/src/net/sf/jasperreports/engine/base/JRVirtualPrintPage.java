@@ -144,6 +144,7 @@ public class JRVirtualPrintPage implements JRPrintPage, Serializable
 	@Override
 	public List<JRPrintElement> getElements()
 	{
+		elements.getVirtualizationContext().pageAccessed(this);
 		return elements;
 	}
 
@@ -262,6 +263,14 @@ public class JRVirtualPrintPage implements JRPrintPage, Serializable
 		elements.dispose();
 	}
 	
+	/**
+	 * Makes sure that the page elements are in memory, paging them in if necessary.
+	 */
+	public void ensureVirtualData()
+	{
+		elements.ensureVirtualData();
+	}
+	
 	public JRVirtualizationContext getVirtualizationContext()
 	{
 		return elements.getVirtualizationContext();
@@ -169,6 +169,24 @@ public class VirtualizableElementList extends AbstractList<JRPrintElement> imple
 		store.dispose();
 	}
 
+	/**
+	 * Makes sure that the data of the elements is in memory, paging it in if necessary.
+	 */
+	public synchronized void ensureVirtualData()
+	{
+		if (store instanceof ElementsBlock)
+		{
+			((ElementsBlock) store).ensureVirtualData();
+		}
+		else if (store instanceof ElementsBlockList)
+		{
+			for (ElementsBlock block : ((ElementsBlockList) store).getBlocks())
+			{
+				block.ensureVirtualData();
+			}
+		}
+	}
+
 	public JRVirtualizationContext getVirtualizationContext()
 	{
 		return virtualizationContext;
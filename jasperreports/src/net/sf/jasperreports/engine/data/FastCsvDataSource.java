@@ -0,0 +1,1207 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.text.DateFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.FormatUtils;
+import net.sf.jasperreports.repo.RepositoryContext;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import net.sf.jasperreports.repo.SimpleRepositoryContext;
+
+
+/**
+ * CSV data source implementation optimized for large CSV files.
+ * <p>
+ * The data source accepts the same CSV syntax and configuration as {@link JRCsvDataSource},
+ * but reads the data in large character blocks and tokenizes each record in place.
+ * The records are not copied into separate strings, the data source only keeps the positions
+ * of the fields inside the character buffer, and field values are created when requested
+ * via {@link #getFieldValue(JRField)}. Therefore columns that are not used by the report
+ * do not produce any objects.
+ * <p>
+ * Files and streams are read via NIO channels, and files can optionally be
+ * {@link #setMemoryMapped(boolean) memory mapped}.
+ * <p>
+ * Plain decimal numbers (when no number format or pattern is set and the locale uses the usual
+ * decimal symbols) and dates having numeric patterns such as <code>yyyy-MM-dd HH:mm:ss</code>
+ * are parsed directly from the character buffer.
+ * Other values are converted in the same way as by {@link JRCsvDataSource}.
+ *
+ * @see JRCsvDataSource
+ */
+public class FastCsvDataSource extends JRCsvDataSource
+{
+
+	/**
+	 * The initial size of the character buffer.
+	 * The buffer grows when it is too small for a single record.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 17;
+
+	private static final int BYTE_BUFFER_SIZE = 1 << 16;
+	private static final int MAPPED_REGION_SIZE = 1 << 26;
+	private static final int MIN_READ_SIZE = 16;
+
+	private static final int FIELD_QUOTED = 1;
+	private static final int FIELD_ESCAPED_QUOTES = 2;
+
+	private static final int MORE_DATA = -1;
+
+	private static final int MAX_FAST_DIGITS = 18;
+	private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+	private static final double[] EXACT_POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private Reader reader;
+	private ReadableByteChannel channel;
+	private FileChannel fileChannel;
+	private Charset charset;
+	private boolean toClose;
+	private boolean memoryMapped;
+
+	private CharsetDecoder decoder;
+	private ByteBuffer byteBuffer;
+	private long mappedPosition;
+	private boolean inputEnded;
+	private boolean decoderFlushed;
+
+	private char[] buffer;
+	private int limit;
+	private boolean endOfInput;
+	private int recordStart;
+	private int nextRecordStart;
+
+	private char fieldDelimiter;
+	private char[] recordDelimiter;
+
+	private int fieldCount;
+	private int[] fieldStarts = new int[16];
+	private int[] fieldEnds = new int[16];
+	private int[] fieldFlags = new int[16];
+
+	private boolean fastNumbers;
+	private NumericDateParser dateParser;
+	private boolean dateParserSqlTypes;
+
+	/**
+	 * Creates a datasource instance from a CSV data input stream, using the default encoding.
+	 * @param stream an input stream containing CSV data
+	 */
+	public FastCsvDataSource(InputStream stream)
+	{
+		this(Channels.newChannel(stream), Charset.defaultCharset());
+	}
+
+	/**
+	 * Creates a datasource instance from a CSV data input stream, using the specified encoding.
+	 * @param stream an input stream containing CSV data
+	 * @param charsetName the encoding to use
+	 */
+	public FastCsvDataSource(InputStream stream, String charsetName) throws UnsupportedEncodingException
+	{
+		this(Channels.newChannel(stream), toCharset(charsetName));
+	}
+
+	/**
+	 * Creates a datasource instance that reads CSV data from a given URL, using the default encoding.
+	 * @param url an URL from where to read CSV data
+	 */
+	public FastCsvDataSource(URL url) throws IOException
+	{
+		this(url.openStream());
+
+		toClose = true;
+	}
+
+	/**
+	 * Creates a datasource instance that reads CSV data from a given URL, using the specified encoding.
+	 * @param url an URL from where to read CSV data
+	 * @param charsetName the encoding to use
+	 */
+	public FastCsvDataSource(URL url, String charsetName) throws IOException
+	{
+		this(url.openStream(), charsetName);
+
+		toClose = true;
+	}
+
+	/**
+	 * Creates a datasource instance from a CSV file, using the default encoding.
+	 * @param file a file containing CSV data
+	 */
+	public FastCsvDataSource(File file) throws FileNotFoundException
+	{
+		this(new FileInputStream(file).getChannel(), Charset.defaultCharset());
+
+		toClose = true;
+	}
+
+	/**
+	 * Creates a datasource instance from a CSV file, using the specified encoding.
+	 * @param file a file containing CSV data
+	 * @param charsetName the encoding to use
+	 */
+	public FastCsvDataSource(File file, String charsetName) throws FileNotFoundException, UnsupportedEncodingException
+	{
+		this(new FileInputStream(file).getChannel(), toCharset(charsetName));
+
+		toClose = true;
+	}
+
+	/**
+	 * Creates a datasource instance that reads CSV data from a given location, using the default encoding.
+	 * @param jasperReportsContext the JasperReportsContext
+	 * @param location a String representing CSV data source
+	 */
+	public FastCsvDataSource(JasperReportsContext jasperReportsContext, String location) throws JRException
+	{
+		this(SimpleRepositoryContext.of(jasperReportsContext), location);
+	}
+
+	public FastCsvDataSource(RepositoryContext context, String location) throws JRException
+	{
+		this(RepositoryUtil.getInstance(context).getInputStreamFromLocation(location));
+
+		toClose = true;
+	}
+
+	/**
+	 * Creates a datasource instance that reads CSV data from a given location, using the specified encoding.
+	 * @param jasperReportsContext the JasperReportsContext
+	 * @param location a String representing CSV data source
+	 * @param charsetName the encoding to use
+	 */
+	public FastCsvDataSource(JasperReportsContext jasperReportsContext, String location, String charsetName) throws JRException, UnsupportedEncodingException
+	{
+		this(SimpleRepositoryContext.of(jasperReportsContext), location, charsetName);
+	}
+
+	public FastCsvDataSource(RepositoryContext context, String location, String charsetName) throws JRException, UnsupportedEncodingException
+	{
+		this(RepositoryUtil.getInstance(context).getInputStreamFromLocation(location), charsetName);
+
+		toClose = true;
+	}
+
+	/**
+	 * @see #FastCsvDataSource(JasperReportsContext, String)
+	 */
+	public FastCsvDataSource(String location) throws JRException
+	{
+		this(DefaultJasperReportsContext.getInstance(), location);
+	}
+
+	/**
+	 * @see #FastCsvDataSource(JasperReportsContext, String, String)
+	 */
+	public FastCsvDataSource(String location, String charsetName) throws JRException, UnsupportedEncodingException
+	{
+		this(DefaultJasperReportsContext.getInstance(), location, charsetName);
+	}
+
+	/**
+	 * Creates a datasource instance from a CSV data reader.
+	 * @param reader a <tt>Reader</tt> instance, for reading the stream
+	 */
+	public FastCsvDataSource(Reader reader)
+	{
+		this.reader = reader;
+	}
+
+	/**
+	 * Creates a datasource instance that reads CSV data from a channel.
+	 * @param channel the channel from which to read CSV data
+	 * @param charset the encoding to use
+	 */
+	public FastCsvDataSource(ReadableByteChannel channel, Charset charset)
+	{
+		this.channel = channel;
+		this.charset = charset;
+		if (channel instanceof FileChannel)
+		{
+			this.fileChannel = (FileChannel) channel;
+		}
+	}
+
+	private static Charset toCharset(String charsetName) throws UnsupportedEncodingException
+	{
+		try
+		{
+			return Charset.forName(charsetName);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new UnsupportedEncodingException(charsetName);
+		}
+	}
+
+	/**
+	 * Returns whether the CSV file is memory mapped.
+	 */
+	public boolean isMemoryMapped()
+	{
+		return memoryMapped;
+	}
+
+	/**
+	 * Specifies whether the CSV file should be read via memory mapping instead of
+	 * regular channel reads.
+	 * The setting only applies when the data source reads from a file.
+	 */
+	public void setMemoryMapped(boolean memoryMapped)
+	{
+		if (processingStarted)
+		{
+			throw
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_CANNOT_MODIFY_PROPERTIES_AFTER_START,
+					(Object[])null);
+		}
+		this.memoryMapped = memoryMapped;
+	}
+
+	@Override
+	public boolean next() throws JRException
+	{
+		try
+		{
+			if (!processingStarted)
+			{
+				start();
+
+				if (isUseFirstRowAsHeader())
+				{
+					List<String> headerValues = new ArrayList<String>();
+					if (readRecord())
+					{
+						for (int i = 0; i < fieldCount; i++)
+						{
+							headerValues.add(getFieldString(i));
+						}
+						while (headerValues.size() < getColumnNames().size())
+						{
+							headerValues.add("");
+						}
+					}
+					assignColumnNames(headerValues);
+				}
+				processingStarted = true;
+			}
+
+			return readRecord();
+		}
+		catch (IOException e)
+		{
+			throw new JRException(e);
+		}
+	}
+
+	protected void start()
+	{
+		fieldDelimiter = getFieldDelimiter();
+		recordDelimiter = getRecordDelimiter().toCharArray();
+		buffer = new char[DEFAULT_BUFFER_SIZE];
+
+		if (reader == null)
+		{
+			decoder = charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			if (memoryMapped && fileChannel != null)
+			{
+				// the first region is mapped on the first read
+				byteBuffer = ByteBuffer.allocate(0);
+			}
+			else
+			{
+				memoryMapped = false;
+				byteBuffer = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+				byteBuffer.flip();
+			}
+		}
+
+		Locale locale = getLocale() == null ? Locale.getDefault() : getLocale();
+		DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+		fastNumbers = getNumberFormat() == null && getNumberPattern() == null
+				&& symbols.getDecimalSeparator() == '.' && symbols.getMinusSign() == '-'
+				&& symbols.getZeroDigit() == '0';
+
+		DateFormat dateFormat = getDateFormat();
+		if (dateFormat != null)
+		{
+			if (dateFormat instanceof SimpleDateFormat)
+			{
+				dateParser = NumericDateParser.create((SimpleDateFormat) dateFormat);
+				dateParserSqlTypes = true;
+			}
+		}
+		else if (getDatePattern() != null)
+		{
+			// same as the java.util.Date converter used by convertStringValue()
+			SimpleDateFormat patternFormat = new SimpleDateFormat(getDatePattern(), locale);
+			if (getTimeZone() != null)
+			{
+				patternFormat.setTimeZone(getTimeZone());
+			}
+			patternFormat.setLenient(false);
+			dateParser = NumericDateParser.create(patternFormat);
+			dateParserSqlTypes = false;
+		}
+	}
+
+	/**
+	 * Tokenizes the next record.
+	 *
+	 * @return whether a record was found
+	 */
+	protected boolean readRecord() throws IOException, JRException
+	{
+		recordStart = nextRecordStart;
+		while (true)
+		{
+			if (recordStart >= limit && endOfInput)
+			{
+				fieldCount = 0;
+				return false;
+			}
+
+			if (scanRecord() != MORE_DATA)
+			{
+				return true;
+			}
+
+			// the record is not complete in the buffer, reading more data and scanning again
+			fill();
+		}
+	}
+
+	protected void fill() throws IOException
+	{
+		if (recordStart > 0)
+		{
+			// moving the current record at the start of the buffer
+			System.arraycopy(buffer, recordStart, buffer, 0, limit - recordStart);
+			limit -= recordStart;
+			recordStart = 0;
+		}
+
+		if (buffer.length - limit < MIN_READ_SIZE)
+		{
+			// the record does not fit in the buffer
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+
+		int read = read(buffer, limit, buffer.length - limit);
+		if (read < 0)
+		{
+			endOfInput = true;
+		}
+		else
+		{
+			limit += read;
+		}
+	}
+
+	protected int read(char[] chars, int offset, int length) throws IOException
+	{
+		if (reader != null)
+		{
+			int read = 0;
+			while (read == 0)
+			{
+				read = reader.read(chars, offset, length);
+			}
+			return read;
+		}
+
+		CharBuffer out = CharBuffer.wrap(chars, offset, length);
+		while (out.position() == offset && !decoderFlushed)
+		{
+			if (inputEnded)
+			{
+				if (decoder.decode(byteBuffer, out, true).isOverflow()
+						|| decoder.flush(out).isOverflow())
+				{
+					break;
+				}
+				decoderFlushed = true;
+			}
+			else
+			{
+				CoderResult result = decoder.decode(byteBuffer, out, false);
+				if (result.isOverflow())
+				{
+					break;
+				}
+
+				// all the available bytes have been decoded
+				inputEnded = !readBytes();
+			}
+		}
+
+		int count = out.position() - offset;
+		return count == 0 && decoderFlushed ? -1 : count;
+	}
+
+	protected boolean readBytes() throws IOException
+	{
+		if (memoryMapped)
+		{
+			// mapping the next region, starting with the bytes not yet decoded
+			long position = mappedPosition + byteBuffer.position();
+			long remaining = fileChannel.size() - position;
+			if (remaining <= byteBuffer.remaining())
+			{
+				return false;
+			}
+
+			mappedPosition = position;
+			byteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, position,
+					Math.min(remaining, MAPPED_REGION_SIZE));
+			return true;
+		}
+
+		byteBuffer.compact();
+		int read = 0;
+		while (read == 0)
+		{
+			read = channel.read(byteBuffer);
+		}
+		byteBuffer.flip();
+		return read > 0;
+	}
+
+	/**
+	 * Finds the fields of the record that starts at the current position.
+	 *
+	 * @return the end position of the record, or {@link #MORE_DATA} if the record
+	 * does not end in the data read so far
+	 */
+	protected int scanRecord() throws JRException
+	{
+		fieldCount = 0;
+
+		int pos = recordStart;
+		if (pos >= limit)
+		{
+			return MORE_DATA;
+		}
+
+		//removing the unicode BOM
+		if (buffer[pos] == '\ufeff')
+		{
+			++pos;
+		}
+
+		int fieldStart = pos;
+		int flags = 0;
+		boolean insideQuotes = false;
+		boolean leadingSpace = true;
+		while (true)
+		{
+			if (pos >= limit)
+			{
+				if (!endOfInput)
+				{
+					return MORE_DATA;
+				}
+
+				addField(fieldStart, pos, flags);
+				nextRecordStart = pos;
+				return pos;
+			}
+
+			if (!insideQuotes)
+			{
+				int delimiter = matchRecordDelimiter(pos);
+				if (delimiter == MORE_DATA)
+				{
+					return MORE_DATA;
+				}
+				if (delimiter > 0)
+				{
+					addField(fieldStart, pos, flags);
+					nextRecordStart = pos + recordDelimiter.length;
+					return pos;
+				}
+			}
+
+			char c = buffer[pos];
+			if (c == '"')
+			{
+				if (leadingSpace)
+				{
+					// starting a quoted text
+					insideQuotes = true;
+					flags |= FIELD_QUOTED;
+				}
+				else if (insideQuotes)
+				{
+					int next = pos + 1;
+					int rowEnd = matchRowEnd(next);
+					if (rowEnd == MORE_DATA)
+					{
+						return MORE_DATA;
+					}
+
+					if (rowEnd == 0 && buffer[next] == '"')
+					{
+						// escaped quote
+						flags |= FIELD_ESCAPED_QUOTES;
+						++pos;
+					}
+					else
+					{
+						// closing quote, only white spaces can follow until the end of the field
+						int trailing = next;
+						while (true)
+						{
+							int end = matchRowEnd(trailing);
+							if (end == MORE_DATA)
+							{
+								return MORE_DATA;
+							}
+
+							if (end > 0 || buffer[trailing] == fieldDelimiter)
+							{
+								break;
+							}
+
+							if (buffer[trailing] > ' ')
+							{
+								throw misplacedQuote(pos);
+							}
+							++trailing;
+						}
+						insideQuotes = false;
+					}
+				}
+				else
+				{
+					throw misplacedQuote(pos);
+				}
+			}
+			else if (c == fieldDelimiter && !insideQuotes)
+			{
+				addField(fieldStart, pos, flags);
+
+				fieldStart = pos + 1;
+				flags = 0;
+				leadingSpace = true;
+				++pos;
+				continue;
+			}
+
+			// this is how String.trim() works, only chars <= ' ' are trimmed
+			leadingSpace = leadingSpace && c <= ' ';
+			++pos;
+		}
+	}
+
+	private int matchRecordDelimiter(int pos)
+	{
+		if (buffer[pos] != recordDelimiter[0])
+		{
+			return 0;
+		}
+
+		for (int i = 1; i < recordDelimiter.length; i++)
+		{
+			if (pos + i >= limit)
+			{
+				return endOfInput ? 0 : MORE_DATA;
+			}
+
+			if (buffer[pos + i] != recordDelimiter[i])
+			{
+				return 0;
+			}
+		}
+		return 1;
+	}
+
+	private int matchRowEnd(int pos)
+	{
+		if (pos >= limit)
+		{
+			return endOfInput ? 1 : MORE_DATA;
+		}
+		return matchRecordDelimiter(pos);
+	}
+
+	private void addField(int start, int end, int flags) throws JRException
+	{
+		if (fieldCount == fieldStarts.length)
+		{
+			int size = fieldCount * 2;
+			fieldStarts = Arrays.copyOf(fieldStarts, size);
+			fieldEnds = Arrays.copyOf(fieldEnds, size);
+			fieldFlags = Arrays.copyOf(fieldFlags, size);
+		}
+
+		if ((flags & FIELD_QUOTED) != 0)
+		{
+			int trimmedStart = trimStart(start, end);
+			int trimmedEnd = trimEnd(trimmedStart, end);
+			if (trimmedEnd - trimmedStart < 2 || buffer[trimmedEnd - 1] != '"')
+			{
+				throw
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_MALFORMED_QUOTED_FIELD,
+						new Object[]{new String(buffer, trimmedStart, trimmedEnd - trimmedStart)});
+			}
+
+			// keeping the position of the unquoted value
+			start = trimmedStart + 1;
+			end = trimmedEnd - 1;
+		}
+
+		fieldStarts[fieldCount] = start;
+		fieldEnds[fieldCount] = end;
+		fieldFlags[fieldCount] = flags;
+		++fieldCount;
+	}
+
+	private JRException misplacedQuote(int pos)
+	{
+		int rowStart = recordStart;
+		if (buffer[rowStart] == '\ufeff')
+		{
+			++rowStart;
+		}
+
+		int rowEnd = pos;
+		while (rowEnd < limit && matchRecordDelimiter(rowEnd) <= 0)
+		{
+			++rowEnd;
+		}
+
+		return
+			new JRException(
+				EXCEPTION_MESSAGE_KEY_MISPLACED_QUOTE,
+				new Object[]{pos - rowStart, new String(buffer, rowStart, rowEnd - rowStart)});
+	}
+
+	private int trimStart(int start, int end)
+	{
+		int pos = start;
+		while (pos < end && buffer[pos] <= ' ')
+		{
+			++pos;
+		}
+		return pos;
+	}
+
+	private int trimEnd(int start, int end)
+	{
+		int pos = end;
+		while (pos > start && buffer[pos - 1] <= ' ')
+		{
+			--pos;
+		}
+		return pos;
+	}
+
+	/**
+	 * Creates the string value of a field in the current record.
+	 *
+	 * @param index the field index
+	 * @return the field value, trimmed and unquoted
+	 */
+	protected String getFieldString(int index)
+	{
+		int start = fieldStarts[index];
+		int end = fieldEnds[index];
+		int flags = fieldFlags[index];
+		if ((flags & FIELD_QUOTED) == 0)
+		{
+			start = trimStart(start, end);
+			end = trimEnd(start, end);
+		}
+
+		if ((flags & FIELD_ESCAPED_QUOTES) == 0)
+		{
+			return new String(buffer, start, end - start);
+		}
+
+		StringBuilder value = new StringBuilder(end - start);
+		for (int i = start; i < end; i++)
+		{
+			char c = buffer[i];
+			value.append(c);
+			if (c == '"' && i + 1 < end && buffer[i + 1] == '"')
+			{
+				++i;
+			}
+		}
+		return value.toString();
+	}
+
+	@Override
+	public Object getFieldValue(JRField jrField) throws JRException
+	{
+		int columnIndex = getColumnIndex(jrField);
+		Class<?> valueClass = jrField.getValueClass();
+		if (columnIndex >= fieldCount)
+		{
+			// missing fields are considered empty
+			return columnIndex < getColumnNames().size() && String.class.equals(valueClass) ? "" : null;
+		}
+
+		if (String.class.equals(valueClass))
+		{
+			return getFieldString(columnIndex);
+		}
+
+		int start = trimStart(fieldStarts[columnIndex], fieldEnds[columnIndex]);
+		int end = trimEnd(start, fieldEnds[columnIndex]);
+		if (start == end)
+		{
+			return null;
+		}
+
+		// escaped quotes are only handled by the string conversions
+		boolean plain = (fieldFlags[columnIndex] & FIELD_ESCAPED_QUOTES) == 0;
+		try
+		{
+			if (valueClass.equals(Boolean.class))
+			{
+				return plain && isTrue(start, end);
+			}
+			else if (Number.class.isAssignableFrom(valueClass))
+			{
+				if (getNumberFormat() != null)
+				{
+					return FormatUtils.getFormattedNumber(getNumberFormat(),
+							getFieldString(columnIndex).trim(), valueClass);
+				}
+
+				Number value = fastNumbers && plain ? parseNumber(start, end, valueClass) : null;
+				return value != null ? value
+						: convertStringValue(getFieldString(columnIndex).trim(), valueClass);
+			}
+			else if (Date.class.isAssignableFrom(valueClass))
+			{
+				Date value = plain ? parseDate(start, end, valueClass) : null;
+				if (value != null)
+				{
+					return value;
+				}
+
+				String text = getFieldString(columnIndex).trim();
+				return getDateFormat() != null ? FormatUtils.getFormattedDate(getDateFormat(), text, valueClass)
+						: convertStringValue(text, valueClass);
+			}
+			else
+			{
+				throw
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_CANNOT_CONVERT_FIELD_TYPE,
+						new Object[]{jrField.getName(), valueClass.getName()});
+			}
+		}
+		catch (Exception e)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_CSV_FIELD_VALUE_NOT_RETRIEVED,
+					new Object[]{jrField.getName(), valueClass.getName()},
+					e);
+		}
+	}
+
+	private boolean isTrue(int start, int end)
+	{
+		if (end - start != 4)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < 4; i++)
+		{
+			if (Character.toLowerCase(buffer[start + i]) != "true".charAt(i))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses plain decimal numbers from the character buffer.
+	 *
+	 * @return the number, or <code>null</code> if the value needs to be converted by the regular number parsing
+	 */
+	protected Number parseNumber(int start, int end, Class<?> valueClass)
+	{
+		int pos = start;
+		boolean negative = buffer[pos] == '-';
+		if (negative)
+		{
+			++pos;
+		}
+
+		int digitsStart = pos;
+		int pointPos = -1;
+		long mantissa = 0;
+		int digits = 0;
+		for (; pos < end; ++pos)
+		{
+			char c = buffer[pos];
+			if (c >= '0' && c <= '9')
+			{
+				mantissa = mantissa * 10 + (c - '0');
+				if (mantissa != 0 && ++digits > MAX_FAST_DIGITS)
+				{
+					return null;
+				}
+			}
+			else if (c == '.' && pointPos < 0)
+			{
+				pointPos = pos;
+			}
+			else
+			{
+				return null;
+			}
+		}
+
+		// requiring digits before and after the decimal point
+		if (end == digitsStart || pointPos == digitsStart || pointPos == end - 1)
+		{
+			return null;
+		}
+		int scale = pointPos < 0 ? 0 : end - pointPos - 1;
+
+		long value = negative ? -mantissa : mantissa;
+		if (valueClass.equals(Integer.class))
+		{
+			return scale == 0 && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE 
+					? Integer.valueOf((int) value) : null;
+		}
+		if (valueClass.equals(Long.class))
+		{
+			return scale == 0 ? Long.valueOf(value) : null;
+		}
+		if (valueClass.equals(Short.class))
+		{
+			return scale == 0 && value >= Short.MIN_VALUE && value <= Short.MAX_VALUE 
+					? Short.valueOf((short) value) : null;
+		}
+		if (valueClass.equals(Byte.class))
+		{
+			return scale == 0 && value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE 
+					? Byte.valueOf((byte) value) : null;
+		}
+
+		if (mantissa > MAX_EXACT_DOUBLE_MANTISSA || scale >= EXACT_POWERS_OF_TEN.length)
+		{
+			return null;
+		}
+
+		// both operands are exact, therefore the division is correctly rounded
+		double doubleValue = scale == 0 ? mantissa : mantissa / EXACT_POWERS_OF_TEN[scale];
+		if (negative)
+		{
+			doubleValue = -doubleValue;
+		}
+		if (valueClass.equals(Double.class))
+		{
+			return doubleValue;
+		}
+		if (valueClass.equals(Float.class))
+		{
+			return (float) doubleValue;
+		}
+		return null;
+	}
+
+	/**
+	 * Parses dates having a numeric pattern from the character buffer.
+	 *
+	 * @return the date, or <code>null</code> if the value needs to be converted by the regular date parsing
+	 */
+	protected Date parseDate(int start, int end, Class<?> valueClass)
+	{
+		if (dateParser == null)
+		{
+			return null;
+		}
+
+		if (valueClass.equals(Date.class))
+		{
+			return dateParser.parse(buffer, start, end);
+		}
+
+		if (dateParserSqlTypes)
+		{
+			Date date = null;
+			if (valueClass.equals(java.sql.Date.class)
+					|| valueClass.equals(java.sql.Timestamp.class)
+					|| valueClass.equals(java.sql.Time.class))
+			{
+				date = dateParser.parse(buffer, start, end);
+			}
+
+			if (date != null)
+			{
+				if (valueClass.equals(java.sql.Date.class))
+				{
+					return new java.sql.Date(date.getTime());
+				}
+				if (valueClass.equals(java.sql.Timestamp.class))
+				{
+					return new java.sql.Timestamp(date.getTime());
+				}
+				return new java.sql.Time(date.getTime());
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Closes the input if it was opened by the data source.
+	 */
+	@Override
+	public void close()
+	{
+		if (toClose)
+		{
+			try
+			{
+				if (reader != null)
+				{
+					reader.close();
+				}
+				else
+				{
+					channel.close();
+				}
+			}
+			catch (IOException e)
+			{
+				//nothing to do
+			}
+		}
+	}
+
+	/**
+	 * Parses dates whose pattern only consists of fixed width numeric fields and literal characters.
+	 */
+	protected static class NumericDateParser
+	{
+		private final Calendar calendar;
+		private final int length;
+		private final int[] calendarFields;
+		private final int[] fieldPositions;
+		private final int[] fieldWidths;
+		private final char[] literals;
+
+		protected NumericDateParser(Calendar calendar, int[] calendarFields, int[] fieldPositions,
+				int[] fieldWidths, char[] literals)
+		{
+			this.calendar = calendar;
+			this.length = literals.length;
+			this.calendarFields = calendarFields;
+			this.fieldPositions = fieldPositions;
+			this.fieldWidths = fieldWidths;
+			this.literals = literals;
+		}
+
+		/**
+		 * Creates a parser for a date format.
+		 *
+		 * @return the parser, or <code>null</code> if the date format pattern is not supported
+		 */
+		public static NumericDateParser create(SimpleDateFormat dateFormat)
+		{
+			String pattern = dateFormat.toPattern();
+			int[] calendarFields = new int[pattern.length()];
+			int[] fieldPositions = new int[pattern.length()];
+			int[] fieldWidths = new int[pattern.length()];
+			int fieldCount = 0;
+
+			// the literal characters, with 0 on the positions of the fields
+			StringBuilder literals = new StringBuilder(pattern.length());
+			int pos = 0;
+			while (pos < pattern.length())
+			{
+				char c = pattern.charAt(pos);
+				int count = 1;
+				while (pos + count < pattern.length() && pattern.charAt(pos + count) == c)
+				{
+					++count;
+				}
+
+				if (c == '\'' || c == 0)
+				{
+					return null;
+				}
+
+				if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))
+				{
+					int calendarField = calendarField(c, count);
+					if (calendarField < 0)
+					{
+						return null;
+					}
+
+					calendarFields[fieldCount] = calendarField;
+					fieldPositions[fieldCount] = literals.length();
+					fieldWidths[fieldCount] = count;
+					++fieldCount;
+					for (int i = 0; i < count; i++)
+					{
+						literals.append((char) 0);
+					}
+				}
+				else
+				{
+					for (int i = 0; i < count; i++)
+					{
+						literals.append(c);
+					}
+				}
+				pos += count;
+			}
+
+			if (fieldCount == 0)
+			{
+				return null;
+			}
+
+			return new NumericDateParser((Calendar) dateFormat.getCalendar().clone(),
+					Arrays.copyOf(calendarFields, fieldCount),
+					Arrays.copyOf(fieldPositions, fieldCount),
+					Arrays.copyOf(fieldWidths, fieldCount),
+					literals.toString().toCharArray());
+		}
+
+		private static int calendarField(char patternChar, int count)
+		{
+			switch (patternChar)
+			{
+			case 'y':
+				return count == 4 ? Calendar.YEAR : -1;
+			case 'M':
+				return count == 2 ? Calendar.MONTH : -1;
+			case 'd':
+				return count == 2 ? Calendar.DAY_OF_MONTH : -1;
+			case 'H':
+				return count == 2 ? Calendar.HOUR_OF_DAY : -1;
+			case 'm':
+				return count == 2 ? Calendar.MINUTE : -1;
+			case 's':
+				return count == 2 ? Calendar.SECOND : -1;
+			case 'S':
+				return count == 3 ? Calendar.MILLISECOND : -1;
+			default:
+				return -1;
+			}
+		}
+
+		/**
+		 * Parses a date.
+		 *
+		 * @return the date, or <code>null</code> if the text does not match the pattern or the date is not valid
+		 */
+		public Date parse(char[] text, int start, int end)
+		{
+			if (end - start != length)
+			{
+				return null;
+			}
+
+			for (int i = 0; i < length; i++)
+			{
+				char c = text[start + i];
+				char literal = literals[i];
+				if (literal == 0 ? (c < '0' || c > '9') : c != literal)
+				{
+					return null;
+				}
+			}
+
+			calendar.clear();
+			for (int i = 0; i < calendarFields.length; i++)
+			{
+				int value = 0;
+				int fieldStart = start + fieldPositions[i];
+				for (int j = 0; j < fieldWidths[i]; j++)
+				{
+					value = value * 10 + (text[fieldStart + j] - '0');
+				}
+
+				if (calendarFields[i] == Calendar.MONTH)
+				{
+					value -= 1;
+				}
+				calendar.set(calendarFields[i], value);
+			}
+
+			try
+			{
+				return calendar.getTime();
+			}
+			catch (IllegalArgumentException e)
+			{
+				// not lenient, the regular parsing reports the error
+				return null;
+			}
+		}
+	}
+}
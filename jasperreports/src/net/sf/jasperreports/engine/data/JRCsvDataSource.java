@@ -122,12 +122,20 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	private char buffer[] = new char[1024];
 	private int position;
 	private int bufSize;
-	private boolean processingStarted;
+	protected boolean processingStarted;
 	private boolean toClose;
 
 	//TODO: parametrize this value
 	private boolean isStrictCsv = true;
 
+	/**
+	 * Creates a datasource instance without a reader, for subclasses that read the CSV data themselves.
+	 */
+	protected JRCsvDataSource()
+	{
+	}
+
+
 	/**
 	 * Creates a datasource instance from a CSV data input stream, using the default encoding.
 	 * @param stream an input stream containing CSV data
@@ -283,11 +291,21 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	}
 	
 	protected void assignColumnNames()
+	{
+		assignColumnNames(crtRecordColumnValues);
+	}
+	
+	/**
+	 * Assigns the column names from the values of a header record.
+	 * 
+	 * @param headerValues the values of the header record
+	 */
+	protected void assignColumnNames(List<String> headerValues)
 	{
 		BidiMap<Integer, String> indexColumns = new DualHashBidiMap<Integer, String>();
-		for (int i = 0; i < crtRecordColumnValues.size(); i++)
+		for (int i = 0; i < headerValues.size(); i++)
 		{
-			String name = crtRecordColumnValues.get(i);
+			String name = headerValues.get(i);
 			
 			Integer existingIdx = indexColumns.getKey(name);
 			if (existingIdx == null)
@@ -311,7 +329,7 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 		}
 		
 		this.columnNames = new LinkedHashMap<String, Integer>();
-		for (int i = 0; i < crtRecordColumnValues.size(); i++)
+		for (int i = 0; i < headerValues.size(); i++)
 		{
 			String columnName = indexColumns.get(i);
 			this.columnNames.put(columnName, i);
@@ -389,7 +407,7 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	/**
 	 *
 	 */
-	private Integer getColumnIndex(JRField field) throws JRException
+	protected Integer getColumnIndex(JRField field) throws JRException
 	{
 		String fieldName = field.getName();
 		Integer columnIndex = columnIndexMap.get(fieldName);
@@ -860,6 +878,15 @@ public class JRCsvDataSource extends JRAbstractTextDataSource// implements JRDat
 	}
 
 
+	/**
+	 * Returns whether the first line of the CSV file is considered a table header.
+	 */
+	public boolean isUseFirstRowAsHeader()
+	{
+		return useFirstRowAsHeader;
+	}
+
+
 	/**
 	 * Specifies whether the first line of the CSV file should be considered a table
 	 * header, containing column names matching field names in the report template
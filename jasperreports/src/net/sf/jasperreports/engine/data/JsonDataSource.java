@@ -117,6 +117,18 @@ public class JsonDataSource extends JRAbstractTextDataSource implements JsonData
 		moveFirst();
 	}
 
+	/**
+	 * Creates a data source that does not use a JSON tree, for subclasses that
+	 * provide the JSON nodes to iterate by other means.
+	 * 
+	 * @param selectExpression the select expression
+	 * @see #setCurrentJsonNode(JsonNode)
+	 */
+	protected JsonDataSource(String selectExpression) {
+		this.mapper = JsonUtil.createObjectMapper();
+		this.selectExpression = selectExpression;
+	}
+
 
 	public JsonDataSource(File file) throws FileNotFoundException, JRException {
 		this(file, null);
@@ -495,6 +507,23 @@ public class JsonDataSource extends JRAbstractTextDataSource implements JsonData
 	}
 
 
+	protected String getSelectExpression() {
+		return selectExpression;
+	}
+
+	protected ObjectMapper getObjectMapper() {
+		return mapper;
+	}
+
+	protected JsonNode getCurrentJsonNode() {
+		return currentJsonNode;
+	}
+
+	protected void setCurrentJsonNode(JsonNode currentJsonNode) {
+		this.currentJsonNode = currentJsonNode;
+	}
+
+
 	/**
 	 * @deprecated no longer required
 	 */
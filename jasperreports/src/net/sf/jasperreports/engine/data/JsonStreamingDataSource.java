@@ -0,0 +1,655 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.repo.RepositoryContext;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import net.sf.jasperreports.repo.SimpleRepositoryContext;
+
+/**
+ * JSON data source implementation that reads the JSON data as a token stream.
+ * <p>
+ * Unlike {@link JsonDataSource}, which parses the entire JSON document into a tree before
+ * producing the first record, this data source walks the JSON token stream and only
+ * materializes the subtree of the current record.
+ * Field values are evaluated on the record subtree using the same field expressions as
+ * {@link JsonDataSource}.
+ * <p>
+ * The select expression supports the following subset of the {@link JsonDataSource} syntax:
+ * <ul>
+ * <li>property paths such as <code>orders.lines</code>, arrays on the path being iterated</li>
+ * <li>array indexes such as <code>orders[0].lines</code>, except for properties that are reached
+ * via an array</li>
+ * <li>attribute selections such as <code>orders(status == open)</code>, which are evaluated on the
+ * materialized candidate nodes</li>
+ * </ul>
+ * Attribute selections combined with array indexes are not supported.
+ * <p>
+ * When created from an input stream, the data source can only be iterated once.
+ */
+public class JsonStreamingDataSource extends JsonDataSource implements Closeable
+{
+	private static final Log log = LogFactory.getLog(JsonStreamingDataSource.class);
+	
+	public static final String EXCEPTION_MESSAGE_KEY_NOT_REWINDABLE = "data.json.streaming.not.rewindable";
+	public static final String EXCEPTION_MESSAGE_KEY_READ_ERROR = "data.json.streaming.read.error";
+	public static final String EXCEPTION_MESSAGE_KEY_UNSUPPORTED_EXPRESSION = "data.json.streaming.unsupported.expression";
+	
+	private static final String PROPERTY_SEPARATOR = ".";
+	private static final String ARRAY_LEFT = "[";
+	private static final String ARRAY_RIGHT = "]";
+	private static final String ATTRIBUTE_LEFT = "(";
+	private static final String ATTRIBUTE_RIGHT = ")";
+	
+	private final RepositoryContext repositoryContext;
+	private final String location;
+	private final File file;
+	private InputStream inputStream;
+	
+	private final List<SelectStep> selectSteps;
+	
+	private JsonParser parser;
+	private boolean started;
+	private final Deque<Frame> frames = new LinkedList<Frame>();
+	private JsonNode pendingRecord;
+	
+	public JsonStreamingDataSource(InputStream jsonStream) throws JRException
+	{
+		this(jsonStream, null);
+	}
+	
+	/**
+	 * Creates a data source that reads the JSON data from an input stream.
+	 * <p>
+	 * The data source does not close the stream.
+	 * 
+	 * @param jsonStream the JSON input stream
+	 * @param selectExpression the select expression
+	 */
+	public JsonStreamingDataSource(InputStream jsonStream, String selectExpression) throws JRException
+	{
+		this(null, null, null, jsonStream, selectExpression);
+	}
+	
+	public JsonStreamingDataSource(File file) throws JRException
+	{
+		this(file, null);
+	}
+	
+	public JsonStreamingDataSource(File file, String selectExpression) throws JRException
+	{
+		this(null, null, file, null, selectExpression);
+	}
+
+	/**
+	 * Creates a data source that reads the JSON data from a repository location.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @param location the location of the JSON data
+	 * @param selectExpression the select expression
+	 */
+	public JsonStreamingDataSource(JasperReportsContext jasperReportsContext, String location, 
+			String selectExpression) throws JRException
+	{
+		this(SimpleRepositoryContext.of(jasperReportsContext), location, selectExpression);
+	}
+	
+	public JsonStreamingDataSource(RepositoryContext repositoryContext, String location, 
+			String selectExpression) throws JRException
+	{
+		this(repositoryContext, location, null, null, selectExpression);
+	}
+
+	/**
+	 * @see #JsonStreamingDataSource(JasperReportsContext, String, String)
+	 */
+	public JsonStreamingDataSource(String location, String selectExpression) throws JRException 
+	{
+		this(DefaultJasperReportsContext.getInstance(), location, selectExpression);
+	}
+	
+	private JsonStreamingDataSource(RepositoryContext repositoryContext, String location, File file, 
+			InputStream inputStream, String selectExpression) throws JRException
+	{
+		super(selectExpression);
+		
+		this.repositoryContext = repositoryContext;
+		this.location = location;
+		this.file = file;
+		this.inputStream = inputStream;
+		this.selectSteps = parseSelectExpression(selectExpression);
+		
+		moveFirst();
+	}
+
+	protected List<SelectStep> parseSelectExpression(String selectExpression) throws JRException
+	{
+		List<SelectStep> steps = new ArrayList<SelectStep>();
+		if (selectExpression == null || selectExpression.length() == 0)
+		{
+			return steps;
+		}
+		
+		StringTokenizer tokenizer = new StringTokenizer(selectExpression, PROPERTY_SEPARATOR);
+		while (tokenizer.hasMoreTokens())
+		{
+			String token = tokenizer.nextToken();
+			String property = token;
+			int[] indexes = null;
+			
+			int indexOfLeftSquareBracket = token.indexOf(ARRAY_LEFT);
+			if (indexOfLeftSquareBracket != -1)
+			{
+				if (token.lastIndexOf(ARRAY_RIGHT) != token.length() - 1)
+				{
+					throw 
+						new JRException(
+							EXCEPTION_MESSAGE_KEY_INVALID_EXPRESSION,
+							new Object[]{selectExpression, token});
+				}
+				
+				property = indexOfLeftSquareBracket > 0 ? token.substring(0, indexOfLeftSquareBracket) : null;
+				
+				List<Integer> indexList = new ArrayList<Integer>();
+				StringTokenizer indexTokenizer = new StringTokenizer(token.substring(indexOfLeftSquareBracket), ARRAY_RIGHT);
+				while (indexTokenizer.hasMoreTokens())
+				{
+					indexList.add(Integer.parseInt(indexTokenizer.nextToken().substring(1)));
+				}
+				indexes = new int[indexList.size()];
+				for (int i = 0; i < indexes.length; i++)
+				{
+					indexes[i] = indexList.get(i);
+				}
+			}
+			
+			String name = property;
+			String attributeExpression = null;
+			int indexOfLeftRoundBracket = property == null ? -1 : property.indexOf(ATTRIBUTE_LEFT);
+			if (indexOfLeftRoundBracket != -1)
+			{
+				if (property.indexOf(ATTRIBUTE_RIGHT) != property.length() - 1)
+				{
+					throw 
+						new JRException(
+							EXCEPTION_MESSAGE_KEY_INVALID_ATTRIBUTE_SELECTION,
+							new Object[]{property});
+				}
+				
+				if (indexes != null)
+				{
+					throw 
+						new JRException(
+							EXCEPTION_MESSAGE_KEY_UNSUPPORTED_EXPRESSION,
+							new Object[]{selectExpression});
+				}
+				
+				name = property.substring(0, indexOfLeftRoundBracket);
+				attributeExpression = property.substring(indexOfLeftRoundBracket + 1, property.length() - 1);
+			}
+			
+			steps.add(new SelectStep(name, attributeExpression, indexes));
+		}
+		return steps;
+	}
+
+	@Override
+	public void moveFirst() throws JRException
+	{
+		if (started && location == null && file == null)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_NOT_REWINDABLE,
+					(Object[]) null);
+		}
+		
+		closeParser();
+		started = true;
+		setCurrentJsonNode(null);
+		
+		try
+		{
+			parser = getObjectMapper().getFactory().createParser(openStream());
+			if (inputStream != null)
+			{
+				// the stream was not opened by us
+				parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			}
+			
+			if (parser.nextToken() == null)
+			{
+				closeParser();
+				throw 
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_NO_DATA,
+						(Object[]) null);
+			}
+			
+			visit(parser, 0, false);
+		}
+		catch (IOException e)
+		{
+			closeParser();
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_READ_ERROR,
+					new Object[]{getSourceDescription()},
+					e);
+		}
+	}
+	
+	protected InputStream openStream() throws JRException
+	{
+		if (inputStream != null)
+		{
+			return inputStream;
+		}
+		
+		if (file != null)
+		{
+			try
+			{
+				return new FileInputStream(file);
+			}
+			catch (FileNotFoundException e)
+			{
+				throw new JRException(e);
+			}
+		}
+		
+		return RepositoryUtil.getInstance(repositoryContext).getInputStreamFromLocation(location);
+	}
+	
+	protected String getSourceDescription()
+	{
+		return file != null ? file.getPath() : (location != null ? location : "input stream");
+	}
+
+	@Override
+	public boolean next()
+	{
+		if (parser == null)
+		{
+			return false;
+		}
+		
+		JsonNode record;
+		try
+		{
+			while (pendingRecord == null && !frames.isEmpty())
+			{
+				frames.peek().advance();
+			}
+			
+			record = pendingRecord;
+			pendingRecord = null;
+		}
+		catch (IOException e)
+		{
+			closeParser();
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_READ_ERROR,
+					new Object[]{getSourceDescription()},
+					e);
+		}
+		catch (JRException e)
+		{
+			closeParser();
+			throw new JRRuntimeException(e);
+		}
+		
+		if (record == null)
+		{
+			// all the records have been read
+			closeParser();
+		}
+		
+		setCurrentJsonNode(record);
+		return record != null;
+	}
+
+	/**
+	 * Handles a value reached by the first <code>stepIndex</code> select steps.
+	 * 
+	 * @param valueParser the parser, positioned at the start of the value 
+	 * @param stepIndex the index of the next select step
+	 * @param arrayContext whether the value was collected from an array, in which case
+	 * the value is a record itself if there are no more select steps
+	 */
+	protected void visit(JsonParser valueParser, int stepIndex, boolean arrayContext) throws IOException, JRException
+	{
+		JsonToken token = valueParser.getCurrentToken();
+		if (stepIndex == selectSteps.size())
+		{
+			if (arrayContext || token == JsonToken.START_OBJECT)
+			{
+				emit(readNode(valueParser));
+			}
+			else if (token == JsonToken.START_ARRAY)
+			{
+				frames.push(new ArrayFrame(valueParser, ArrayMode.RECORDS, stepIndex));
+			}
+			return;
+		}
+		
+		SelectStep step = selectSteps.get(stepIndex);
+		if (step.name == null)
+		{
+			// array index without property
+			selected(valueParser, stepIndex, arrayContext);
+		}
+		else if (token == JsonToken.START_OBJECT)
+		{
+			frames.push(new ObjectFrame(valueParser, stepIndex, arrayContext));
+		}
+		else if (token == JsonToken.START_ARRAY && !arrayContext)
+		{
+			frames.push(new ArrayFrame(valueParser, ArrayMode.VISIT, stepIndex));
+		}
+		else
+		{
+			valueParser.skipChildren();
+		}
+	}
+
+	protected void selected(JsonParser valueParser, int stepIndex, boolean arrayContext) throws IOException, JRException
+	{
+		SelectStep step = selectSteps.get(stepIndex);
+		JsonToken token = valueParser.getCurrentToken();
+		if (step.indexes != null)
+		{
+			if (arrayContext)
+			{
+				// we would need to count the elements across arrays
+				throw 
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_UNSUPPORTED_EXPRESSION,
+						new Object[]{getSelectExpression()});
+			}
+			
+			if (token == JsonToken.START_ARRAY)
+			{
+				frames.push(new IndexFrame(valueParser, stepIndex, 0));
+			}
+			else
+			{
+				valueParser.skipChildren();
+			}
+		}
+		else if (token == JsonToken.START_ARRAY && (arrayContext || step.attributeExpression != null))
+		{
+			frames.push(new ArrayFrame(valueParser, ArrayMode.ITEMS, stepIndex));
+		}
+		else
+		{
+			item(valueParser, stepIndex, arrayContext);
+		}
+	}
+	
+	protected void item(JsonParser valueParser, int stepIndex, boolean arrayContext) throws IOException, JRException
+	{
+		SelectStep step = selectSteps.get(stepIndex);
+		if (step.attributeExpression == null)
+		{
+			visit(valueParser, stepIndex + 1, arrayContext);
+			return;
+		}
+		
+		// the node needs to be materialized to evaluate the attribute expression
+		JsonNode node = readNode(valueParser);
+		if (isValidExpression(node, step.attributeExpression))
+		{
+			if (stepIndex + 1 == selectSteps.size() && (arrayContext || node.isObject()))
+			{
+				emit(node);
+			}
+			else
+			{
+				JsonParser nodeParser = node.traverse(getObjectMapper());
+				nodeParser.nextToken();
+				visit(nodeParser, stepIndex + 1, arrayContext);
+			}
+		}
+	}
+	
+	protected JsonNode readNode(JsonParser valueParser) throws IOException
+	{
+		JsonNode node = valueParser.readValueAsTree();
+		return node == null ? NullNode.getInstance() : node;
+	}
+	
+	protected void emit(JsonNode record)
+	{
+		pendingRecord = record;
+	}
+
+	/**
+	 * Closes the JSON parser and, if opened by the data source, the underlying stream.
+	 */
+	@Override
+	public void close()
+	{
+		closeParser();
+	}
+	
+	protected void closeParser()
+	{
+		frames.clear();
+		pendingRecord = null;
+		
+		if (parser != null)
+		{
+			try
+			{
+				parser.close();
+			}
+			catch (IOException e)
+			{
+				log.warn("Failed to close JSON parser for " + getSourceDescription(), e);
+			}
+			parser = null;
+		}
+	}
+
+	protected static class SelectStep
+	{
+		final String name;
+		final String attributeExpression;
+		final int[] indexes;
+		
+		protected SelectStep(String name, String attributeExpression, int[] indexes)
+		{
+			this.name = name;
+			this.attributeExpression = attributeExpression;
+			this.indexes = indexes;
+		}
+	}
+	
+	protected enum ArrayMode
+	{
+		/**
+		 * The array elements are records.
+		 */
+		RECORDS,
+		/**
+		 * The array elements are visited with the current select step.
+		 */
+		VISIT,
+		/**
+		 * The array elements are selected by the current select step.
+		 */
+		ITEMS
+	}
+	
+	protected abstract class Frame
+	{
+		protected final JsonParser frameParser;
+		protected final int stepIndex;
+		
+		protected Frame(JsonParser frameParser, int stepIndex)
+		{
+			this.frameParser = frameParser;
+			this.stepIndex = stepIndex;
+		}
+		
+		protected abstract void advance() throws IOException, JRException;
+		
+		protected boolean nextValue(JsonToken endToken) throws IOException
+		{
+			JsonToken token = frameParser.nextToken();
+			if (token == null || token == endToken)
+			{
+				frames.pop();
+				return false;
+			}
+			return true;
+		}
+	}
+	
+	protected class ObjectFrame extends Frame
+	{
+		private final boolean arrayContext;
+		
+		protected ObjectFrame(JsonParser frameParser, int stepIndex, boolean arrayContext)
+		{
+			super(frameParser, stepIndex);
+			this.arrayContext = arrayContext;
+		}
+
+		@Override
+		protected void advance() throws IOException, JRException
+		{
+			if (nextValue(JsonToken.END_OBJECT))
+			{
+				String fieldName = frameParser.getCurrentName();
+				frameParser.nextToken();
+				if (fieldName.equals(selectSteps.get(stepIndex).name))
+				{
+					selected(frameParser, stepIndex, arrayContext);
+				}
+				else
+				{
+					frameParser.skipChildren();
+				}
+			}
+		}
+	}
+	
+	protected class ArrayFrame extends Frame
+	{
+		private final ArrayMode mode;
+		
+		protected ArrayFrame(JsonParser frameParser, ArrayMode mode, int stepIndex)
+		{
+			super(frameParser, stepIndex);
+			this.mode = mode;
+		}
+
+		@Override
+		protected void advance() throws IOException, JRException
+		{
+			if (nextValue(JsonToken.END_ARRAY))
+			{
+				switch (mode)
+				{
+				case RECORDS:
+					emit(readNode(frameParser));
+					break;
+				case VISIT:
+					visit(frameParser, stepIndex, true);
+					break;
+				case ITEMS:
+					item(frameParser, stepIndex, true);
+					break;
+				}
+			}
+		}
+	}
+	
+	protected class IndexFrame extends Frame
+	{
+		private final int level;
+		private int elementIndex;
+		
+		protected IndexFrame(JsonParser frameParser, int stepIndex, int level)
+		{
+			super(frameParser, stepIndex);
+			this.level = level;
+		}
+
+		@Override
+		protected void advance() throws IOException, JRException
+		{
+			if (nextValue(JsonToken.END_ARRAY))
+			{
+				int[] indexes = selectSteps.get(stepIndex).indexes;
+				if (elementIndex++ != indexes[level])
+				{
+					frameParser.skipChildren();
+				}
+				else if (level + 1 < indexes.length)
+				{
+					if (frameParser.getCurrentToken() == JsonToken.START_ARRAY)
+					{
+						frames.push(new IndexFrame(frameParser, stepIndex, level + 1));
+					}
+					else
+					{
+						frameParser.skipChildren();
+					}
+				}
+				else
+				{
+					item(frameParser, stepIndex, false);
+				}
+			}
+		}
+	}
+}
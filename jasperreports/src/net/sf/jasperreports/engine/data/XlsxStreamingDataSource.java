@@ -0,0 +1,1047 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.FormatUtils;
+import net.sf.jasperreports.repo.RepositoryContext;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import net.sf.jasperreports.repo.SimpleRepositoryContext;
+
+
+/**
+ * XLSX data source implementation that reads the sheets as XML streams, one row at a time.
+ * <p>
+ * Unlike {@link JRXlsxDataSource}, which loads the entire workbook into the POI object model,
+ * this data source uses the POI {@link XSSFReader} to access the parts of the XLSX package 
+ * and reads the sheet XML data with a StAX reader, only keeping the current row in memory.
+ * The shared strings table and the cell styles are loaded when the data source is created.
+ * <p>
+ * Column names and indexes, the header row, the sheet selection and the field value conversions
+ * work as in {@link JRXlsxDataSource}.
+ * Formula cells are not evaluated, the values cached in the XLSX data are used instead.
+ * <p>
+ * If the data is read from an input stream or a repository location, it is first copied to
+ * a temporary file which is deleted when the data source is closed.
+ *
+ * @see net.sf.jasperreports.engine.query.XlsxStreamingQueryExecuterFactory
+ */
+public class XlsxStreamingDataSource extends AbstractXlsDataSource
+{
+	private static final Log log = LogFactory.getLog(XlsxStreamingDataSource.class);
+	
+	public static final String EXCEPTION_MESSAGE_KEY_READ_ERROR = "data.xlsx.streaming.read.error";
+	
+	private static final String SOURCE_INPUT_STREAM = "input stream";
+	
+	private final File file;
+	private final boolean temporaryFile;
+	private final String sourceDescription;
+	
+	private OPCPackage xlsxPackage;
+	private XSSFReader xlsxReader;
+	private ReadOnlySharedStringsTable sharedStrings;
+	private StylesTable styles;
+	private boolean date1904;
+	
+	private boolean started;
+	private boolean headerPending;
+	private XSSFReader.SheetIterator sheets;
+	private int sheetIndex;
+	private InputStream sheetStream;
+	private XMLStreamReader sheetReader;
+	private int parsedRowIndex;
+	private int rowIndex;
+	private RowData pendingRow;
+	private RowData currentRow;
+
+
+	/**
+	 * Creates a data source instance from an XLSX data input stream.
+	 * <p>
+	 * The data is copied to a temporary file, the data source does not close the stream.
+	 * 
+	 * @param inputStream an input stream containing XLSX data
+	 */
+	public XlsxStreamingDataSource(InputStream inputStream) throws JRException, IOException
+	{
+		this(copyToTemporaryFile(inputStream), true, SOURCE_INPUT_STREAM);
+	}
+
+
+	/**
+	 * Creates a data source instance from an XLSX file.
+	 * @param file a file containing XLSX data
+	 */
+	public XlsxStreamingDataSource(File file) throws JRException, IOException
+	{
+		this(file, false, file.getPath());
+	}
+
+	
+	/**
+	 * Creates a data source instance that reads XLSX data from a given location.
+	 * @param jasperReportsContext the JasperReportsContext
+	 * @param location a String representing XLSX data source
+	 */
+	public XlsxStreamingDataSource(JasperReportsContext jasperReportsContext, String location) throws JRException, IOException
+	{
+		this(SimpleRepositoryContext.of(jasperReportsContext), location);
+	}
+
+	public XlsxStreamingDataSource(RepositoryContext context, String location) throws JRException, IOException
+	{
+		this(copyToTemporaryFile(context, location), true, location);
+	}
+
+	
+	/**
+	 * @see #XlsxStreamingDataSource(JasperReportsContext, String)
+	 */
+	public XlsxStreamingDataSource(String location) throws JRException, IOException
+	{
+		this(DefaultJasperReportsContext.getInstance(), location);
+	}
+	
+	
+	private XlsxStreamingDataSource(File file, boolean temporaryFile, String sourceDescription) throws JRException
+	{
+		this.file = file;
+		this.temporaryFile = temporaryFile;
+		this.sourceDescription = sourceDescription;
+		
+		try
+		{
+			xlsxPackage = OPCPackage.open(file, PackageAccess.READ);
+			xlsxReader = new XSSFReader(xlsxPackage);
+			sharedStrings = new ReadOnlySharedStringsTable(xlsxPackage);
+			styles = xlsxReader.getStylesTable();
+			date1904 = readDate1904();
+		}
+		catch (IOException | OpenXML4JException | SAXException | XMLStreamException e)
+		{
+			close();
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_READ_ERROR,
+					new Object[]{sourceDescription},
+					e);
+		}
+	}
+	
+	
+	private static File copyToTemporaryFile(InputStream inputStream) throws IOException
+	{
+		File tempFile = File.createTempFile("jr.xlsx.", ".xlsx");
+		try
+		{
+			Files.copy(inputStream, tempFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			tempFile.delete();
+			throw e;
+		}
+		return tempFile;
+	}
+	
+	
+	private static File copyToTemporaryFile(RepositoryContext context, String location) throws JRException, IOException
+	{
+		InputStream inputStream = RepositoryUtil.getInstance(context).getInputStreamFromLocation(location);
+		try
+		{
+			return copyToTemporaryFile(inputStream);
+		}
+		finally
+		{
+			inputStream.close();
+		}
+	}
+	
+	
+	protected XMLInputFactory createInputFactory()
+	{
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		return inputFactory;
+	}
+	
+	
+	protected boolean readDate1904() throws IOException, OpenXML4JException, XMLStreamException
+	{
+		InputStream workbookStream = xlsxReader.getWorkbookData();
+		try
+		{
+			XMLStreamReader reader = createInputFactory().createXMLStreamReader(workbookStream);
+			try
+			{
+				while (reader.hasNext())
+				{
+					if (reader.next() == XMLStreamConstants.START_ELEMENT)
+					{
+						String name = reader.getLocalName();
+						if ("workbookPr".equals(name))
+						{
+							String value = reader.getAttributeValue(null, "date1904");
+							return "1".equals(value) || "true".equalsIgnoreCase(value);
+						}
+						if ("sheets".equals(name))
+						{
+							// workbookPr comes before the sheets
+							break;
+						}
+					}
+				}
+				return false;
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+		finally
+		{
+			workbookStream.close();
+		}
+	}
+
+
+	@Override
+	public boolean next() throws JRException
+	{
+		currentRow = null;
+		if (xlsxReader == null)
+		{
+			return false;
+		}
+		
+		try
+		{
+			if (!started)
+			{
+				started = true;
+				headerPending = useFirstRowAsHeader;
+				sheets = (XSSFReader.SheetIterator) xlsxReader.getSheetsData();
+				sheetIndex = -1;
+				openFirstSheet();
+			}
+			
+			while (sheetReader != null)
+			{
+				if (pendingRow == null)
+				{
+					pendingRow = readRow();
+				}
+				
+				if (pendingRow == null)
+				{
+					closeSheet();
+					if (sheetSelection == null && nextSheet())
+					{
+						openSheet();
+					}
+					continue;
+				}
+				
+				int nextRowIndex = rowIndex + 1;
+				if (pendingRow.getIndex() > nextRowIndex)
+				{
+					// producing an empty record for a missing row, as the row indexes are the record positions 
+					currentRow = new RowData(nextRowIndex);
+				}
+				else
+				{
+					currentRow = pendingRow;
+					pendingRow = null;
+				}
+				rowIndex = currentRow.getIndex();
+				
+				if (headerPending)
+				{
+					headerPending = false;
+					readHeader(currentRow);
+					currentRow = null;
+					continue;
+				}
+				
+				return true;
+			}
+		}
+		catch (IOException | OpenXML4JException | XMLStreamException e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_READ_ERROR,
+					new Object[]{sourceDescription},
+					e);
+		}
+		
+		return false;
+	}
+	
+	
+	protected void openFirstSheet() throws IOException, XMLStreamException
+	{
+		if (sheetSelection == null) 
+		{
+			if (nextSheet())
+			{
+				openSheet();
+			}
+			return;
+		}
+		
+		Integer selectedIndex = null;
+		try
+		{
+			selectedIndex = Integer.valueOf(sheetSelection);
+		}
+		catch (NumberFormatException e)
+		{
+		}
+		
+		while (nextSheet())
+		{
+			if (selectedIndex == null 
+					? sheetSelection.equalsIgnoreCase(sheets.getSheetName()) 
+					: sheetIndex == selectedIndex)
+			{
+				openSheet();
+				return;
+			}
+		}
+		closeSheet();
+		
+		if (selectedIndex != null)
+		{
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_XLS_SHEET_INDEX_OUT_OF_RANGE,
+					new Object[]{selectedIndex, sheetIndex});
+		}
+		
+		throw 
+			new JRRuntimeException(
+				EXCEPTION_MESSAGE_KEY_XLS_SHEET_NOT_FOUND,
+				new Object[]{sheetSelection});
+	}
+	
+	
+	protected boolean nextSheet() throws IOException
+	{
+		closeSheet();
+		if (!sheets.hasNext())
+		{
+			return false;
+		}
+		
+		sheetStream = sheets.next();
+		++sheetIndex;
+		return true;
+	}
+	
+	
+	protected void openSheet() throws XMLStreamException
+	{
+		sheetReader = createInputFactory().createXMLStreamReader(sheetStream);
+		parsedRowIndex = -1;
+		rowIndex = -1;
+		pendingRow = null;
+	}
+	
+	
+	protected void closeSheet()
+	{
+		pendingRow = null;
+		
+		if (sheetReader != null)
+		{
+			try
+			{
+				sheetReader.close();
+			}
+			catch (XMLStreamException e)
+			{
+				log.warn("Failed to close sheet reader for " + sourceDescription, e);
+			}
+			sheetReader = null;
+		}
+		
+		if (sheetStream != null)
+		{
+			try
+			{
+				sheetStream.close();
+			}
+			catch (IOException e)
+			{
+				log.warn("Failed to close sheet stream for " + sourceDescription, e);
+			}
+			sheetStream = null;
+		}
+	}
+	
+	
+	/**
+	 * Reads the next row element of the current sheet.
+	 * 
+	 * @return the row, or <code>null</code> if there are no more rows in the sheet
+	 */
+	protected RowData readRow() throws XMLStreamException
+	{
+		while (sheetReader.hasNext())
+		{
+			int event = sheetReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT && "row".equals(sheetReader.getLocalName()))
+			{
+				return readRowElement();
+			}
+			
+			if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(sheetReader.getLocalName()))
+			{
+				break;
+			}
+		}
+		return null;
+	}
+	
+	
+	protected RowData readRowElement() throws XMLStreamException
+	{
+		String rowReference = sheetReader.getAttributeValue(null, "r");
+		parsedRowIndex = rowReference == null ? parsedRowIndex + 1 : Integer.parseInt(rowReference) - 1;
+		RowData row = new RowData(parsedRowIndex);
+		
+		int columnIndex = -1;
+		while (true)
+		{
+			int event = sheetReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				if ("c".equals(sheetReader.getLocalName()))
+				{
+					String cellReference = sheetReader.getAttributeValue(null, "r");
+					columnIndex = cellReference == null ? columnIndex + 1 : parseColumnIndex(cellReference);
+					row.setCell(columnIndex, readCellElement());
+				}
+				else
+				{
+					skipElement();
+				}
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				break;
+			}
+		}
+		return row;
+	}
+	
+	
+	protected CellData readCellElement() throws XMLStreamException
+	{
+		String type = sheetReader.getAttributeValue(null, "t");
+		String style = sheetReader.getAttributeValue(null, "s");
+		boolean formula = false;
+		String value = null;
+		
+		while (true)
+		{
+			int event = sheetReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				String name = sheetReader.getLocalName();
+				if ("v".equals(name))
+				{
+					value = sheetReader.getElementText();
+				}
+				else if ("is".equals(name))
+				{
+					value = readInlineString();
+				}
+				else
+				{
+					formula |= "f".equals(name);
+					skipElement();
+				}
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				break;
+			}
+		}
+		
+		CellData cell = new CellData(formula, style == null ? 0 : Integer.parseInt(style));
+		if (value == null)
+		{
+			cell.setBlank();
+		}
+		else if ("s".equals(type))
+		{
+			cell.setString(getSharedString(Integer.parseInt(value.trim())));
+		}
+		else if ("inlineStr".equals(type) || "str".equals(type) || "d".equals(type))
+		{
+			cell.setString(value);
+		}
+		else if ("b".equals(type))
+		{
+			cell.setBoolean("1".equals(value.trim()) || "true".equalsIgnoreCase(value.trim()));
+		}
+		else if ("e".equals(type))
+		{
+			cell.setError(value);
+		}
+		else
+		{
+			cell.setNumber(Double.parseDouble(value));
+		}
+		return cell;
+	}
+	
+	
+	@SuppressWarnings("deprecation")
+	protected String getSharedString(int index)
+	{
+		return sharedStrings.getEntryAt(index);
+	}
+	
+	
+	protected String readInlineString() throws XMLStreamException
+	{
+		StringBuilder text = new StringBuilder();
+		int depth = 1;
+		while (depth > 0)
+		{
+			int event = sheetReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				String name = sheetReader.getLocalName();
+				if ("t".equals(name))
+				{
+					text.append(sheetReader.getElementText());
+				}
+				else if ("rPh".equals(name))
+				{
+					// phonetic runs are not part of the text
+					skipElement();
+				}
+				else
+				{
+					++depth;
+				}
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				--depth;
+			}
+		}
+		return text.toString();
+	}
+	
+	
+	protected void skipElement() throws XMLStreamException
+	{
+		int depth = 1;
+		while (depth > 0)
+		{
+			int event = sheetReader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				++depth;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				--depth;
+			}
+		}
+	}
+	
+	
+	protected static int parseColumnIndex(String cellReference)
+	{
+		int columnIndex = 0;
+		for (int i = 0; i < cellReference.length(); i++)
+		{
+			char c = cellReference.charAt(i);
+			if (c >= 'A' && c <= 'Z')
+			{
+				columnIndex = columnIndex * 26 + (c - 'A' + 1);
+			}
+			else if (c >= 'a' && c <= 'z')
+			{
+				columnIndex = columnIndex * 26 + (c - 'a' + 1);
+			}
+			else
+			{
+				break;
+			}
+		}
+		return columnIndex - 1;
+	}
+
+
+	@Override
+	public void moveFirst()
+	{
+		closeSheet();
+		sheets = null;
+		started = false;
+		currentRow = null;
+	}
+
+
+	@Override
+	public Object getFieldValue(JRField jrField) throws JRException
+	{
+		Class<?> valueClass = jrField.getValueClass();
+		try 
+		{
+			Integer columnIndex = getColumnIndex(jrField);
+			
+			CellData cell = currentRow == null ? null : currentRow.getCell(columnIndex);
+			if (cell == null)
+			{
+				return null;
+			}
+			
+			if (cell.isFormula())
+			{
+				return getFormulaValue(cell, valueClass);
+			}
+			
+			if (valueClass.equals(String.class)) 
+			{
+				return cell.getStringValue();
+			}
+			if (valueClass.equals(Boolean.class)) 
+			{
+				if (cell.getType() == CellType.BOOLEAN)
+				{
+					return cell.getBooleanValue();
+				}
+				else 
+				{
+					String value = cell.getStringValue();
+					if (value == null || value.trim().length() == 0)
+					{
+						return null;
+					}
+					else
+					{
+						return convertStringValue(value, valueClass);
+					}					
+				}
+			}
+			else if (Number.class.isAssignableFrom(valueClass))
+			{
+				if (cell.getType() == CellType.NUMERIC)
+				{
+					return convertNumber(cell.getNumericValue(), valueClass);
+				}
+				else
+				{
+					return parseNumber(cell.getStringValue(), valueClass);
+				}
+			}
+			else if (Date.class.isAssignableFrom(valueClass))
+			{
+				if (cell.getType() == CellType.NUMERIC)
+				{
+					return DateUtil.getJavaDate(cell.getNumericValue(), date1904);
+				}
+				else
+				{
+					return parseDate(cell.getStringValue(), valueClass);
+				}
+			}
+			else
+			{
+				throw 
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_CANNOT_CONVERT_FIELD_TYPE,
+						new Object[]{jrField.getName(), valueClass.getName()});
+			}
+		}
+		catch (Exception e) 
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_XLS_FIELD_VALUE_NOT_RETRIEVED,
+					new Object[]{jrField.getName(), valueClass.getName()}, 
+					e);
+		}
+	}
+	
+	
+	protected Object getFormulaValue(CellData cell, Class<?> valueClass) throws Exception
+	{
+		switch (cell.getType())
+		{
+			case BOOLEAN:
+				return cell.getBooleanValue();
+			case NUMERIC:
+				if (Date.class.isAssignableFrom(valueClass)) 
+				{
+					return DateUtil.getJavaDate(cell.getNumericValue(), date1904);
+				}
+				return cell.getNumericValue();
+			case STRING:
+				if (Date.class.isAssignableFrom(valueClass))
+				{
+					return parseDate(cell.getStringValue(), valueClass);
+				}
+				if (Number.class.isAssignableFrom(valueClass))
+				{
+					return parseNumber(cell.getStringValue(), valueClass);
+				}
+				return cell.getStringValue();
+			default:
+				return null;
+		}
+	}
+	
+	
+	protected Object parseNumber(String value, Class<?> valueClass) throws Exception
+	{
+		if (value == null || value.trim().length() == 0)
+		{
+			return null;
+		}
+		
+		if (numberFormat != null)
+		{
+			return FormatUtils.getFormattedNumber(numberFormat, value, valueClass);
+		}
+		
+		return convertStringValue(value, valueClass);
+	}
+	
+	
+	protected Object parseDate(String value, Class<?> valueClass) throws Exception
+	{
+		if (value == null || value.trim().length() == 0)
+		{
+			return null;
+		}
+		
+		if (dateFormat != null)
+		{
+			return FormatUtils.getFormattedDate(dateFormat, value, valueClass);
+		}
+		
+		return convertStringValue(value, valueClass);
+	}
+
+
+	/**
+	 *
+	 */
+	protected void readHeader(RowData row)
+	{
+		if (columnNames.size() == 0)
+		{
+			for (int columnIndex = 0; columnIndex < row.getCellCount(); columnIndex++)
+			{
+				CellData cell = row.getCell(columnIndex);
+				if (cell != null)
+				{
+					columnNames.put(getCellText(cell), columnIndex);
+				}
+				else
+				{
+					columnNames.put(INDEXED_COLUMN_PREFIX + columnIndex, columnIndex);
+				}
+			}
+		}
+		else
+		{
+			Map<String, Integer> newColumnNames = new LinkedHashMap<String, Integer>();
+			for (Iterator<Integer> it = columnNames.values().iterator(); it.hasNext();)
+			{
+				Integer columnIndex = it.next();
+				CellData cell = row.getCell(columnIndex);
+				if (cell != null)
+				{
+					newColumnNames.put(getCellText(cell), columnIndex);
+				}
+			}
+			columnNames = newColumnNames;
+		}
+	}
+	
+	
+	/**
+	 * Returns the text of a header cell, as produced by the POI cell <code>toString()</code> method.
+	 */
+	protected String getCellText(CellData cell)
+	{
+		switch (cell.getType())
+		{
+			case BOOLEAN:
+				return cell.getBooleanValue() ? "TRUE" : "FALSE";
+			case NUMERIC:
+				if (isDateFormatted(cell))
+				{
+					DateFormat headerDateFormat = new SimpleDateFormat("dd-MMM-yyyy", LocaleUtil.getUserLocale());
+					headerDateFormat.setTimeZone(LocaleUtil.getUserTimeZone());
+					return headerDateFormat.format(DateUtil.getJavaDate(cell.getNumericValue(), date1904));
+				}
+				return Double.toString(cell.getNumericValue());
+			case BLANK:
+				return "";
+			default:
+				return cell.getText();
+		}
+	}
+	
+	
+	protected boolean isDateFormatted(CellData cell)
+	{
+		if (styles == null || cell.getStyleIndex() >= styles.getNumCellStyles()
+				|| !DateUtil.isValidExcelDate(cell.getNumericValue()))
+		{
+			return false;
+		}
+		
+		XSSFCellStyle style = styles.getStyleAt(cell.getStyleIndex());
+		return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+	}
+
+
+	/**
+	 * Closes the XLSX package and deletes the temporary file, if any. 
+	 * Users of this data source should close it after usage.
+	 */
+	@Override
+	public void close()
+	{
+		closeSheet();
+		sheets = null;
+		currentRow = null;
+		xlsxReader = null;
+		sharedStrings = null;
+		styles = null;
+		
+		if (xlsxPackage != null)
+		{
+			// the package is opened in read mode, reverting closes it without saving
+			xlsxPackage.revert();
+			xlsxPackage = null;
+		}
+		
+		if (temporaryFile && file.exists() && !file.delete())
+		{
+			log.warn("Failed to delete temporary file " + file);
+		}
+	}
+
+
+	@Override
+	protected void checkReadStarted()
+	{
+		if (started)
+		{
+			throw 
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_CANNOT_MODIFY_PROPERTIES_AFTER_START,
+					(Object[])null);
+		}
+	}
+	
+	
+	/**
+	 * The cells of a sheet row.
+	 */
+	protected static class RowData
+	{
+		private final int index;
+		private final List<CellData> cells = new ArrayList<CellData>();
+		
+		protected RowData(int index)
+		{
+			this.index = index;
+		}
+		
+		public int getIndex()
+		{
+			return index;
+		}
+		
+		public int getCellCount()
+		{
+			return cells.size();
+		}
+		
+		public CellData getCell(int columnIndex)
+		{
+			return columnIndex < cells.size() ? cells.get(columnIndex) : null;
+		}
+		
+		protected void setCell(int columnIndex, CellData cell)
+		{
+			while (cells.size() <= columnIndex)
+			{
+				cells.add(null);
+			}
+			cells.set(columnIndex, cell);
+		}
+	}
+	
+	
+	/**
+	 * The value of a sheet cell.
+	 */
+	protected static class CellData
+	{
+		private final boolean formula;
+		private final int styleIndex;
+		private CellType type;
+		private String text;
+		private double numericValue;
+		private boolean booleanValue;
+		
+		protected CellData(boolean formula, int styleIndex)
+		{
+			this.formula = formula;
+			this.styleIndex = styleIndex;
+		}
+		
+		protected void setBlank()
+		{
+			type = CellType.BLANK;
+		}
+		
+		protected void setString(String text)
+		{
+			type = CellType.STRING;
+			this.text = text;
+		}
+		
+		protected void setNumber(double numericValue)
+		{
+			type = CellType.NUMERIC;
+			this.numericValue = numericValue;
+		}
+		
+		protected void setBoolean(boolean booleanValue)
+		{
+			type = CellType.BOOLEAN;
+			this.booleanValue = booleanValue;
+		}
+		
+		protected void setError(String text)
+		{
+			type = CellType.ERROR;
+			this.text = text;
+		}
+		
+		public boolean isFormula()
+		{
+			return formula;
+		}
+		
+		public int getStyleIndex()
+		{
+			return styleIndex;
+		}
+		
+		public CellType getType()
+		{
+			return type;
+		}
+		
+		public String getText()
+		{
+			return text;
+		}
+		
+		/**
+		 * Returns the string value of the cell, failing for non string cells as the POI cells do.
+		 */
+		public String getStringValue()
+		{
+			switch (type)
+			{
+				case STRING:
+					return text;
+				case BLANK:
+					return "";
+				default:
+					throw new IllegalStateException("Cannot get a STRING value from a " + type + " cell");
+			}
+		}
+		
+		public double getNumericValue()
+		{
+			return numericValue;
+		}
+		
+		public boolean getBooleanValue()
+		{
+			return booleanValue;
+		}
+	}
+}
@@ -0,0 +1,934 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.JRXmlUtils;
+import net.sf.jasperreports.engine.util.xml.JRXPathExecuter;
+import net.sf.jasperreports.engine.util.xml.JRXPathExecuterUtils;
+import net.sf.jasperreports.repo.RepositoryContext;
+import net.sf.jasperreports.repo.RepositoryUtil;
+import net.sf.jasperreports.repo.SimpleRepositoryContext;
+
+/**
+ * XML data source implementation that reads the XML data as a StAX event stream.
+ * <p>
+ * Unlike {@link JRXmlDataSource}, which requires the entire XML document to be parsed into a DOM
+ * document, this data source matches the record elements while reading the XML data and only builds
+ * a small DOM document for each record.
+ * The record DOM document contains the record element with its entire content, nested in shallow 
+ * copies of its ancestor elements which only have the attributes of the original elements.
+ * Field values are evaluated by XPath expressions relative to the record element, as in 
+ * {@link JRXmlDataSource}; expressions that refer to the ancestors' attributes are also supported.
+ * <p>
+ * The select expression is a restricted XPath location path which consists of:
+ * <ul>
+ * <li>child steps (<code>/orders/order</code>) and descendant steps (<code>//order</code>)</li>
+ * <li>element name tests, including <code>*</code></li>
+ * <li>attribute predicates such as <code>[@id]</code>, <code>[@status = 'open']</code> or 
+ * <code>[@id != 10]</code></li>
+ * <li>position predicates such as <code>[2]</code></li>
+ * <li>any other XPath predicate on the last step, such as <code>[amount &gt; 100]</code>,
+ * which is evaluated on the record DOM document</li>
+ * </ul>
+ * The <code>.</code> and <code>/</code> expressions produce a single record consisting 
+ * of the entire document.
+ * Record elements nested inside other record elements are not produced as separate records.
+ * <p>
+ * When created from an input stream, the data source can only be iterated once.
+ */
+public class XmlStreamingDataSource extends AbstractXmlDataSource<JRXmlDataSource> implements Closeable
+{
+	private static final Log log = LogFactory.getLog(XmlStreamingDataSource.class);
+	
+	public static final String EXCEPTION_MESSAGE_KEY_NOT_REWINDABLE = "data.xml.streaming.not.rewindable";
+	public static final String EXCEPTION_MESSAGE_KEY_READ_ERROR = "data.xml.streaming.read.error";
+	public static final String EXCEPTION_MESSAGE_KEY_UNSUPPORTED_EXPRESSION = "data.xml.streaming.unsupported.expression";
+	
+	private static final Pattern NAME_TEST_PATTERN = Pattern.compile("[A-Za-z_][\\w.-]*(?::[A-Za-z_][\\w.-]*)?");
+	private static final Pattern POSITION_PREDICATE_PATTERN = Pattern.compile("\\s*(\\d+)\\s*");
+	private static final Pattern ATTRIBUTE_PREDICATE_PATTERN = Pattern.compile(
+			"\\s*@([\\w.:-]+)\\s*(?:(=|!=)\\s*(?:'([^']*)'|\"([^\"]*)\"|(-?[\\d.]+)))?\\s*");
+	
+	private final JasperReportsContext jasperReportsContext;
+	private final RepositoryContext repositoryContext;
+	private final String location;
+	private final File file;
+	private final InputStream inputStream;
+	private final boolean namespaceAware;
+	private final String selectExpression;
+	
+	private final List<SelectStep> selectSteps;
+	private final JRXPathExecuter xPathExecuter;
+	private final DocumentBuilder documentBuilder;
+	
+	private boolean started;
+	private InputStream openedStream;
+	private XMLStreamReader reader;
+	private final Deque<ElementFrame> frames = new LinkedList<ElementFrame>();
+	private Node currentNode;
+	
+	/**
+	 * Creates a data source that reads the XML data from an input stream.
+	 * <p>
+	 * The data source does not close the stream.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @param in the XML input stream
+	 * @param selectExpression the select expression
+	 * @param isNamespaceAware whether the XML data is read with namespace support
+	 */
+	public XmlStreamingDataSource(JasperReportsContext jasperReportsContext, InputStream in, 
+			String selectExpression, boolean isNamespaceAware) throws JRException
+	{
+		this(jasperReportsContext, null, null, null, in, selectExpression, isNamespaceAware);
+	}
+	
+	public XmlStreamingDataSource(JasperReportsContext jasperReportsContext, InputStream in, 
+			String selectExpression) throws JRException
+	{
+		this(jasperReportsContext, in, selectExpression, false);
+	}
+	
+	public XmlStreamingDataSource(JasperReportsContext jasperReportsContext, File file, 
+			String selectExpression, boolean isNamespaceAware) throws JRException
+	{
+		this(jasperReportsContext, null, null, file, null, selectExpression, isNamespaceAware);
+	}
+	
+	public XmlStreamingDataSource(JasperReportsContext jasperReportsContext, File file, 
+			String selectExpression) throws JRException
+	{
+		this(jasperReportsContext, file, selectExpression, false);
+	}
+
+	/**
+	 * Creates a data source that reads the XML data from a repository location.
+	 * 
+	 * @param repositoryContext the repository context
+	 * @param location the location of the XML data
+	 * @param selectExpression the select expression
+	 * @param isNamespaceAware whether the XML data is read with namespace support
+	 */
+	public XmlStreamingDataSource(RepositoryContext repositoryContext, String location, 
+			String selectExpression, boolean isNamespaceAware) throws JRException
+	{
+		this(repositoryContext.getJasperReportsContext(), repositoryContext, location, null, null, 
+				selectExpression, isNamespaceAware);
+	}
+	
+	public XmlStreamingDataSource(JasperReportsContext jasperReportsContext, String location, 
+			String selectExpression) throws JRException
+	{
+		this(SimpleRepositoryContext.of(jasperReportsContext), location, selectExpression, false);
+	}
+	
+	private XmlStreamingDataSource(JasperReportsContext jasperReportsContext, 
+			RepositoryContext repositoryContext, String location, File file, InputStream inputStream,
+			String selectExpression, boolean isNamespaceAware) throws JRException
+	{
+		if (selectExpression == null)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_NULL_SELECT_EXPRESSION,
+					(Object[]) null);
+		}
+		
+		this.jasperReportsContext = jasperReportsContext;
+		this.repositoryContext = repositoryContext;
+		this.location = location;
+		this.file = file;
+		this.inputStream = inputStream;
+		this.namespaceAware = isNamespaceAware;
+		this.selectExpression = selectExpression;
+		
+		this.selectSteps = parseSelectExpression(selectExpression);
+		this.xPathExecuter = JRXPathExecuterUtils.getXPathExecuter(jasperReportsContext);
+		this.documentBuilder = JRXmlUtils.createDocumentBuilder(isNamespaceAware);
+		
+		moveFirst();
+	}
+
+	protected List<SelectStep> parseSelectExpression(String expression) throws JRException
+	{
+		List<SelectStep> steps = new ArrayList<SelectStep>();
+		String path = expression.trim();
+		if (path.equals(".") || path.equals("/"))
+		{
+			return steps;
+		}
+		
+		boolean descendant = false;
+		int stepStart = 0;
+		int bracketDepth = 0;
+		char quote = 0;
+		for (int i = 0; i <= path.length(); i++)
+		{
+			char c = i < path.length() ? path.charAt(i) : '/';
+			if (quote != 0)
+			{
+				if (c == quote)
+				{
+					quote = 0;
+				}
+			}
+			else if (c == '\'' || c == '"')
+			{
+				quote = c;
+			}
+			else if (c == '[')
+			{
+				++bracketDepth;
+			}
+			else if (c == ']')
+			{
+				--bracketDepth;
+			}
+			else if (c == '/' && bracketDepth == 0)
+			{
+				String stepText = path.substring(stepStart, i).trim();
+				stepStart = i + 1;
+				if (stepText.isEmpty())
+				{
+					// "//" is a descendant step, a leading "/" is the document root
+					descendant = i > 0;
+				}
+				else
+				{
+					steps.add(parseStep(expression, stepText, descendant));
+					descendant = false;
+				}
+			}
+		}
+		
+		if (steps.isEmpty() || quote != 0 || bracketDepth != 0)
+		{
+			throw unsupportedExpression(expression);
+		}
+		
+		// only the last step can have predicates that are evaluated on the DOM
+		for (int i = 0; i < steps.size() - 1; i++)
+		{
+			if (!steps.get(i).domPredicates.isEmpty())
+			{
+				throw unsupportedExpression(expression);
+			}
+		}
+		
+		return steps;
+	}
+	
+	protected SelectStep parseStep(String expression, String stepText, boolean descendant) throws JRException
+	{
+		String nameTest = stepText;
+		boolean descendantStep = descendant;
+		int predicateStart = stepText.indexOf('[');
+		if (predicateStart >= 0)
+		{
+			nameTest = stepText.substring(0, predicateStart).trim();
+		}
+		
+		if (nameTest.startsWith("child::"))
+		{
+			nameTest = nameTest.substring("child::".length());
+		}
+		else if (nameTest.startsWith("descendant::") && !descendant)
+		{
+			nameTest = nameTest.substring("descendant::".length());
+			descendantStep = true;
+		}
+		
+		if (!(nameTest.equals("*") || NAME_TEST_PATTERN.matcher(nameTest).matches()))
+		{
+			throw unsupportedExpression(expression);
+		}
+		
+		SelectStep step = new SelectStep(nameTest.equals("*") ? null : nameTest, descendantStep);
+		
+		int index = predicateStart;
+		while (index >= 0 && index < stepText.length())
+		{
+			int predicateEnd = findPredicateEnd(stepText, index);
+			if (predicateEnd < 0)
+			{
+				throw unsupportedExpression(expression);
+			}
+			
+			String predicate = stepText.substring(index + 1, predicateEnd);
+			Matcher positionMatcher = POSITION_PREDICATE_PATTERN.matcher(predicate);
+			Matcher attributeMatcher = ATTRIBUTE_PREDICATE_PATTERN.matcher(predicate);
+			if (positionMatcher.matches() && step.domPredicates.isEmpty())
+			{
+				step.streamPredicates.add(new PositionPredicate(Integer.parseInt(positionMatcher.group(1))));
+			}
+			else if (attributeMatcher.matches() && step.domPredicates.isEmpty())
+			{
+				String value = attributeMatcher.group(3) != null ? attributeMatcher.group(3) 
+						: (attributeMatcher.group(4) != null ? attributeMatcher.group(4) : attributeMatcher.group(5));
+				step.streamPredicates.add(new AttributePredicate(attributeMatcher.group(1), 
+						attributeMatcher.group(2), value, attributeMatcher.group(5) != null));
+			}
+			else if (positionMatcher.matches())
+			{
+				// position after a predicate that can only be evaluated on the DOM
+				throw unsupportedExpression(expression);
+			}
+			else
+			{
+				step.domPredicates.add(predicate);
+			}
+			
+			index = predicateEnd + 1;
+			while (index < stepText.length() && Character.isWhitespace(stepText.charAt(index)))
+			{
+				++index;
+			}
+			if (index < stepText.length() && stepText.charAt(index) != '[')
+			{
+				throw unsupportedExpression(expression);
+			}
+		}
+		
+		return step;
+	}
+	
+	protected static int findPredicateEnd(String stepText, int start)
+	{
+		int depth = 0;
+		char quote = 0;
+		for (int i = start; i < stepText.length(); i++)
+		{
+			char c = stepText.charAt(i);
+			if (quote != 0)
+			{
+				if (c == quote)
+				{
+					quote = 0;
+				}
+			}
+			else if (c == '\'' || c == '"')
+			{
+				quote = c;
+			}
+			else if (c == '[')
+			{
+				++depth;
+			}
+			else if (c == ']' && --depth == 0)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	protected JRException unsupportedExpression(String expression)
+	{
+		return 
+			new JRException(
+				EXCEPTION_MESSAGE_KEY_UNSUPPORTED_EXPRESSION,
+				new Object[]{expression});
+	}
+
+	@Override
+	public void moveFirst() throws JRException
+	{
+		if (started && inputStream != null)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_NOT_REWINDABLE,
+					(Object[]) null);
+		}
+		
+		close();
+		started = true;
+		currentNode = null;
+		
+		InputStream stream = openStream();
+		openedStream = stream == inputStream ? null : stream;
+		try
+		{
+			reader = createInputFactory().createXMLStreamReader(stream);
+		}
+		catch (XMLStreamException e)
+		{
+			close();
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_READ_ERROR,
+					new Object[]{getSourceDescription()},
+					e);
+		}
+		
+		BitSet documentStates = new BitSet();
+		documentStates.set(0);
+		frames.push(new ElementFrame(null, null, null, documentStates));
+	}
+	
+	protected XMLInputFactory createInputFactory()
+	{
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, namespaceAware);
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		boolean allowDoctype = JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(
+				JRXmlUtils.PROPERTY_ALLOW_DOCTYPE, false);
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, allowDoctype);
+		return inputFactory;
+	}
+	
+	protected InputStream openStream() throws JRException
+	{
+		if (inputStream != null)
+		{
+			return inputStream;
+		}
+		
+		if (file != null)
+		{
+			try
+			{
+				return new FileInputStream(file);
+			}
+			catch (FileNotFoundException e)
+			{
+				throw new JRException(e);
+			}
+		}
+		
+		return RepositoryUtil.getInstance(repositoryContext).getInputStreamFromLocation(location);
+	}
+	
+	protected String getSourceDescription()
+	{
+		return file != null ? file.getPath() : (location != null ? location : "input stream");
+	}
+
+	@Override
+	public boolean next() throws JRException
+	{
+		currentNode = null;
+		if (reader == null)
+		{
+			return false;
+		}
+		
+		try
+		{
+			while (currentNode == null && reader.hasNext())
+			{
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT)
+				{
+					startElement();
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT)
+				{
+					frames.pop();
+				}
+			}
+		}
+		catch (XMLStreamException e)
+		{
+			close();
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_READ_ERROR,
+					new Object[]{getSourceDescription()},
+					e);
+		}
+		
+		if (currentNode == null)
+		{
+			// all the records have been read
+			close();
+		}
+		return currentNode != null;
+	}
+	
+	protected void startElement() throws XMLStreamException, JRException
+	{
+		ElementFrame parent = frames.peek();
+		if (selectSteps.isEmpty())
+		{
+			// the entire document is the record
+			Element root = readElement(documentBuilder.newDocument());
+			root.getOwnerDocument().appendChild(root);
+			currentNode = root.getOwnerDocument();
+			return;
+		}
+		
+		BitSet childStates = new BitSet();
+		boolean record = false;
+		for (int state = parent.states.nextSetBit(0); state >= 0; state = parent.states.nextSetBit(state + 1))
+		{
+			SelectStep step = selectSteps.get(state);
+			if (step.descendant)
+			{
+				childStates.set(state);
+			}
+			
+			if (matches(step, state, parent))
+			{
+				if (state + 1 == selectSteps.size())
+				{
+					record = true;
+				}
+				else
+				{
+					childStates.set(state + 1);
+				}
+			}
+		}
+		
+		if (record)
+		{
+			Element recordElement = readRecord();
+			if (matchesDomPredicates(recordElement))
+			{
+				currentNode = recordElement;
+			}
+		}
+		else if (childStates.isEmpty())
+		{
+			skipElement();
+		}
+		else
+		{
+			frames.push(createFrame(childStates));
+		}
+	}
+	
+	protected boolean matches(SelectStep step, int state, ElementFrame parent)
+	{
+		if (step.name != null && !step.name.equals(getQualifiedName(reader.getPrefix(), reader.getLocalName())))
+		{
+			return false;
+		}
+		
+		for (int i = 0; i < step.streamPredicates.size(); i++)
+		{
+			StreamPredicate predicate = step.streamPredicates.get(i);
+			if (!predicate.matches(this, parent.incrementPosition(state, i, step.streamPredicates.size())))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	protected boolean matchesDomPredicates(Element recordElement) throws JRException
+	{
+		List<String> domPredicates = selectSteps.get(selectSteps.size() - 1).domPredicates;
+		for (String predicate : domPredicates)
+		{
+			if (xPathExecuter.selectNodeList(recordElement, "self::node()[" + predicate + "]").getLength() == 0)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	protected String getAttributeValue(String attributeName)
+	{
+		for (int i = 0; i < reader.getAttributeCount(); i++)
+		{
+			if (attributeName.equals(getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i))))
+			{
+				return reader.getAttributeValue(i);
+			}
+		}
+		return null;
+	}
+	
+	protected static String getQualifiedName(String prefix, String localName)
+	{
+		return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+	}
+	
+	protected ElementFrame createFrame(BitSet states)
+	{
+		int attributeCount = reader.getAttributeCount();
+		String[] attributes = new String[attributeCount * 3];
+		for (int i = 0; i < attributeCount; i++)
+		{
+			attributes[3 * i] = reader.getAttributeNamespace(i);
+			attributes[3 * i + 1] = getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+			attributes[3 * i + 2] = reader.getAttributeValue(i);
+		}
+		return new ElementFrame(reader.getNamespaceURI(), 
+				getQualifiedName(reader.getPrefix(), reader.getLocalName()), attributes, states);
+	}
+	
+	protected Element readRecord() throws XMLStreamException
+	{
+		Document document = documentBuilder.newDocument();
+		Node parentNode = document;
+		// shallow copies of the ancestors, from the root element down
+		for (Iterator<ElementFrame> it = frames.descendingIterator(); it.hasNext();)
+		{
+			ElementFrame frame = it.next();
+			if (frame.name != null)
+			{
+				Element ancestor = frame.createElement(this, document);
+				parentNode.appendChild(ancestor);
+				parentNode = ancestor;
+			}
+		}
+		
+		Element recordElement = readElement(document);
+		parentNode.appendChild(recordElement);
+		return recordElement;
+	}
+	
+	protected Element readElement(Document document) throws XMLStreamException
+	{
+		Element element = createElement(document, reader.getNamespaceURI(), 
+				getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+		for (int i = 0; i < reader.getAttributeCount(); i++)
+		{
+			setAttribute(element, reader.getAttributeNamespace(i), 
+					getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+					reader.getAttributeValue(i));
+		}
+		
+		while (reader.hasNext())
+		{
+			int event = reader.next();
+			switch (event)
+			{
+			case XMLStreamConstants.START_ELEMENT:
+				element.appendChild(readElement(document));
+				break;
+			case XMLStreamConstants.CHARACTERS:
+			case XMLStreamConstants.SPACE:
+				element.appendChild(document.createTextNode(reader.getText()));
+				break;
+			case XMLStreamConstants.CDATA:
+				element.appendChild(document.createCDATASection(reader.getText()));
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				return element;
+			default:
+				// comments and processing instructions are ignored
+				break;
+			}
+		}
+		return element;
+	}
+	
+	protected Element createElement(Document document, String namespaceURI, String qualifiedName)
+	{
+		return namespaceAware 
+				? document.createElementNS(namespaceURI == null || namespaceURI.isEmpty() ? null : namespaceURI, qualifiedName) 
+				: document.createElement(qualifiedName);
+	}
+	
+	protected void setAttribute(Element element, String namespaceURI, String qualifiedName, String value)
+	{
+		if (namespaceAware)
+		{
+			element.setAttributeNS(namespaceURI == null || namespaceURI.isEmpty() ? null : namespaceURI, 
+					qualifiedName, value);
+		}
+		else
+		{
+			element.setAttribute(qualifiedName, value);
+		}
+	}
+	
+	protected void skipElement() throws XMLStreamException
+	{
+		int depth = 1;
+		while (depth > 0 && reader.hasNext())
+		{
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT)
+			{
+				++depth;
+			}
+			else if (event == XMLStreamConstants.END_ELEMENT)
+			{
+				--depth;
+			}
+		}
+	}
+
+	@Override
+	public Node getCurrentNode()
+	{
+		return currentNode;
+	}
+
+	@Override
+	public Object getSelectObject(Node currentNode, String expression) throws JRException
+	{
+		return xPathExecuter.selectObject(currentNode, expression);
+	}
+
+	/**
+	 * Creates a sub data source using as XML document the current record element.
+	 */
+	@Override
+	public JRXmlDataSource subDataSource(String selectExpr) throws JRException
+	{
+		JRXmlDataSource subDataSource = new JRXmlDataSource(jasperReportsContext, subDocument(), selectExpr);
+		subDataSource.setTextAttributes(this);
+		return subDataSource;
+	}
+
+	@Override
+	public Document subDocument() throws JRException
+	{
+		if (currentNode == null)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_NODE_NOT_AVAILABLE,
+					(Object[]) null);
+		}
+		
+		return JRXmlUtils.createDocument(currentNode, namespaceAware);
+	}
+
+	/**
+	 * Creates a data source on the entire XML document, which is parsed into a DOM document.
+	 * <p>
+	 * This is not possible when the data source reads the XML data from an input stream.
+	 */
+	@Override
+	public JRXmlDataSource dataSource(String selectExpr) throws JRException
+	{
+		if (inputStream != null)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_NOT_REWINDABLE,
+					(Object[]) null);
+		}
+		
+		JRXmlDataSource dataSource = file != null 
+				? new JRXmlDataSource(jasperReportsContext, file, selectExpr, namespaceAware)
+				: new JRXmlDataSource(repositoryContext, location, selectExpr, namespaceAware);
+		dataSource.setTextAttributes(this);
+		return dataSource;
+	}
+	
+	public String getSelectExpression()
+	{
+		return selectExpression;
+	}
+
+	/**
+	 * Closes the XML reader and, if opened by the data source, the underlying stream.
+	 */
+	@Override
+	public void close()
+	{
+		frames.clear();
+		
+		if (reader != null)
+		{
+			try
+			{
+				reader.close();
+			}
+			catch (XMLStreamException e)
+			{
+				log.warn("Failed to close XML reader for " + getSourceDescription(), e);
+			}
+			reader = null;
+		}
+		
+		if (openedStream != null)
+		{
+			try
+			{
+				openedStream.close();
+			}
+			catch (IOException e)
+			{
+				log.warn("Failed to close XML stream for " + getSourceDescription(), e);
+			}
+			openedStream = null;
+		}
+	}
+	
+	protected static class SelectStep
+	{
+		final String name;
+		final boolean descendant;
+		final List<StreamPredicate> streamPredicates = new ArrayList<StreamPredicate>();
+		final List<String> domPredicates = new ArrayList<String>();
+		
+		protected SelectStep(String name, boolean descendant)
+		{
+			this.name = name;
+			this.descendant = descendant;
+		}
+	}
+	
+	protected interface StreamPredicate
+	{
+		boolean matches(XmlStreamingDataSource dataSource, int position);
+	}
+	
+	protected static class PositionPredicate implements StreamPredicate
+	{
+		private final int position;
+		
+		protected PositionPredicate(int position)
+		{
+			this.position = position;
+		}
+
+		@Override
+		public boolean matches(XmlStreamingDataSource dataSource, int elementPosition)
+		{
+			return elementPosition == position;
+		}
+	}
+	
+	protected static class AttributePredicate implements StreamPredicate
+	{
+		private final String attributeName;
+		private final String operator;
+		private final String value;
+		private final boolean numeric;
+		
+		protected AttributePredicate(String attributeName, String operator, String value, boolean numeric)
+		{
+			this.attributeName = attributeName;
+			this.operator = operator;
+			this.value = value;
+			this.numeric = numeric;
+		}
+
+		@Override
+		public boolean matches(XmlStreamingDataSource dataSource, int position)
+		{
+			String attributeValue = dataSource.getAttributeValue(attributeName);
+			if (attributeValue == null)
+			{
+				return false;
+			}
+			
+			if (operator == null)
+			{
+				return true;
+			}
+			
+			boolean equal;
+			if (numeric)
+			{
+				try
+				{
+					equal = Double.parseDouble(attributeValue.trim()) == Double.parseDouble(value);
+				}
+				catch (NumberFormatException e)
+				{
+					// NaN is not equal to anything
+					return operator.equals("!=");
+				}
+			}
+			else
+			{
+				equal = attributeValue.equals(value);
+			}
+			return operator.equals("=") ? equal : !equal;
+		}
+	}
+	
+	protected static class ElementFrame
+	{
+		final String namespaceURI;
+		final String name;
+		final String[] attributes;
+		final BitSet states;
+		int[][] positions;
+		
+		protected ElementFrame(String namespaceURI, String name, String[] attributes, BitSet states)
+		{
+			this.namespaceURI = namespaceURI;
+			this.name = name;
+			this.attributes = attributes;
+			this.states = states;
+		}
+		
+		protected int incrementPosition(int state, int predicateIndex, int predicateCount)
+		{
+			if (positions == null)
+			{
+				positions = new int[states.length()][];
+			}
+			if (positions[state] == null)
+			{
+				positions[state] = new int[predicateCount];
+			}
+			return ++positions[state][predicateIndex];
+		}
+		
+		protected Element createElement(XmlStreamingDataSource dataSource, Document document)
+		{
+			Element element = dataSource.createElement(document, namespaceURI, name);
+			for (int i = 0; i < attributes.length; i += 3)
+			{
+				dataSource.setAttribute(element, attributes[i], attributes[i + 1], attributes[i + 2]);
+			}
+			return element;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.design;
+
+/**
+ * Outcome of compiling one report design file in a batch.
+ * 
+ * @see BatchReportCompiler
+ */
+public class BatchCompileResult
+{
+	private final String sourceFileName;
+	private final String destFileName;
+	private final long loadTime;
+	private final long compileTime;
+	private final Exception error;
+
+	public BatchCompileResult(String sourceFileName, String destFileName, 
+			long loadTime, long compileTime, Exception error)
+	{
+		this.sourceFileName = sourceFileName;
+		this.destFileName = destFileName;
+		this.loadTime = loadTime;
+		this.compileTime = compileTime;
+		this.error = error;
+	}
+
+	public String getSourceFileName()
+	{
+		return sourceFileName;
+	}
+
+	public String getDestFileName()
+	{
+		return destFileName;
+	}
+
+	/**
+	 * Returns the number of milliseconds spent parsing the report design file.
+	 */
+	public long getLoadTime()
+	{
+		return loadTime;
+	}
+
+	/**
+	 * Returns the number of milliseconds spent verifying and compiling the report design
+	 * and saving the compiled report.
+	 */
+	public long getCompileTime()
+	{
+		return compileTime;
+	}
+
+	/**
+	 * Returns the error that caused the compilation to fail, or <code>null</code> if the report was compiled.
+	 */
+	public Exception getError()
+	{
+		return error;
+	}
+
+	public boolean isSuccess()
+	{
+		return error == null;
+	}
+}
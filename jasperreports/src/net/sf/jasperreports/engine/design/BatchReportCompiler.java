@@ -0,0 +1,347 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.design;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.util.JRSaver;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+/**
+ * Compiles a set of report design files, optionally using several threads.
+ * <p>
+ * The reports are parsed, verified and compiled by {@link JasperCompileManager} and the results are
+ * saved to files.
+ * All compilations share a {@link CompilerClasspathIndex}, so that the classes referenced by the
+ * report expressions are looked up once for the whole batch.
+ * The worker threads use the context class loader of the thread that created the batch compiler.
+ * </p>
+ * <p>
+ * The class can also be used from the command line:
+ * <pre>
+ * java net.sf.jasperreports.engine.design.BatchReportCompiler [-threads n] srcdir [destdir]
+ * </pre>
+ * </p>
+ */
+public class BatchReportCompiler
+{
+	private static final Log log = LogFactory.getLog(BatchReportCompiler.class);
+
+	public static final String EXCEPTION_MESSAGE_KEY_COMPILE_INTERRUPTED = "compilers.batch.compile.interrupted";
+
+	private static final AtomicInteger batchCounter = new AtomicInteger();
+
+	private final SimpleJasperReportsContext jasperReportsContext;
+	private final int threadCount;
+	private final ClassLoader contextClassLoader;
+
+	/**
+	 * Creates a batch compiler.
+	 * 
+	 * @param jasperReportsContext the context used for parsing and compiling the reports
+	 * @param threadCount the number of reports compiled in parallel
+	 */
+	public BatchReportCompiler(JasperReportsContext jasperReportsContext, int threadCount)
+	{
+		this.jasperReportsContext = new SimpleJasperReportsContext(jasperReportsContext);
+		CompilerClasspathIndex.register(this.jasperReportsContext);
+
+		this.threadCount = Math.max(1, threadCount);
+		this.contextClassLoader = Thread.currentThread().getContextClassLoader();
+	}
+
+	/**
+	 * Compiles report design files.
+	 * 
+	 * @param reportFiles map of source report design file names to compiled report file names
+	 * @return the compilation results, in the order of the source files
+	 */
+	public List<BatchCompileResult> compileToFiles(Map<String, String> reportFiles) throws JRException
+	{
+		List<BatchCompileResult> results = new ArrayList<BatchCompileResult>(reportFiles.size());
+		if (threadCount == 1 || reportFiles.size() <= 1)
+		{
+			for (Map.Entry<String, String> entry : reportFiles.entrySet())
+			{
+				BatchCompileResult result = compileToFile(entry.getKey(), entry.getValue());
+				reportCompiled(result);
+				results.add(result);
+			}
+			return results;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(threadCount, reportFiles.size()), new CompilerThreadFactory());
+		try
+		{
+			List<Future<BatchCompileResult>> futures = new ArrayList<Future<BatchCompileResult>>(reportFiles.size());
+			for (final Map.Entry<String, String> entry : reportFiles.entrySet())
+			{
+				futures.add(executor.submit(new Callable<BatchCompileResult>()
+				{
+					@Override
+					public BatchCompileResult call()
+					{
+						return compileToFile(entry.getKey(), entry.getValue());
+					}
+				}));
+			}
+
+			for (Future<BatchCompileResult> future : futures)
+			{
+				BatchCompileResult result = future.get();
+				reportCompiled(result);
+				results.add(result);
+			}
+			return results;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_COMPILE_INTERRUPTED,
+					(Object[])null,
+					e);
+		}
+		catch (ExecutionException e)
+		{
+			// compileToFile catches the compilation errors
+			Throwable cause = e.getCause();
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			throw new JRRuntimeException(cause);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Compiles a report design file and saves the compiled report.
+	 * 
+	 * @param sourceFileName the report design file name
+	 * @param destFileName the compiled report file name
+	 * @return the compilation result
+	 */
+	protected BatchCompileResult compileToFile(String sourceFileName, String destFileName)
+	{
+		long start = System.nanoTime();
+		long loadTime = 0;
+		try
+		{
+			JasperDesign jasperDesign = JRXmlLoader.load(jasperReportsContext, sourceFileName);
+			loadTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+			JasperReport jasperReport = JasperCompileManager.getInstance(jasperReportsContext).compile(jasperDesign);
+
+			File destFileParent = new File(destFileName).getAbsoluteFile().getParentFile();
+			if (destFileParent != null && !destFileParent.exists())
+			{
+				destFileParent.mkdirs();
+			}
+			JRSaver.saveObject(jasperReport, destFileName);
+
+			long compileTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - loadTime;
+			return new BatchCompileResult(sourceFileName, destFileName, loadTime, compileTime, null);
+		}
+		catch (JRException | RuntimeException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to compile " + sourceFileName, e);
+			}
+
+			long compileTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) - loadTime;
+			return new BatchCompileResult(sourceFileName, destFileName, loadTime, compileTime, e);
+		}
+	}
+
+	/**
+	 * Called in the order of the source files as the reports are compiled, on the thread that 
+	 * started the batch compilation.
+	 * 
+	 * @param result the compilation result
+	 */
+	protected void reportCompiled(BatchCompileResult result)
+	{
+		// NOP
+	}
+
+	public int getThreadCount()
+	{
+		return threadCount;
+	}
+
+	protected class CompilerThreadFactory implements ThreadFactory
+	{
+		private final int batchIndex = batchCounter.incrementAndGet();
+		private final AtomicInteger threadCounter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, "JasperReports batch compiler #" + batchIndex 
+					+ "-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		}
+	}
+
+	/**
+	 * Compiles the <code>.jrxml</code> files found in a directory and its subdirectories.
+	 * The process exits with status <code>1</code> if any of the files could not be compiled.
+	 */
+	public static void main(String[] args)
+	{
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		int argIndex = 0;
+		if (args.length > 1 && "-threads".equals(args[0]))
+		{
+			threadCount = Integer.parseInt(args[1]);
+			argIndex = 2;
+		}
+
+		if (args.length <= argIndex)
+		{
+			System.out.println("BatchReportCompiler usage:");
+			System.out.println("\tjava BatchReportCompiler [-threads n] srcdir [destdir]");
+			return;
+		}
+
+		File srcDir = new File(args[argIndex]);
+		File destDir = args.length > argIndex + 1 ? new File(args[argIndex + 1]) : srcDir;
+
+		Map<String, String> reportFiles = new LinkedHashMap<String, String>();
+		collectReportFiles(srcDir, destDir, reportFiles);
+
+		BatchReportCompiler compiler = new BatchReportCompiler(DefaultJasperReportsContext.getInstance(), threadCount)
+		{
+			@Override
+			protected void reportCompiled(BatchCompileResult result)
+			{
+				printResult(result);
+			}
+		};
+
+		long start = System.currentTimeMillis();
+		int failed = 0;
+		try
+		{
+			for (BatchCompileResult result : compiler.compileToFiles(reportFiles))
+			{
+				if (!result.isSuccess())
+				{
+					++failed;
+				}
+			}
+		}
+		catch (JRException e)
+		{
+			if (log.isErrorEnabled())
+			{
+				log.error("Error compiling reports in " + srcDir, e);
+			}
+			System.exit(1);
+		}
+
+		System.out.println("Compiled " + (reportFiles.size() - failed) + " of " + reportFiles.size() 
+				+ " report design files in " + (System.currentTimeMillis() - start) + " ms.");
+		
+		if (failed > 0)
+		{
+			// signaling the failure to scripts and build tools
+			System.exit(1);
+		}
+	}
+
+	private static void collectReportFiles(File srcDir, File destDir, Map<String, String> reportFiles)
+	{
+		File[] files = srcDir.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+
+		for (File file : files)
+		{
+			String name = file.getName();
+			if (file.isDirectory())
+			{
+				collectReportFiles(file, new File(destDir, name), reportFiles);
+			}
+			else if (name.endsWith(".jrxml"))
+			{
+				String destName = name.substring(0, name.length() - ".jrxml".length()) + ".jasper";
+				reportFiles.put(file.getPath(), new File(destDir, destName).getPath());
+			}
+		}
+	}
+
+	/**
+	 * Prints the outcome of a report compilation to the standard output.
+	 * 
+	 * @param result the compilation result
+	 */
+	public static void printResult(BatchCompileResult result)
+	{
+		if (result.isSuccess())
+		{
+			System.out.println("File : " + result.getSourceFileName() + " ... OK (parsed in " + result.getLoadTime() 
+					+ " ms, compiled in " + result.getCompileTime() + " ms).");
+		}
+		else
+		{
+			System.out.println("File : " + result.getSourceFileName() + " ... FAILED.");
+			System.out.println("Error compiling report design : " + result.getSourceFileName());
+			result.getError().printStackTrace(System.out);
+		}
+	}
+}
@@ -0,0 +1,514 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.design;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRElement;
+import net.sf.jasperreports.engine.JRElementGroup;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRPropertiesUtil.PropertySuffix;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.ClassFilterObjectInputStream;
+import net.sf.jasperreports.engine.util.JRElementsVisitor;
+import net.sf.jasperreports.engine.util.JRSaver;
+import net.sf.jasperreports.engine.util.UniformElementVisitor;
+import net.sf.jasperreports.engine.xml.JRXmlWriter;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+/**
+ * Disk cache of compiled reports, used by 
+ * {@link net.sf.jasperreports.engine.JasperCompileManager#compile(JasperDesign) JasperCompileManager}
+ * when the {@link #PROPERTY_CACHE_DIR} property is set.
+ * <p>
+ * Compiled reports are stored as serialized {@link JasperReport} files named after a SHA-256 digest
+ * of the report design JRXML, the compiler class, the JasperReports version and the compiler configuration properties,
+ * therefore a changed design or library version results in a new cache entry.
+ * UUIDs generated when the design was loaded are not part of the digest, as designs loaded from JRXML without
+ * UUIDs receive random ones, while the UUIDs explicitly set on elements, datasets and the report are.
+ * </p>
+ * <p>
+ * Cached files are only deserialized if they contain JasperReports and JDK classes, or classes from the
+ * packages specified by {@link #PROPERTY_CACHE_ALLOWED_PACKAGE_PREFIX} properties, so that
+ * files written by others to the cache directory cannot instantiate arbitrary classes.
+ * </p>
+ * <p>
+ * Entries are written to temporary files and atomically renamed, so that the cache directory can be shared
+ * by several threads or processes.
+ * When the total size of the entries exceeds {@link #PROPERTY_CACHE_MAX_SIZE}, the least recently used entries
+ * are deleted.
+ * </p>
+ */
+public class CompiledReportCache
+{
+	private static final Log log = LogFactory.getLog(CompiledReportCache.class);
+
+	/**
+	 * Property that specifies a local directory in which compiled reports are cached.
+	 * The cache is not used when the property is not set.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_COMPILE,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0
+			)
+	public static final String PROPERTY_CACHE_DIR = JRPropertiesUtil.PROPERTY_PREFIX + "compiled.report.cache.dir";
+
+	/**
+	 * Property that specifies the maximum total size in bytes of the compiled report cache files.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_COMPILE,
+			defaultValue = "104857600",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Long.class
+			)
+	public static final String PROPERTY_CACHE_MAX_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "compiled.report.cache.max.size";
+
+	public static final long DEFAULT_CACHE_MAX_SIZE = 104857600;
+
+	/**
+	 * Prefix of properties that specify additional package names whose classes can be loaded
+	 * from the cached files, for instance for the classes of component extensions.
+	 * <p>
+	 * Classes from the <code>net.sf.jasperreports</code> and <code>java</code> packages are always allowed.
+	 * </p>
+	 */
+	@Property(
+			name = "net.sf.jasperreports.compiled.report.cache.allowed.package.{arbitrary_name}",
+			category = PropertyConstants.CATEGORY_COMPILE,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0
+			)
+	public static final String PROPERTY_CACHE_ALLOWED_PACKAGE_PREFIX = 
+			JRPropertiesUtil.PROPERTY_PREFIX + "compiled.report.cache.allowed.package.";
+
+	protected static final String[] DEFAULT_ALLOWED_PACKAGES = {"net.sf.jasperreports", "java"};
+
+	protected static final String COMPILER_PROPERTIES_PREFIX = JRPropertiesUtil.PROPERTY_PREFIX + "compiler.";
+	protected static final String FILE_EXTENSION = ".jasper";
+	protected static final String TEMP_FILE_EXTENSION = ".tmp";
+
+	private static final Object EVICTION_LOCK = new Object();
+
+	private final JasperReportsContext jasperReportsContext;
+	private final File directory;
+	private final long maxSize;
+
+	/**
+	 * Returns the compiled report cache configured for a JasperReports context.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @return the cache, or <code>null</code> if {@link #PROPERTY_CACHE_DIR} is not set
+	 */
+	public static CompiledReportCache getInstance(JasperReportsContext jasperReportsContext)
+	{
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(jasperReportsContext);
+		String directory = propertiesUtil.getProperty(PROPERTY_CACHE_DIR);
+		if (directory == null || directory.trim().length() == 0)
+		{
+			return null;
+		}
+
+		String maxSizeProperty = propertiesUtil.getProperty(PROPERTY_CACHE_MAX_SIZE);
+		long maxSize = maxSizeProperty == null || maxSizeProperty.trim().length() == 0 
+				? DEFAULT_CACHE_MAX_SIZE : JRPropertiesUtil.asLong(maxSizeProperty);
+		return new CompiledReportCache(jasperReportsContext, new File(directory.trim()), maxSize);
+	}
+
+	public CompiledReportCache(JasperReportsContext jasperReportsContext, File directory, long maxSize)
+	{
+		this.jasperReportsContext = jasperReportsContext;
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Computes the cache key of a report design.
+	 * 
+	 * @param jasperDesign the report design
+	 * @param compiler the compiler that would compile the design
+	 * @return the hex encoded digest used as cache key, or <code>null</code> if the design
+	 * could not be written as JRXML and is not to be cached
+	 */
+	public String getKey(JasperDesign jasperDesign, JRCompiler compiler)
+	{
+		String jrxml;
+		try
+		{
+			JRXmlWriter xmlWriter = new JRXmlWriter(jasperReportsContext);
+			xmlWriter.setExcludeUuids(true);
+			jrxml = xmlWriter.write(jasperDesign, "UTF-8");
+		}
+		catch (RuntimeException e)
+		{
+			// for instance for components that do not have a registered XML writer
+			if (log.isWarnEnabled())
+			{
+				log.warn("Failed to compute the cache key of report " + jasperDesign.getName() 
+						+ ", compiling without the cache", e);
+			}
+			return null;
+		}
+
+		MessageDigest digest;
+		try
+		{
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new JRRuntimeException(e);
+		}
+
+		digest.update(jrxml.getBytes(StandardCharsets.UTF_8));
+		for (UUID uuid : getExplicitUUIDs(jasperDesign))
+		{
+			updateDigest(digest, uuid.toString());
+		}
+		updateDigest(digest, compiler.getClass().getName());
+		updateDigest(digest, getLibraryVersion());
+
+		List<PropertySuffix> compilerProperties = new ArrayList<PropertySuffix>(
+				JRPropertiesUtil.getInstance(jasperReportsContext).getProperties(COMPILER_PROPERTIES_PREFIX));
+		Collections.sort(compilerProperties, new Comparator<PropertySuffix>()
+		{
+			@Override
+			public int compare(PropertySuffix o1, PropertySuffix o2)
+			{
+				return o1.getKey().compareTo(o2.getKey());
+			}
+		});
+		for (PropertySuffix property : compilerProperties)
+		{
+			updateDigest(digest, property.getKey());
+			updateDigest(digest, property.getValue());
+		}
+
+		StringBuilder key = new StringBuilder();
+		for (byte b : digest.digest())
+		{
+			key.append(Character.forDigit((b >> 4) & 0xF, 16));
+			key.append(Character.forDigit(b & 0xF, 16));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Collects the UUIDs that have been explicitly set on the report, its datasets and its elements,
+	 * as opposed to the ones generated on demand.
+	 */
+	protected List<UUID> getExplicitUUIDs(JasperDesign jasperDesign)
+	{
+		final List<UUID> uuids = new ArrayList<UUID>();
+		if (jasperDesign.hasUUID())
+		{
+			uuids.add(jasperDesign.getUUID());
+		}
+		
+		for (JRDataset dataset : jasperDesign.getDatasetsList())
+		{
+			if (((JRDesignDataset) dataset).hasUUID())
+			{
+				uuids.add(dataset.getUUID());
+			}
+		}
+		
+		JRElementsVisitor.visitReport(jasperDesign, new UniformElementVisitor()
+		{
+			@Override
+			protected void visitElement(JRElement element)
+			{
+				if (element instanceof JRDesignElement && ((JRDesignElement) element).hasUUID())
+				{
+					uuids.add(element.getUUID());
+				}
+			}
+
+			@Override
+			public void visitElementGroup(JRElementGroup elementGroup)
+			{
+				// the elements of the group are visited separately
+			}
+		});
+		return uuids;
+	}
+
+	protected void updateDigest(MessageDigest digest, String value)
+	{
+		digest.update((byte) 0);
+		if (value != null)
+		{
+			digest.update(value.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	protected String getLibraryVersion()
+	{
+		Package enginePackage = JasperReport.class.getPackage();
+		String version = enginePackage == null ? null : enginePackage.getImplementationVersion();
+		return (version == null ? "" : version) + "/" + JRConstants.SERIAL_VERSION_UID;
+	}
+
+	/**
+	 * Loads a compiled report from the cache.
+	 * 
+	 * @param key the cache key
+	 * @return the cached compiled report, or <code>null</code> if not found or not readable
+	 */
+	public JasperReport get(String key)
+	{
+		File file = getFile(key);
+		if (!file.isFile())
+		{
+			return null;
+		}
+
+		JasperReport report;
+		try
+		{
+			report = load(file);
+		}
+		catch (IOException | ClassNotFoundException | RuntimeException e)
+		{
+			if (log.isWarnEnabled())
+			{
+				log.warn("Failed to load cached compiled report " + file + ", deleting", e);
+			}
+			file.delete();
+			return null;
+		}
+
+		// keeping track of recently used entries for eviction
+		file.setLastModified(System.currentTimeMillis());
+
+		if (log.isDebugEnabled())
+		{
+			log.debug("loaded compiled report " + report.getName() + " from " + file);
+		}
+		return report;
+	}
+
+	protected JasperReport load(File file) throws IOException, ClassNotFoundException
+	{
+		InputStream fileInput = new BufferedInputStream(new FileInputStream(file));
+		try
+		{
+			ObjectInputStream objectInput = new ClassFilterObjectInputStream(jasperReportsContext, fileInput, 
+					getAllowedPackagePrefixes());
+			return (JasperReport) objectInput.readObject();
+		}
+		finally
+		{
+			fileInput.close();
+		}
+	}
+
+	/**
+	 * Returns the prefixes of the class names that are allowed in the cached files.
+	 */
+	protected List<String> getAllowedPackagePrefixes()
+	{
+		List<String> prefixes = new ArrayList<String>();
+		for (String allowedPackage : DEFAULT_ALLOWED_PACKAGES)
+		{
+			prefixes.add(allowedPackage + ".");
+		}
+		
+		List<PropertySuffix> properties = JRPropertiesUtil.getInstance(jasperReportsContext).getProperties(
+				PROPERTY_CACHE_ALLOWED_PACKAGE_PREFIX);
+		for (PropertySuffix property : properties)
+		{
+			String allowedPackage = property.getValue();
+			if (allowedPackage != null && allowedPackage.trim().length() > 0)
+			{
+				prefixes.add(allowedPackage.trim() + ".");
+			}
+		}
+		return prefixes;
+	}
+
+	/**
+	 * Stores a compiled report in the cache.
+	 * 
+	 * <p>
+	 * Failures are logged and do not affect the caller.
+	 * </p>
+	 * 
+	 * @param key the cache key
+	 * @param report the compiled report
+	 */
+	public void put(String key, JasperReport report)
+	{
+		File tempFile = null;
+		try
+		{
+			if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory())
+			{
+				throw new IOException("Cannot create directory " + directory);
+			}
+
+			tempFile = File.createTempFile(key, TEMP_FILE_EXTENSION, directory);
+			JRSaver.saveObject(report, tempFile);
+
+			File file = getFile(key);
+			try
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			tempFile = null;
+
+			if (log.isDebugEnabled())
+			{
+				log.debug("cached compiled report " + report.getName() + " to " + file);
+			}
+		}
+		catch (JRException | IOException e)
+		{
+			if (log.isWarnEnabled())
+			{
+				log.warn("Failed to cache compiled report " + report.getName() + " in " + directory, e);
+			}
+		}
+		finally
+		{
+			if (tempFile != null)
+			{
+				tempFile.delete();
+			}
+		}
+
+		evict();
+	}
+
+	/**
+	 * Deletes the least recently used entries while the total size of the cache exceeds the maximum size.
+	 */
+	protected void evict()
+	{
+		synchronized (EVICTION_LOCK)
+		{
+			File[] files = directory.listFiles();
+			if (files == null)
+			{
+				return;
+			}
+
+			List<File> entries = new ArrayList<File>(files.length);
+			final long[] lastModified = new long[files.length];
+			long totalSize = 0;
+			for (File file : files)
+			{
+				if (file.getName().endsWith(FILE_EXTENSION))
+				{
+					lastModified[entries.size()] = file.lastModified();
+					entries.add(file);
+					totalSize += file.length();
+				}
+			}
+
+			if (totalSize <= maxSize)
+			{
+				return;
+			}
+
+			// sorting indexes by last modified time, read once to avoid an inconsistent order
+			Integer[] order = new Integer[entries.size()];
+			for (int i = 0; i < order.length; i++)
+			{
+				order[i] = i;
+			}
+			Arrays.sort(order, new Comparator<Integer>()
+			{
+				@Override
+				public int compare(Integer o1, Integer o2)
+				{
+					return Long.compare(lastModified[o1], lastModified[o2]);
+				}
+			});
+
+			for (int i = 0; i < order.length && totalSize > maxSize; i++)
+			{
+				File file = entries.get(order[i]);
+				long length = file.length();
+				if (file.delete())
+				{
+					totalSize -= length;
+
+					if (log.isDebugEnabled())
+					{
+						log.debug("evicted cached compiled report " + file);
+					}
+				}
+			}
+		}
+	}
+
+	protected File getFile(String key)
+	{
+		return new File(directory, key + FILE_EXTENSION);
+	}
+
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	public long getMaxSize()
+	{
+		return maxSize;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.design;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.util.JRLoader;
+
+/**
+ * Cache of class file lookups shared by report compilations that use the same context.
+ * <p>
+ * Resolving the types referenced by the generated expression classes involves many class loader
+ * lookups, including failed ones for package names.
+ * When many reports are compiled in a batch, the lookups are performed once and the class bytes
+ * reused by all compilations.
+ * The index is not meant to be long lived, as it does not reflect changes in the classpath.
+ * </p>
+ * 
+ * @see JRJdtCompiler
+ * @see BatchReportCompiler
+ */
+public class CompilerClasspathIndex
+{
+	private static final String CONTEXT_KEY_CLASSPATH_INDEX = "net.sf.jasperreports.compiler.classpath.index";
+
+	private static final byte[] MISSING_RESOURCE = new byte[0];
+
+	private final ConcurrentMap<ClassLoader, ConcurrentMap<String, byte[]>> resources = 
+			new ConcurrentHashMap<ClassLoader, ConcurrentMap<String, byte[]>>();
+
+	/**
+	 * Returns the classpath index registered in a context.
+	 * 
+	 * @param jasperReportsContext the context
+	 * @return the classpath index, or <code>null</code> if no index has been registered
+	 */
+	public static CompilerClasspathIndex getInstance(JasperReportsContext jasperReportsContext)
+	{
+		return (CompilerClasspathIndex) jasperReportsContext.getValue(CONTEXT_KEY_CLASSPATH_INDEX);
+	}
+
+	/**
+	 * Registers a new classpath index in a context.
+	 * 
+	 * @param jasperReportsContext the context
+	 * @return the registered classpath index
+	 */
+	public static CompilerClasspathIndex register(SimpleJasperReportsContext jasperReportsContext)
+	{
+		CompilerClasspathIndex index = new CompilerClasspathIndex();
+		jasperReportsContext.setValue(CONTEXT_KEY_CLASSPATH_INDEX, index);
+		return index;
+	}
+
+	/**
+	 * Returns the contents of a class loader resource.
+	 * 
+	 * @param classLoader the class loader
+	 * @param resourceName the resource name
+	 * @return the resource contents, or <code>null</code> if the resource was not found
+	 */
+	public byte[] getResourceBytes(ClassLoader classLoader, String resourceName) throws JRException
+	{
+		ConcurrentMap<String, byte[]> loaderResources = resources.get(classLoader);
+		if (loaderResources == null)
+		{
+			loaderResources = new ConcurrentHashMap<String, byte[]>();
+			ConcurrentMap<String, byte[]> existingResources = resources.putIfAbsent(classLoader, loaderResources);
+			if (existingResources != null)
+			{
+				loaderResources = existingResources;
+			}
+		}
+
+		byte[] bytes = loaderResources.get(resourceName);
+		if (bytes == null)
+		{
+			// concurrent lookups of the same resource are harmless
+			bytes = loadResourceBytes(classLoader, resourceName);
+			loaderResources.put(resourceName, bytes);
+		}
+		return bytes == MISSING_RESOURCE ? null : bytes;
+	}
+
+	protected byte[] loadResourceBytes(ClassLoader classLoader, String resourceName) throws JRException
+	{
+		InputStream is = classLoader.getResourceAsStream(resourceName);
+		if (is == null)
+		{
+			return MISSING_RESOURCE;
+		}
+
+		try
+		{
+			return JRLoader.loadBytes(is);
+		}
+		finally
+		{
+			try
+			{
+				is.close();
+			}
+			catch (IOException e)
+			{
+				// ignore
+			}
+		}
+	}
+}
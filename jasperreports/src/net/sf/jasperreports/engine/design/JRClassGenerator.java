@@ -73,6 +73,22 @@ public class JRClassGenerator
 			)
 	public static final String PROPERTY_MAX_METHOD_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "compiler.max.java.method.size";
 	
+	/**
+	 * Property that determines whether each expression is generated as a separate Java method.
+	 * <p>
+	 * When set, the <code>evaluate(int id)</code> methods only dispatch to the expression methods,
+	 * which keeps them small enough to be compiled by the JIT even for reports with many expressions,
+	 * and allows the JIT to compile and inline each expression on its own.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_COMPILE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_EXPRESSION_METHODS = JRPropertiesUtil.PROPERTY_PREFIX + "compiler.java.expression.methods";
+	
 	
 	/**
 	 *
@@ -108,6 +124,7 @@ public class JRClassGenerator
 	protected final JRSourceCompileTask sourceTask;
 
 	private final int maxMethodSize;
+	private final boolean expressionMethods;
 	
 	protected Map<String, ? extends JRParameter> parametersMap;
 	protected Map<String,JRField> fieldsMap;
@@ -125,6 +142,7 @@ public class JRClassGenerator
 		
 		JRPropertiesUtil properties = JRPropertiesUtil.getInstance(sourceTask.getJasperReportsContext());
 		maxMethodSize = properties.getIntegerProperty(PROPERTY_MAX_METHOD_SIZE, Integer.MAX_VALUE);
+		expressionMethods = properties.getBooleanProperty(PROPERTY_EXPRESSION_METHODS);
 	}
 
 	
@@ -509,6 +527,7 @@ public class JRClassGenerator
 		++methodIndex;
 
 		StringBuilder expressionBuilder = new StringBuilder();
+		StringBuilder expressionMethodsBuilder = expressionMethods ? new StringBuilder() : null;
 		int methodExpressionIndex = 0;
 		int methodBuilderStartPosition = sb.length();
 		while (it.hasNext())
@@ -516,7 +535,14 @@ public class JRClassGenerator
 			JRExpression expression = it.next();
 			
 			expressionBuilder.setLength(0);
-			writeExpression(expressionBuilder, expression, evaluationType);
+			if (expressionMethods)
+			{
+				writeExpressionMethod(expressionBuilder, expressionMethodsBuilder, expression, evaluationType);
+			}
+			else
+			{
+				writeExpression(expressionBuilder, expression, evaluationType);
+			}
 			if (methodExpressionIndex >= EXPR_MAX_COUNT_PER_METHOD
 					|| (methodExpressionIndex > 0 && sb.length() - methodBuilderStartPosition > maxMethodSize))
 			{
@@ -536,6 +562,11 @@ public class JRClassGenerator
 		
 		writeMethodEnd(sb, evaluationType, null);
 		
+		if (expressionMethodsBuilder != null)
+		{
+			sb.append(expressionMethodsBuilder);
+		}
+		
 		return sb.toString();
 	}
 
@@ -578,6 +609,58 @@ public class JRClassGenerator
 		sb.append("            }\n");
 	}
 	
+	/**
+	 * Writes a switch case that calls a separate method for the expression, and the expression method.
+	 * <p>
+	 * If the old or estimated evaluation of the expression is the same as the default evaluation,
+	 * as for expressions that only use parameters, the case calls the default expression method.
+	 */
+	protected void writeExpressionMethod(StringBuilder sb, StringBuilder methodsBuilder, 
+			JRExpression expression, byte evaluationType)
+	{
+		String expressionCode = generateExpression(expression, evaluationType);
+		byte methodEvaluationType = evaluationType;
+		if (evaluationType != JRExpression.EVALUATION_DEFAULT
+				&& expressionCode.equals(generateExpression(expression, JRExpression.EVALUATION_DEFAULT)))
+		{
+			methodEvaluationType = JRExpression.EVALUATION_DEFAULT;
+		}
+		
+		int expressionId = sourceTask.getExpressionId(expression);
+		sb.append("            case "); 
+		sb.append(expressionId); 
+		sb.append(" : \n");
+		sb.append("            {\n");
+		sb.append("                value = evaluate");
+		sb.append(methodSuffixMap.get(methodEvaluationType));
+		sb.append('_');
+		sb.append(expressionId);
+		sb.append("();\n");
+		sb.append("                break;\n");
+		sb.append("            }\n");
+		
+		if (methodEvaluationType == evaluationType)
+		{
+			methodsBuilder.append("    /**\n");
+			methodsBuilder.append("     *\n");
+			methodsBuilder.append("     */\n");
+			methodsBuilder.append("    private Object evaluate");
+			methodsBuilder.append(methodSuffixMap.get(evaluationType));
+			methodsBuilder.append('_');
+			methodsBuilder.append(expressionId);
+			methodsBuilder.append("() throws Throwable\n");
+			methodsBuilder.append("    {\n");
+			methodsBuilder.append("        return ");
+			methodsBuilder.append(expressionCode);
+			methodsBuilder.append(";");
+			appendExpressionComment(methodsBuilder, expression);
+			methodsBuilder.append("\n");
+			methodsBuilder.append("    }\n");
+			methodsBuilder.append("\n");
+			methodsBuilder.append("\n");
+		}
+	}
+	
 	protected void writeMethodEnd(StringBuilder sb, byte evaluationType, Integer nextMethodIndex)
 	{
 		sb.append("           default :\n");
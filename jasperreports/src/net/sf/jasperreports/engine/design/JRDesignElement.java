@@ -77,6 +77,8 @@ public abstract class JRDesignElement extends JRBaseElement
 	public static final String PROPERTY_PROPERTY_EXPRESSIONS = "propertyExpressions";
 
 	private List<JRPropertyExpression> propertyExpressions = new ArrayList<JRPropertyExpression>();
+	
+	private boolean ownUUID;
 
 	/**
 	 *
@@ -95,6 +97,21 @@ public abstract class JRDesignElement extends JRBaseElement
 	public void setUUID(UUID uuid)
 	{
 		this.uuid = uuid;
+		this.ownUUID = uuid != null;
+	}
+	
+	/**
+	 * Determines whether the element has an externally set unique identifier.
+	 * 
+	 * Note that when no existing identifier is set, {@link #getUUID()} would generate and return
+	 * an identifier.
+	 * 
+	 * @return whether the element has an externally set unique identifier
+	 * @see #setUUID(UUID)
+	 */
+	public boolean hasUUID()
+	{
+		return ownUUID;
 	}
 		
 	/**
@@ -285,6 +302,7 @@ public abstract class JRDesignElement extends JRBaseElement
 	{
 		JRDesignElement clone = (JRDesignElement) super.clone();
 		clone.uuid = null;
+		clone.ownUUID = false;
 		clone.propertyExpressions = JRCloneUtils.cloneList(propertyExpressions);
 		return clone;
 	}
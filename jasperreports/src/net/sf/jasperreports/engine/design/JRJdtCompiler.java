@@ -81,6 +81,7 @@ public class JRJdtCompiler extends JRAbstractJavaCompiler
 	static final Log log = LogFactory.getLog(JRJdtCompiler.class);
 	
 	private final ClassLoader classLoader;
+	private final CompilerClasspathIndex classpathIndex;
 
 	Constructor<?> constrNameEnvAnsBin;
 	Constructor<?> constrNameEnvAnsCompUnit;
@@ -97,6 +98,7 @@ public class JRJdtCompiler extends JRAbstractJavaCompiler
 		super(jasperReportsContext, false);
 		
 		classLoader = getClassLoader();
+		classpathIndex = CompilerClasspathIndex.getInstance(jasperReportsContext);
 
 		boolean success;
 		try //FIXME remove support for pre 3.1 jdt
@@ -240,34 +242,19 @@ public class JRJdtCompiler extends JRAbstractJavaCompiler
 					}
 					
 					String resourceName = className.replace('.', '/') + ".class";
-					InputStream is = getResource(resourceName);
-					if (is != null) 
+					byte[] classBytes = getResourceBytes(resourceName);
+					if (classBytes != null) 
 					{
-						try
+						char[] fileName = className.toCharArray();
+						ClassFileReader classFileReader = 
+							new ClassFileReader(classBytes, fileName, true);
+						
+						if (is2ArgsConstr)
 						{
-							byte[] classBytes = JRLoader.loadBytes(is);
-							char[] fileName = className.toCharArray();
-							ClassFileReader classFileReader = 
-								new ClassFileReader(classBytes, fileName, true);
-							
-							if (is2ArgsConstr)
-							{
-								return (NameEnvironmentAnswer) constrNameEnvAnsBin2Args.newInstance(new Object[] { classFileReader, null });
-							}
-
-							return (NameEnvironmentAnswer) constrNameEnvAnsBin.newInstance(new Object[] { classFileReader });
-						}
-						finally
-						{
-							try
-							{
-								is.close();
-							}
-							catch (IOException e)
-							{
-								// ignore
-							}
+							return (NameEnvironmentAnswer) constrNameEnvAnsBin2Args.newInstance(new Object[] { classFileReader, null });
 						}
+
+						return (NameEnvironmentAnswer) constrNameEnvAnsBin.newInstance(new Object[] { classFileReader });
 					}
 				}
 				catch (JRException e)
@@ -323,6 +310,20 @@ public class JRJdtCompiler extends JRAbstractJavaCompiler
 				
 				String resourceName = result.replace('.', '/') + ".class";
 
+				if (classpathIndex != null && classLoader != null)
+				{
+					try
+					{
+						byte[] classBytes = classpathIndex.getResourceBytes(classLoader, resourceName);
+						return classBytes == null || classBytes.length == 0;
+					}
+					catch (JRException e)
+					{
+						log.error("Compilation error", e);
+						return true;
+					}
+				}
+
 				boolean isPackage = true;
 
 				InputStream is = getResource(resourceName);
@@ -479,6 +480,43 @@ public class JRJdtCompiler extends JRAbstractJavaCompiler
 	}
 	
 	
+	/**
+	 * Returns the contents of a class loader resource, using the classpath index registered
+	 * in the context if present.
+	 * 
+	 * @see CompilerClasspathIndex
+	 */
+	protected byte[] getResourceBytes(String resourceName) throws JRException
+	{
+		if (classpathIndex != null && classLoader != null)
+		{
+			return classpathIndex.getResourceBytes(classLoader, resourceName);
+		}
+
+		InputStream is = getResource(resourceName);
+		if (is == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return JRLoader.loadBytes(is);
+		}
+		finally
+		{
+			try
+			{
+				is.close();
+			}
+			catch (IOException e)
+			{
+				// ignore
+			}
+		}
+	}
+	
+	
 	protected Class<?> loadClass (String className) throws ClassNotFoundException
 	{
 		if (classLoader == null)
@@ -41,7 +41,7 @@ import net.sf.jasperreports.engine.util.SortedIntList;
  */
 public class CutsInfo
 {
-	private final SortedIntList cutOffsets = new SortedIntList();
+	private final SortedIntList cutOffsets;
 	private Cut[] cuts;
 	
 	private Map<String, Object> propertiesMap;
@@ -49,9 +49,21 @@ public class CutsInfo
 	public CutsInfo()
 	{
 		propertiesMap = new HashMap<String, Object>();
+		cutOffsets = new SortedIntList();
 		addCutOffset(0);
 	}
 	
+	/**
+	 * Creates cuts at the specified offsets, as returned by {@link #getCutOffsets()}.
+	 * 
+	 * @param cutOffsets the sorted cut offsets
+	 */
+	public CutsInfo(int[] cutOffsets)
+	{
+		propertiesMap = new HashMap<String, Object>();
+		this.cutOffsets = new SortedIntList(cutOffsets);
+	}
+	
 	public CutsInfo(Integer lastCutOffset)
 	{
 		this();
@@ -110,6 +122,11 @@ public class CutsInfo
 		return cutOffsets.indexOf(cutOffset);
 	}
 
+	public int[] getCutOffsets()
+	{
+		return cutOffsets.toArray();
+	}
+
 	public boolean hasCuts()
 	{
 		return !cutOffsets.isEmpty();
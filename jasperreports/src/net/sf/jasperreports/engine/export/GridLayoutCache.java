@@ -0,0 +1,295 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.export;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+
+
+/**
+ * Cache of grid layout computations shared by the pages of a document exported by a grid exporter.
+ * <p>
+ * Pages produced from the same bands often have the same element geometry, which means that
+ * the cuts computed for such pages are identical.
+ * The cache keeps the cut offsets for a number of recently laid out geometries, the geometry
+ * of a page being the positions and sizes of its exported elements, including the elements
+ * of deep frames.
+ * The cell sizes, which only depend on the cuts, are also shared by all the pages.
+ * <p>
+ * A cache instance is meant to be used by a single export and a single exporter nature.
+ * 
+ * @see JRGridLayout#JRGridLayout(ExporterNature, List, int, int, int, int, CutsInfo, GridLayoutCache)
+ */
+public class GridLayoutCache
+{
+	private static final Log log = LogFactory.getLog(GridLayoutCache.class);
+	
+	/**
+	 * The default number of page geometries kept in the cache.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 16;
+	
+	private final Map<GridCellSize, GridCellSize> cellSizes;
+	private final Map<LayoutKey, LayoutCuts> layoutCuts;
+	
+	private int hitCount;
+	private int missCount;
+	
+	public GridLayoutCache()
+	{
+		this(DEFAULT_MAX_SIZE);
+	}
+	
+	/**
+	 * Creates a cache.
+	 * 
+	 * @param maxSize the maximum number of page geometries kept in the cache
+	 */
+	public GridLayoutCache(final int maxSize)
+	{
+		this.cellSizes = new HashMap<GridCellSize, GridCellSize>();
+		this.layoutCuts = new LinkedHashMap<LayoutKey, LayoutCuts>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<LayoutKey, LayoutCuts> eldest)
+			{
+				return size() > maxSize;
+			}
+		};
+	}
+	
+	protected Map<GridCellSize, GridCellSize> getCellSizes()
+	{
+		return cellSizes;
+	}
+	
+	/**
+	 * Creates the cache key for a grid layout.
+	 */
+	protected LayoutKey createKey(ExporterNature nature, List<JRPrintElement> elements, 
+			int width, int height, int offsetX, int offsetY, boolean createXCuts)
+	{
+		IntArrayBuilder geometry = new IntArrayBuilder(elements.size() * 5 + 8);
+		geometry.add(width);
+		geometry.add(height);
+		geometry.add(offsetX);
+		geometry.add(offsetY);
+		geometry.add(createXCuts ? 1 : 0);
+		addGeometry(nature, elements, geometry);
+		return new LayoutKey(nature, geometry.toArray());
+	}
+	
+	protected void addGeometry(ExporterNature nature, List<JRPrintElement> elements, IntArrayBuilder geometry)
+	{
+		// the number of exported elements precedes their geometry
+		int countIndex = geometry.size();
+		geometry.add(0);
+		
+		int count = 0;
+		for (JRPrintElement element : elements)
+		{
+			if (nature.isToExport(element))
+			{
+				++count;
+				geometry.add(element.getX());
+				geometry.add(element.getY());
+				geometry.add(element.getWidth());
+				geometry.add(element.getHeight());
+				
+				JRPrintFrame frame = element instanceof JRPrintFrame ? (JRPrintFrame) element : null;
+				if (frame != null && nature.isDeep(frame))
+				{
+					geometry.add(1);
+					geometry.add(frame.getLineBox().getLeftPadding());
+					geometry.add(frame.getLineBox().getTopPadding());
+					addGeometry(nature, frame.getElements(), geometry);
+				}
+				else
+				{
+					geometry.add(0);
+				}
+			}
+		}
+		geometry.set(countIndex, count);
+	}
+	
+	/**
+	 * Returns the cached cuts for a layout key, or <code>null</code> if not present in the cache.
+	 */
+	protected LayoutCuts getCuts(LayoutKey key)
+	{
+		LayoutCuts cuts = layoutCuts.get(key);
+		if (cuts == null)
+		{
+			++missCount;
+		}
+		else
+		{
+			++hitCount;
+		}
+		
+		if (log.isTraceEnabled())
+		{
+			log.trace("grid layout cache " + (cuts == null ? "miss" : "hit") + ", " 
+					+ hitCount + " hits, " + missCount + " misses");
+		}
+		return cuts;
+	}
+	
+	/**
+	 * Caches the cuts computed for a layout.
+	 * 
+	 * @param key the layout key
+	 * @param xCuts the created X cuts, or <code>null</code> if the X cuts were provided to the layout
+	 * @param yCuts the Y cuts
+	 */
+	protected void putCuts(LayoutKey key, CutsInfo xCuts, CutsInfo yCuts)
+	{
+		layoutCuts.put(key, new LayoutCuts(
+				xCuts == null ? null : xCuts.getCutOffsets(), 
+				yCuts.getCutOffsets()));
+	}
+	
+	/**
+	 * Returns the number of layouts that have reused cached cuts.
+	 */
+	public int getHitCount()
+	{
+		return hitCount;
+	}
+	
+	/**
+	 * Returns the number of layouts that have computed their cuts.
+	 */
+	public int getMissCount()
+	{
+		return missCount;
+	}
+	
+	protected static class LayoutKey
+	{
+		private final ExporterNature nature;
+		private final int[] geometry;
+		private final int hash;
+		
+		protected LayoutKey(ExporterNature nature, int[] geometry)
+		{
+			this.nature = nature;
+			this.geometry = geometry;
+			this.hash = 31 * System.identityHashCode(nature) + Arrays.hashCode(geometry);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (obj == this)
+			{
+				return true;
+			}
+			if (!(obj instanceof LayoutKey))
+			{
+				return false;
+			}
+			
+			LayoutKey key = (LayoutKey) obj;
+			return nature == key.nature && hash == key.hash
+					&& Arrays.equals(geometry, key.geometry);
+		}
+	}
+	
+	protected static class LayoutCuts
+	{
+		private final int[] xCutOffsets;
+		private final int[] yCutOffsets;
+		
+		protected LayoutCuts(int[] xCutOffsets, int[] yCutOffsets)
+		{
+			this.xCutOffsets = xCutOffsets;
+			this.yCutOffsets = yCutOffsets;
+		}
+
+		public CutsInfo createXCuts()
+		{
+			return new CutsInfo(xCutOffsets);
+		}
+
+		public CutsInfo createYCuts()
+		{
+			return new CutsInfo(yCutOffsets);
+		}
+	}
+	
+	protected static class IntArrayBuilder
+	{
+		private int[] values;
+		private int size;
+		
+		protected IntArrayBuilder(int capacity)
+		{
+			values = new int[Math.max(capacity, 16)];
+		}
+		
+		public void add(int value)
+		{
+			if (size >= values.length)
+			{
+				values = Arrays.copyOf(values, values.length + (values.length >> 1));
+			}
+			values[size++] = value;
+		}
+		
+		public void set(int index, int value)
+		{
+			values[index] = value;
+		}
+		
+		public int size()
+		{
+			return size;
+		}
+		
+		public int[] toArray()
+		{
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.export;
+
+import java.util.concurrent.Callable;
+
+import net.sf.jasperreports.export.ExportInterruptedException;
+
+/**
+ * Computes the grid layouts of the pages of a document on worker threads while a grid exporter
+ * writes the preceding pages.
+ * <p>
+ * The layout of each page is created by a task obtained from a {@link LayoutTaskFactory} on the
+ * exporter thread, in page order.
+ * The exporter consumes the layouts in page order and performs all the output operations,
+ * including the registration of cell styles, on its own thread, so the produced document
+ * is the same as the one produced without the pipeline.
+ * Pages for which the layout could not be computed are laid out by the exporter as usual.
+ * </p>
+ * <p>
+ * The pipeline only overlaps the layout of the following pages with the output of the current one.
+ * The XLSX exporter can also serialize the sheets on worker threads, see
+ * {@link net.sf.jasperreports.export.XlsxExporterConfiguration#getSheetThreads()}.
+ * </p>
+ * 
+ * @see net.sf.jasperreports.export.XlsExporterConfiguration#getLayoutThreads()
+ */
+public class GridLayoutPipeline extends PagePipeline<JRGridLayout>
+{
+	/**
+	 * Creates the layout tasks for the pages of a document.
+	 */
+	public interface LayoutTaskFactory
+	{
+		/**
+		 * Creates the task that computes the layout of a page.
+		 * The method is called on the exporter thread.
+		 * 
+		 * @param pageIndex the page index
+		 * @param layoutCache the layout cache of the worker thread that executes the task
+		 * @return the layout task, or <code>null</code> if the page is to be laid out by the exporter
+		 */
+		Callable<JRGridLayout> createLayoutTask(int pageIndex, ThreadLocal<GridLayoutCache> layoutCache);
+	}
+
+	private final LayoutTaskFactory taskFactory;
+	private final ThreadLocal<GridLayoutCache> layoutCaches;
+
+	/**
+	 * Starts the worker threads.
+	 * 
+	 * @param taskFactory the layout task factory
+	 * @param threadCount the number of worker threads
+	 */
+	public GridLayoutPipeline(LayoutTaskFactory taskFactory, int threadCount)
+	{
+		super(threadCount, "JasperReports grid layout");
+		
+		this.taskFactory = taskFactory;
+		this.layoutCaches = new ThreadLocal<GridLayoutCache>()
+		{
+			@Override
+			protected GridLayoutCache initialValue()
+			{
+				// the cache is not thread safe, using one per worker
+				return new GridLayoutCache();
+			}
+		};
+	}
+
+	@Override
+	protected Callable<JRGridLayout> createTask(int pageIndex)
+	{
+		return taskFactory.createLayoutTask(pageIndex, layoutCaches);
+	}
+
+	/**
+	 * Returns the layout of a page, and schedules the layout of the following pages.
+	 * Pages are expected to be requested in increasing order.
+	 * 
+	 * @param pageIndex the index of the page
+	 * @param endPageIndex the index of the last page that will be exported
+	 * @return the page layout, or <code>null</code> if the page has not been laid out
+	 * @throws ExportInterruptedException if the thread was interrupted while waiting for the layout
+	 */
+	public JRGridLayout getLayout(int pageIndex, int endPageIndex) throws ExportInterruptedException
+	{
+		return getResult(pageIndex, endPageIndex);
+	}
+}
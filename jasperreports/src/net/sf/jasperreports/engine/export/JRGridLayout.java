@@ -60,6 +60,7 @@ public class JRGridLayout
 	
 	private final ExporterNature nature;
 	private final List<JRPrintElement> elementList;
+	private final GridLayoutCache cache;
 	
 	private final Map<GridCellSize, GridCellSize> cellSizes;
 	private final Map<GridCellStyle, GridCellStyle> cellStyles;
@@ -130,12 +131,47 @@ public class JRGridLayout
 		int offsetY,
 		CutsInfo xCuts
 		)
+	{
+		this(
+			nature,
+			elements,
+			width,
+			height,
+			offsetX,
+			offsetY,
+			xCuts,
+			null //cache
+			);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param elements the elements that should arranged in a grid
+	 * @param width the width available for the grid
+	 * @param height the height available for the grid
+	 * @param offsetX horizontal element position offset
+	 * @param offsetY vertical element position offset
+	 * @param xCuts An optional list of pre-calculated X cuts.
+	 * @param cache An optional cache shared by the layouts of the pages of a document.
+	 */
+	public JRGridLayout(
+		ExporterNature nature,
+		List<JRPrintElement> elements,
+		int width,
+		int height,
+		int offsetX,
+		int offsetY,
+		CutsInfo xCuts,
+		GridLayoutCache cache
+		)
 	{
 		this.nature = nature;
 		this.elementList = elements;
+		this.cache = cache;
 		
-		// TODO lucianc cache these across report pages?
-		this.cellSizes = new HashMap<GridCellSize, GridCellSize>();
+		this.cellSizes = cache == null ? new HashMap<GridCellSize, GridCellSize>() : cache.getCellSizes();
+		// cell styles are not shared across pages because frame cell styles use boxes created per layout
 		this.cellStyles = new HashMap<GridCellStyle, GridCellStyle>();
 		this.emptyCells = new HashMap<Pair<GridCellSize,GridCellStyle>, EmptyGridCell>();
 		
@@ -170,6 +206,7 @@ public class JRGridLayout
 	{
 		this.nature = parent.nature;
 		this.elementList = parent.elementList;
+		this.cache = null;
 		
 		this.cellSizes = parent.cellSizes;
 		this.cellStyles = parent.cellStyles;
@@ -213,6 +250,65 @@ public class JRGridLayout
 
 		boolean createXCuts = (xCuts == null);
 
+		GridLayoutCache.LayoutKey cacheKey = null;
+		GridLayoutCache.LayoutCuts cachedCuts = null;
+		if (cache != null && !isNested)
+		{
+			cacheKey = cache.createKey(nature, elements, width, height, offsetX, offsetY, createXCuts);
+			cachedCuts = cache.getCuts(cacheKey);
+		}
+		
+		if (cachedCuts == null)
+		{
+			createCuts(elements, createXCuts);
+			
+			if (cacheKey != null)
+			{
+				cache.putCuts(cacheKey, createXCuts ? xCuts : null, yCuts);
+			}
+		}
+		else
+		{
+			// a previous page had the same geometry
+			if (createXCuts)
+			{
+				xCuts = cachedCuts.createXCuts();
+			}
+			yCuts = cachedCuts.createYCuts();
+		}
+		
+		xCuts.use();
+		yCuts.use();
+
+		int colCount = Math.max(xCuts.size() - 1, 0);
+		int rowCount = Math.max(yCuts.size() - 1, 0);
+
+		grid = new Grid(rowCount, colCount);
+
+		for(int row = 0; row < rowCount; row++)
+		{
+			for(int col = 0; col < colCount; col++)
+			{
+				GridCellSize size = cellSize(
+					xCuts.getCutOffset(col + 1) - xCuts.getCutOffset(col),
+					yCuts.getCutOffset(row + 1) - yCuts.getCutOffset(row),
+					1,
+					1
+					);
+				grid.set(row, col, emptyCell(size, null));
+			}
+		}
+
+		setGridElements(parentElementIndex, elements, 
+				offsetX, offsetY,
+				0, 0, rowCount, colCount);
+
+		width = xCuts.getTotalLength();
+		height = yCuts.getTotalLength();
+	}
+	
+	protected void createCuts(List<JRPrintElement> elements, boolean createXCuts)
+	{
 		xCuts = createXCuts ? new CutsInfo() : xCuts;
 		yCuts = nature.isIgnoreLastRow() ? new CutsInfo(0) : new CutsInfo(height);
 
@@ -249,35 +345,6 @@ public class JRGridLayout
 		{
 			xCuts.addCutOffset(width);
 		}
-		
-		xCuts.use();
-		yCuts.use();
-
-		int colCount = Math.max(xCuts.size() - 1, 0);
-		int rowCount = Math.max(yCuts.size() - 1, 0);
-
-		grid = new Grid(rowCount, colCount);
-
-		for(int row = 0; row < rowCount; row++)
-		{
-			for(int col = 0; col < colCount; col++)
-			{
-				GridCellSize size = cellSize(
-					xCuts.getCutOffset(col + 1) - xCuts.getCutOffset(col),
-					yCuts.getCutOffset(row + 1) - yCuts.getCutOffset(row),
-					1,
-					1
-					);
-				grid.set(row, col, emptyCell(size, null));
-			}
-		}
-
-		setGridElements(parentElementIndex, elements, 
-				offsetX, offsetY,
-				0, 0, rowCount, colCount);
-
-		width = xCuts.getTotalLength();
-		height = yCuts.getTotalLength();
 	}
 	
 	protected GridCellSize cellSize(int width, int height, int colSpan, int rowSpan)
@@ -150,6 +150,7 @@ import net.sf.jasperreports.renderers.RenderersCache;
 import net.sf.jasperreports.renderers.ResourceRenderer;
 import net.sf.jasperreports.renderers.WrappingImageDataToGraphics2DRenderer;
 import net.sf.jasperreports.renderers.WrappingSvgDataToGraphics2DRenderer;
+import net.sf.jasperreports.renderers.util.ImageCache;
 import net.sf.jasperreports.renderers.util.RendererUtil;
 import net.sf.jasperreports.repo.RepositoryUtil;
 
@@ -438,6 +439,9 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 	protected Map<String,Image> loadedImagesMap;
 	protected Image pxImage;
 
+	protected PdfPagePipeline pagePipeline;
+	protected PdfPreparedPage preparedPage;
+
 	private BookmarkStack bookmarkStack;
 
 	private SplitCharacter splitCharacter;
@@ -897,36 +901,59 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 					int startPageIndex = (pageRange == null || pageRange.getStartPageIndex() == null) ? 0 : pageRange.getStartPageIndex();
 					int endPageIndex = (pageRange == null || pageRange.getEndPageIndex() == null) ? (pages.size() - 1) : pageRange.getEndPageIndex();
 
-					for (int pageIndex = startPageIndex; pageIndex <= endPageIndex; pageIndex++)
+					Integer renderingThreads = configuration.getRenderingThreads();
+					if (renderingThreads != null && renderingThreads > 0 && endPageIndex > startPageIndex)
+					{
+						pagePipeline = new PdfPagePipeline(jasperReportsContext, renderingThreads);
+					}
+
+					try
 					{
-						if (Thread.interrupted())
+						for (int pageIndex = startPageIndex; pageIndex <= endPageIndex; pageIndex++)
 						{
-							throw new ExportInterruptedException();
-						}
+							if (Thread.interrupted())
+							{
+								throw new ExportInterruptedException();
+							}
 
-						JRPrintPage page = pages.get(pageIndex);
+							JRPrintPage page = pages.get(pageIndex);
+							
+							if (pagePipeline != null)
+							{
+								preparedPage = pagePipeline.getPreparedPage(pages, pageIndex, endPageIndex);
+							}
 
-						pageFormat = jasperPrint.getPageFormat(pageIndex);
-						
-						if (sizePageToContent || oldPageFormat != pageFormat)
-						{
-							setPageSize(sizePageToContent ? page : null);
-						}
-						
-						document.newPage();
-						
-						pdfContentByte = pdfWriter.getDirectContent();
+							pageFormat = jasperPrint.getPageFormat(pageIndex);
+							
+							if (sizePageToContent || oldPageFormat != pageFormat)
+							{
+								setPageSize(sizePageToContent ? page : null);
+							}
+							
+							document.newPage();
+							
+							pdfContentByte = pdfWriter.getDirectContent();
 
-						pdfContentByte.setLineCap(2);//PdfContentByte.LINE_CAP_PROJECTING_SQUARE since iText 1.02b
+							pdfContentByte.setLineCap(2);//PdfContentByte.LINE_CAP_PROJECTING_SQUARE since iText 1.02b
 
-						writePageAnchor(pageIndex);
-						
-						crtDocumentPageNumber++;
+							writePageAnchor(pageIndex);
+							
+							crtDocumentPageNumber++;
 
-						/*   */
-						exportPage(page);
-						
-						oldPageFormat = pageFormat;
+							/*   */
+							exportPage(page);
+							
+							oldPageFormat = pageFormat;
+						}
+					}
+					finally
+					{
+						if (pagePipeline != null)
+						{
+							pagePipeline.dispose();
+							pagePipeline = null;
+						}
+						preparedPage = null;
 					}
 				}
 				else
@@ -1539,6 +1566,50 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 		}
 	}
 
+	/**
+	 * Decodes the data of an image renderer, using the image decoded by the page pipeline if available.
+	 */
+	protected Image loadImage(JRPrintImage printImage, String rendererId, DataRenderable renderer) throws JRException, BadElementException, IOException
+	{
+		Image image = null;
+		if (pagePipeline != null)
+		{
+			image = printImage.isUsingCache() 
+					? pagePipeline.consumeCachedImage(rendererId)
+					: (preparedPage == null ? null : preparedPage.consumeImage(printImage, renderer));
+		}
+		
+		if (image == null)
+		{
+			image = getImageInstance(jasperReportsContext, renderer.getData(jasperReportsContext));
+		}
+		return image;
+	}
+
+	/**
+	 * Decodes image data, reusing the images decoded by previous exports when the context image cache is enabled.
+	 * 
+	 * @see ImageCache
+	 */
+	protected static Image getImageInstance(JasperReportsContext jasperReportsContext, byte[] data) throws BadElementException, IOException
+	{
+		ImageCache imageCache = ImageCache.getInstance(jasperReportsContext);
+		if (imageCache == null)
+		{
+			return Image.getInstance(data);
+		}
+		
+		List<Object> key = imageCache.createKey(ImageCache.KIND_PDF, data);
+		Image image = (Image) imageCache.get(key);
+		if (image == null)
+		{
+			image = Image.getInstance(data);
+			imageCache.put(key, image, data.length);
+		}
+		// the exporter scales the image, handing out copies of the shared instance
+		return Image.getInstance(image);
+	}
+
 	private class InternalImageProcessor
 	{
 		private final JRPrintImage printImage;
@@ -1713,7 +1784,7 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 			{
 				try
 				{
-					image = Image.getInstance(renderer.getData(jasperReportsContext));
+					image = loadImage(printImage, rendererId, renderer);
 					imageTesterPdfContentByte.addImage(image, 10, 0, 0, 10, 0, 0);
 				}
 				catch (Exception e)
@@ -1751,7 +1822,7 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 			{
 				try
 				{
-					image = Image.getInstance(renderer.getData(jasperReportsContext));
+					image = loadImage(printImage, rendererId, renderer);
 					imageTesterPdfContentByte.addImage(image, 10, 0, 0, 10, 0, 0);
 				}
 				catch (Exception e)
@@ -2377,7 +2448,7 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 	 */
 	public void exportText(JRPrintText text) throws DocumentException
 	{
-		JRStyledText styledText = styledTextUtil.getProcessedStyledText(text, noBackcolorSelector, null);
+		JRStyledText styledText = getProcessedStyledText(text);
 
 		if (styledText == null)
 		{
@@ -2460,6 +2531,20 @@ public class JRPdfExporter extends JRAbstractExporter<PdfReportConfiguration, Pd
 			);
 	}
 	
+	/**
+	 * Returns the processed styled text of a text element, using the text prepared by the
+	 * page pipeline if available.
+	 */
+	protected JRStyledText getProcessedStyledText(JRPrintText text)
+	{
+		JRStyledText styledText = preparedPage == null ? null : preparedPage.getStyledText(text);
+		if (styledText == null)
+		{
+			styledText = styledTextUtil.getProcessedStyledText(text, noBackcolorSelector, null);
+		}
+		return styledText;
+	}
+	
 	protected AbstractPdfTextRenderer getTextRenderer(JRPrintText text, JRStyledText styledText)
 	{
 		AbstractPdfTextRenderer textRenderer;
@@ -40,6 +40,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
 
 import net.sf.jasperreports.annotations.properties.Property;
 import net.sf.jasperreports.annotations.properties.PropertyScope;
@@ -67,6 +68,7 @@ import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.PrintPageFormat;
 import net.sf.jasperreports.engine.base.JRBasePrintPage;
 import net.sf.jasperreports.engine.base.JRBasePrintText;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
 import net.sf.jasperreports.engine.type.HorizontalTextAlignEnum;
 import net.sf.jasperreports.engine.type.ModeEnum;
 import net.sf.jasperreports.engine.type.OrientationEnum;
@@ -523,6 +525,10 @@ public abstract class JRXlsAbstractExporter<RC extends XlsReportConfiguration, C
 	 *
 	 */
 	protected ExporterNature nature;
+	
+	protected GridLayoutCache gridLayoutCache;
+	
+	private JRGridLayout preparedLayout;
 
 	/**
 	 *
@@ -950,6 +956,8 @@ public abstract class JRXlsAbstractExporter<RC extends XlsReportConfiguration, C
 		}
 
 		renderersCache = new RenderersCache(getJasperReportsContext());
+		
+		gridLayoutCache = new GridLayoutCache();
 	}
 	
 	protected void exportReportToStream(OutputStream os) throws JRException, IOException
@@ -986,20 +994,7 @@ public abstract class JRXlsAbstractExporter<RC extends XlsReportConfiguration, C
 
 				if (configuration.isOnePagePerSheet())
 				{
-					for (pageIndex = startPageIndex; pageIndex <= endPageIndex; pageIndex++)
-					{
-						if (Thread.interrupted())
-						{
-							throw new ExportInterruptedException();
-						}
-
-						JRPrintPage page = pages.get(pageIndex);
-						
-						pageFormat = jasperPrint.getPageFormat(pageIndex);
-						
-						/*   */
-						exportPage(page, /*xCuts*/null, /*startRow*/0, /*defaultSheetName*/null);
-					}
+					exportOnePagePerSheet(pages, startPageIndex, endPageIndex);
 				}
 				else
 				{
@@ -1044,6 +1039,110 @@ public abstract class JRXlsAbstractExporter<RC extends XlsReportConfiguration, C
 		closeWorkbook(os);
 	}
 
+	/**
+	 * Exports each page of the current document on a separate sheet.
+	 * 
+	 * @param pages the pages of the current document
+	 * @param startPageIndex the index of the first exported page
+	 * @param endPageIndex the index of the last exported page
+	 */
+	protected void exportOnePagePerSheet(List<JRPrintPage> pages, int startPageIndex, int endPageIndex) throws JRException
+	{
+		GridLayoutPipeline layoutPipeline = createLayoutPipeline(pages);
+		try
+		{
+			for (pageIndex = startPageIndex; pageIndex <= endPageIndex; pageIndex++)
+			{
+				if (Thread.interrupted())
+				{
+					throw new ExportInterruptedException();
+				}
+
+				JRPrintPage page = pages.get(pageIndex);
+				
+				pageFormat = jasperPrint.getPageFormat(pageIndex);
+				
+				if (layoutPipeline != null)
+				{
+					preparedLayout = layoutPipeline.getLayout(pageIndex, endPageIndex);
+				}
+				
+				/*   */
+				exportPage(page, /*xCuts*/null, /*startRow*/0, /*defaultSheetName*/null);
+			}
+		}
+		finally
+		{
+			preparedLayout = null;
+			if (layoutPipeline != null)
+			{
+				layoutPipeline.dispose();
+			}
+		}
+	}
+
+	protected JRGridLayout createPageLayout(JRPrintPage page, PrintPageFormat pageFormat, 
+			XlsReportConfiguration configuration, CutsInfo xCuts, GridLayoutCache layoutCache)
+	{
+		return
+			new JRGridLayout(
+				getNature(),
+				page.getElements(),
+				pageFormat.getPageWidth(),
+				pageFormat.getPageHeight(),
+				configuration.getOffsetX() == null ? 0 : configuration.getOffsetX(), 
+				configuration.getOffsetY() == null ? 0 : configuration.getOffsetY(),
+				xCuts,
+				layoutCache
+				);
+	}
+
+	/**
+	 * Creates the pipeline that lays out the pages on worker threads when each page is exported on a separate sheet.
+	 * 
+	 * @param pages the pages of the current document
+	 * @return the pipeline, or <code>null</code> if the pages are to be laid out by the exporter thread
+	 * @see XlsExporterConfiguration#getLayoutThreads()
+	 */
+	protected GridLayoutPipeline createLayoutPipeline(final List<JRPrintPage> pages)
+	{
+		Integer layoutThreads = getCurrentConfiguration().getLayoutThreads();
+		// filters can depend on the order in which the elements are exported
+		if (layoutThreads == null || layoutThreads <= 0 || filter != null)
+		{
+			return null;
+		}
+		
+		final XlsReportConfiguration configuration = getCurrentItemConfiguration();
+		return new GridLayoutPipeline(
+			new GridLayoutPipeline.LayoutTaskFactory()
+			{
+				@Override
+				public Callable<JRGridLayout> createLayoutTask(int layoutPageIndex, 
+						final ThreadLocal<GridLayoutCache> layoutCache)
+				{
+					final JRPrintPage page = pages.get(layoutPageIndex);
+					if (page instanceof JRVirtualPrintPage)
+					{
+						// virtualized pages are not meant to be accessed concurrently
+						return null;
+					}
+					
+					final PrintPageFormat layoutPageFormat = jasperPrint.getPageFormat(layoutPageIndex);
+					return new Callable<JRGridLayout>()
+					{
+						@Override
+						public JRGridLayout call()
+						{
+							return createPageLayout(page, layoutPageFormat, configuration, null, layoutCache.get());
+						}
+					};
+				}
+			}, 
+			layoutThreads
+			);
+	}
+
 	/**
 	 *
 	 * @return the number of rows added.
@@ -1057,16 +1156,12 @@ public abstract class JRXlsAbstractExporter<RC extends XlsReportConfiguration, C
 		boolean isRemoveEmptySpaceBetweenColumns = configuration.isRemoveEmptySpaceBetweenColumns();
 		boolean isCollapseRowSpan = configuration.isCollapseRowSpan();
 		
-		JRGridLayout layout =
-			new JRGridLayout(
-				getNature(),
-				page.getElements(),
-				pageFormat.getPageWidth(),
-				pageFormat.getPageHeight(),
-				configuration.getOffsetX() == null ? 0 : configuration.getOffsetX(), 
-				configuration.getOffsetY() == null ? 0 : configuration.getOffsetY(),
-				xCuts
-				);
+		JRGridLayout layout = xCuts == null ? preparedLayout : null;
+		preparedLayout = null;
+		if (layout == null)
+		{
+			layout = createPageLayout(page, pageFormat, configuration, xCuts, gridLayoutCache);
+		}
 
 		Grid grid = layout.getGrid();
 
@@ -1922,7 +2017,7 @@ public abstract class JRXlsAbstractExporter<RC extends XlsReportConfiguration, C
 	/**
 	 *
 	 */
-	private String getSheetName(String sheetName, String defaultSheetName)
+	protected String getSheetName(String sheetName, String defaultSheetName)
 	{
 		if (sheetName != null)
 		{
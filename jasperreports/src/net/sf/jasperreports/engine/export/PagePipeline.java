@@ -0,0 +1,202 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.export;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.export.ExportInterruptedException;
+
+/**
+ * Runs tasks for the pages of a document on worker threads, a few pages ahead of the exporter.
+ * <p>
+ * The tasks are created on the exporter thread, in page order, by {@link #createTask(int)}.
+ * The exporter consumes the task results in page order.
+ * Pages for which no result has been produced are exported by the exporter as usual.
+ * </p>
+ *
+ * @param <T> the type of the task results
+ * @see GridLayoutPipeline
+ * @see net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter#createSheetPipeline(java.util.List)
+ */
+public abstract class PagePipeline<T>
+{
+	private static final Log log = LogFactory.getLog(PagePipeline.class);
+
+	private static final AtomicInteger pipelineCounter = new AtomicInteger();
+
+	private final int lookahead;
+	private final ExecutorService executor;
+
+	private final Map<Integer, Future<T>> futures = new HashMap<Integer, Future<T>>();
+	private int nextPageIndex = -1;
+
+	/**
+	 * Starts the worker threads.
+	 *
+	 * @param threadCount the number of worker threads
+	 * @param threadName the prefix of the worker thread names
+	 */
+	protected PagePipeline(int threadCount, String threadName)
+	{
+		this.lookahead = 2 * threadCount;
+		this.executor = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory(threadName));
+	}
+
+	/**
+	 * Creates the task for a page.
+	 * The method is called on the exporter thread.
+	 *
+	 * @param pageIndex the page index
+	 * @return the task, or <code>null</code> if the page is to be exported by the exporter
+	 */
+	protected abstract Callable<T> createTask(int pageIndex);
+
+	/**
+	 * Releases the resources held by a result that is not consumed by the exporter.
+	 *
+	 * @param result the task result
+	 */
+	protected void disposeResult(T result)
+	{
+		// nothing by default
+	}
+
+	/**
+	 * Returns the task result of a page, and schedules the tasks of the following pages.
+	 * Pages are expected to be requested in increasing order.
+	 *
+	 * @param pageIndex the index of the page
+	 * @param endPageIndex the index of the last page that will be exported
+	 * @return the result, or <code>null</code> if the page has no result
+	 * @throws ExportInterruptedException if the thread was interrupted while waiting for the result
+	 */
+	public T getResult(int pageIndex, int endPageIndex) throws ExportInterruptedException
+	{
+		if (nextPageIndex <= pageIndex)
+		{
+			// the requested page is handled by the exporter
+			nextPageIndex = pageIndex + 1;
+		}
+
+		int lastPageIndex = Math.min(endPageIndex, pageIndex + lookahead);
+		for (; nextPageIndex <= lastPageIndex; nextPageIndex++)
+		{
+			Callable<T> task = createTask(nextPageIndex);
+			if (task != null)
+			{
+				futures.put(nextPageIndex, executor.submit(task));
+			}
+		}
+
+		Future<T> future = futures.remove(pageIndex);
+		if (future == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			future.cancel(true);
+			throw new ExportInterruptedException();
+		}
+		catch (ExecutionException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to process page " + pageIndex, e.getCause());
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Stops the worker threads and disposes the results that have not been consumed.
+	 */
+	public void dispose()
+	{
+		executor.shutdownNow();
+		for (Iterator<Future<T>> it = futures.values().iterator(); it.hasNext();)
+		{
+			Future<T> future = it.next();
+			if (!future.cancel(true) && future.isDone())
+			{
+				try
+				{
+					T result = future.get();
+					if (result != null)
+					{
+						disposeResult(result);
+					}
+				}
+				catch (InterruptedException | ExecutionException | CancellationException e)
+				{
+					// no result to dispose
+				}
+			}
+		}
+		futures.clear();
+	}
+
+	protected static class WorkerThreadFactory implements ThreadFactory
+	{
+		private final String threadName;
+		private final int pipelineIndex = pipelineCounter.incrementAndGet();
+		private final AtomicInteger threadCounter = new AtomicInteger();
+		private final ClassLoader contextClassLoader;
+
+		public WorkerThreadFactory(String threadName)
+		{
+			this.threadName = threadName;
+			// extensions and report resources are loaded through the context class loader of the exporter thread
+			this.contextClassLoader = Thread.currentThread().getContextClassLoader();
+		}
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, threadName + " #" + pipelineIndex
+					+ "-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,329 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.export;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.lowagie.text.Image;
+
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintImage;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JRStyledTextAttributeSelector;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
+import net.sf.jasperreports.engine.type.ImageTypeEnum;
+import net.sf.jasperreports.engine.type.ScaleImageEnum;
+import net.sf.jasperreports.engine.util.JRStyledText;
+import net.sf.jasperreports.engine.util.JRStyledTextUtil;
+import net.sf.jasperreports.engine.util.JRTypeSniffer;
+import net.sf.jasperreports.export.ExportInterruptedException;
+import net.sf.jasperreports.renderers.DataRenderable;
+import net.sf.jasperreports.renderers.Graphics2DRenderable;
+import net.sf.jasperreports.renderers.Renderable;
+import net.sf.jasperreports.renderers.ResourceRenderer;
+
+/**
+ * Prepares the pages of a document on worker threads while {@link JRPdfExporter} writes
+ * the preceding pages.
+ * <p>
+ * The workers process the text and image elements of the pages that follow the page being
+ * written, producing the processed styled texts and the decoded raster images.
+ * The exporter consumes the prepared data in page order and performs all the 
+ * <code>PdfWriter</code> operations on its own thread, so the produced document is the same
+ * as the one produced without the pipeline.
+ * Elements for which the data could not be prepared are processed by the exporter as usual.
+ * </p>
+ * <p>
+ * Pages of virtualized documents are not prepared, as virtualized pages are not meant to be
+ * accessed concurrently.
+ * </p>
+ * 
+ * @see net.sf.jasperreports.export.PdfExporterConfiguration#getRenderingThreads()
+ */
+public class PdfPagePipeline
+{
+	private static final Log log = LogFactory.getLog(PdfPagePipeline.class);
+
+	private static final AtomicInteger pipelineCounter = new AtomicInteger();
+
+	private final JasperReportsContext jasperReportsContext;
+	private final JRStyledTextAttributeSelector noBackcolorSelector;
+	private final int lookahead;
+	private final ExecutorService executor;
+	private final ThreadLocal<JRStyledTextUtil> styledTextUtils;
+
+	private final Map<Integer, Future<PdfPreparedPage>> pageFutures = new HashMap<Integer, Future<PdfPreparedPage>>();
+	private int nextPageIndex = -1;
+
+	private final ConcurrentMap<String, Boolean> cachedImageIds = new ConcurrentHashMap<String, Boolean>();
+	private final ConcurrentMap<String, Image> cachedImages = new ConcurrentHashMap<String, Image>();
+
+	/**
+	 * Starts the worker threads.
+	 * 
+	 * @param jasperReportsContext the context
+	 * @param threadCount the number of worker threads
+	 */
+	public PdfPagePipeline(final JasperReportsContext jasperReportsContext, int threadCount)
+	{
+		this.jasperReportsContext = jasperReportsContext;
+		this.noBackcolorSelector = JRStyledTextAttributeSelector.getNoBackcolorSelector(jasperReportsContext);
+		this.lookahead = 2 * threadCount;
+		this.executor = Executors.newFixedThreadPool(threadCount, new WorkerThreadFactory());
+		this.styledTextUtils = new ThreadLocal<JRStyledTextUtil>()
+		{
+			@Override
+			protected JRStyledTextUtil initialValue()
+			{
+				// the util caches font family information, using one per thread
+				return JRStyledTextUtil.getInstance(jasperReportsContext);
+			}
+		};
+	}
+
+	/**
+	 * Returns the prepared data for a page, and schedules the preparation of the following pages.
+	 * Pages are expected to be requested in increasing order.
+	 * 
+	 * @param pages the document pages
+	 * @param pageIndex the index of the page
+	 * @param endPageIndex the index of the last page that will be exported
+	 * @return the prepared page data, or <code>null</code> if the page has not been prepared
+	 * @throws ExportInterruptedException if the thread was interrupted while waiting for the page
+	 */
+	public PdfPreparedPage getPreparedPage(List<JRPrintPage> pages, int pageIndex, int endPageIndex) throws ExportInterruptedException
+	{
+		if (nextPageIndex <= pageIndex)
+		{
+			// the requested page is written anyway, no need to prepare it
+			nextPageIndex = pageIndex + 1;
+		}
+
+		int lastPageIndex = Math.min(endPageIndex, pageIndex + lookahead);
+		for (; nextPageIndex <= lastPageIndex; nextPageIndex++)
+		{
+			// the pages are retrieved on the exporter thread
+			final JRPrintPage page = pages.get(nextPageIndex);
+			if (!(page instanceof JRVirtualPrintPage))
+			{
+				pageFutures.put(nextPageIndex, executor.submit(new Callable<PdfPreparedPage>()
+				{
+					@Override
+					public PdfPreparedPage call()
+					{
+						return preparePage(page);
+					}
+				}));
+			}
+		}
+
+		Future<PdfPreparedPage> pageFuture = pageFutures.remove(pageIndex);
+		if (pageFuture == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return pageFuture.get();
+		}
+		catch (InterruptedException e)
+		{
+			throw new ExportInterruptedException();
+		}
+		catch (ExecutionException e)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to prepare page " + pageIndex, e.getCause());
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the decoded image prepared for a cached image renderer.
+	 * The image is returned only once.
+	 * 
+	 * @param rendererId the renderer ID
+	 * @return the decoded image, or <code>null</code> if the image has not been prepared
+	 */
+	public Image consumeCachedImage(String rendererId)
+	{
+		return cachedImages.remove(rendererId);
+	}
+
+	/**
+	 * Stops the worker threads.
+	 */
+	public void dispose()
+	{
+		executor.shutdownNow();
+		for (Iterator<Future<PdfPreparedPage>> it = pageFutures.values().iterator(); it.hasNext();)
+		{
+			it.next().cancel(true);
+		}
+		pageFutures.clear();
+		cachedImages.clear();
+	}
+
+	protected PdfPreparedPage preparePage(JRPrintPage page)
+	{
+		PdfPreparedPage preparedPage = new PdfPreparedPage();
+		prepareElements(page.getElements(), preparedPage);
+		return preparedPage;
+	}
+
+	protected void prepareElements(Collection<JRPrintElement> elements, PdfPreparedPage preparedPage)
+	{
+		if (elements == null)
+		{
+			return;
+		}
+
+		for (JRPrintElement element : elements)
+		{
+			if (Thread.currentThread().isInterrupted())
+			{
+				return;
+			}
+
+			if (element instanceof JRPrintText)
+			{
+				prepareText((JRPrintText) element, preparedPage);
+			}
+			else if (element instanceof JRPrintImage)
+			{
+				prepareImage((JRPrintImage) element, preparedPage);
+			}
+			else if (element instanceof JRPrintFrame)
+			{
+				prepareElements(((JRPrintFrame) element).getElements(), preparedPage);
+			}
+		}
+	}
+
+	protected void prepareText(JRPrintText text, PdfPreparedPage preparedPage)
+	{
+		try
+		{
+			JRStyledText styledText = styledTextUtils.get().getProcessedStyledText(text, noBackcolorSelector, null);
+			if (styledText != null)
+			{
+				preparedPage.addStyledText(text, styledText);
+			}
+		}
+		catch (RuntimeException e)
+		{
+			// the exporter processes the text and reports the error
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to prepare text " + text.getUUID(), e);
+			}
+		}
+	}
+
+	protected void prepareImage(JRPrintImage printImage, PdfPreparedPage preparedPage)
+	{
+		Renderable renderer = printImage.getRenderer();
+		// only handling images that the exporter decodes from byte data
+		if (!(renderer instanceof DataRenderable)
+				|| renderer instanceof Graphics2DRenderable
+				|| renderer instanceof ResourceRenderer
+				|| printImage.getScaleImageValue() == ScaleImageEnum.CLIP)
+		{
+			return;
+		}
+
+		String rendererId = renderer.getId();
+		boolean usingCache = printImage.isUsingCache();
+		if (usingCache && cachedImageIds.putIfAbsent(rendererId, Boolean.TRUE) != null)
+		{
+			// already prepared or being prepared by another worker
+			return;
+		}
+
+		try
+		{
+			byte[] data = ((DataRenderable) renderer).getData(jasperReportsContext);
+			if (JRTypeSniffer.getImageTypeValue(data) == ImageTypeEnum.UNKNOWN)
+			{
+				// possibly SVG, rendered by the exporter
+				return;
+			}
+
+			Image image = JRPdfExporter.getImageInstance(jasperReportsContext, data);
+			if (usingCache)
+			{
+				cachedImages.put(rendererId, image);
+			}
+			else
+			{
+				preparedPage.addImage(printImage, (DataRenderable) renderer, image);
+			}
+		}
+		catch (Exception e)
+		{
+			// the exporter loads the image and handles the error
+			if (log.isDebugEnabled())
+			{
+				log.debug("failed to prepare image " + printImage.getUUID(), e);
+			}
+		}
+	}
+
+	protected static class WorkerThreadFactory implements ThreadFactory
+	{
+		private final int pipelineIndex = pipelineCounter.incrementAndGet();
+		private final AtomicInteger threadCounter = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, "JasperReports PDF page preparation #" + pipelineIndex 
+					+ "-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.export;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.lowagie.text.Image;
+
+import net.sf.jasperreports.engine.JRPrintImage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.util.JRStyledText;
+import net.sf.jasperreports.renderers.DataRenderable;
+
+/**
+ * Data prepared ahead by a {@link PdfPagePipeline} worker for the elements of a page.
+ * <p>
+ * The objects are populated by a single worker thread and then handed over to the thread
+ * that writes the PDF document, which consumes them instead of computing the same data.
+ * </p>
+ */
+public class PdfPreparedPage
+{
+	private final Map<JRPrintText, JRStyledText> styledTexts = new IdentityHashMap<JRPrintText, JRStyledText>();
+	private final Map<JRPrintImage, PreparedImage> images = new IdentityHashMap<JRPrintImage, PreparedImage>();
+
+	protected void addStyledText(JRPrintText text, JRStyledText styledText)
+	{
+		styledTexts.put(text, styledText);
+	}
+
+	/**
+	 * Returns the processed styled text of a text element.
+	 * 
+	 * @param text the text element
+	 * @return the styled text, or <code>null</code> if it has not been prepared
+	 */
+	public JRStyledText getStyledText(JRPrintText text)
+	{
+		return styledTexts.get(text);
+	}
+
+	protected void addImage(JRPrintImage printImage, DataRenderable renderer, Image image)
+	{
+		images.put(printImage, new PreparedImage(renderer, image));
+	}
+
+	/**
+	 * Returns the decoded image of an image element, if it has been prepared for the same renderer.
+	 * The image is returned only once, as the caller is free to modify it.
+	 * 
+	 * @param printImage the image element
+	 * @param renderer the renderer of the image
+	 * @return the decoded image, or <code>null</code>
+	 */
+	public Image consumeImage(JRPrintImage printImage, DataRenderable renderer)
+	{
+		PreparedImage preparedImage = images.get(printImage);
+		if (preparedImage == null || preparedImage.renderer != renderer)
+		{
+			return null;
+		}
+
+		images.remove(printImage);
+		return preparedImage.image;
+	}
+
+	protected static class PreparedImage
+	{
+		private final DataRenderable renderer;
+		private final Image image;
+
+		protected PreparedImage(DataRenderable renderer, Image image)
+		{
+			this.renderer = renderer;
+			this.image = image;
+		}
+	}
+}
@@ -71,6 +71,7 @@ import net.sf.jasperreports.engine.export.ElementGridCell;
 import net.sf.jasperreports.engine.export.ExporterNature;
 import net.sf.jasperreports.engine.export.GenericElementHandlerEnviroment;
 import net.sf.jasperreports.engine.export.Grid;
+import net.sf.jasperreports.engine.export.GridLayoutCache;
 import net.sf.jasperreports.engine.export.GridRow;
 import net.sf.jasperreports.engine.export.HyperlinkUtil;
 import net.sf.jasperreports.engine.export.JRExportProgressMonitor;
@@ -199,6 +200,8 @@ public class JRDocxExporter extends JRAbstractExporter<DocxReportConfiguration,
 	protected DocxRunHelper runHelper;
 
 	protected ExporterNature nature;
+	
+	protected GridLayoutCache gridLayoutCache;
 
 	protected long bookmarkIndex;
 	
@@ -341,6 +344,8 @@ public class JRDocxExporter extends JRAbstractExporter<DocxReportConfiguration,
 				filter, 
 				!configuration.isFramesAsNestedTables()
 				);
+		
+		gridLayoutCache = new GridLayoutCache();
 
 		renderersCache = new RenderersCache(getJasperReportsContext());
 	}
@@ -513,7 +518,8 @@ public class JRDocxExporter extends JRAbstractExporter<DocxReportConfiguration,
 				pageFormat.getPageHeight(),
 				configuration.getOffsetX() == null ? 0 : configuration.getOffsetX(), 
 				configuration.getOffsetY() == null ? 0 : configuration.getOffsetY(),
-				null //address
+				null, //xCuts
+				gridLayoutCache
 				);
 
 		exportGrid(pageGridLayout, null);
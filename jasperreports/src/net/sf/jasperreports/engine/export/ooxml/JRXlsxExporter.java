@@ -28,6 +28,7 @@ import java.awt.Dimension;
 import java.awt.geom.Dimension2D;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.net.URLEncoder;
@@ -38,6 +39,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -59,22 +61,26 @@ import net.sf.jasperreports.engine.JRPrintLine;
 import net.sf.jasperreports.engine.JRPrintPage;
 import net.sf.jasperreports.engine.JRPrintText;
 import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRPropertiesUtil.PropertySuffix;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRStyle;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.PrintPageFormat;
 import net.sf.jasperreports.engine.base.JRBaseLineBox;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
 import net.sf.jasperreports.engine.export.Cut;
 import net.sf.jasperreports.engine.export.CutsInfo;
 import net.sf.jasperreports.engine.export.GenericElementHandlerEnviroment;
 import net.sf.jasperreports.engine.export.HyperlinkUtil;
+import net.sf.jasperreports.engine.export.JRExportProgressMonitor;
 import net.sf.jasperreports.engine.export.JRExporterGridCell;
 import net.sf.jasperreports.engine.export.JRGridLayout;
 import net.sf.jasperreports.engine.export.JRHyperlinkProducer;
 import net.sf.jasperreports.engine.export.JRXlsAbstractExporter;
 import net.sf.jasperreports.engine.export.LengthUtil;
 import net.sf.jasperreports.engine.export.OccupiedGridCell;
+import net.sf.jasperreports.engine.export.PagePipeline;
 import net.sf.jasperreports.engine.export.XlsRowLevelInfo;
 import net.sf.jasperreports.engine.export.data.BooleanTextValue;
 import net.sf.jasperreports.engine.export.data.DateTextValue;
@@ -95,6 +101,7 @@ import net.sf.jasperreports.engine.util.JRDataUtils;
 import net.sf.jasperreports.engine.util.JRStringUtil;
 import net.sf.jasperreports.engine.util.JRStyledText;
 import net.sf.jasperreports.engine.util.JRTypeSniffer;
+import net.sf.jasperreports.export.ExportInterruptedException;
 import net.sf.jasperreports.export.ExporterInput;
 import net.sf.jasperreports.export.ExporterInputItem;
 import net.sf.jasperreports.export.XlsReportConfiguration;
@@ -175,7 +182,11 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 	protected LinkedList<Color> backcolorStack = new LinkedList<Color>();
 	protected Color backcolor;
 
-	private XlsxRunHelper runHelper;
+	protected XlsxRunHelper runHelper;
+	
+	protected XlsxSharedStringsHelper sharedStringsHelper;
+	protected StringWriter sharedStringWriter;
+	protected XlsxRunHelper sharedStringRunHelper;
 
 	protected String sheetAutoFilter;		
 	
@@ -266,6 +277,186 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 
 		return super.exportPage(page, xCuts, startRow, defaultSheetName);
 	}
+
+
+	@Override
+	protected void exportOnePagePerSheet(List<JRPrintPage> pages, int startPageIndex, int endPageIndex) throws JRException
+	{
+		PagePipeline<XlsxPageExporter> sheetPipeline = createSheetPipeline(pages);
+		if (sheetPipeline == null)
+		{
+			super.exportOnePagePerSheet(pages, startPageIndex, endPageIndex);
+			return;
+		}
+		
+		try
+		{
+			for (pageIndex = startPageIndex; pageIndex <= endPageIndex; pageIndex++)
+			{
+				if (Thread.interrupted())
+				{
+					throw new ExportInterruptedException();
+				}
+
+				JRPrintPage page = pages.get(pageIndex);
+				
+				pageFormat = jasperPrint.getPageFormat(pageIndex);
+				
+				XlsxPageExporter pageExporter = sheetPipeline.getResult(pageIndex, endPageIndex);
+				if (pageExporter == null)
+				{
+					exportPage(page, /*xCuts*/null, /*startRow*/0, /*defaultSheetName*/null);
+				}
+				else
+				{
+					try
+					{
+						exportPage(pageExporter);
+					}
+					finally
+					{
+						pageExporter.dispose();
+					}
+				}
+			}
+		}
+		finally
+		{
+			sheetPipeline.dispose();
+		}
+	}
+
+
+	/**
+	 * Creates the pipeline that exports the pages on worker threads when each page is exported on a separate sheet.
+	 * 
+	 * @param pages the pages of the current document
+	 * @return the pipeline, or <code>null</code> if the pages are to be exported by the exporter thread
+	 * @see XlsxExporterConfiguration#getSheetThreads()
+	 */
+	protected PagePipeline<XlsxPageExporter> createSheetPipeline(final List<JRPrintPage> pages)
+	{
+		Integer sheetThreads = getCurrentConfiguration().getSheetThreads();
+		// filters can depend on the order in which the elements are exported,
+		// and subclasses can change the way the elements are exported
+		if (
+			sheetThreads == null 
+			|| sheetThreads <= 0 
+			|| filter != null 
+			|| getClass() != JRXlsxExporter.class
+			)
+		{
+			return null;
+		}
+		
+		final ExporterInputItem item = crtItem;
+		final XlsxReportConfiguration itemConfiguration = getCurrentItemConfiguration();
+		final XlsxExporterConfiguration configuration = getCurrentConfiguration();
+		return 
+			new PagePipeline<XlsxPageExporter>(sheetThreads, "JasperReports XLSX sheet")
+			{
+				@Override
+				protected Callable<XlsxPageExporter> createTask(int sheetPageIndex)
+				{
+					final JRPrintPage page = pages.get(sheetPageIndex);
+					if (page instanceof JRVirtualPrintPage)
+					{
+						// virtualized pages are not meant to be accessed concurrently
+						return null;
+					}
+					
+					final XlsxPageExporter pageExporter = 
+						new XlsxPageExporter(
+							JRXlsxExporter.this, 
+							item, 
+							reportIndex, 
+							itemConfiguration, 
+							configuration, 
+							sheetPageIndex, 
+							jasperPrint.getPageFormat(sheetPageIndex)
+							);
+					return new Callable<XlsxPageExporter>()
+					{
+						@Override
+						public XlsxPageExporter call() throws JRException
+						{
+							return pageExporter.exportSheets(page) ? pageExporter : null;
+						}
+					};
+				}
+
+				@Override
+				protected void disposeResult(XlsxPageExporter result)
+				{
+					result.dispose();
+				}
+			};
+	}
+
+
+	/**
+	 * Copies the sheets of a page exported on a worker thread in the document.
+	 * The sheets are registered, and their cell styles, shared strings, anchors and defined names
+	 * are resolved, in the same order as when the page is exported by this exporter.
+	 */
+	protected void exportPage(XlsxPageExporter pageExporter) throws JRException
+	{
+		oldPageFormat = pageFormat;
+		
+		try
+		{
+			for (XlsxPageExporter.PageSheet sheet : pageExporter.getSheets())
+			{
+				if (sheetInfo != null)
+				{
+					closeSheet();
+				}
+				
+				sheetInfo = sheet.getSheetInfo();
+				sheetInfo.sheetName = getSheetName(sheetInfo.sheetName, /*defaultSheetName*/null);
+				
+				openSheet(sheetInfo);
+				
+				Writer sheetRelsWriter = xlsxZip.addSheetRels(sheetIndex + 1).getWriter();
+				Writer sheetWriter = xlsxZip.addSheet(sheetIndex + 1).getWriter();
+				Writer drawingRelsWriter = xlsxZip.addDrawingRels(sheetIndex + 1).getWriter();
+				Writer drawingWriter = xlsxZip.addDrawing(sheetIndex + 1).getWriter();
+				
+				sheetHelper = sheet.getSheetHelper();
+				sheetRelsHelper = sheet.getSheetRelsHelper();
+				drawingHelper = sheet.getDrawingHelper();
+				drawingRelsHelper = sheet.getDrawingRelsHelper();
+				
+				new XlsxSheetRelsHelper(jasperReportsContext, sheetRelsWriter).exportHeader(sheetIndex + 1);
+
+				sheetIndex++;
+				sheetNamesIndex++;
+				resetAutoFilters();
+				
+				sheet.getSheetRelsWriter().writeTo(sheetRelsWriter);
+				sheet.getSheetWriter().writeTo(sheetWriter);
+				sheet.getDrawingWriter().writeTo(drawingWriter);
+				sheet.getDrawingRelsWriter().writeTo(drawingRelsWriter);
+				
+				sheetAutoFilter = sheet.getAutoFilter();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new JRException(e);
+		}
+		
+		for (PropertySuffix definedName : pageExporter.getDefinedNames())
+		{
+			configureDefinedNames(definedName);
+		}
+		
+		JRExportProgressMonitor progressMonitor = getCurrentItemConfiguration().getProgressMonitor();
+		if (progressMonitor != null)
+		{
+			progressMonitor.afterPageExport();
+		}
+	}
 	
 	public JRPrintImage getImage(ExporterInput exporterInput, JRPrintElementIndex imageIndex) throws JRException//FIXMECONTEXT move these to an abstract up?
 	{
@@ -300,6 +491,12 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 	 *
 	 */
 	protected void exportStyledText(JRStyle style, JRStyledText styledText, Locale locale, boolean isStyledText)
+	{
+		exportStyledText(runHelper, style, styledText, locale, isStyledText);
+	}
+
+
+	protected void exportStyledText(XlsxRunHelper textRunHelper, JRStyle style, JRStyledText styledText, Locale locale, boolean isStyledText)
 	{
 		String text = styledText.getText();
 		
@@ -309,7 +506,7 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 		
 		while(runLimit < styledText.length() && (runLimit = iterator.getRunLimit()) <= styledText.length())
 		{
-			runHelper.export(
+			textRunHelper.export(
 					style, iterator.getAttributes(), 
 					text.substring(iterator.getIndex(), runLimit),
 					locale,
@@ -621,6 +818,26 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 	}
 	
 
+	/**
+	 * Defines a workbook name that refers to a cell of the current sheet.
+	 */
+	protected void insertAnchor(String anchorName, int colIndex, int rowIndex)
+	{
+		String ref = "'" + JRStringUtil.xmlEncode(currentSheetName) + "'!$" + JRXlsAbstractExporter.getColumIndexName(colIndex, maxColumnIndex) + "$" + (rowIndex + 1);
+		definedNames.append("<definedName name=\"" + getDefinedName(anchorName) +"\">"+ ref +"</definedName>\n");
+	}
+	
+
+	/**
+	 * Writes the value of a cell that refers to an item of the shared strings table.
+	 */
+	protected void exportSharedString(String item)
+	{
+		int itemIndex = sharedStringsHelper.getItemIndex(item);
+		sheetHelper.write("<v>" + itemIndex + "</v>");
+	}
+	
+
 	@Override
 	protected void addBlankCell(
 		JRExporterGridCell gridCell, 
@@ -658,6 +875,12 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 		styleHelper.export();
 		
 		styleHelper.close();
+		
+		if (sharedStringsHelper != null)
+		{
+			sharedStringsHelper.export();
+			sharedStringsHelper.close();
+		}
 
 		try
 		{
@@ -702,6 +925,30 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 
 	@Override
 	protected void createSheet(CutsInfo xCuts, SheetInfo sheetInfo)
+	{
+		openSheet(sheetInfo);
+		
+		ExportZipEntry sheetRelsEntry = xlsxZip.addSheetRels(sheetIndex + 1);
+		ExportZipEntry sheetEntry = xlsxZip.addSheet(sheetIndex + 1);
+		ExportZipEntry drawingRelsEntry = xlsxZip.addDrawingRels(sheetIndex + 1);
+		ExportZipEntry drawingEntry = xlsxZip.addDrawing(sheetIndex + 1);
+		
+		createSheetHelpers(
+			sheetEntry.getWriter(), 
+			sheetRelsEntry.getWriter(), 
+			drawingEntry.getWriter(), 
+			drawingRelsEntry.getWriter()
+			);
+		
+		exportSheetHeader(sheetInfo);
+		sheetRelsHelper.exportHeader(sheetIndex + 1);
+	}
+
+
+	/**
+	 * Registers a new sheet in the workbook.
+	 */
+	protected void openSheet(SheetInfo sheetInfo)
 	{
 		startPage = true;
 		currentSheetPageScale = sheetInfo.sheetPageScale;
@@ -711,13 +958,23 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 		wbHelper.exportSheet(sheetIndex + 1, currentSheetName, sheetMapping);
 		ctHelper.exportSheet(sheetIndex + 1);
 		relsHelper.exportSheet(sheetIndex + 1);
+	}
+
+
+	/**
+	 * Creates the helpers that write the parts of a sheet.
+	 */
+	protected void createSheetHelpers(
+		Writer sheetWriter, 
+		Writer sheetRelsWriter, 
+		Writer drawingWriter, 
+		Writer drawingRelsWriter
+		)
+	{
 		XlsxReportConfiguration configuration = getCurrentItemConfiguration();
-		ExportZipEntry sheetRelsEntry = xlsxZip.addSheetRels(sheetIndex + 1);
-		Writer sheetRelsWriter = sheetRelsEntry.getWriter();
+		
 		sheetRelsHelper = new XlsxSheetRelsHelper(jasperReportsContext, sheetRelsWriter);
 
-		ExportZipEntry sheetEntry = xlsxZip.addSheet(sheetIndex + 1);
-		Writer sheetWriter = sheetEntry.getWriter();
 		sheetHelper = 
 			new XlsxSheetHelper(
 				jasperReportsContext,
@@ -726,17 +983,32 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 				configuration
 				);
 		
-		ExportZipEntry drawingRelsEntry = xlsxZip.addDrawingRels(sheetIndex + 1);
-		Writer drawingRelsWriter = drawingRelsEntry.getWriter();
 		drawingRelsHelper = new XlsxDrawingRelsHelper(jasperReportsContext, drawingRelsWriter);
 		
-		ExportZipEntry drawingEntry = xlsxZip.addDrawing(sheetIndex + 1);
-		Writer drawingWriter = drawingEntry.getWriter();
 		drawingHelper = new XlsxDrawingHelper(jasperReportsContext, drawingWriter, drawingRelsHelper);
 		
-		cellHelper = new XlsxCellHelper(jasperReportsContext, sheetWriter, styleHelper);
+		cellHelper = createCellHelper(sheetWriter);
+		cellHelper.setUseSharedStrings(sharedStringsHelper != null);
 		
 		runHelper = new XlsxRunHelper(jasperReportsContext, sheetWriter, getExporterKey());
+	}
+
+
+	/**
+	 *
+	 */
+	protected XlsxCellHelper createCellHelper(Writer sheetWriter)
+	{
+		return new XlsxCellHelper(jasperReportsContext, sheetWriter, styleHelper);
+	}
+
+
+	/**
+	 * Writes the headers of the sheet and drawing parts, which do not depend on the sheet index.
+	 */
+	protected void exportSheetHeader(SheetInfo sheetInfo)
+	{
+		XlsxReportConfiguration configuration = getCurrentItemConfiguration();
 		
 		boolean showGridlines = true;
 		if (sheetInfo.sheetShowGridlines == null)
@@ -759,7 +1031,6 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 				maxColumnIndex,
 				jasperPrint, 
 				sheetInfo.tabColor);
-		sheetRelsHelper.exportHeader(sheetIndex + 1);
 		drawingHelper.exportHeader();
 		drawingRelsHelper.exportHeader();
 	}
@@ -1117,8 +1388,7 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 					insertPageAnchor(colIndex,rowIndex);
 					if (image.getAnchorName() != null)
 					{
-						String ref = "'" + JRStringUtil.xmlEncode(currentSheetName) + "'!$" + JRXlsAbstractExporter.getColumIndexName(colIndex, maxColumnIndex) + "$" + (rowIndex + 1);
-						definedNames.append("<definedName name=\"" + getDefinedName(image.getAnchorName()) +"\">"+ ref +"</definedName>\n");
+						insertAnchor(image.getAnchorName(), colIndex, rowIndex);
 					}
 				}
 
@@ -1440,7 +1710,8 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 		final String convertedPattern = getConvertedPattern(text, pattern);
 				
 		cellHelper.exportHeader(
-			gridCell, rowIndex, colIndex, maxColumnIndex, textValue, 
+			gridCell, rowIndex, colIndex, maxColumnIndex, 
+			textValue == null && sharedStringsHelper != null ? new StringTextValue(textStr) : textValue, 
 			convertedPattern, 
 			getTextLocale(text), 
 			isWrapText(gridCell.getElement()) || Boolean.TRUE.equals(((JRXlsxExporterNature)nature).getColumnAutoFit(gridCell.getElement())), 
@@ -1479,8 +1750,7 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 			insertPageAnchor(colIndex,rowIndex);
 			if (text.getAnchorName() != null)
 			{
-				String ref = "'" + JRStringUtil.xmlEncode(currentSheetName) + "'!$" + JRXlsAbstractExporter.getColumIndexName(colIndex, maxColumnIndex) + "$" + (rowIndex + 1);
-				definedNames.append("<definedName name=\"" + getDefinedName(text.getAnchorName()) +"\">"+ ref +"</definedName>\n");
+				insertAnchor(text.getAnchorName(), colIndex, rowIndex);
 			}
 		}
 
@@ -1553,11 +1823,20 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 				{	
 					if (textStr != null && textStr.length() > 0)
 					{
-						sheetHelper.write("<is>");	//FIXMENOW make writer util; check everywhere
 						String markup = text.getMarkup();
 						boolean isStyledText = markup != null && !JRCommonText.MARKUP_NONE.equals(markup) && !isIgnoreTextFormatting(text);
-						exportStyledText(text.getStyle(), styledText, getTextLocale(text), isStyledText);
-						sheetHelper.write("</is>");
+						if (sharedStringsHelper == null)
+						{
+							sheetHelper.write("<is>");	//FIXMENOW make writer util; check everywhere
+							exportStyledText(text.getStyle(), styledText, getTextLocale(text), isStyledText);
+							sheetHelper.write("</is>");
+						}
+						else
+						{
+							sharedStringWriter.getBuffer().setLength(0);
+							exportStyledText(sharedStringRunHelper, text.getStyle(), styledText, getTextLocale(text), isStyledText);
+							exportSharedString(sharedStringWriter.toString());
+						}
 					}
 				}
 			};
@@ -1638,6 +1917,27 @@ public class JRXlsxExporter extends JRXlsAbstractExporter<XlsxReportConfiguratio
 				relsHelper.setContainsMacro(true);
 				ctHelper.setContainsMacro(true);
 			}
+			
+			if (Boolean.TRUE.equals(configuration.isUseSharedStrings()))
+			{
+				sharedStringsHelper = new XlsxSharedStringsHelper(jasperReportsContext, xlsxZip.addSharedStrings().getWriter());
+				sharedStringWriter = new StringWriter();
+				sharedStringRunHelper = new XlsxRunHelper(jasperReportsContext, sharedStringWriter, getExporterKey());
+				relsHelper.setContainsSharedStrings(true);
+				ctHelper.setContainsSharedStrings(true);
+			}
+			else
+			{
+				sharedStringsHelper = null;
+				sharedStringWriter = null;
+				sharedStringRunHelper = null;
+			}
+			
+			if (Boolean.TRUE.equals(configuration.isStreamSheets()))
+			{
+				// sheets are written in the ZIP stream as they are exported, the other parts when the workbook is closed
+				xlsxZip.startStreaming(os);
+			}
 			relsHelper.exportHeader();
 			ctHelper.exportHeader();
 
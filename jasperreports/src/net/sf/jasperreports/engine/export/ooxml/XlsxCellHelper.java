@@ -57,6 +57,8 @@ public class XlsxCellHelper extends BaseHelper
 	
 	private final TypeTextValueHandler textValueHandler = new TypeTextValueHandler();
 	
+	private boolean useSharedStrings;
+	
 	/**
 	 *
 	 */
@@ -72,6 +74,16 @@ public class XlsxCellHelper extends BaseHelper
 //		borderHelper = new XlsxBorderHelper(writer);
 	}
 
+	/**
+	 * Specifies whether non empty string cells refer to the shared strings table.
+	 * 
+	 * @see XlsxSharedStringsHelper
+	 */
+	public void setUseSharedStrings(boolean useSharedStrings)
+	{
+		this.useSharedStrings = useSharedStrings;
+	}
+
 	/**
 	 * 
 	 *
@@ -249,9 +261,21 @@ public class XlsxCellHelper extends BaseHelper
 		write("  <c r=\"" 
 			+ JRXlsAbstractExporter.getColumIndexName(colIndex, maxColIndex) 
 			+ (rowIndex + 1) 
-			+ "\" s=\"" + styleIndex + "\""
+			+ "\" s=\""
 			);
+		exportStyleIndex(styleIndex);
+		write("\"");
 		String type = textValueHandler.getType();
+		if (
+			useSharedStrings 
+			&& TypeTextValueHandler.TYPE_INLINE_STRING.equals(type)
+			&& textValue != null
+			&& textValue.getText() != null
+			&& textValue.getText().length() > 0
+			)
+		{
+			type = TypeTextValueHandler.TYPE_SHARED_STRING;
+		}
 		if (type != null)
 		{
 			write(" t=\"" + type + "\"");
@@ -259,6 +283,16 @@ public class XlsxCellHelper extends BaseHelper
 		write(">");
 	}
 
+	/**
+	 * Writes the index of the cell style in the styles table.
+	 * 
+	 * @param styleIndex the style index returned by the style helper
+	 */
+	protected void exportStyleIndex(int styleIndex)
+	{
+		write(String.valueOf(styleIndex));
+	}
+
 	/**
 	 *
 	 */
@@ -271,6 +305,9 @@ public class XlsxCellHelper extends BaseHelper
 
 class TypeTextValueHandler implements TextValueHandler 
 {
+	static final String TYPE_INLINE_STRING = "inlineStr";
+	static final String TYPE_SHARED_STRING = "s";
+	
 	private String type;
 	
 	TypeTextValueHandler(){
@@ -293,7 +330,7 @@ class TypeTextValueHandler implements TextValueHandler
 	
 	@Override
 	public void handle(StringTextValue textValue) throws JRException {
-		type = "inlineStr";
+		type = TYPE_INLINE_STRING;
 	}
 	
 	public String getType()
@@ -0,0 +1,186 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.export.ooxml;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jasperreports.engine.util.FileBufferedWriter;
+
+
+/**
+ * Buffers the content of a document part written on a worker thread, together with the parts
+ * of the content that can only be produced on the exporter thread.
+ * <p>
+ * The deferred parts are produced when the buffer is copied in the document by {@link #writeTo(Writer)}.
+ * After that, the content is written directly in the document.
+ * </p>
+ */
+public class XlsxDeferredWriter extends Writer
+{
+	/**
+	 * Content produced when the buffer is copied in the document.
+	 */
+	public interface DeferredPart
+	{
+		void write(Writer writer) throws IOException;
+	}
+
+	private final FileBufferedWriter buffer = new FileBufferedWriter();
+	private long length;
+	private final List<Long> partPositions = new ArrayList<Long>();
+	private final List<DeferredPart> parts = new ArrayList<DeferredPart>();
+	private Writer target;
+
+	/**
+	 * Adds a part at the current position of the content.
+	 */
+	public void addPart(DeferredPart part) throws IOException
+	{
+		if (target == null)
+		{
+			partPositions.add(length);
+			parts.add(part);
+		}
+		else
+		{
+			part.write(target);
+		}
+	}
+
+	/**
+	 * Copies the buffered content in the document, producing the deferred parts at their positions.
+	 * The content written afterwards goes directly to the document writer.
+	 */
+	public void writeTo(Writer writer) throws IOException
+	{
+		PartsWriter partsWriter = new PartsWriter(writer);
+		buffer.writeData(partsWriter);
+		for (int i = partsWriter.partIndex; i < parts.size(); i++)
+		{
+			parts.get(i).write(writer);
+		}
+
+		target = writer;
+		partPositions.clear();
+		parts.clear();
+		buffer.dispose();
+	}
+
+	/**
+	 * Releases the buffer when the content is not copied in the document.
+	 */
+	public void dispose()
+	{
+		buffer.dispose();
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException
+	{
+		if (target == null)
+		{
+			buffer.write(cbuf, off, len);
+			length += len;
+		}
+		else
+		{
+			target.write(cbuf, off, len);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		if (target == null)
+		{
+			buffer.flush();
+		}
+		else
+		{
+			target.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (target == null)
+		{
+			buffer.close();
+		}
+		else
+		{
+			target.close();
+		}
+	}
+
+	/**
+	 * Writes the buffered content and inserts the deferred parts at their positions.
+	 */
+	private class PartsWriter extends Writer
+	{
+		private final Writer writer;
+		private long position;
+		private int partIndex;
+
+		PartsWriter(Writer writer)
+		{
+			this.writer = writer;
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException
+		{
+			while (partIndex < parts.size() && partPositions.get(partIndex) < position + len)
+			{
+				int count = (int) (partPositions.get(partIndex) - position);
+				writer.write(cbuf, off, count);
+				off += count;
+				len -= count;
+				position += count;
+
+				parts.get(partIndex).write(writer);
+				partIndex++;
+			}
+
+			writer.write(cbuf, off, len);
+			position += len;
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			writer.flush();
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			// the document writer is closed by the helpers
+		}
+	}
+}
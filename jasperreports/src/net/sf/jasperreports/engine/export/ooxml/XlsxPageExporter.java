@@ -0,0 +1,572 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.export.ooxml;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRGenericPrintElement;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintImage;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPropertiesUtil.PropertySuffix;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.PrintPageFormat;
+import net.sf.jasperreports.engine.base.JRBasePrintText;
+import net.sf.jasperreports.engine.export.CutsInfo;
+import net.sf.jasperreports.engine.export.JRExportProgressMonitor;
+import net.sf.jasperreports.engine.export.JRExporterGridCell;
+import net.sf.jasperreports.engine.export.JRXlsAbstractExporter;
+import net.sf.jasperreports.engine.type.LineDirectionEnum;
+import net.sf.jasperreports.engine.type.RotationEnum;
+import net.sf.jasperreports.export.CompositeExporterConfigurationFactory;
+import net.sf.jasperreports.export.ExporterInputItem;
+import net.sf.jasperreports.export.SimpleXlsxReportConfiguration;
+import net.sf.jasperreports.export.XlsxExporterConfiguration;
+import net.sf.jasperreports.export.XlsxReportConfiguration;
+
+
+/**
+ * Exports a page of a document on a worker thread, on behalf of a {@link JRXlsxExporter}.
+ * <p>
+ * The sheet parts are written in {@link XlsxDeferredWriter buffers}.
+ * The cell styles are registered in a style helper local to the page and the indexes written in the sheet
+ * are mapped to the indexes of the exporter styles when the buffers are copied in the document.
+ * The shared strings, the anchors and the defined names are also registered at that point,
+ * on the exporter thread, so the document is the same as when the page is exported by the exporter itself.
+ * </p>
+ *
+ * @see XlsxExporterConfiguration#getSheetThreads()
+ */
+public class XlsxPageExporter extends JRXlsxExporter
+{
+	private final JRXlsxExporter parent;
+	private final ExporterInputItem item;
+	private final XlsxReportConfiguration pageItemConfiguration;
+	private final XlsxExporterConfiguration pageConfiguration;
+	private final RecordingStyleHelper recordingStyleHelper;
+
+	private final List<PageSheet> sheets = new ArrayList<PageSheet>();
+	private final List<PropertySuffix> pageDefinedNames = new ArrayList<PropertySuffix>();
+	private PageSheet currentSheet;
+
+	private List<Integer> globalStyleIndexes;
+
+	/**
+	 * Creates the exporter of a page, on the thread of the parent exporter.
+	 */
+	protected XlsxPageExporter(
+		JRXlsxExporter parent,
+		ExporterInputItem item,
+		int reportIndex,
+		XlsxReportConfiguration itemConfiguration,
+		XlsxExporterConfiguration configuration,
+		int pageIndex,
+		PrintPageFormat pageFormat
+		)
+	{
+		super(parent.getJasperReportsContext());
+
+		this.parent = parent;
+		this.item = item;
+		this.reportIndex = reportIndex;
+		this.pageIndex = pageIndex;
+		this.pageFormat = pageFormat;
+		this.pageConfiguration = configuration;
+
+		SimpleXlsxReportConfiguration progressConfiguration = new SimpleXlsxReportConfiguration();
+		progressConfiguration.setProgressMonitor(
+			new JRExportProgressMonitor()
+			{
+				@Override
+				public void afterPageExport()
+				{
+					// the progress is reported by the parent exporter when the page is copied in the document
+				}
+			}
+			);
+		this.pageItemConfiguration =
+			new CompositeExporterConfigurationFactory<XlsxReportConfiguration>(
+				jasperReportsContext, XlsxReportConfiguration.class
+				).getConfiguration(itemConfiguration, progressConfiguration, false);
+
+		setReportContext(parent.getReportContext());
+
+		recordingStyleHelper = new RecordingStyleHelper();
+		styleHelper = recordingStyleHelper;
+
+		if (parent.sharedStringsHelper != null)
+		{
+			// only used on the exporter thread, by the deferred parts
+			sharedStringsHelper = parent.sharedStringsHelper;
+			sharedStringWriter = new StringWriter();
+			sharedStringRunHelper = new XlsxRunHelper(jasperReportsContext, sharedStringWriter, getExporterKey());
+		}
+	}
+
+	@Override
+	protected XlsxReportConfiguration getCurrentItemConfiguration()
+	{
+		return pageItemConfiguration;
+	}
+
+	@Override
+	protected XlsxExporterConfiguration getCurrentConfiguration()
+	{
+		return pageConfiguration;
+	}
+
+	/**
+	 * Exports the page in buffers.
+	 * The method is called on a worker thread.
+	 *
+	 * @param page the page
+	 * @return whether the page has been exported,
+	 * <code>false</code> if the page contains elements that need to be exported by the parent exporter
+	 */
+	public boolean exportSheets(JRPrintPage page) throws JRException
+	{
+		if (!isExportable(page.getElements()))
+		{
+			return false;
+		}
+
+		try
+		{
+			setCurrentExporterInputItem(item);
+			defaultFont = new JRBasePrintText(jasperPrint.getDefaultStyleProvider());
+
+			exportPage(page, /*xCuts*/null, /*startRow*/0, /*defaultSheetName*/null);
+			closeSheet();
+		}
+		catch (JRException | RuntimeException e)
+		{
+			dispose();
+			throw e;
+		}
+
+		if (Thread.currentThread().isInterrupted())
+		{
+			// the export has been canceled
+			dispose();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Images and generic elements write shared document parts and are exported by the parent exporter.
+	 */
+	protected boolean isExportable(List<JRPrintElement> elements)
+	{
+		for (JRPrintElement element : elements)
+		{
+			if (
+				element instanceof JRPrintImage
+				|| element instanceof JRGenericPrintElement
+				|| (element instanceof JRPrintFrame && !isExportable(((JRPrintFrame) element).getElements()))
+				)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the sheets of the page, in the order in which they have been created.
+	 */
+	public List<PageSheet> getSheets()
+	{
+		return sheets;
+	}
+
+	/**
+	 * Returns the defined names of the page elements.
+	 */
+	public List<PropertySuffix> getDefinedNames()
+	{
+		return pageDefinedNames;
+	}
+
+	/**
+	 * Releases the buffers of the page.
+	 */
+	public void dispose()
+	{
+		for (PageSheet sheet : sheets)
+		{
+			sheet.dispose();
+		}
+	}
+
+	@Override
+	protected String getSheetName(String sheetName, String defaultSheetName)
+	{
+		// the sheet names are set by the parent exporter
+		return sheetName;
+	}
+
+	@Override
+	protected void createSheet(CutsInfo xCuts, SheetInfo sheetInfo)
+	{
+		currentSheet = new PageSheet(sheetInfo);
+
+		createSheetHelpers(
+			currentSheet.sheetWriter,
+			currentSheet.sheetRelsWriter,
+			currentSheet.drawingWriter,
+			currentSheet.drawingRelsWriter
+			);
+		currentSheet.sheetHelper = sheetHelper;
+		currentSheet.sheetRelsHelper = sheetRelsHelper;
+		currentSheet.drawingHelper = drawingHelper;
+		currentSheet.drawingRelsHelper = drawingRelsHelper;
+
+		exportSheetHeader(sheetInfo);
+
+		sheets.add(currentSheet);
+	}
+
+	@Override
+	protected void closeSheet()
+	{
+		if (currentSheet != null)
+		{
+			// the footers are written by the parent exporter
+			currentSheet.autoFilter = sheetAutoFilter;
+		}
+	}
+
+	@Override
+	protected XlsxCellHelper createCellHelper(Writer sheetWriter)
+	{
+		final XlsxDeferredWriter cellSheetWriter = (XlsxDeferredWriter) sheetWriter;
+		return
+			new XlsxCellHelper(jasperReportsContext, sheetWriter, styleHelper)
+			{
+				@Override
+				protected void exportStyleIndex(final int styleIndex)
+				{
+					addPart(
+						cellSheetWriter,
+						new XlsxDeferredWriter.DeferredPart()
+						{
+							@Override
+							public void write(Writer writer) throws IOException
+							{
+								writer.write(String.valueOf(getGlobalStyleIndex(styleIndex)));
+							}
+						}
+						);
+				}
+			};
+	}
+
+	@Override
+	protected void insertPageAnchor(final int colIndex, final int rowIndex)
+	{
+		addPart(
+			currentSheet.sheetWriter,
+			new XlsxDeferredWriter.DeferredPart()
+			{
+				@Override
+				public void write(Writer writer)
+				{
+					parent.insertPageAnchor(colIndex, rowIndex);
+				}
+			}
+			);
+	}
+
+	@Override
+	protected void insertAnchor(final String anchorName, final int colIndex, final int rowIndex)
+	{
+		addPart(
+			currentSheet.sheetWriter,
+			new XlsxDeferredWriter.DeferredPart()
+			{
+				@Override
+				public void write(Writer writer)
+				{
+					parent.insertAnchor(anchorName, colIndex, rowIndex);
+				}
+			}
+			);
+	}
+
+	@Override
+	protected void exportSharedString(final String item)
+	{
+		sheetHelper.write("<v>");
+		addPart(
+			currentSheet.sheetWriter,
+			new XlsxDeferredWriter.DeferredPart()
+			{
+				@Override
+				public void write(Writer writer) throws IOException
+				{
+					writer.write(String.valueOf(parent.sharedStringsHelper.getItemIndex(item)));
+				}
+			}
+			);
+		sheetHelper.write("</v>");
+	}
+
+	@Override
+	protected void configureDefinedNames(PropertySuffix propertySuffix)
+	{
+		if (propertySuffix != null)
+		{
+			pageDefinedNames.add(propertySuffix);
+		}
+	}
+
+	protected void addPart(XlsxDeferredWriter writer, XlsxDeferredWriter.DeferredPart part)
+	{
+		try
+		{
+			writer.addPart(part);
+		}
+		catch (IOException e)
+		{
+			throw new JRRuntimeException(e);
+		}
+	}
+
+	/**
+	 * Registers a cell style of the page in the parent exporter styles, on the exporter thread.
+	 * The styles are registered in the order in which they are first used in the page,
+	 * as the parent exporter does when it exports the page itself.
+	 */
+	protected int getGlobalStyleIndex(int styleIndex)
+	{
+		if (globalStyleIndexes == null)
+		{
+			globalStyleIndexes = new ArrayList<Integer>();
+		}
+
+		int index = styleIndex - 1;
+		while (globalStyleIndexes.size() <= index)
+		{
+			globalStyleIndexes.add(null);
+		}
+
+		Integer globalStyleIndex = globalStyleIndexes.get(index);
+		if (globalStyleIndex == null)
+		{
+			globalStyleIndex = recordingStyleHelper.styles.get(index).register(parent.styleHelper);
+			globalStyleIndexes.set(index, globalStyleIndex);
+		}
+		return globalStyleIndex;
+	}
+
+	/**
+	 * A sheet exported from the page.
+	 */
+	public static class PageSheet
+	{
+		private final SheetInfo sheetInfo;
+		private final XlsxDeferredWriter sheetWriter = new XlsxDeferredWriter();
+		private final XlsxDeferredWriter sheetRelsWriter = new XlsxDeferredWriter();
+		private final XlsxDeferredWriter drawingWriter = new XlsxDeferredWriter();
+		private final XlsxDeferredWriter drawingRelsWriter = new XlsxDeferredWriter();
+		private XlsxSheetHelper sheetHelper;
+		private XlsxSheetRelsHelper sheetRelsHelper;
+		private XlsxDrawingHelper drawingHelper;
+		private XlsxDrawingRelsHelper drawingRelsHelper;
+		private String autoFilter;
+
+		protected PageSheet(SheetInfo sheetInfo)
+		{
+			this.sheetInfo = sheetInfo;
+		}
+
+		public SheetInfo getSheetInfo()
+		{
+			return sheetInfo;
+		}
+
+		public XlsxDeferredWriter getSheetWriter()
+		{
+			return sheetWriter;
+		}
+
+		public XlsxDeferredWriter getSheetRelsWriter()
+		{
+			return sheetRelsWriter;
+		}
+
+		public XlsxDeferredWriter getDrawingWriter()
+		{
+			return drawingWriter;
+		}
+
+		public XlsxDeferredWriter getDrawingRelsWriter()
+		{
+			return drawingRelsWriter;
+		}
+
+		public XlsxSheetHelper getSheetHelper()
+		{
+			return sheetHelper;
+		}
+
+		public XlsxSheetRelsHelper getSheetRelsHelper()
+		{
+			return sheetRelsHelper;
+		}
+
+		public XlsxDrawingHelper getDrawingHelper()
+		{
+			return drawingHelper;
+		}
+
+		public XlsxDrawingRelsHelper getDrawingRelsHelper()
+		{
+			return drawingRelsHelper;
+		}
+
+		public String getAutoFilter()
+		{
+			return autoFilter;
+		}
+
+		protected void dispose()
+		{
+			sheetWriter.dispose();
+			sheetRelsWriter.dispose();
+			drawingWriter.dispose();
+			drawingRelsWriter.dispose();
+		}
+	}
+
+	/**
+	 * Records the arguments of the cell styles of the page, so that they can be registered
+	 * in the parent exporter styles.
+	 */
+	private class RecordingStyleHelper extends XlsxStyleHelper
+	{
+		private final List<CellStyle> styles = new ArrayList<CellStyle>();
+
+		RecordingStyleHelper()
+		{
+			// the page styles are not written
+			super(parent.getJasperReportsContext(), null, XLSX_EXPORTER_KEY);
+		}
+
+		@Override
+		public int getCellStyle(
+			JRExporterGridCell gridCell,
+			String pattern,
+			Locale locale,
+			boolean isWrapText,
+			boolean isHidden,
+			boolean isLocked,
+			boolean isShrinkToFit,
+			boolean isIgnoreTextFormatting,
+			RotationEnum rotation,
+			JRXlsAbstractExporter.SheetInfo sheetInfo,
+			LineDirectionEnum direction
+			)
+		{
+			int styleIndex =
+				super.getCellStyle(
+					gridCell, pattern, locale, isWrapText, isHidden, isLocked,
+					isShrinkToFit, isIgnoreTextFormatting, rotation, sheetInfo, direction
+					);
+			if (styleIndex > styles.size())
+			{
+				// new styles get consecutive indexes
+				styles.add(
+					new CellStyle(
+						gridCell, pattern, locale, isWrapText, isHidden, isLocked,
+						isShrinkToFit, isIgnoreTextFormatting, rotation, sheetInfo, direction
+						)
+					);
+			}
+			return styleIndex;
+		}
+	}
+
+	/**
+	 * The arguments of a cell style.
+	 */
+	private static class CellStyle
+	{
+		private final JRExporterGridCell gridCell;
+		private final String pattern;
+		private final Locale locale;
+		private final boolean isWrapText;
+		private final boolean isHidden;
+		private final boolean isLocked;
+		private final boolean isShrinkToFit;
+		private final boolean isIgnoreTextFormatting;
+		private final RotationEnum rotation;
+		private final JRXlsAbstractExporter.SheetInfo sheetInfo;
+		private final LineDirectionEnum direction;
+
+		CellStyle(
+			JRExporterGridCell gridCell,
+			String pattern,
+			Locale locale,
+			boolean isWrapText,
+			boolean isHidden,
+			boolean isLocked,
+			boolean isShrinkToFit,
+			boolean isIgnoreTextFormatting,
+			RotationEnum rotation,
+			JRXlsAbstractExporter.SheetInfo sheetInfo,
+			LineDirectionEnum direction
+			)
+		{
+			this.gridCell = gridCell;
+			this.pattern = pattern;
+			this.locale = locale;
+			this.isWrapText = isWrapText;
+			this.isHidden = isHidden;
+			this.isLocked = isLocked;
+			this.isShrinkToFit = isShrinkToFit;
+			this.isIgnoreTextFormatting = isIgnoreTextFormatting;
+			this.rotation = rotation;
+			this.sheetInfo = sheetInfo;
+			this.direction = direction;
+		}
+
+		int register(XlsxStyleHelper styleHelper)
+		{
+			return
+				styleHelper.getCellStyle(
+					gridCell, pattern, locale, isWrapText, isHidden, isLocked,
+					isShrinkToFit, isIgnoreTextFormatting, rotation, sheetInfo, direction
+					);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.export.ooxml;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.DigestUtils;
+import net.sf.jasperreports.engine.util.FileBufferedWriter;
+import net.sf.jasperreports.engine.util.MD5Digest;
+
+
+/**
+ * Collects the shared strings table of an XLSX document.
+ * <p>
+ * Each distinct string item is written once in a file buffered writer when it is first encountered.
+ * The index that maps items to their positions only keeps the MD5 digests of the items in memory,
+ * so the heap used by the table does not depend on the length of the strings.
+ * 
+ * @see net.sf.jasperreports.export.XlsxExporterConfiguration#isUseSharedStrings()
+ */
+public class XlsxSharedStringsHelper extends BaseHelper
+{
+	private final Map<MD5Digest, Integer> itemIndexes = new HashMap<MD5Digest, Integer>();
+	private final FileBufferedWriter itemsWriter = new FileBufferedWriter();
+	private int referenceCount;
+	
+	/**
+	 * 
+	 */
+	public XlsxSharedStringsHelper(JasperReportsContext jasperReportsContext, Writer writer)
+	{
+		super(jasperReportsContext, writer);
+	}
+
+	/**
+	 * Returns the index of a string item in the table, adding the item if not already present.
+	 * 
+	 * @param item the content of the <code>si</code> element, consisting of text runs
+	 * @return the index of the item
+	 */
+	public int getItemIndex(String item)
+	{
+		++referenceCount;
+		
+		MD5Digest itemDigest = DigestUtils.instance().md5(item);
+		Integer index = itemIndexes.get(itemDigest);
+		if (index == null)
+		{
+			index = itemIndexes.size();
+			itemIndexes.put(itemDigest, index);
+			
+			try
+			{
+				itemsWriter.write("<si>");
+				itemsWriter.write(item);
+				itemsWriter.write("</si>\n");
+			}
+			catch (IOException e)
+			{
+				throw new JRRuntimeException(e);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Writes the table.
+	 */
+	public void export()
+	{
+		write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		write("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"" 
+				+ referenceCount + "\" uniqueCount=\"" + itemIndexes.size() + "\">\n");
+		if (!itemsWriter.isEmpty())
+		{
+			itemsWriter.writeData(writer);
+		}
+		write("</sst>\n");
+		
+		itemIndexes.clear();
+		itemsWriter.dispose();
+	}
+}
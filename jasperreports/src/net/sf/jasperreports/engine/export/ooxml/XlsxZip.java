@@ -157,13 +157,38 @@ public class XlsxZip extends FileBufferedZip
 	 */
 	public ExportZipEntry addSheet(int index)
 	{
-		ExportZipEntry sheetEntry = createEntry("xl/worksheets/sheet" + index + ".xml");
+		String name = "xl/worksheets/sheet" + index + ".xml";
+		if (isStreaming())
+		{
+			try
+			{
+				return addStreamedEntry(name);
+			}
+			catch (IOException e)
+			{
+				throw new JRRuntimeException(e);
+			}
+		}
+		
+		ExportZipEntry sheetEntry = createEntry(name);
 
 		exportZipEntries.add(sheetEntry);
 
 		return sheetEntry;
 	}
 	
+	/**
+	 * 
+	 */
+	public ExportZipEntry addSharedStrings()
+	{
+		ExportZipEntry sharedStringsEntry = createEntry("xl/sharedStrings.xml");
+
+		exportZipEntries.add(sharedStringsEntry);
+
+		return sharedStringsEntry;
+	}
+	
 	/**
 	 * 
 	 */
@@ -41,6 +41,9 @@ public abstract class AbstractZip
 	 * 
 	 */
 	protected List<ExportZipEntry> exportZipEntries = new ArrayList<ExportZipEntry>();
+	
+	private ZipOutputStream zipOutputStream;
+	private StreamedZipEntry streamedEntry;
 
 	/**
 	 *
@@ -56,12 +59,79 @@ public abstract class AbstractZip
 	}
 	
 	/**
-	 *
+	 * Opens the ZIP stream on the final output so that entries added via {@link #addStreamedEntry(String)}
+	 * can be written directly into it, ahead of the buffered entries.
+	 * <p>
+	 * Once streaming has started, the output stream will contain partial data if the export fails.
+	 * 
+	 * @param os the output stream, which needs to be the same as the one passed to {@link #zipEntries(OutputStream)}
 	 */
-	public void zipEntries(OutputStream os) throws IOException
+	public void startStreaming(OutputStream os)
+	{
+		if (zipOutputStream == null)
+		{
+			zipOutputStream = createZipOutputStream(os);
+		}
+	}
+	
+	/**
+	 * Returns whether {@link #startStreaming(OutputStream)} has been called.
+	 */
+	public boolean isStreaming()
+	{
+		return zipOutputStream != null;
+	}
+	
+	/**
+	 * Starts an entry whose content is written directly in the ZIP stream.
+	 * The previously streamed entry, if still open, is ended first.
+	 * 
+	 * @param name the entry name
+	 * @return the streamed entry
+	 * @see #startStreaming(OutputStream)
+	 */
+	public ExportZipEntry addStreamedEntry(String name) throws IOException
+	{
+		closeStreamedEntry();
+		
+		streamedEntry = new StreamedZipEntry(zipOutputStream, name);
+		return streamedEntry;
+	}
+	
+	protected void closeStreamedEntry() throws IOException
+	{
+		if (streamedEntry != null)
+		{
+			if (!streamedEntry.isClosed())
+			{
+				streamedEntry.close();
+			}
+			streamedEntry = null;
+		}
+	}
+	
+	protected ZipOutputStream createZipOutputStream(OutputStream os)
 	{
 		ZipOutputStream zipos = new ZipOutputStream(os);
 		zipos.setMethod(ZipOutputStream.DEFLATED);
+		return zipos;
+	}
+	
+	/**
+	 *
+	 */
+	public void zipEntries(OutputStream os) throws IOException
+	{
+		ZipOutputStream zipos;
+		if (zipOutputStream == null)
+		{
+			zipos = createZipOutputStream(os);
+		}
+		else
+		{
+			closeStreamedEntry();
+			zipos = zipOutputStream;
+		}
 		
 		for (int i = 0; i < exportZipEntries.size(); i++) 
 		{
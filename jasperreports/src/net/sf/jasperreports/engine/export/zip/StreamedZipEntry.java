@@ -0,0 +1,161 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.export.zip;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import net.sf.jasperreports.engine.JRRuntimeException;
+
+
+/**
+ * ZIP entry whose content is written directly into the ZIP output stream, without being buffered.
+ * <p>
+ * The entry is started in the ZIP stream when the object is created and ends when its writer or
+ * output stream is closed, therefore no other entry can be written in the meantime.
+ * 
+ * @see AbstractZip#addStreamedEntry(String)
+ */
+public class StreamedZipEntry implements ExportZipEntry 
+{
+	private final String name;
+	private final EntryOutputStream entryOutputStream;
+	private Writer writer;
+	
+	/**
+	 * Starts a new entry in the ZIP output stream.
+	 * 
+	 * @param zipOutputStream the ZIP stream
+	 * @param name the entry name
+	 */
+	public StreamedZipEntry(ZipOutputStream zipOutputStream, String name) throws IOException
+	{
+		this.name = name;
+		
+		zipOutputStream.putNextEntry(new ZipEntry(name));
+		entryOutputStream = new EntryOutputStream(zipOutputStream);
+	}
+	
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+	
+	@Override
+	public Writer getWriter()
+	{
+		if (writer == null)
+		{
+			try
+			{
+				writer = new BufferedWriter(new OutputStreamWriter(entryOutputStream, "UTF-8"));
+			}
+			catch (IOException e)
+			{
+				throw new JRRuntimeException(e);
+			}
+		}
+		
+		return writer;
+	}
+
+	@Override
+	public OutputStream getOutputStream()
+	{
+		return entryOutputStream;
+	}
+
+	/**
+	 * Ends the entry in the ZIP stream, flushing the writer if one was created.
+	 */
+	public void close() throws IOException
+	{
+		if (writer != null)
+		{
+			writer.close();
+		}
+		else
+		{
+			entryOutputStream.close();
+		}
+	}
+
+	/**
+	 * Returns whether the entry has been ended in the ZIP stream.
+	 */
+	public boolean isClosed()
+	{
+		return entryOutputStream.closed;
+	}
+
+	@Override
+	public void writeData(OutputStream os) throws IOException
+	{
+		throw 
+			new JRRuntimeException(
+				EmptyZipEntry.EXCEPTION_MESSAGE_KEY_FORBIDDEN_METHOD_CALL,
+				(Object[])null);
+	}
+	
+	@Override
+	public void dispose()
+	{
+	}
+	
+	/**
+	 * Stream that ends the current ZIP entry instead of closing the ZIP stream.
+	 */
+	protected static class EntryOutputStream extends FilterOutputStream
+	{
+		private boolean closed;
+		
+		protected EntryOutputStream(ZipOutputStream zipOutputStream)
+		{
+			super(zipOutputStream);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if (!closed)
+			{
+				closed = true;
+				((ZipOutputStream) out).closeEntry();
+			}
+		}
+	}
+}
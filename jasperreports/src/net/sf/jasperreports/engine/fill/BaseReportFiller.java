@@ -122,6 +122,8 @@ public abstract class BaseReportFiller implements ReportFiller
 
 	protected FillListener fillListener;
 	
+	protected FillInstrumentation instrumentation;
+	
 	protected int usedPageWidth = 0;
 
 	public BaseReportFiller(JasperReportsContext jasperReportsContext, JasperReport jasperReport, 
@@ -157,6 +159,7 @@ public abstract class BaseReportFiller implements ReportFiller
 			initEvaluator = parent.getCachedEvaluator();
 		}
 		
+		this.instrumentation = fillContext.getInstrumentation();
 		this.fillerId = fillContext.generatedFillerId();
 		if (log.isDebugEnabled())
 		{
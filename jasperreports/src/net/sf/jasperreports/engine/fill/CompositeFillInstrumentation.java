@@ -0,0 +1,136 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JasperPrint;
+
+/**
+ * {@link FillInstrumentation} implementation that contains several other instrumentation objects.
+ */
+public class CompositeFillInstrumentation implements FillInstrumentation
+{
+
+	public static FillInstrumentation add(FillInstrumentation existingInstrumentation, FillInstrumentation instrumentation)
+	{
+		if (existingInstrumentation == null)
+		{
+			return instrumentation;
+		}
+		
+		if (instrumentation == null)
+		{
+			return existingInstrumentation;
+		}
+		
+		if (existingInstrumentation instanceof CompositeFillInstrumentation)
+		{
+			((CompositeFillInstrumentation) existingInstrumentation).instrumentations.add(instrumentation);
+			return existingInstrumentation;
+		}
+		
+		CompositeFillInstrumentation composite = new CompositeFillInstrumentation();
+		composite.instrumentations.add(existingInstrumentation);
+		composite.instrumentations.add(instrumentation);
+		return composite;
+	}
+	
+	private final List<FillInstrumentation> instrumentations = new ArrayList<FillInstrumentation>();
+
+	@Override
+	public void fillStarted(BaseReportFiller filler)
+	{
+		for (FillInstrumentation instrumentation : instrumentations)
+		{
+			instrumentation.fillStarted(filler);
+		}
+	}
+
+	@Override
+	public void fillEnded(BaseReportFiller filler, long duration)
+	{
+		for (FillInstrumentation instrumentation : instrumentations)
+		{
+			instrumentation.fillEnded(filler, duration);
+		}
+	}
+
+	@Override
+	public void queryExecuted(JRFillDataset dataset, long duration)
+	{
+		for (FillInstrumentation instrumentation : instrumentations)
+		{
+			instrumentation.queryExecuted(dataset, duration);
+		}
+	}
+
+	@Override
+	public void recordRead(JRFillDataset dataset, boolean hasRecord, long duration)
+	{
+		for (FillInstrumentation instrumentation : instrumentations)
+		{
+			instrumentation.recordRead(dataset, hasRecord, duration);
+		}
+	}
+
+	@Override
+	public void bandFilled(JRFillBand band, long duration)
+	{
+		for (FillInstrumentation instrumentation : instrumentations)
+		{
+			instrumentation.bandFilled(band, duration);
+		}
+	}
+
+	@Override
+	public void elementEvaluated(JRFillElement element, long duration)
+	{
+		for (FillInstrumentation instrumentation : instrumentations)
+		{
+			instrumentation.elementEvaluated(element, duration);
+		}
+	}
+
+	@Override
+	public void expressionEvaluated(JRFillDataset dataset, JRExpression expression, long duration)
+	{
+		for (FillInstrumentation instrumentation : instrumentations)
+		{
+			instrumentation.expressionEvaluated(dataset, expression, duration);
+		}
+	}
+
+	@Override
+	public void fillCompleted(JasperPrint jasperPrint)
+	{
+		for (FillInstrumentation instrumentation : instrumentations)
+		{
+			instrumentation.fillCompleted(jasperPrint);
+		}
+	}
+
+}
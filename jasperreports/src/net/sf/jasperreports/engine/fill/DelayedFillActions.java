@@ -73,6 +73,9 @@ public class DelayedFillActions implements VirtualizationListener<VirtualElement
 	
 	private Set<Integer> transferredIds;
 	
+	private int pageIndexOffset;
+	private int totalPageCount = -1;
+	
 	public DelayedFillActions(BaseReportFiller reportFiller)
 	{
 		this.id = assignId(reportFiller);
@@ -102,6 +105,20 @@ public class DelayedFillActions implements VirtualizationListener<VirtualElement
 		return id;
 	}
 
+	/**
+	 * Specifies the position of the filler pages in the final document, 
+	 * for reports that are filled in several partitions which are merged afterwards.
+	 * 
+	 * @param pageIndexOffset the index of the first filler page in the final document
+	 * @param totalPageCount the total number of pages in the final document
+	 * @see ParallelReportFiller
+	 */
+	public void setPageRange(int pageIndexOffset, int totalPageCount)
+	{
+		this.pageIndexOffset = pageIndexOffset;
+		this.totalPageCount = totalPageCount;
+	}
+
 	public void createDelayedEvaluationTime(JREvaluationTime evaluationTime)
 	{
 		LinkedHashMap<FillPageKey, LinkedMap<Object, EvaluationBoundAction>> evaluationActions = 
@@ -256,9 +273,9 @@ public class DelayedFillActions implements VirtualizationListener<VirtualElement
 						}
 						
 						StandardBoundActionExecutionContext context = new StandardBoundActionExecutionContext();
-						context.setCurrentPageIndex(pageIdx);
+						context.setCurrentPageIndex(pageIndexOffset + pageIdx);
 						JasperPrint jasperPrint = fillContext.getMasterFiller().getJasperPrint();
-						context.setTotalPages(jasperPrint.getPages().size());
+						context.setTotalPages(totalPageCount >= 0 ? totalPageCount : jasperPrint.getPages().size());
 						context.setEvaluationTime(evaluationTime);
 						context.setExpressionEvaluationType(evaluation);
 						
@@ -0,0 +1,114 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JasperPrint;
+
+/**
+ * Instrumentation listener notified with the timings of the fill operations.
+ * <p>
+ * An instrumentation object is created for each report fill by the
+ * {@link FillInstrumentationFactory} extensions, and is used by the master report
+ * and by all its subreports.
+ * When no instrumentation is created for a fill, the fill operations are not timed at all.
+ * <p>
+ * Durations are measured in nanoseconds using <code>System.nanoTime()</code>.
+ * The durations of nested operations overlap, for instance the time spent evaluating the
+ * expressions of an element is included in the element evaluation time, and the time spent
+ * filling a subreport is included in the fill time of the band that contains the subreport.
+ * <p>
+ * Implementations need to be thread safe when subreports are filled on separate threads.
+ * 
+ * @see FillInstrumentationFactory
+ */
+public interface FillInstrumentation
+{
+
+	/**
+	 * Called when a report or subreport fill starts.
+	 * 
+	 * @param filler the report filler
+	 */
+	void fillStarted(BaseReportFiller filler);
+
+	/**
+	 * Called when a report or subreport fill has successfully ended.
+	 * 
+	 * @param filler the report filler
+	 * @param duration the fill duration
+	 */
+	void fillEnded(BaseReportFiller filler, long duration);
+
+	/**
+	 * Called after the query of a dataset has been executed.
+	 * 
+	 * @param dataset the dataset
+	 * @param duration the time needed to execute the query and create the data source
+	 */
+	void queryExecuted(JRFillDataset dataset, long duration);
+
+	/**
+	 * Called after the data source of a dataset has been advanced.
+	 * 
+	 * @param dataset the dataset
+	 * @param hasRecord whether the data source returned a record
+	 * @param duration the time spent in the data source
+	 */
+	void recordRead(JRFillDataset dataset, boolean hasRecord, long duration);
+
+	/**
+	 * Called after a band has been filled.
+	 * 
+	 * @param band the band
+	 * @param duration the time needed to prepare and fill the band elements,
+	 * which includes text measuring and subreport filling
+	 */
+	void bandFilled(JRFillBand band, long duration);
+
+	/**
+	 * Called after an element has been evaluated.
+	 * 
+	 * @param element the element
+	 * @param duration the time needed to evaluate the element
+	 */
+	void elementEvaluated(JRFillElement element, long duration);
+
+	/**
+	 * Called after an expression has been evaluated.
+	 * 
+	 * @param dataset the dataset in which the expression has been evaluated
+	 * @param expression the expression
+	 * @param duration the time needed to evaluate the expression
+	 */
+	void expressionEvaluated(JRFillDataset dataset, JRExpression expression, long duration);
+
+	/**
+	 * Called when the master report fill has successfully completed.
+	 * 
+	 * @param jasperPrint the generated document
+	 */
+	void fillCompleted(JasperPrint jasperPrint);
+
+}
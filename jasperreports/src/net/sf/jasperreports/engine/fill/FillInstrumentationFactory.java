@@ -0,0 +1,47 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+
+/**
+ * Extension that creates {@link FillInstrumentation} objects for report fills.
+ * <p>
+ * The factories are retrieved as extensions via
+ * {@link JasperReportsContext#getExtensions(Class)} when a master report fill starts.
+ */
+public interface FillInstrumentationFactory
+{
+
+	/**
+	 * Creates an instrumentation object for a report fill.
+	 * 
+	 * @param jasperReportsContext the context
+	 * @param jasperReport the master report
+	 * @return the instrumentation object, or <code>null</code> if the report fill is not to be instrumented
+	 */
+	FillInstrumentation createInstrumentation(JasperReportsContext jasperReportsContext, JasperReport jasperReport);
+
+}
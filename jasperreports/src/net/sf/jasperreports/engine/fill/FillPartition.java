@@ -0,0 +1,213 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.List;
+
+import net.sf.jasperreports.engine.JRException;
+
+/**
+ * A range of data source records which is filled independently of the rest of the report
+ * by a {@link ParallelReportFiller}.
+ *
+ * <p>
+ * A partition always starts on a top level group boundary.
+ * </p>
+ */
+public class FillPartition
+{
+	private final ParallelReportFiller reportFiller;
+	private final int index;
+	private final boolean last;
+	private final List<Object[]> records;
+
+	private volatile JRBaseFiller filler;
+	private boolean dataEnded;
+	private boolean ended;
+	private int pageCount;
+	private int pageIndexOffset;
+	private Object[] variableValues;
+
+	protected FillPartition(ParallelReportFiller reportFiller, int index, boolean last, List<Object[]> records)
+	{
+		this.reportFiller = reportFiller;
+		this.index = index;
+		this.last = last;
+		this.records = records;
+	}
+
+	/**
+	 * Returns the position of the partition in the report.
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * Decides whether this is the partition that starts the report,
+	 * and is thus responsible for printing the title.
+	 */
+	public boolean isFirst()
+	{
+		return index == 0;
+	}
+
+	/**
+	 * Decides whether this is the partition that ends the report,
+	 * and is thus responsible for printing the summary and the last page footer.
+	 */
+	public boolean isLast()
+	{
+		return last;
+	}
+
+	/**
+	 * Returns the data source records that belong to the partition.
+	 */
+	public List<Object[]> getRecords()
+	{
+		return records;
+	}
+
+	/**
+	 * Returns the number of pages produced for the partition.
+	 */
+	public int getPageCount()
+	{
+		return pageCount;
+	}
+
+	/**
+	 * Returns the index of the first partition page in the merged document.
+	 */
+	public int getPageIndexOffset()
+	{
+		return pageIndexOffset;
+	}
+
+	protected void setPageIndexOffset(int pageIndexOffset)
+	{
+		this.pageIndexOffset = pageIndexOffset;
+	}
+
+	protected JRBaseFiller getFiller()
+	{
+		return filler;
+	}
+
+	protected void setFiller(JRBaseFiller filler)
+	{
+		this.filler = filler;
+	}
+
+	protected Object[] getVariableValues()
+	{
+		return variableValues;
+	}
+
+	protected boolean hasEnded()
+	{
+		return ended;
+	}
+
+	/**
+	 * Called by the filler when the end of the partition data has been reached,
+	 * before filling the summary.
+	 *
+	 * <p>
+	 * The method blocks until all partitions of the report have reached the end of their data and
+	 * afterwards sets the merged report variable values on the filler.
+	 * </p>
+	 */
+	protected void dataEnded(JRBaseFiller filler) throws JRException
+	{
+		if (dataEnded)
+		{
+			return;
+		}
+
+		dataEnded = true;
+
+		JRFillVariable[] variables = filler.mainDataset.variables;
+		variableValues = new Object[variables == null ? 0 : variables.length];
+		for (int i = 0; i < variableValues.length; i++)
+		{
+			variableValues[i] = variables[i].getValue();
+		}
+
+		reportFiller.partitionDataEnded(this);
+
+		reportFiller.applyMergedValues(this, filler);
+	}
+
+	/**
+	 * Called by the filler when all the partition pages have been produced,
+	 * before resolving report level evaluations.
+	 *
+	 * <p>
+	 * The method blocks until all partitions of the report have produced their pages and
+	 * afterwards sets the page range of the partition in the merged document on the filler.
+	 * </p>
+	 */
+	protected void reportEnded(JRBaseFiller filler) throws JRException
+	{
+		if (ended)
+		{
+			return;
+		}
+
+		dataEnded(filler);
+
+		ended = true;
+		pageCount = filler.getJasperPrint().getPages().size();
+
+		reportFiller.partitionEnded(this);
+
+		reportFiller.applyPageRange(this, filler);
+	}
+
+	/**
+	 * Called after the filler has completed, in case the filler did not reach
+	 * report level evaluations (e.g. when all partition records have been filtered out).
+	 */
+	protected void fillEnded(JRBaseFiller filler) throws JRException
+	{
+		if (ended)
+		{
+			return;
+		}
+
+		if (!dataEnded)
+		{
+			dataEnded = true;
+			reportFiller.partitionDataEnded(this);
+		}
+
+		ended = true;
+		pageCount = filler.getJasperPrint().getPages().size();
+
+		reportFiller.partitionEnded(this);
+	}
+}
@@ -236,6 +236,8 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 	protected ReferenceMap<Object, Boolean> lastObjectSet;
 
 	private boolean readOnly;
+	
+	private volatile WriteBehindQueue writeBehindQueue;
 
 	/**
 	 * @param maxSize
@@ -342,6 +344,102 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 		return readOnly || o.getContext().isReadOnly();
 	}
 
+	/**
+	 * Enables or disables write-behind page-out.
+	 * <p/>
+	 * In write-behind mode, the data of evicted objects is handed to a bounded queue and
+	 * written to the external storage by a background thread, so that the thread that
+	 * causes the eviction does not wait for the data to be serialized and written.
+	 * The thread only blocks when the queue is full.
+	 * Objects that are requested while their data is still in the queue are paged in
+	 * from the queue.
+	 * <p/>
+	 * The mode should be set before the virtualizer is used.
+	 *
+	 * @param queueSize the maximum number of evicted objects waiting to be written,
+	 * <code>0</code> to disable write-behind
+	 * @see WriteBehindQueue
+	 */
+	public void setWriteBehind(int queueSize)
+	{
+		WriteBehindQueue currentQueue = writeBehindQueue;
+		if (currentQueue != null)
+		{
+			currentQueue.dispose();
+		}
+		
+		writeBehindQueue = queueSize > 0 ? new WriteBehindQueue(queueSize, new PageOutWriter()) : null;
+	}
+
+	/**
+	 * Returns the write-behind queue size, or <code>0</code> if write-behind is not enabled.
+	 * 
+	 * @see #setWriteBehind(int)
+	 */
+	public int getWriteBehind()
+	{
+		WriteBehindQueue queue = writeBehindQueue;
+		return queue == null ? 0 : queue.getCapacity();
+	}
+	
+	protected class PageOutWriter implements WriteBehindQueue.Writer
+	{
+		@Override
+		public void write(JRVirtualizable<?> o) throws IOException
+		{
+			pageOut(o);
+		}
+
+		@Override
+		public void discard(JRVirtualizable<?> o)
+		{
+			dispose(o);
+		}
+	}
+	
+	/**
+	 * Cancels the queued write of an object, if write-behind is enabled.
+	 * 
+	 * @return the virtual data of the object if the write was cancelled before completion
+	 */
+	protected Object cancelQueuedPageOut(String id)
+	{
+		WriteBehindQueue queue = writeBehindQueue;
+		return queue == null ? null : queue.cancel(id);
+	}
+	
+	/**
+	 * Discards the data waiting in the write-behind queue, if any, 
+	 * and waits for the write in progress to finish.
+	 * 
+	 * @param masterContext the context for which the data should be discarded,
+	 * <code>null</code> for all contexts
+	 */
+	protected void discardQueuedPageOuts(JRVirtualizationContext masterContext)
+	{
+		WriteBehindQueue queue = writeBehindQueue;
+		if (queue != null)
+		{
+			queue.discard(masterContext);
+		}
+	}
+
+	/**
+	 * Discards the data waiting in the write-behind queue, if any, and stops the 
+	 * background writer thread.
+	 * <p/>
+	 * Write-behind remains enabled, a new queue is used if the virtualizer is used again.
+	 * The method is called by {@link #cleanup()}.
+	 */
+	protected void disposeWriteBehind()
+	{
+		WriteBehindQueue queue = writeBehindQueue;
+		if (queue != null)
+		{
+			setWriteBehind(queue.getCapacity());
+		}
+	}
+
 	@Override
 	public void registerObject(JRVirtualizable o)
 	{
@@ -451,6 +549,7 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 		//try to remove virtual data
 		try
 		{
+			cancelQueuedPageOut(uid);
 			dispose(o);
 		}
 		catch (Exception e)
@@ -532,14 +631,27 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 				}
 				
 				// unvirtualize
-				try
+				Object queuedData = cancelQueuedPageOut(uid);
+				if (queuedData != null)
 				{
-					pageIn(o);
+					if (log.isDebugEnabled())
+					{
+						log.debug("internalizing " + uid + " from the write-behind queue");
+					}
+					
+					o.setVirtualData(queuedData);
 				}
-				catch (IOException e)
+				else
 				{
-					log.error("Error devirtualizing object", e);
-					throw new JRRuntimeException(e);
+					try
+					{
+						pageIn(o);
+					}
+					catch (IOException e)
+					{
+						log.error("Error devirtualizing object", e);
+						throw new JRRuntimeException(e);
+					}
 				}
 
 				synchronized (this)
@@ -572,6 +684,7 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 		if (isPagedOutAndTouch(o, uid))
 		{
 			// remove virtual data
+			cancelQueuedPageOut(uid);
 			dispose(uid);
 
 			synchronized (this)
@@ -594,15 +707,24 @@ public abstract class JRAbstractLRUVirtualizer implements JRVirtualizer
 			
 			o.beforeExternalization();
 
-			// virtualize
-			try
+			WriteBehindQueue queue = writeBehindQueue;
+			if (queue == null)
 			{
-				pageOut(o);
+				// virtualize
+				try
+				{
+					pageOut(o);
+				}
+				catch (IOException e)
+				{
+					log.error("Error virtualizing object", e);
+					throw new JRRuntimeException(e);
+				}
 			}
-			catch (IOException e)
+			else
 			{
-				log.error("Error virtualizing object", e);
-				throw new JRRuntimeException(e);
+				// the queue keeps the virtual data until it gets written
+				queue.enqueue(o);
 			}
 
 			o.afterExternalization();
@@ -261,6 +261,11 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 	
 	protected int usedPageHeight = 0;
 
+	/**
+	 * The partition filled by this filler when the report is filled in parallel, <code>null</code> otherwise.
+	 */
+	protected FillPartition partition;
+
 	/**
 	 *
 	 */
@@ -380,6 +385,37 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 		this.styleResolver = new StyleResolver(jasperReportsContext);
 	}
 
+	/**
+	 * Configures the filler to produce a single partition of a report that is filled in parallel.
+	 * <p>
+	 * The title is only printed by the first partition, while the summary and last page footer
+	 * are only printed by the last partition.
+	 * The summary is filled and elements evaluated at report and master level are resolved
+	 * only after all partitions have reached the end of their data, using the merged report variable values.
+	 * </p>
+	 * 
+	 * @param partition the partition to be filled
+	 */
+	protected void setPartition(FillPartition partition)
+	{
+		this.partition = partition;
+		
+		if (!partition.isFirst())
+		{
+			title = missingFillBand;
+			isTitleNewPage = false;
+		}
+		
+		if (!partition.isLast())
+		{
+			summary = missingFillBand;
+			lastPageFooter = missingFillBand;
+			isSummaryNewPage = false;
+			
+			setPageHeight(pageHeight);
+		}
+	}
+
 	/**
 	 * Returns the report fields indexed by name.
 	 *
@@ -562,6 +598,13 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 
 		fillingThread = Thread.currentThread();
 		
+		long fillStart = 0;
+		if (instrumentation != null)
+		{
+			instrumentation.fillStarted(this);
+			fillStart = System.nanoTime();
+		}
+		
 		JRResourcesFillUtil.ResourcesFillContext resourcesContext = 
 			JRResourcesFillUtil.setResourcesFillContext(parameterValues);
 		
@@ -633,6 +676,15 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 				log.debug("Fill " + fillerId + ": ended");
 			}
 
+			if (instrumentation != null)
+			{
+				instrumentation.fillEnded(this, System.nanoTime() - fillStart);
+				if (parent == null)
+				{
+					instrumentation.fillCompleted(jasperPrint);
+				}
+			}
+
 			success = true;
 			return jasperPrint;
 		}
@@ -645,6 +697,12 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 			{
 				// commit the cached data
 				fillContext.cacheDone();
+				
+				if (virtualizationContext != null)
+				{
+					// the pages can now be read ahead
+					virtualizationContext.fillFinished();
+				}
 			}
 
 			if (parent != null)
@@ -1194,11 +1252,29 @@ public abstract class JRBaseFiller extends BaseReportFiller implements JRDefault
 		return mainDataset.next();
 	}
 
+	/**
+	 * Called when the end of the report data has been reached, before filling the summary.
+	 */
+	protected void reportDataEnded() throws JRException
+	{
+		if (partition != null)
+		{
+			// wait for the rest of the partitions and collect the merged variable values
+			partition.dataEnded(this);
+		}
+	}
+
 	/**
 	 * Resolves elements which are to be evaluated at report level.
 	 */
 	protected void resolveReportBoundElements() throws JRException
 	{
+		if (partition != null)
+		{
+			// wait for the rest of the partitions and collect the merged page counts
+			partition.reportEnded(this);
+		}
+		
 		resolveBoundElements(JREvaluationTime.EVALUATION_TIME_REPORT, JRExpression.EVALUATION_DEFAULT);
 	}
 
@@ -104,6 +104,8 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	 * The expression evaluator
 	 */
 	private final DatasetExpressionEvaluator evaluator;
+	
+	private FillInstrumentation instrumentation;
 
 
 	/**
@@ -137,6 +139,7 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	protected void init(JRFillDataset dataset) throws JRException
 	{
 		this.dataset = dataset;
+		this.instrumentation = dataset.getInstrumentation();
 		parsm = dataset.parametersMap;
 		fldsm = dataset.fieldsMap;
 		varsm = dataset.variablesMap;
@@ -651,7 +654,15 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	 */
 	public Object evaluateOld(JRExpression expression) throws JRExpressionEvalException
 	{
-		return evaluator.evaluateOld(expression);
+		if (instrumentation == null || expression == null)
+		{
+			return evaluator.evaluateOld(expression);
+		}
+		
+		long start = System.nanoTime();
+		Object value = evaluator.evaluateOld(expression);
+		instrumentation.expressionEvaluated(dataset, expression, System.nanoTime() - start);
+		return value;
 	}
 
 
@@ -660,7 +671,15 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	 */
 	public Object evaluateEstimated(JRExpression expression) throws JRExpressionEvalException
 	{
-		return evaluator.evaluateEstimated(expression);
+		if (instrumentation == null || expression == null)
+		{
+			return evaluator.evaluateEstimated(expression);
+		}
+		
+		long start = System.nanoTime();
+		Object value = evaluator.evaluateEstimated(expression);
+		instrumentation.expressionEvaluated(dataset, expression, System.nanoTime() - start);
+		return value;
 	}
 
 
@@ -669,7 +688,15 @@ public class JRCalculator implements JRFillExpressionEvaluator
 	 */
 	public Object evaluate(JRExpression expression) throws JRExpressionEvalException
 	{
-		return evaluator.evaluate(expression);
+		if (instrumentation == null || expression == null)
+		{
+			return evaluator.evaluate(expression);
+		}
+		
+		long start = System.nanoTime();
+		Object value = evaluator.evaluate(expression);
+		instrumentation.expressionEvaluated(dataset, expression, System.nanoTime() - start);
+		return value;
 	}
 
 
@@ -0,0 +1,827 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.collections4.map.ReferenceMap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.util.LocalVirtualizationSerializer;
+import net.sf.jasperreports.engine.util.VirtualizationSerializer;
+
+
+/**
+ * Abstract base for serialization based virtualizers that are accessed concurrently
+ * by several threads, such as report fills sharing the virtualizer, exporters and viewers.
+ * <p>
+ * Unlike {@link JRAbstractLRUVirtualizer}, which keeps all its bookkeeping under the
+ * virtualizer monitor, this class keeps track of the paged in objects in separate
+ * segments for each master virtualization context.
+ * Each segment uses a clock (second chance) replacement policy: touching an object
+ * only sets a flag on the object entry, without acquiring any lock, and the flags are
+ * inspected when objects need to be evicted.
+ * A segment lock is only briefly acquired when objects are registered, paged in or evicted.
+ * <p>
+ * The maximum number of paged in objects applies to the virtualizer as a whole.
+ * When the limit is exceeded, objects are evicted from the segment of the context that
+ * caused the overflow first, and from the segments of other contexts afterwards.
+ * <p>
+ * The virtualizer collects {@link VirtualizationMetrics metrics} for each master context,
+ * which can be retrieved via {@link #getMetrics(JRVirtualizationContext)}.
+ */
+public abstract class JRConcurrentLRUVirtualizer implements JRVirtualizer
+{
+	private static final Log log = LogFactory.getLog(JRConcurrentLRUVirtualizer.class);
+
+	/**
+	 * Virtualizer bookkeeping for an object, weakly referencing the object.
+	 */
+	protected static class Entry extends WeakReference<JRVirtualizable>
+	{
+		private final String id;
+		private final Segment segment;
+		private volatile boolean referenced;
+		private volatile boolean pagedOut;
+		// the object has been registered and not accessed since
+		private volatile boolean loaded = true;
+		private boolean inClock;
+
+		protected Entry(JRVirtualizable o, ReferenceQueue<JRVirtualizable> queue, Segment segment)
+		{
+			super(o, queue);
+			this.id = o.getUID();
+			this.segment = segment;
+		}
+
+		public String getId()
+		{
+			return id;
+		}
+
+		public boolean isPagedOut()
+		{
+			return pagedOut;
+		}
+	}
+
+	/**
+	 * The paged in objects that belong to a master virtualization context.
+	 */
+	protected class Segment
+	{
+		private final ArrayDeque<Entry> clock;
+		private final Map<JRVirtualizationContext, Entry> lastEntries;
+		private volatile Entry lastTouched;
+		private final VirtualizationMetrics metrics;
+
+		protected Segment()
+		{
+			this.clock = new ArrayDeque<Entry>();
+			this.lastEntries = new WeakHashMap<JRVirtualizationContext, Entry>();
+			this.metrics = new VirtualizationMetrics();
+		}
+
+		public VirtualizationMetrics getMetrics()
+		{
+			return metrics;
+		}
+
+		protected synchronized void add(Entry entry)
+		{
+			if (!entry.inClock)
+			{
+				entry.inClock = true;
+				clock.addLast(entry);
+				pagedInCount.incrementAndGet();
+			}
+		}
+
+		protected synchronized void remove(Entry entry, JRVirtualizationContext context)
+		{
+			if (entry.inClock)
+			{
+				entry.inClock = false;
+				clock.remove(entry);
+				pagedInCount.decrementAndGet();
+			}
+
+			if (context != null && lastEntries.get(context) == entry)
+			{
+				lastEntries.remove(context);
+			}
+
+			if (lastTouched == entry)
+			{
+				lastTouched = null;
+			}
+		}
+
+		protected void setLast(JRVirtualizationContext context, Entry entry)
+		{
+			// most touches are for the object that was touched last, skipping the lock for these
+			if (lastTouched == entry)
+			{
+				return;
+			}
+
+			synchronized (this)
+			{
+				lastEntries.put(context, entry);
+				lastTouched = entry;
+			}
+		}
+
+		protected synchronized boolean isLast(JRVirtualizationContext context, Entry entry)
+		{
+			return lastEntries.get(context) == entry;
+		}
+
+		/**
+		 * Removes from the clock the objects that should be evicted.
+		 */
+		protected synchronized List<Entry> evictionCandidates(int count)
+		{
+			List<Entry> candidates = null;
+			// go around the clock at most twice, as referenced entries get a second chance
+			int remaining = 2 * clock.size();
+			while (remaining > 0 && (candidates == null || candidates.size() < count))
+			{
+				--remaining;
+				Entry entry = clock.pollFirst();
+				JRVirtualizable o = entry.get();
+				if (o == null)
+				{
+					// garbage collected
+					entry.inClock = false;
+					pagedInCount.decrementAndGet();
+					continue;
+				}
+
+				if (entry.referenced)
+				{
+					entry.referenced = false;
+					clock.addLast(entry);
+				}
+				else if (!o.getContext().isDisposed() && lastEntries.get(o.getContext()) == entry)
+				{
+					clock.addLast(entry);
+				}
+				else
+				{
+					if (log.isDebugEnabled())
+					{
+						log.debug("clock eviction candidate: " + entry.getId());
+					}
+
+					entry.inClock = false;
+					pagedInCount.decrementAndGet();
+
+					if (candidates == null)
+					{
+						candidates = new ArrayList<Entry>(count);
+					}
+					candidates.add(entry);
+				}
+			}
+			return candidates == null ? Collections.<Entry>emptyList() : candidates;
+		}
+	}
+
+	protected final VirtualizationSerializer serializer;
+
+	private final int maxSize;
+	private final AtomicInteger pagedInCount;
+	private final ConcurrentHashMap<String, Entry> entries;
+	private final ReferenceQueue<JRVirtualizable> referenceQueue;
+	private final ReferenceMap<JRVirtualizationContext, Segment> segments;
+
+	private volatile boolean readOnly;
+	private volatile WriteBehindQueue writeBehindQueue;
+
+	/**
+	 * @param maxSize
+	 *            the maximum size (in JRVirtualizable objects) of the paged in
+	 *            cache.
+	 */
+	protected JRConcurrentLRUVirtualizer(int maxSize)
+	{
+		this(new LocalVirtualizationSerializer(), maxSize);
+	}
+
+	protected JRConcurrentLRUVirtualizer(VirtualizationSerializer serializer, int maxSize)
+	{
+		this.serializer = serializer;
+		this.maxSize = maxSize;
+
+		this.pagedInCount = new AtomicInteger();
+		this.entries = new ConcurrentHashMap<String, Entry>();
+		this.referenceQueue = new ReferenceQueue<JRVirtualizable>();
+		this.segments = new ReferenceMap<JRVirtualizationContext, Segment>(
+				ReferenceMap.ReferenceStrength.WEAK, ReferenceMap.ReferenceStrength.HARD);
+	}
+
+	/**
+	 * Sets the read only mode for the virtualizer.
+	 *
+	 * @param ro the read-only mode to set
+	 * @see JRAbstractLRUVirtualizer#setReadOnly(boolean)
+	 */
+	public void setReadOnly(boolean ro)
+	{
+		this.readOnly = ro;
+	}
+
+	/**
+	 * Determines whether the virtualizer is in read-only mode.
+	 *
+	 * @return whether the virtualizer is in read-only mode
+	 * @see #setReadOnly(boolean)
+	 */
+	public boolean isReadOnly()
+	{
+		return readOnly;
+	}
+
+	protected final boolean isReadOnly(JRVirtualizable o)
+	{
+		return readOnly || o.getContext().isReadOnly();
+	}
+
+	/**
+	 * Enables or disables write-behind page-out.
+	 *
+	 * @param queueSize the maximum number of evicted objects waiting to be written,
+	 * <code>0</code> to disable write-behind
+	 * @see JRAbstractLRUVirtualizer#setWriteBehind(int)
+	 */
+	public void setWriteBehind(int queueSize)
+	{
+		WriteBehindQueue currentQueue = writeBehindQueue;
+		if (currentQueue != null)
+		{
+			currentQueue.dispose();
+		}
+
+		writeBehindQueue = queueSize <= 0 ? null : new WriteBehindQueue(queueSize, new WriteBehindQueue.Writer()
+		{
+			@Override
+			public void write(JRVirtualizable<?> o) throws IOException
+			{
+				pageOut(o);
+			}
+
+			@Override
+			public void discard(JRVirtualizable<?> o)
+			{
+				dispose(o);
+			}
+		});
+	}
+
+	/**
+	 * Returns the write-behind queue size, or <code>0</code> if write-behind is not enabled.
+	 *
+	 * @see #setWriteBehind(int)
+	 */
+	public int getWriteBehind()
+	{
+		WriteBehindQueue queue = writeBehindQueue;
+		return queue == null ? 0 : queue.getCapacity();
+	}
+
+	protected Object cancelQueuedPageOut(String id)
+	{
+		WriteBehindQueue queue = writeBehindQueue;
+		return queue == null ? null : queue.cancel(id);
+	}
+
+	protected void discardQueuedPageOuts(JRVirtualizationContext masterContext)
+	{
+		WriteBehindQueue queue = writeBehindQueue;
+		if (queue != null)
+		{
+			queue.discard(masterContext);
+		}
+	}
+
+	/**
+	 * Discards the queued writes and stops the background writer thread.
+	 *
+	 * @see JRAbstractLRUVirtualizer#disposeWriteBehind()
+	 */
+	protected void disposeWriteBehind()
+	{
+		WriteBehindQueue queue = writeBehindQueue;
+		if (queue != null)
+		{
+			setWriteBehind(queue.getCapacity());
+		}
+	}
+
+	/**
+	 * Returns the number of objects that currently have their data in memory.
+	 */
+	public int getPagedInCount()
+	{
+		return pagedInCount.get();
+	}
+
+	/**
+	 * Returns the virtualization metrics collected for a context.
+	 *
+	 * @param context the virtualization context, the metrics are collected for its master context
+	 * @return the metrics for the context, or <code>null</code> if the virtualizer was not
+	 * used for the context
+	 */
+	public VirtualizationMetrics getMetrics(JRVirtualizationContext context)
+	{
+		Segment segment = segment(context.getMasterContext(), false);
+		return segment == null ? null : segment.getMetrics();
+	}
+
+	protected Segment segment(JRVirtualizationContext masterContext, boolean create)
+	{
+		synchronized (segments)
+		{
+			Segment segment = segments.get(masterContext);
+			if (segment == null && create)
+			{
+				segment = new Segment();
+				segments.put(masterContext, segment);
+			}
+			return segment;
+		}
+	}
+
+	protected List<Segment> segments()
+	{
+		synchronized (segments)
+		{
+			return new ArrayList<Segment>(segments.values());
+		}
+	}
+
+	protected void purge()
+	{
+		Reference<? extends JRVirtualizable> ref;
+		while ((ref = referenceQueue.poll()) != null)
+		{
+			Entry entry = (Entry) ref;
+			entries.remove(entry.getId(), entry);
+			entry.segment.remove(entry, null);
+		}
+	}
+
+	@Override
+	public void registerObject(JRVirtualizable o)
+	{
+		String uid = o.getUID();
+		if (log.isDebugEnabled())
+		{
+			log.debug("registering " + uid);
+		}
+
+		purge();
+
+		JRVirtualizationContext context = o.getContext();
+		Segment segment = segment(context.getMasterContext(), true);
+		Entry entry = new Entry(o, referenceQueue, segment);
+		Entry existing = entries.putIfAbsent(uid, entry);
+		if (existing != null)
+		{
+			JRVirtualizable existingObject = existing.get();
+			if (existingObject != o)
+			{
+				throw new IllegalStateException("Wrong object stored with UID \"" + uid + "\"");
+			}
+			entry = existing;
+		}
+
+		if (!entry.pagedOut)
+		{
+			segment.add(entry);
+			segment.setLast(context, entry);
+		}
+
+		if (log.isDebugEnabled())
+		{
+			log.debug("registered object " + o + " with id " + uid);
+		}
+
+		evict(segment);
+	}
+
+	protected void evict(Segment preferred)
+	{
+		int excess = pagedInCount.get() - maxSize;
+		if (excess <= 0)
+		{
+			return;
+		}
+
+		excess -= evict(preferred, excess);
+		if (excess > 0)
+		{
+			for (Segment segment : segments())
+			{
+				if (segment != preferred)
+				{
+					excess -= evict(segment, excess);
+					if (excess <= 0)
+					{
+						break;
+					}
+				}
+			}
+
+			if (excess > 0 && log.isDebugEnabled())
+			{
+				log.debug("The virtualizer is used by more contexts than its in-memory cache size " + maxSize);
+			}
+		}
+	}
+
+	protected int evict(Segment segment, int count)
+	{
+		int evictedCount = 0;
+		List<Entry> candidates = segment.evictionCandidates(count);
+		for (Entry entry : candidates)
+		{
+			JRVirtualizable o = entry.get();
+			if (o == null)
+			{
+				continue;
+			}
+
+			JRVirtualizationContext context = o.getContext();
+			if (!context.tryLock())
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("couldn't lock for eviction " + entry.getId());
+				}
+
+				// back in the clock for the next sweep
+				segment.add(entry);
+				continue;
+			}
+
+			try
+			{
+				if (entry.pagedOut || entries.get(entry.getId()) != entry)
+				{
+					// paged out or deregistered meanwhile
+					continue;
+				}
+
+				if (context.isDisposed())
+				{
+					entries.remove(entry.getId(), entry);
+					++evictedCount;
+					continue;
+				}
+
+				if (entry.referenced || segment.isLast(context, entry))
+				{
+					if (log.isDebugEnabled())
+					{
+						log.debug("no longer evictable: " + entry.getId());
+					}
+
+					segment.add(entry);
+					continue;
+				}
+
+				if (log.isDebugEnabled())
+				{
+					log.debug("evicting " + entry.getId());
+				}
+
+				segment.getMetrics().eviction();
+				externalize(o, entry);
+				++evictedCount;
+			}
+			finally
+			{
+				context.unlock();
+			}
+		}
+		return evictedCount;
+	}
+
+	@Override
+	public void deregisterObject(JRVirtualizable o)
+	{
+		String uid = o.getUID();
+		if (log.isDebugEnabled())
+		{
+			log.debug("deregistering " + uid);
+		}
+
+		//try to remove virtual data
+		try
+		{
+			cancelQueuedPageOut(uid);
+			dispose(o);
+		}
+		catch (Exception e)
+		{
+			log.error("Error removing virtual data", e);
+			//ignore
+		}
+
+		Entry entry = entries.get(uid);
+		if (entry != null)
+		{
+			if (entry.get() != o)
+			{
+				throw new IllegalStateException("Wrong object stored with UID \"" + uid + "\"");
+			}
+
+			entries.remove(uid, entry);
+			entry.segment.remove(entry, o.getContext());
+		}
+
+		if (log.isDebugEnabled())
+		{
+			log.debug("deregistered object " + o + " with id " + uid);
+		}
+	}
+
+	@Override
+	public void touch(JRVirtualizable o)
+	{
+		Entry entry = entries.get(o.getUID());
+		if (entry != null && !entry.pagedOut)
+		{
+			touch(o, entry);
+		}
+	}
+
+	protected void touch(JRVirtualizable o, Entry entry)
+	{
+		markReferenced(o, entry);
+		
+		if (entry.loaded)
+		{
+			// the first access of a newly registered object is not a cache hit
+			entry.loaded = false;
+		}
+		else
+		{
+			entry.segment.getMetrics().hit();
+		}
+	}
+
+	protected void markReferenced(JRVirtualizable o, Entry entry)
+	{
+		if (!entry.referenced)
+		{
+			entry.referenced = true;
+		}
+		entry.segment.setLast(o.getContext(), entry);
+	}
+
+	@Override
+	public void requestData(JRVirtualizable o)
+	{
+		String uid = o.getUID();
+		Segment pagedInSegment = null;
+
+		o.getContext().lock();
+		try
+		{
+			Entry entry = entries.get(uid);
+			if (entry == null)
+			{
+				return;
+			}
+
+			if (!entry.pagedOut)
+			{
+				touch(o, entry);
+				return;
+			}
+
+			if (log.isDebugEnabled())
+			{
+				log.debug("internalizing " + uid);
+			}
+
+			Segment segment = entry.segment;
+			segment.getMetrics().miss();
+
+			// unvirtualize
+			Object queuedData = cancelQueuedPageOut(uid);
+			if (queuedData != null)
+			{
+				o.setVirtualData(queuedData);
+			}
+			else
+			{
+				try
+				{
+					pageIn(o);
+				}
+				catch (IOException e)
+				{
+					log.error("Error devirtualizing object", e);
+					throw new JRRuntimeException(e);
+				}
+
+				segment.getMetrics().pageIn();
+			}
+
+			entry.pagedOut = false;
+			// the page in has been counted as a miss
+			entry.loaded = false;
+			segment.add(entry);
+			segment.setLast(o.getContext(), entry);
+
+			o.afterInternalization();
+
+			pagedInSegment = segment;
+		}
+		finally
+		{
+			o.getContext().unlock();
+		}
+
+		if (pagedInSegment != null)
+		{
+			evict(pagedInSegment);
+		}
+	}
+
+	@Override
+	public void clearData(JRVirtualizable o)
+	{
+		String uid = o.getUID();
+		Entry entry = entries.get(uid);
+		if (entry == null)
+		{
+			return;
+		}
+
+		if (entry.pagedOut)
+		{
+			// remove virtual data
+			cancelQueuedPageOut(uid);
+			dispose(uid);
+			entries.remove(uid, entry);
+		}
+		else
+		{
+			markReferenced(o, entry);
+		}
+	}
+
+	@Override
+	public void virtualizeData(JRVirtualizable o)
+	{
+		String uid = o.getUID();
+		Entry entry = entries.get(uid);
+		if (entry == null)
+		{
+			Segment segment = segment(o.getContext().getMasterContext(), true);
+			entry = new Entry(o, referenceQueue, segment);
+			Entry existing = entries.putIfAbsent(uid, entry);
+			if (existing != null)
+			{
+				entry = existing;
+			}
+		}
+
+		if (!entry.pagedOut)
+		{
+			entry.segment.remove(entry, o.getContext());
+			externalize(o, entry);
+		}
+	}
+
+	protected void externalize(JRVirtualizable o, Entry entry)
+	{
+		if (log.isDebugEnabled())
+		{
+			log.debug("externalizing " + entry.getId());
+		}
+
+		o.beforeExternalization();
+
+		WriteBehindQueue queue = writeBehindQueue;
+		if (queue == null)
+		{
+			// virtualize
+			try
+			{
+				pageOut(o);
+			}
+			catch (IOException e)
+			{
+				log.error("Error virtualizing object", e);
+				throw new JRRuntimeException(e);
+			}
+		}
+		else
+		{
+			// the queue keeps the virtual data until it gets written
+			queue.enqueue(o);
+		}
+
+		o.afterExternalization();
+
+		// Wait until we know it worked before tossing the data.
+		o.removeVirtualData();
+
+		entry.referenced = false;
+		entry.pagedOut = true;
+		entry.segment.getMetrics().pageOut();
+	}
+
+	@Override
+	protected void finalize() throws Throwable //NOSONAR
+	{
+		cleanup();
+
+		super.finalize();
+	}
+
+	/**
+	 * Discards the bookkeeping of all objects and the read only flag.
+	 */
+	protected void reset()
+	{
+		readOnly = false;
+		entries.clear();
+		synchronized (segments)
+		{
+			segments.clear();
+		}
+		pagedInCount.set(0);
+	}
+
+	/**
+	 * Writes a virtualizable object's data to an external storage.
+	 *
+	 * @param o a virtualizable object
+	 * @throws IOException
+	 */
+	protected abstract void pageOut(JRVirtualizable o) throws IOException;
+
+	/**
+	 * Reads a virtualizable object's data from an external storage.
+	 *
+	 * @param o a virtualizable object
+	 * @throws IOException
+	 */
+	protected abstract void pageIn(JRVirtualizable o) throws IOException;
+
+	protected void dispose(JRVirtualizable o)
+	{
+		dispose(o.getUID());
+	}
+
+	/**
+	 * Removes the external data associated with a virtualizable object.
+	 *
+	 * @param virtualId the ID of the virtualizable object
+	 */
+	protected abstract void dispose(String virtualId);
+}
@@ -213,6 +213,7 @@ public class JRFileVirtualizer extends JRAbstractLRUVirtualizer {
 	@Override
 	public synchronized void cleanup()
 	{
+		disposeWriteBehind();
 		disposeAll();
 		reset();
 	}
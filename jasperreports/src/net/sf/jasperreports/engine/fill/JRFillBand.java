@@ -436,6 +436,29 @@ public class JRFillBand extends JRFillElementContainer implements JRBand, JROrig
 		int availableHeight,
 		boolean isOverflowAllowed
 		) throws JRException
+	{
+		FillInstrumentation instrumentation = filler.instrumentation;
+		if (instrumentation == null)
+		{
+			return fillBand(availableHeight, isOverflowAllowed);
+		}
+		
+		long start = System.nanoTime();
+		try
+		{
+			return fillBand(availableHeight, isOverflowAllowed);
+		}
+		finally
+		{
+			instrumentation.bandFilled(this, System.nanoTime() - start);
+		}
+	}
+
+
+	private JRPrintBand fillBand(
+		int availableHeight,
+		boolean isOverflowAllowed
+		) throws JRException
 	{
 		filler.checkInterrupted();
 
@@ -25,9 +25,11 @@ package net.sf.jasperreports.engine.fill;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -79,6 +81,7 @@ public class JRFillContext
 	private DeduplicableRegistry deduplicableRegistry;
 	private boolean usingVirtualizer;
 	private JRPrintPage printPage;
+	private final Set<JRQueryExecuter> runningQueryExecuters = new LinkedHashSet<>();
 	private JRQueryExecuter queryExecuter;
 	
 	private JasperReportsContext jasperReportsContext;
@@ -97,6 +100,8 @@ public class JRFillContext
 	
 	private volatile boolean canceled;
 	
+	private final FillInstrumentation instrumentation;
+	
 	private final AtomicInteger fillerIdSeq = new AtomicInteger();
 	private final AtomicInteger fillElementSeq = new AtomicInteger();
 	
@@ -139,12 +144,39 @@ public class JRFillContext
 			JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(
 				JRCalculator.PROPERTY_LEGACY_BAND_EVALUATION_ENABLED
 				);
+		
+		instrumentation = createInstrumentation(masterFiller.getJasperReport());
+	}
+
+	private FillInstrumentation createInstrumentation(JasperReport jasperReport)
+	{
+		FillInstrumentation fillInstrumentation = null;
+		List<FillInstrumentationFactory> factories = jasperReportsContext.getExtensions(
+				FillInstrumentationFactory.class);
+		for (FillInstrumentationFactory factory : factories)
+		{
+			FillInstrumentation factoryInstrumentation = factory.createInstrumentation(
+					jasperReportsContext, jasperReport);
+			fillInstrumentation = CompositeFillInstrumentation.add(fillInstrumentation, factoryInstrumentation);
+		}
+		return fillInstrumentation;
 	}
 
 	public BaseReportFiller getMasterFiller()
 	{
 		return masterFiller;
 	}
+
+	/**
+	 * Returns the instrumentation object used for the report fill.
+	 * 
+	 * @return the instrumentation object, <code>null</code> if the fill is not instrumented
+	 * @see FillInstrumentationFactory
+	 */
+	public FillInstrumentation getInstrumentation()
+	{
+		return instrumentation;
+	}
 	
 	protected JRStyledTextUtil getStyledTextUtil()
 	{
@@ -333,44 +365,78 @@ public class JRFillContext
 	
 	
 	/**
-	 * Sets the running query executer.
+	 * Registers a running query executer.
 	 * <p>
 	 * This method is called before firing the query.
+	 * Several query executers can be running at the same time, for instance
+	 * when a subdataset query is fired while the main dataset rows are still
+	 * being prefetched.
 	 * 
 	 * @param queryExecuter the running query executer
 	 */
 	public synchronized void setRunningQueryExecuter(JRQueryExecuter queryExecuter)
 	{
+		runningQueryExecuters.add(queryExecuter);
 		this.queryExecuter = queryExecuter;
 	}
 	
 	
 	/**
-	 * Clears the running query executer.
+	 * Clears the running query executer, that is the query executer that has been set last.
 	 * <p>
-	 * This method is called after the query has ended.
+	 * The other running query executers are not affected.
 	 *
+	 * @deprecated Replaced by {@link #clearRunningQueryExecuter(JRQueryExecuter)}.
 	 */
+	@Deprecated
 	public synchronized void clearRunningQueryExecuter()
 	{
-		this.queryExecuter = null;
+		if (queryExecuter != null)
+		{
+			runningQueryExecuters.remove(queryExecuter);
+			queryExecuter = null;
+		}
+	}
+	
+	
+	/**
+	 * Unregisters a running query executer.
+	 * <p>
+	 * This method is called after the query has ended.
+	 * 
+	 * @param queryExecuter the query executer
+	 */
+	public synchronized void clearRunningQueryExecuter(JRQueryExecuter queryExecuter)
+	{
+		runningQueryExecuters.remove(queryExecuter);
+		if (this.queryExecuter == queryExecuter)
+		{
+			this.queryExecuter = null;
+		}
 	}
 	
 	
 	/**
-	 * Cancels the running query.
+	 * Cancels the running queries.
 	 * 
 	 * @return <code>true</code> if and only if there is a running query and it has been canceled.
 	 * @throws JRException
 	 */
-	public synchronized boolean cancelRunningQuery() throws JRException
+	public boolean cancelRunningQuery() throws JRException
 	{
-		if (queryExecuter != null)
+		List<JRQueryExecuter> queryExecuters;
+		synchronized (this)
 		{
-			return queryExecuter.cancelQuery();
+			queryExecuters = new ArrayList<>(runningQueryExecuters);
 		}
 		
-		return false;
+		// canceling outside the lock so that query executers can unregister meanwhile
+		boolean canceled = false;
+		for (JRQueryExecuter queryExecuter : queryExecuters)
+		{
+			canceled |= queryExecuter.cancelQuery();
+		}
+		return canceled;
 	}
 	
 	
@@ -73,6 +73,7 @@ import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.ParameterContributor;
 import net.sf.jasperreports.engine.ParameterContributorContext;
 import net.sf.jasperreports.engine.ParameterContributorFactory;
+import net.sf.jasperreports.engine.PrefetchResultSetDataSource;
 import net.sf.jasperreports.engine.data.IndexedDataSource;
 import net.sf.jasperreports.engine.design.JRDesignVariable;
 import net.sf.jasperreports.engine.query.JRQueryExecuter;
@@ -113,6 +114,8 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 	 */
 	private final BaseReportFiller filler;
 	
+	private final FillInstrumentation instrumentation;
+	
 	/**
 	 *
 	 */
@@ -282,6 +285,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		factory.put(dataset, this);
 		
 		this.filler = filler;
+		this.instrumentation = filler == null ? null : filler.instrumentation;
 		this.propertiesUtil = filler == null ? JRPropertiesUtil.getInstance(DefaultJasperReportsContext.getInstance()) 
 				: filler.getPropertiesUtil();
 		this.parent = dataset;
@@ -1164,6 +1168,11 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		}
 	}
 	
+	protected FillInstrumentation getInstrumentation()
+	{
+		return instrumentation;
+	}
+	
 	protected JasperReportsContext getJasperReportsContext()
 	{
 		return filler == null
@@ -1241,6 +1250,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 			return null;
 		}
 
+		boolean runningQuery = false;
 		try
 		{
 			if (log.isDebugEnabled())
@@ -1248,17 +1258,30 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 				log.debug("Fill " + filler.fillerId + ": Creating " + query.getLanguage() + " query executer");
 			}
 			
+			long queryStart = instrumentation == null ? 0 : System.nanoTime();
+			
 			QueryExecuterFactory queryExecuterFactory = JRQueryExecuterUtils.getInstance(getJasperReportsContext()).getExecuterFactory(query.getLanguage());
 			SimpleQueryExecutionContext queryExecutionContext = SimpleQueryExecutionContext.of(
 					getJasperReportsContext(), getRepositoryContext());
 			queryExecuter = queryExecuterFactory.createQueryExecuter(queryExecutionContext, this, parametersMap);
 			filler.fillContext.setRunningQueryExecuter(queryExecuter);
 			
-			return queryExecuter.createDatasource();
+			JRDataSource queryDataSource = queryExecuter.createDatasource();
+			if (instrumentation != null)
+			{
+				instrumentation.queryExecuted(this, System.nanoTime() - queryStart);
+			}
+			
+			// rows read in the background can be canceled until the query executer is closed
+			runningQuery = queryDataSource instanceof PrefetchResultSetDataSource;
+			return queryDataSource;
 		}
 		finally
 		{
-			filler.fillContext.clearRunningQueryExecuter();
+			if (!runningQuery)
+			{
+				filler.fillContext.clearRunningQueryExecuter(queryExecuter);
+			}
 		}
 	}
 
@@ -1331,6 +1354,7 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 				log.debug("Fill " + filler.fillerId + ": closing query executer");
 			}
 
+			filler.fillContext.clearRunningQueryExecuter(queryExecuter);
 			queryExecuter.close();
 			queryExecuter = null;
 		}
@@ -1551,9 +1575,15 @@ public class JRFillDataset implements JRDataset, DatasetFillContext
 		{
 			hasNext = false;
 		}
+		else if (instrumentation == null)
+		{
+			hasNext = dataSource.next();
+		}
 		else
 		{
+			long start = System.nanoTime();
 			hasNext = dataSource.next();
+			instrumentation.recordRead(this, hasNext, System.nanoTime() - start);
 		}
 		return hasNext;
 	}
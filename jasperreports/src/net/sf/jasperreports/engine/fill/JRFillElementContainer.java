@@ -376,11 +376,21 @@ public abstract class JRFillElementContainer extends JRFillElementGroup implemen
 			JRElement[] allElements = getElements();
 			if (allElements != null && allElements.length > 0)
 			{
+				FillInstrumentation instrumentation = filler.instrumentation;
 				for(int i = 0; i < allElements.length; i++)
 				{
 					JRFillElement element = (JRFillElement)allElements[i];
 					element.setCurrentEvaluation(evaluation);
-					element.evaluate(evaluation);
+					if (instrumentation == null)
+					{
+						element.evaluate(evaluation);
+					}
+					else
+					{
+						long start = System.nanoTime();
+						element.evaluate(evaluation);
+						instrumentation.elementEvaluated(element, System.nanoTime() - start);
+					}
 				}
 			}
 		//}
@@ -153,6 +153,11 @@ public final class JRFiller
 		JRDataSource dataSource
 		) throws JRException
 	{
+		if (ParallelReportFiller.isParallelFill(jasperReportsContext, reportSource.getReport()))
+		{
+			return fillParallel(jasperReportsContext, reportSource, parameters, dataSource);
+		}
+		
 		ReportFiller filler = createReportFiller(jasperReportsContext, reportSource);
 		
 		JasperPrint jasperPrint = null;
@@ -207,6 +212,11 @@ public final class JRFiller
 			Map<String,Object> parameters
 			) throws JRException
 	{
+		if (ParallelReportFiller.isParallelFill(jasperReportsContext, reportSource.getReport()))
+		{
+			return fillParallel(jasperReportsContext, reportSource, parameters, null);
+		}
+		
 		ReportFiller filler = createReportFiller(jasperReportsContext, reportSource);
 
 		try
@@ -226,6 +236,37 @@ public final class JRFiller
 	}
 
 
+	/**
+	 * Fills a report in several partitions filled concurrently.
+	 * 
+	 * @see ParallelReportFiller
+	 */
+	protected static JasperPrint fillParallel(
+		JasperReportsContext jasperReportsContext,
+		JasperReportSource reportSource,
+		Map<String,Object> parameters,
+		JRDataSource dataSource
+		) throws JRException
+	{
+		ParallelReportFiller filler = new ParallelReportFiller(jasperReportsContext, reportSource);
+		
+		try
+		{
+			return dataSource == null 
+				? filler.fill(parameters) 
+				: filler.fill(parameters, dataSource);
+		}
+		catch (JRFillInterruptedException e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_THREAD_INTERRUPTED,
+					null,
+					e);
+		}
+	}
+
+
 	/**
 	 *
 	 */
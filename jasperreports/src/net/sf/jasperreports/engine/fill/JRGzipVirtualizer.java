@@ -126,6 +126,7 @@ public class JRGzipVirtualizer extends JRAbstractLRUVirtualizer
 	@Override
 	public void cleanup()
 	{
+		disposeWriteBehind();
 		zippedData.clear();
 		reset();
 	}
@@ -1216,6 +1216,8 @@ public class JRHorizontalFiller extends JRBaseFiller
 	@continuable
 	private void fillSummary() throws JRException
 	{
+		reportDataEnded();
+
 		if (log.isDebugEnabled() && !summary.isEmpty())
 		{
 			log.debug("Fill " + fillerId + ": summary at " + offsetY);
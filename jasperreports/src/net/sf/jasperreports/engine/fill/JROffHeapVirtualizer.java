@@ -0,0 +1,64 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import net.sf.jasperreports.engine.util.OffHeapVirtualizerStore;
+import net.sf.jasperreports.engine.util.StreamCompression;
+
+
+/**
+ * A virtualizer that keeps serialized virtual data in direct memory, outside the Java heap,
+ * and spills data to a swap file when a memory budget is exceeded.
+ *
+ * @see OffHeapVirtualizerStore
+ */
+public class JROffHeapVirtualizer extends StoreVirtualizer
+{
+
+	/**
+	 * Creates an off-heap virtualizer that spills data to a swap file in the
+	 * temporary files directory.
+	 *
+	 * @param maxSize the maximum size (in JRVirtualizable objects) of the paged in cache.
+	 * @param maxMemorySize the maximum number of bytes of direct memory used for virtual data
+	 */
+	public JROffHeapVirtualizer(int maxSize, long maxMemorySize)
+	{
+		this(maxSize, maxMemorySize, System.getProperty("java.io.tmpdir"), null);
+	}
+
+	/**
+	 * Creates an off-heap virtualizer.
+	 *
+	 * @param maxSize the maximum size (in JRVirtualizable objects) of the paged in cache.
+	 * @param maxMemorySize the maximum number of bytes of direct memory used for virtual data
+	 * @param swapDirectory the directory in which the swap file is created when the memory budget is exceeded
+	 * @param compression stream compression to apply to serialized data
+	 */
+	public JROffHeapVirtualizer(int maxSize, long maxMemorySize, String swapDirectory,
+			StreamCompression compression)
+	{
+		super(maxSize, new OffHeapVirtualizerStore(maxMemorySize, swapDirectory, compression));
+	}
+}
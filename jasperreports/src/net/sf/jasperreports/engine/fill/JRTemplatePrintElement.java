@@ -368,6 +368,17 @@ public class JRTemplatePrintElement implements JRPrintElement, Serializable, Vir
 	{
 		this.sourceElementId = sourceElementId;
 	}
+
+	/**
+	 * Sets the print Id for this element.
+	 * 
+	 * @param printElementId the print Id
+	 * @see #getPrintElementId()
+	 */
+	public void setPrintElementId(int printElementId)
+	{
+		this.printElementId = printElementId;
+	}
 	
 	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
 	{
@@ -1171,6 +1171,8 @@ public class JRVerticalFiller extends JRBaseFiller
 	@continuable
 	private void fillSummary() throws JRException
 	{
+		reportDataEnded();
+
 		if (log.isDebugEnabled() && !summary.isEmpty())
 		{
 			log.debug("Fill " + fillerId + ": summary at " + offsetY);
@@ -26,6 +26,7 @@ package net.sf.jasperreports.engine.fill;
 import java.io.IOException;
 import java.io.ObjectInputStream.GetField;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +38,8 @@ import org.apache.commons.collections4.map.ReferenceMap;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
 import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRPrintElement;
@@ -53,6 +56,7 @@ import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
 import net.sf.jasperreports.engine.base.VirtualElementsData;
 import net.sf.jasperreports.engine.util.DeepPrintElementVisitor;
 import net.sf.jasperreports.engine.util.UniformPrintElementVisitor;
+import net.sf.jasperreports.properties.PropertyConstants;
 import net.sf.jasperreports.renderers.Renderable;
 
 /**
@@ -68,6 +72,32 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 	public static final String EXCEPTION_MESSAGE_KEY_RENDERER_NOT_FOUND_IN_CONTEXT = "fill.virtualizer.renderer.not.found.in.context";
 	public static final String EXCEPTION_MESSAGE_KEY_TEMPLATE_NOT_FOUND_IN_CONTEXT = "fill.virtualizer.template.not.found.in.context";
 	
+	/**
+	 * Property that specifies the number of pages that are paged in by a background thread
+	 * ahead of sequential page accesses, as performed by exporters.
+	 * 
+	 * <p>
+	 * The read-ahead starts after two pages of a report have been accessed in order, and
+	 * is stopped by a non sequential page access.
+	 * The number of pages read ahead should be lower than the size of the virtualizer
+	 * in-memory cache.
+	 * 
+	 * <p>
+	 * If set to 0 or negative, no pages are read ahead.
+	 * The default value is 0.
+	 * 
+	 * @see PageReadAhead
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_READ_AHEAD_PAGES = 
+			JRPropertiesUtil.PROPERTY_PREFIX + "virtualizer.read.ahead.pages";
+
 	private static final Log log = LogFactory.getLog(JRVirtualizationContext.class);
 	
 	private static final ReferenceMap<JasperPrint, JRVirtualizationContext> contexts = 
@@ -93,6 +123,11 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 	
 	private transient ReentrantLock lock;
 	
+	private transient int readAheadPages;
+	private transient volatile WeakReference<JasperPrint> printReference;
+	private transient volatile PageReadAhead readAhead;
+	private transient volatile boolean fillFinished;
+	
 	/**
 	 * Constructs a context.
 	 */
@@ -106,6 +141,7 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		pageElementSize = JRPropertiesUtil.getInstance(jasperReportsContext).getIntegerProperty(JRVirtualPrintPage.PROPERTY_VIRTUAL_PAGE_ELEMENT_SIZE, 0);
 		
 		initLock();
+		initReadAhead();
 	}
 
 	protected JRVirtualizationContext(JRVirtualizationContext parentContext)
@@ -119,6 +155,7 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		this.cachedTemplates = parentContext.cachedTemplates;
 
 		this.pageElementSize = parentContext.pageElementSize;
+		this.readAheadPages = parentContext.readAheadPages;
 		
 		// always locking the master context
 		this.lock = parentContext.lock;
@@ -129,6 +166,11 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		lock = new ReentrantLock(true);
 	}
 	
+	private void initReadAhead()
+	{
+		readAheadPages = JRPropertiesUtil.getInstance(jasperReportsContext).getIntegerProperty(PROPERTY_READ_AHEAD_PAGES, 0);
+	}
+	
 	/**
 	 * Adds a virtualization listener.
 	 * 
@@ -315,6 +357,9 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		{
 			contexts.put(print, context);
 		}
+		
+		// weak reference because the registered contexts are strongly referenced values of a map with weak print keys
+		context.printReference = new WeakReference<JasperPrint>(print);
 	}
 
 	
@@ -359,6 +404,96 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		this.pageElementSize = pageElementSize;
 	}
 
+	/**
+	 * Returns the number of pages that are paged in ahead of sequential page accesses.
+	 * 
+	 * @see #setReadAheadPages(int)
+	 */
+	public int getReadAheadPages()
+	{
+		return readAheadPages;
+	}
+
+	/**
+	 * Sets the number of pages that are paged in ahead of sequential page accesses.
+	 * <p>
+	 * Read-ahead only applies to the pages of the print object with which this context
+	 * has been {@link #register(JRVirtualizationContext, JasperPrint) registered}.
+	 * 
+	 * @param readAheadPages the number of pages to read ahead, 0 or negative to disable the read-ahead
+	 * @see #PROPERTY_READ_AHEAD_PAGES
+	 */
+	public void setReadAheadPages(int readAheadPages)
+	{
+		PageReadAhead currentReadAhead;
+		synchronized (this)
+		{
+			this.readAheadPages = readAheadPages;
+			
+			currentReadAhead = readAhead;
+			readAhead = null;
+		}
+		
+		if (currentReadAhead != null)
+		{
+			currentReadAhead.dispose();
+		}
+	}
+
+	/**
+	 * Marks the end of the fill that produced the pages of this context.
+	 * <p>
+	 * Pages are only read ahead after the fill has finished or after the context
+	 * has been marked as {@link #setReadOnly(boolean) read-only}, because the fill
+	 * adds pages to the print object while they are accessed.
+	 */
+	public void fillFinished()
+	{
+		fillFinished = true;
+	}
+
+	/**
+	 * Notifies this context that a page has been accessed so that the next pages can be read ahead.
+	 * <p>
+	 * The accesses are ignored while the report is being filled.
+	 * 
+	 * @param page the accessed page
+	 * @see #setReadAheadPages(int)
+	 * @see #fillFinished()
+	 */
+	public void pageAccessed(JRVirtualPrintPage page)
+	{
+		if (readAheadPages <= 0 || printReference == null || disposed
+				|| !(fillFinished || readOnly))
+		{
+			return;
+		}
+		
+		JasperPrint print = printReference.get();
+		if (print == null)
+		{
+			return;
+		}
+		
+		PageReadAhead pageReadAhead = readAhead;
+		if (pageReadAhead == null)
+		{
+			synchronized (this)
+			{
+				if (readAhead == null && readAheadPages > 0)
+				{
+					readAhead = new PageReadAhead(this, readAheadPages);
+				}
+				pageReadAhead = readAhead;
+			}
+		}
+		
+		if (pageReadAhead != null)
+		{
+			pageReadAhead.pageAccessed(print.getPages(), page);
+		}
+	}
+
 	/**
 	 * Returns the virtualizer used by this context.
 	 */
@@ -388,6 +523,10 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 		setThreadVirtualizer();
 		
 		initLock();
+		initReadAhead();
+		
+		// serialized contexts belong to complete reports
+		fillFinished = true;
 	}
 
 	private void setThreadVirtualizer()
@@ -566,6 +705,12 @@ public class JRVirtualizationContext implements Serializable, VirtualizationList
 	public void dispose()
 	{
 		disposed = true;
+		
+		PageReadAhead pageReadAhead = readAhead;
+		if (pageReadAhead != null)
+		{
+			pageReadAhead.dispose();
+		}
 	}
 	
 	/**
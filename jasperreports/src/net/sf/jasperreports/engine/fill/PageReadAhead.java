@@ -0,0 +1,288 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
+
+/**
+ * Loads the data of virtualized pages ahead of sequential page accesses.
+ * <p>
+ * When pages of a virtualized report are accessed in order, as exporters do, the data
+ * of the next pages is paged in by a background thread while the current page is processed,
+ * so that the page accesses do not have to wait for the external storage.
+ * Non sequential page accesses stop the read-ahead until a new sequence of accesses is detected.
+ * <p>
+ * The read-ahead works on a snapshot of the report pages, which is taken again when the number
+ * of pages changes. The pages are only read ahead once the report is complete,
+ * see {@link JRVirtualizationContext#pageAccessed(JRVirtualPrintPage)}.
+ * <p>
+ * The number of pages read ahead should be lower than the size of the virtualizer
+ * in-memory cache, otherwise the pages would be evicted before being accessed.
+ *
+ * @see JRVirtualizationContext#setReadAheadPages(int)
+ */
+public class PageReadAhead
+{
+	private static final Log log = LogFactory.getLog(PageReadAhead.class);
+
+	/**
+	 * The number of consecutive page accesses after which the read-ahead starts.
+	 */
+	protected static final int SEQUENTIAL_ACCESS_THRESHOLD = 2;
+
+	private static final AtomicInteger readAheadCounter = new AtomicInteger();
+
+	private final JRVirtualizationContext context;
+	private final int pageCount;
+	private final ThreadPoolExecutor executor;
+
+	private List<JRPrintPage> sourcePages;
+	private List<JRPrintPage> pages;
+	private Map<JRPrintPage, Integer> pageIndexes;
+	private int lastIndex = -1;
+	private int sequentialCount;
+	private int nextIndex;
+	private int targetIndex = -1;
+	private boolean running;
+
+	private final AtomicInteger readCount = new AtomicInteger();
+
+	/**
+	 * Creates a page read-ahead for a virtualization context.
+	 *
+	 * @param context the virtualization context of the pages
+	 * @param pageCount the number of pages to read ahead of the accessed page
+	 */
+	public PageReadAhead(JRVirtualizationContext context, int pageCount)
+	{
+		this.context = context;
+		this.pageCount = pageCount;
+
+		this.executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ReadAheadThreadFactory());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Returns the number of pages read ahead of the accessed page.
+	 */
+	public int getPageCount()
+	{
+		return pageCount;
+	}
+
+	/**
+	 * Returns the number of pages that have been read ahead so far.
+	 */
+	public int getReadCount()
+	{
+		return readCount.get();
+	}
+
+	/**
+	 * Records the access of a page and schedules the read of the next pages if the
+	 * page has been accessed after the previous one.
+	 *
+	 * @param pageList the pages of the report
+	 * @param page the accessed page
+	 */
+	public synchronized void pageAccessed(List<JRPrintPage> pageList, JRVirtualPrintPage page)
+	{
+		if (sourcePages != pageList || pages.size() != pageList.size())
+		{
+			snapshot(pageList);
+			reset();
+		}
+
+		int size = pages.size();
+		if (lastIndex >= 0 && lastIndex < size && pages.get(lastIndex) == page)
+		{
+			// the same page accessed again
+			return;
+		}
+
+		int index;
+		if (lastIndex + 1 < size && pages.get(lastIndex + 1) == page)
+		{
+			index = lastIndex + 1;
+			++sequentialCount;
+		}
+		else
+		{
+			index = indexOf(page);
+			if (index < 0)
+			{
+				// not a page of the report
+				return;
+			}
+
+			// stopping the current read-ahead
+			sequentialCount = 1;
+			targetIndex = index;
+			nextIndex = index + 1;
+		}
+		lastIndex = index;
+
+		if (sequentialCount >= SEQUENTIAL_ACCESS_THRESHOLD)
+		{
+			targetIndex = Math.min(index + pageCount, size - 1);
+			if (nextIndex <= index)
+			{
+				// the pages have been accessed faster than they were read
+				nextIndex = index + 1;
+			}
+
+			if (!running && nextIndex <= targetIndex && !executor.isShutdown())
+			{
+				running = true;
+				try
+				{
+					executor.execute(new ReadTask());
+				}
+				catch (RejectedExecutionException e)
+				{
+					// disposed in the meantime
+					running = false;
+				}
+			}
+		}
+	}
+
+	protected void snapshot(List<JRPrintPage> pageList)
+	{
+		sourcePages = pageList;
+		pages = new ArrayList<JRPrintPage>(pageList);
+		
+		pageIndexes = new IdentityHashMap<JRPrintPage, Integer>(pages.size() * 4 / 3 + 1);
+		for (int i = 0; i < pages.size(); i++)
+		{
+			pageIndexes.put(pages.get(i), i);
+		}
+	}
+
+	protected void reset()
+	{
+		lastIndex = -1;
+		sequentialCount = 0;
+		nextIndex = 0;
+		targetIndex = -1;
+	}
+
+	protected int indexOf(JRVirtualPrintPage page)
+	{
+		Integer index = pageIndexes.get(page);
+		return index == null ? -1 : index;
+	}
+
+	protected synchronized JRVirtualPrintPage nextPage()
+	{
+		while (!context.isDisposed() && nextIndex <= targetIndex && nextIndex < pages.size())
+		{
+			JRPrintPage page = pages.get(nextIndex);
+			++nextIndex;
+			if (page instanceof JRVirtualPrintPage)
+			{
+				return (JRVirtualPrintPage) page;
+			}
+		}
+
+		running = false;
+		return null;
+	}
+
+	protected void readPage(JRVirtualPrintPage page)
+	{
+		try
+		{
+			page.ensureVirtualData();
+			readCount.incrementAndGet();
+		}
+		catch (Exception e)
+		{
+			// the page is also going to be read when accessed, the error would be raised then
+			if (log.isDebugEnabled())
+			{
+				log.debug("error reading ahead page " + page, e);
+			}
+		}
+	}
+
+	/**
+	 * Stops the background thread.
+	 */
+	public void dispose()
+	{
+		executor.shutdown();
+	}
+
+	protected class ReadTask implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			JRVirtualPrintPage page;
+			while ((page = nextPage()) != null)
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("reading ahead page " + page);
+				}
+
+				readPage(page);
+			}
+		}
+	}
+
+	protected static class ReadAheadThreadFactory implements ThreadFactory
+	{
+		private final int readAheadIndex = readAheadCounter.incrementAndGet();
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, "JasperReports virtualizer read-ahead #" + readAheadIndex);
+			thread.setDaemon(true);
+			if (log.isDebugEnabled())
+			{
+				log.debug("created thread " + thread);
+			}
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,1408 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.BookmarkHelper;
+import net.sf.jasperreports.engine.JRBand;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRElement;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRExpressionChunk;
+import net.sf.jasperreports.engine.JRExpressionCollector;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRGroup;
+import net.sf.jasperreports.engine.JRImage;
+import net.sf.jasperreports.engine.JROrigin;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JRScriptlet;
+import net.sf.jasperreports.engine.JRStyle;
+import net.sf.jasperreports.engine.JRTextField;
+import net.sf.jasperreports.engine.JRVariable;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.PrintPart;
+import net.sf.jasperreports.engine.base.JRBasePrintElement;
+import net.sf.jasperreports.engine.data.ListOfArrayDataSource;
+import net.sf.jasperreports.engine.type.CalculationEnum;
+import net.sf.jasperreports.engine.type.EvaluationTimeEnum;
+import net.sf.jasperreports.engine.type.PrintOrderEnum;
+import net.sf.jasperreports.engine.type.ResetTypeEnum;
+import net.sf.jasperreports.engine.type.SectionTypeEnum;
+import net.sf.jasperreports.engine.util.JRElementsVisitor;
+import net.sf.jasperreports.engine.util.JRVisitorSupport;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+
+/**
+ * Fills a report by splitting its data at top level group boundaries and filling
+ * the resulting partitions concurrently, each with its own {@link JRVerticalFiller}.
+ *
+ * <p>
+ * The pages produced for each partition are appended in order to a single document.
+ * The title is only printed by the first partition, and the summary and last page footer
+ * only by the last one.
+ * Report level variables are merged across partitions before the summary is filled and before elements with
+ * <code>evaluationTime="Report"</code> and <code>evaluationTime="Master"</code> are resolved,
+ * using the regular delayed evaluation mechanism of each partition filler.
+ * Print element Ids are shifted when merging the partitions, so that the document is the same as
+ * the one produced by a sequential fill.
+ * </p>
+ *
+ * <p>
+ * Parallel filling only applies to band reports with vertical print order, filled from a data source,
+ * whose first group expression is a plain field reference and whose report level variables use
+ * calculations that can be merged (<code>Count</code>, <code>Sum</code>, <code>Average</code>,
+ * <code>Lowest</code>, <code>Highest</code>, <code>First</code>, <code>Nothing</code> and <code>System</code>).
+ * <code>Sum</code> and <code>Average</code> variables of floating point types are not merged,
+ * since adding the partition sums would change the order of the additions and thus the result.
+ * Since each partition starts on a new page, the first group needs to start a new page and no group
+ * can reset the page number, so that the pages are the same as with a sequential fill.
+ * Reports that use the <code>PAGE_NUMBER</code> or <code>PAGE_COUNT</code> variables other than in elements
+ * evaluated at <code>Report</code>, <code>Master</code> or <code>Auto</code> time, and reports that use the
+ * {@link JRParameter#REPORT_DATA_SOURCE REPORT_DATA_SOURCE} parameter in expressions (e.g. to create
+ * subreport data sources) are not filled in parallel either.
+ * Reports that declare scriptlets are filled sequentially unless {@link #PROPERTY_PARALLEL_FILL_SCRIPTLETS}
+ * is set, because scriptlets usually keep state across the records of the report.
+ * Report level variables can only be used by elements evaluated after the partitions are merged,
+ * and by text fields and images placed in the summary or last page footer.
+ * Reports that do not meet these conditions are filled sequentially.
+ * </p>
+ *
+ * @see #PROPERTY_PARALLEL_FILL
+ */
+public class ParallelReportFiller
+{
+	private static final Log log = LogFactory.getLog(ParallelReportFiller.class);
+
+	public static final String EXCEPTION_MESSAGE_KEY_PARTITION_FAILED = "fill.parallel.partition.failed";
+
+	/**
+	 * Property that enables parallel filling of reports at top level group boundaries.
+	 *
+	 * @see ParallelReportFiller
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_PARALLEL_FILL = JRPropertiesUtil.PROPERTY_PREFIX + "fill.parallel";
+
+	/**
+	 * Property that specifies the maximum number of partitions filled concurrently when
+	 * {@link #PROPERTY_PARALLEL_FILL parallel filling} is enabled.
+	 * By default, the number of available processors is used.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "number of available processors",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_PARALLEL_FILL_PARTITIONS = PROPERTY_PARALLEL_FILL + ".partitions";
+
+	/**
+	 * Property that specifies the minimum number of data source records in a partition when
+	 * {@link #PROPERTY_PARALLEL_FILL parallel filling} is enabled.
+	 * Reports with less records than twice this value are filled sequentially.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = "1000",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_PARALLEL_FILL_MIN_PARTITION_SIZE = PROPERTY_PARALLEL_FILL + ".min.partition.size";
+
+	/**
+	 * Property that allows reports with scriptlets to be filled in parallel.
+	 * <p>
+	 * Each partition creates its own scriptlet instances, which only see the records of
+	 * the partition. The property should only be set for scriptlets that do not depend on
+	 * the records processed before the current one or on the page numbers, and that can be
+	 * used concurrently by several fills.
+	 * The {@link JRParameter#REPORT_SCRIPTLET REPORT_SCRIPTLET} parameter always disables
+	 * the parallel fill, since the scriptlet instance would be shared by the partitions.
+	 * </p>
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_PARALLEL_FILL_SCRIPTLETS = PROPERTY_PARALLEL_FILL + ".scriptlets";
+
+	private static final int DEFAULT_MIN_PARTITION_SIZE = 1000;
+
+	private final JasperReportsContext jasperReportsContext;
+	private final JasperReportSource reportSource;
+	private final JasperReport jasperReport;
+	private final JRPropertiesUtil propertiesUtil;
+
+	private List<FillPartition> partitions;
+
+	private final Object partitionsLock = new Object();
+	private int dataEndedPartitionsCount;
+	private boolean valuesMerged;
+	private int endedPartitionsCount;
+	private boolean partitionsMerged;
+	private boolean partitionFailed;
+	private Throwable partitionFailure;
+	private volatile boolean stopped;
+	private int totalPageCount;
+	private Object[] mergedValues;
+	private boolean[] mergedFlags;
+
+
+	public ParallelReportFiller(JasperReportsContext jasperReportsContext, JasperReportSource reportSource)
+	{
+		this.jasperReportsContext = jasperReportsContext;
+		this.reportSource = reportSource;
+		this.jasperReport = reportSource.getReport();
+		this.propertiesUtil = JRPropertiesUtil.getInstance(jasperReportsContext);
+	}
+
+
+	/**
+	 * Decides whether parallel filling has been enabled for a report.
+	 *
+	 * @see #PROPERTY_PARALLEL_FILL
+	 */
+	public static boolean isParallelFill(JasperReportsContext jasperReportsContext, JasperReport jasperReport)
+	{
+		return JRPropertiesUtil.getInstance(jasperReportsContext).getBooleanProperty(
+				jasperReport, PROPERTY_PARALLEL_FILL, false);
+	}
+
+
+	/**
+	 * Fills the report using the data source provided by the {@link JRParameter#REPORT_DATA_SOURCE} parameter.
+	 * If no such parameter value exists, the report is filled sequentially.
+	 */
+	public JasperPrint fill(Map<String,Object> parameterValues) throws JRException
+	{
+		JRDataSource dataSource = parameterValues == null ? null
+				: (JRDataSource) parameterValues.get(JRParameter.REPORT_DATA_SOURCE);
+		if (dataSource == null)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("No data source for report " + jasperReport.getName() + ", filling sequentially");
+			}
+
+			return JRFiller.createReportFiller(jasperReportsContext, reportSource).fill(parameterValues);
+		}
+
+		return fill(parameterValues, dataSource);
+	}
+
+
+	/**
+	 * Fills the report from a data source, partitioning the data at top level group boundaries.
+	 */
+	public JasperPrint fill(Map<String,Object> parameterValues, JRDataSource dataSource) throws JRException
+	{
+		if (parameterValues == null)
+		{
+			parameterValues = new HashMap<String,Object>();
+		}
+
+		JRField[] fields = jasperReport.getMainDataset().getFields();
+		int groupFieldIndex = getPartitionFieldIndex(parameterValues, fields);
+		if (groupFieldIndex < 0)
+		{
+			return JRFiller.createReportFiller(jasperReportsContext, reportSource).fill(parameterValues, dataSource);
+		}
+
+		String[] fieldNames = new String[fields.length];
+		for (int i = 0; i < fields.length; i++)
+		{
+			fieldNames[i] = fields[i].getName();
+		}
+
+		int partitionCount = propertiesUtil.getIntegerProperty(jasperReport, PROPERTY_PARALLEL_FILL_PARTITIONS,
+				Runtime.getRuntime().availableProcessors());
+		int minPartitionSize = propertiesUtil.getIntegerProperty(jasperReport, PROPERTY_PARALLEL_FILL_MIN_PARTITION_SIZE,
+				DEFAULT_MIN_PARTITION_SIZE);
+
+		List<List<Object[]>> partitionRecords = readPartitions(dataSource, fields, groupFieldIndex,
+				partitionCount, minPartitionSize);
+		if (partitionRecords.size() < 2)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Single partition for report " + jasperReport.getName() + ", filling sequentially");
+			}
+
+			List<Object[]> records = partitionRecords.isEmpty() ? new ArrayList<Object[]>() : partitionRecords.get(0);
+			return JRFiller.createReportFiller(jasperReportsContext, reportSource).fill(parameterValues,
+					new ListOfArrayDataSource(records, fieldNames));
+		}
+
+		partitions = new ArrayList<FillPartition>(partitionRecords.size());
+		for (int i = 0; i < partitionRecords.size(); i++)
+		{
+			partitions.add(new FillPartition(this, i, i == partitionRecords.size() - 1, partitionRecords.get(i)));
+		}
+
+		if (log.isDebugEnabled())
+		{
+			log.debug("Filling report " + jasperReport.getName() + " in " + partitions.size() + " partitions");
+		}
+
+		return fillPartitions(parameterValues, fieldNames, Math.min(partitionCount, partitions.size()));
+	}
+
+
+	/**
+	 * Cancels the fill of all partitions.
+	 * <p>
+	 * The method can be called from any thread, the fill method then throws a
+	 * {@link JRFillInterruptedException}.
+	 * </p>
+	 */
+	public void cancelFill() throws JRException
+	{
+		if (log.isDebugEnabled())
+		{
+			log.debug("Cancelling parallel fill of report " + jasperReport.getName());
+		}
+
+		synchronized (partitionsLock)
+		{
+			partitionFailed = true;
+			if (partitionFailure == null)
+			{
+				// the fill surfaces as interrupted, not as failed at the merge barrier
+				partitionFailure = new JRFillInterruptedException();
+			}
+			partitionsLock.notifyAll();
+		}
+		
+		stopPartitions();
+	}
+
+
+	/**
+	 * Stops the partition fillers, including the ones that have not started yet.
+	 */
+	protected void stopPartitions()
+	{
+		stopped = true;
+		
+		List<FillPartition> fillPartitions = partitions;
+		if (fillPartitions != null)
+		{
+			for (FillPartition partition : fillPartitions)
+			{
+				JRBaseFiller filler = partition.getFiller();
+				if (filler != null)
+				{
+					try
+					{
+						filler.cancelFill();
+					}
+					catch (JRException e)
+					{
+						log.warn("Error cancelling the fill of partition " + partition.getIndex(), e);
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Returns the index of the field that determines the top level group,
+	 * or -1 if the report cannot be filled in parallel.
+	 */
+	protected int getPartitionFieldIndex(Map<String,Object> parameterValues, JRField[] fields)
+	{
+		SectionTypeEnum sectionType = jasperReport.getSectionType();
+		if (
+			(sectionType != null && sectionType != SectionTypeEnum.BAND)
+			|| jasperReport.getPrintOrderValue() != PrintOrderEnum.VERTICAL
+			|| jasperReport.isIgnorePagination()
+			|| Boolean.TRUE.equals(parameterValues.get(JRParameter.IS_IGNORE_PAGINATION))
+			|| parameterValues.get(JRParameter.REPORT_MAX_COUNT) != null
+			|| parameterValues.get(JRParameter.REPORT_SCRIPTLET) != null
+			|| parameterValues.get(JRParameter.SORT_FIELDS) != null
+			)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Report " + jasperReport.getName() + " settings do not allow parallel fill");
+			}
+			return -1;
+		}
+
+		JRDataset dataset = jasperReport.getMainDataset();
+		JRGroup[] groups = dataset.getGroups();
+		if (
+			fields == null || fields.length == 0
+			|| groups == null || groups.length == 0
+			|| (dataset.getSortFields() != null && dataset.getSortFields().length > 0)
+			|| !hasMergeableVariables(dataset.getVariables())
+			|| !hasPartitionPagination(groups)
+			)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Report " + jasperReport.getName() + " structure does not allow parallel fill");
+			}
+			return -1;
+		}
+
+		if (
+			hasScriptlets(dataset)
+			&& !propertiesUtil.getBooleanProperty(jasperReport, PROPERTY_PARALLEL_FILL_SCRIPTLETS, false)
+			)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Report " + jasperReport.getName() + " has scriptlets, filling sequentially");
+			}
+			return -1;
+		}
+
+		if (hasPartitionDependentExpressions())
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Report " + jasperReport.getName() + " expressions do not allow parallel fill");
+			}
+			return -1;
+		}
+
+		String groupFieldName = getFieldName(groups[0].getExpression());
+		if (groupFieldName != null)
+		{
+			for (int i = 0; i < fields.length; i++)
+			{
+				if (groupFieldName.equals(fields[i].getName()))
+				{
+					return i;
+				}
+			}
+		}
+
+		if (log.isDebugEnabled())
+		{
+			log.debug("Report " + jasperReport.getName() + " top level group expression is not a field");
+		}
+		return -1;
+	}
+
+
+	protected static String getFieldName(JRExpression expression)
+	{
+		JRExpressionChunk[] chunks = expression == null ? null : expression.getChunks();
+		if (chunks == null)
+		{
+			return null;
+		}
+
+		String fieldName = null;
+		for (JRExpressionChunk chunk : chunks)
+		{
+			if (chunk.getType() == JRExpressionChunk.TYPE_FIELD && fieldName == null)
+			{
+				fieldName = chunk.getText();
+			}
+			else if (chunk.getType() != JRExpressionChunk.TYPE_TEXT
+					|| (chunk.getText() != null && chunk.getText().trim().length() > 0))
+			{
+				return null;
+			}
+		}
+		return fieldName;
+	}
+
+
+	/**
+	 * Decides whether the pages produced by the partitions are the same as the ones produced by a sequential fill,
+	 * i.e. whether the first group starts a new page and the page numbers are not reset by groups.
+	 */
+	protected static boolean hasPartitionPagination(JRGroup[] groups)
+	{
+		if (!groups[0].isStartNewPage())
+		{
+			return false;
+		}
+
+		for (JRGroup group : groups)
+		{
+			if (group.isResetPageNumber())
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Decides whether the report has expressions whose values would differ when evaluated in a partition,
+	 * namely expressions that use the page number variables, other than the ones of elements resolved after
+	 * the partitions are merged, expressions that use report level variables, other than the ones of elements
+	 * resolved after the partitions are merged and the text fields and images of the summary and last page footer,
+	 * and expressions that use the report data source parameter.
+	 */
+	protected boolean hasPartitionDependentExpressions()
+	{
+		Set<String> reportVariables = new HashSet<String>();
+		JRVariable[] variables = jasperReport.getMainDataset().getVariables();
+		if (variables != null)
+		{
+			for (JRVariable variable : variables)
+			{
+				if (variable.getResetTypeValue() == ResetTypeEnum.REPORT)
+				{
+					reportVariables.add(variable.getName());
+				}
+			}
+		}
+
+		// the summary and last page footer are filled after the variable values are merged
+		Set<JRExpression> summaryExpressions = Collections.newSetFromMap(new IdentityHashMap<JRExpression, Boolean>());
+		collectBandExpressions(jasperReport.getSummary(), summaryExpressions);
+		collectBandExpressions(jasperReport.getLastPageFooter(), summaryExpressions);
+
+		final Set<JRExpression> mergedExpressions = Collections.newSetFromMap(new IdentityHashMap<JRExpression, Boolean>());
+		JRElementsVisitor.visitReport(jasperReport, new JRVisitorSupport()
+		{
+			@Override
+			public void visitTextField(JRTextField textField)
+			{
+				if (isEvaluatedAfterMerge(textField.getEvaluationTimeValue()))
+				{
+					mergedExpressions.add(textField.getExpression());
+				}
+			}
+
+			@Override
+			public void visitImage(JRImage image)
+			{
+				if (isEvaluatedAfterMerge(image.getEvaluationTimeValue()))
+				{
+					mergedExpressions.add(image.getExpression());
+				}
+			}
+		});
+
+		JRExpressionCollector collector = JRExpressionCollector.collector(jasperReportsContext, jasperReport);
+		for (JRExpression expression : collector.getReportExpressions())
+		{
+			JRExpressionChunk[] chunks = expression.getChunks();
+			if (chunks == null)
+			{
+				continue;
+			}
+
+			for (JRExpressionChunk chunk : chunks)
+			{
+				if (
+					chunk.getType() == JRExpressionChunk.TYPE_PARAMETER
+					&& JRParameter.REPORT_DATA_SOURCE.equals(chunk.getText())
+					)
+				{
+					return true;
+				}
+
+				if (chunk.getType() == JRExpressionChunk.TYPE_VARIABLE && !mergedExpressions.contains(expression))
+				{
+					String variableName = chunk.getText();
+					if (
+						JRVariable.PAGE_NUMBER.equals(variableName) || JRVariable.PAGE_COUNT.equals(variableName)
+						|| (reportVariables.contains(variableName) && !summaryExpressions.contains(expression))
+						)
+					{
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Collects the text field and image expressions of a band.
+	 */
+	protected static void collectBandExpressions(JRBand band, final Set<JRExpression> expressions)
+	{
+		JRElement[] elements = band == null ? null : band.getElements();
+		if (elements == null)
+		{
+			return;
+		}
+
+		JRElementsVisitor visitor = new JRElementsVisitor(new JRVisitorSupport()
+		{
+			@Override
+			public void visitTextField(JRTextField textField)
+			{
+				expressions.add(textField.getExpression());
+			}
+
+			@Override
+			public void visitImage(JRImage image)
+			{
+				expressions.add(image.getExpression());
+			}
+		});
+		for (JRElement element : elements)
+		{
+			element.visit(visitor);
+		}
+	}
+
+
+	protected static boolean isEvaluatedAfterMerge(EvaluationTimeEnum evaluationTime)
+	{
+		// Auto evaluates PAGE_NUMBER at report level, and PAGE_COUNT at page level which is not partition dependent
+		return evaluationTime == EvaluationTimeEnum.REPORT
+				|| evaluationTime == EvaluationTimeEnum.MASTER
+				|| evaluationTime == EvaluationTimeEnum.AUTO;
+	}
+
+
+	protected static boolean hasScriptlets(JRDataset dataset)
+	{
+		JRScriptlet[] scriptlets = dataset.getScriptlets();
+		return (scriptlets != null && scriptlets.length > 0)
+				|| dataset.getScriptletClass() != null;
+	}
+
+
+	protected static boolean hasMergeableVariables(JRVariable[] variables)
+	{
+		if (variables != null)
+		{
+			for (JRVariable variable : variables)
+			{
+				if (variable.getResetTypeValue() == ResetTypeEnum.REPORT)
+				{
+					if (variable.getIncrementerFactoryClassName() != null)
+					{
+						return false;
+					}
+
+					switch (variable.getCalculationValue())
+					{
+						case NOTHING:
+						case SYSTEM:
+						case FIRST:
+						case COUNT:
+						case LOWEST:
+						case HIGHEST:
+							break;
+						case SUM:
+						case AVERAGE:
+							if (isFloatingPoint(variable.getValueClass()))
+							{
+								return false;
+							}
+							break;
+						default:
+							return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Decides whether a variable class is computed with floating point arithmetic by the default incrementers.
+	 */
+	protected static boolean isFloatingPoint(Class<?> valueClass)
+	{
+		return Double.class.equals(valueClass)
+				|| Float.class.equals(valueClass)
+				|| Number.class.equals(valueClass);
+	}
+
+
+	/**
+	 * Reads the data source records and splits them in partitions of roughly equal sizes,
+	 * each partition starting at a top level group boundary.
+	 * <p>
+	 * All the data source records are loaded into memory before the data is partitioned,
+	 * parallel filling is therefore not suited for data sources that do not fit in memory.
+	 * </p>
+	 */
+	protected List<List<Object[]>> readPartitions(JRDataSource dataSource, JRField[] fields, int groupFieldIndex,
+			int partitionCount, int minPartitionSize) throws JRException
+	{
+		List<Object[]> records = new ArrayList<Object[]>();
+		List<Integer> groupStarts = new ArrayList<Integer>();
+
+		Object groupValue = null;
+		while (dataSource.next())
+		{
+			Object[] record = new Object[fields.length];
+			for (int i = 0; i < fields.length; i++)
+			{
+				record[i] = dataSource.getFieldValue(fields[i]);
+			}
+
+			if (records.isEmpty() || !Objects.equals(groupValue, record[groupFieldIndex]))
+			{
+				groupStarts.add(records.size());
+				groupValue = record[groupFieldIndex];
+			}
+
+			records.add(record);
+		}
+
+		int partitionSize = Math.max(Math.max(1, minPartitionSize),
+				(records.size() + partitionCount - 1) / Math.max(1, partitionCount));
+
+		List<List<Object[]>> partitionRecords = new ArrayList<List<Object[]>>();
+		int partitionStart = 0;
+		for (int groupStart : groupStarts)
+		{
+			if (groupStart - partitionStart >= partitionSize
+					&& records.size() - groupStart >= minPartitionSize)
+			{
+				partitionRecords.add(records.subList(partitionStart, groupStart));
+				partitionStart = groupStart;
+			}
+		}
+		partitionRecords.add(records.subList(partitionStart, records.size()));
+
+		return partitionRecords;
+	}
+
+
+	protected JasperPrint fillPartitions(final Map<String,Object> parameterValues, final String[] fieldNames,
+			int parallelism) throws JRException
+	{
+		ForkJoinPool pool = new ForkJoinPool(parallelism,
+				new PartitionThreadFactory(Thread.currentThread().getContextClassLoader()), null, false);
+		try
+		{
+			List<ForkJoinTask<JasperPrint>> tasks = new ArrayList<ForkJoinTask<JasperPrint>>(partitions.size());
+			for (final FillPartition partition : partitions)
+			{
+				tasks.add(pool.submit(new Callable<JasperPrint>()
+				{
+					@Override
+					public JasperPrint call() throws JRException
+					{
+						return fillPartition(partition, parameterValues, fieldNames);
+					}
+				}));
+			}
+
+			List<JasperPrint> prints = new ArrayList<JasperPrint>(tasks.size());
+			Throwable taskFailure = null;
+			for (ForkJoinTask<JasperPrint> task : tasks)
+			{
+				// waiting for all partitions so that no filler is left running
+				try
+				{
+					prints.add(task.get());
+				}
+				catch (ExecutionException e)
+				{
+					if (taskFailure == null)
+					{
+						taskFailure = e.getCause();
+					}
+				}
+			}
+
+			if (taskFailure == null)
+			{
+				return mergePrints(prints);
+			}
+
+			Throwable cause;
+			synchronized (partitionsLock)
+			{
+				// partitions stopped because another partition failed throw secondary exceptions
+				cause = partitionFailure == null ? taskFailure : partitionFailure;
+			}
+			cause = unwrapTaskFailure(cause);
+
+			if (cause instanceof JRException)
+			{
+				throw (JRException) cause;
+			}
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			throw new JRException(cause);
+		}
+		catch (InterruptedException e)
+		{
+			cancelFill();
+			Thread.currentThread().interrupt();
+			throw
+				new JRException(
+					JRFiller.EXCEPTION_MESSAGE_KEY_THREAD_INTERRUPTED,
+					null,
+					e);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+
+	/**
+	 * Removes the wrappers added by the fork/join pool to the exceptions thrown by the partition tasks,
+	 * i.e. the runtime exceptions that wrap checked exceptions and the copies of the original exceptions.
+	 */
+	protected static Throwable unwrapTaskFailure(Throwable failure)
+	{
+		Throwable cause = failure;
+		while (
+			cause.getCause() != null
+			&& cause.getCause() != cause
+			&& (cause.getClass() == RuntimeException.class
+				|| cause.getClass() == ExecutionException.class
+				|| cause.getClass() == cause.getCause().getClass())
+			)
+		{
+			cause = cause.getCause();
+		}
+		return cause;
+	}
+
+
+	protected JasperPrint fillPartition(FillPartition partition, Map<String,Object> parameterValues,
+			String[] fieldNames) throws JRException
+	{
+		try
+		{
+			JRBaseFiller filler = JRFiller.createBandReportFiller(jasperReportsContext, reportSource);
+			filler.setPartition(partition);
+			partition.setFiller(filler);
+
+			if (stopped)
+			{
+				// the fill has been canceled or has failed before the filler was registered
+				throw new JRFillInterruptedException();
+			}
+
+			if (log.isDebugEnabled())
+			{
+				log.debug("Filling partition " + partition.getIndex() + " with " + partition.getRecords().size()
+						+ " records using filler " + filler.fillerId);
+			}
+
+			JasperPrint jasperPrint = filler.fill(new HashMap<String,Object>(parameterValues),
+					new ListOfArrayDataSource(partition.getRecords(), fieldNames));
+
+			partition.fillEnded(filler);
+
+			return jasperPrint;
+		}
+		catch (JRException | RuntimeException | Error e)
+		{
+			partitionFailed(partition, e);
+			throw e;
+		}
+	}
+
+
+	/**
+	 * Records the failure of a partition and stops the other partitions.
+	 */
+	protected void partitionFailed(FillPartition partition, Throwable error)
+	{
+		if (log.isDebugEnabled())
+		{
+			log.debug("Partition " + partition.getIndex() + " failed", error);
+		}
+
+		boolean firstFailure;
+		synchronized (partitionsLock)
+		{
+			firstFailure = !partitionFailed;
+			if (firstFailure)
+			{
+				partitionFailed = true;
+				partitionFailure = error;
+			}
+			partitionsLock.notifyAll();
+		}
+
+		if (firstFailure)
+		{
+			stopPartitions();
+		}
+	}
+
+
+	/**
+	 * Waits for all partitions to reach the end of their data,
+	 * merging the report variable values once the last partition has reached the end of its data.
+	 */
+	protected void partitionDataEnded(FillPartition partition) throws JRException
+	{
+		synchronized (partitionsLock)
+		{
+			++dataEndedPartitionsCount;
+			if (dataEndedPartitionsCount == partitions.size())
+			{
+				mergeVariables();
+
+				valuesMerged = true;
+				partitionsLock.notifyAll();
+			}
+		}
+
+		waitForPartitions(partition, false);
+	}
+
+
+	/**
+	 * Waits for all partitions to produce their pages,
+	 * computing the page range of each partition once the last partition has ended.
+	 */
+	protected void partitionEnded(FillPartition partition) throws JRException
+	{
+		synchronized (partitionsLock)
+		{
+			++endedPartitionsCount;
+			if (endedPartitionsCount == partitions.size())
+			{
+				mergePageCounts();
+
+				partitionsMerged = true;
+				partitionsLock.notifyAll();
+			}
+		}
+
+		waitForPartitions(partition, true);
+	}
+
+
+	protected void waitForPartitions(FillPartition partition, final boolean ended) throws JRException
+	{
+		try
+		{
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker()
+			{
+				@Override
+				public boolean block() throws InterruptedException
+				{
+					synchronized (partitionsLock)
+					{
+						while (!isMerged(ended) && !partitionFailed)
+						{
+							partitionsLock.wait();
+						}
+					}
+					return true;
+				}
+
+				@Override
+				public boolean isReleasable()
+				{
+					synchronized (partitionsLock)
+					{
+						return isMerged(ended) || partitionFailed;
+					}
+				}
+			});
+		}
+		catch (InterruptedException e)
+		{
+			throw new JRFillInterruptedException();
+		}
+
+		synchronized (partitionsLock)
+		{
+			if (!isMerged(ended))
+			{
+				throw
+					new JRException(
+						EXCEPTION_MESSAGE_KEY_PARTITION_FAILED,
+						new Object[]{partition.getIndex()});
+			}
+		}
+	}
+
+
+	private boolean isMerged(boolean ended)
+	{
+		return ended ? partitionsMerged : valuesMerged;
+	}
+
+
+	protected void mergePageCounts()
+	{
+		int pageIndexOffset = 0;
+		for (FillPartition partition : partitions)
+		{
+			partition.setPageIndexOffset(pageIndexOffset);
+			pageIndexOffset += partition.getPageCount();
+		}
+		totalPageCount = pageIndexOffset;
+	}
+
+
+	protected void mergeVariables() throws JRException
+	{
+		JRFillVariable[] variables = null;
+		for (FillPartition partition : partitions)
+		{
+			if (partition.getVariableValues() != null && partition.getVariableValues().length > 0)
+			{
+				variables = partition.getFiller().mainDataset.variables;
+				break;
+			}
+		}
+
+		if (variables == null)
+		{
+			return;
+		}
+
+		Map<JRCalculable, Integer> variableIndexes = new IdentityHashMap<JRCalculable, Integer>();
+		for (int i = 0; i < variables.length; i++)
+		{
+			variableIndexes.put(variables[i], i);
+		}
+
+		mergedValues = new Object[variables.length];
+		mergedFlags = new boolean[variables.length];
+		for (int i = 0; i < variables.length; i++)
+		{
+			JRFillVariable variable = variables[i];
+			// the page number is set along with the page range
+			if (
+				variable.getResetTypeValue() == ResetTypeEnum.REPORT
+				&& !JRVariable.PAGE_NUMBER.equals(variable.getName())
+				)
+			{
+				mergedValues[i] = mergeValues(variable, i, variableIndexes);
+				mergedFlags[i] = true;
+			}
+		}
+	}
+
+
+	protected Object mergeValues(JRFillVariable variable, int index, Map<JRCalculable, Integer> variableIndexes)
+			throws JRException
+	{
+		CalculationEnum calculation = variable.getCalculationValue();
+		Object merged = null;
+		boolean first = true;
+		for (FillPartition partition : partitions)
+		{
+			Object[] values = partition.getVariableValues();
+			if (values == null)
+			{
+				continue;
+			}
+
+			Object value = values[index];
+			switch (calculation)
+			{
+				case FIRST:
+				{
+					if (first)
+					{
+						merged = value;
+					}
+					break;
+				}
+				case COUNT:
+				case SUM:
+				{
+					merged = merged == null ? value : (value == null ? merged : addNumbers((Number) merged, (Number) value));
+					break;
+				}
+				case HIGHEST:
+				case LOWEST:
+				{
+					if (merged == null)
+					{
+						merged = value;
+					}
+					else if (value != null)
+					{
+						@SuppressWarnings("unchecked")
+						int order = ((Comparable<Object>) value).compareTo(merged);
+						if (calculation == CalculationEnum.HIGHEST ? order > 0 : order < 0)
+						{
+							merged = value;
+						}
+					}
+					break;
+				}
+				case AVERAGE:
+				{
+					// merged below from the helper variables
+					break;
+				}
+				case NOTHING:
+				case SYSTEM:
+				default:
+				{
+					merged = value;
+					break;
+				}
+			}
+			first = false;
+		}
+
+		if (calculation == CalculationEnum.AVERAGE)
+		{
+			merged = mergeAverage(variable, variableIndexes);
+		}
+
+		return merged;
+	}
+
+
+	/**
+	 * Merges the count and sum helper variables of an average variable and computes the average
+	 * using the incrementer of the variable, so that the value is the same as the one computed
+	 * by a sequential fill.
+	 */
+	protected Object mergeAverage(JRFillVariable variable, Map<JRCalculable, Integer> variableIndexes)
+			throws JRException
+	{
+		final JRCalculable countVariable = variable.getHelperVariable(JRCalculable.HELPER_COUNT);
+		final JRCalculable sumVariable = variable.getHelperVariable(JRCalculable.HELPER_SUM);
+		Integer countIndex = variableIndexes.get(countVariable);
+		Integer sumIndex = variableIndexes.get(sumVariable);
+		if (countIndex == null || sumIndex == null)
+		{
+			return null;
+		}
+
+		final Object count = mergeValues((JRFillVariable) countVariable, countIndex, variableIndexes);
+		final Object sum = mergeValues((JRFillVariable) sumVariable, sumIndex, variableIndexes);
+		if (count == null || sum == null || toBigDecimal((Number) count).signum() == 0)
+		{
+			return null;
+		}
+
+		AbstractValueProvider mergedValueProvider = new AbstractValueProvider()
+		{
+			@Override
+			public Object getValue(JRCalculable calculable)
+			{
+				return calculable == countVariable ? count : (calculable == sumVariable ? sum : calculable.getValue());
+			}
+		};
+		// the expression value is only checked for null by the average incrementers
+		return variable.getIncrementer().increment(variable, sum, mergedValueProvider);
+	}
+
+
+	protected static Number addNumbers(Number value1, Number value2)
+	{
+		if (value1 instanceof BigDecimal)
+		{
+			return ((BigDecimal) value1).add(toBigDecimal(value2));
+		}
+		if (value1 instanceof BigInteger)
+		{
+			return ((BigInteger) value1).add(toBigDecimal(value2).toBigInteger());
+		}
+		if (value1 instanceof Double)
+		{
+			return value1.doubleValue() + value2.doubleValue();
+		}
+		if (value1 instanceof Float)
+		{
+			return value1.floatValue() + value2.floatValue();
+		}
+		if (value1 instanceof Long)
+		{
+			return value1.longValue() + value2.longValue();
+		}
+		if (value1 instanceof Integer)
+		{
+			return value1.intValue() + value2.intValue();
+		}
+		if (value1 instanceof Short)
+		{
+			return (short) (value1.shortValue() + value2.shortValue());
+		}
+		if (value1 instanceof Byte)
+		{
+			return (byte) (value1.byteValue() + value2.byteValue());
+		}
+		return toBigDecimal(value1).add(toBigDecimal(value2));
+	}
+
+
+	protected static BigDecimal toBigDecimal(Number value)
+	{
+		if (value instanceof BigDecimal)
+		{
+			return (BigDecimal) value;
+		}
+		if (value instanceof BigInteger)
+		{
+			return new BigDecimal((BigInteger) value);
+		}
+		if (value instanceof Double || value instanceof Float)
+		{
+			return BigDecimal.valueOf(value.doubleValue());
+		}
+		return BigDecimal.valueOf(value.longValue());
+	}
+
+
+	/**
+	 * Sets the merged report variable values on a partition filler.
+	 */
+	protected void applyMergedValues(FillPartition partition, JRBaseFiller filler)
+	{
+		if (mergedValues != null)
+		{
+			JRFillVariable[] variables = filler.mainDataset.variables;
+			for (int i = 0; i < variables.length; i++)
+			{
+				if (mergedFlags[i])
+				{
+					variables[i].setValue(mergedValues[i]);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Sets the page range of the partition in the final document and the total page number
+	 * on a partition filler.
+	 */
+	protected void applyPageRange(FillPartition partition, JRBaseFiller filler)
+	{
+		filler.delayedActions.setPageRange(partition.getPageIndexOffset(), totalPageCount);
+
+		JRFillVariable pageNumber = filler.getVariable(JRVariable.PAGE_NUMBER);
+		if (pageNumber != null)
+		{
+			pageNumber.setValue(totalPageCount);
+		}
+	}
+
+
+	protected JasperPrint mergePrints(List<JasperPrint> prints) throws JRException
+	{
+		JasperPrint jasperPrint = prints.get(0);
+		BookmarkHelper bookmarkHelper = partitions.get(0).getFiller().bookmarkHelper;
+
+		Map<Integer, Integer> printIdOffsets = new HashMap<Integer, Integer>();
+		shiftPrintElementIds(jasperPrint.getPages(), printIdOffsets);
+
+		for (int i = 1; i < prints.size(); i++)
+		{
+			JasperPrint partitionPrint = prints.get(i);
+			FillPartition partition = partitions.get(i);
+			int pageIndexOffset = jasperPrint.getPages().size();
+
+			for (JRStyle style : partitionPrint.getStylesList())
+			{
+				jasperPrint.addStyle(style, true);
+			}
+
+			for (JROrigin origin : partitionPrint.getOriginsList())
+			{
+				jasperPrint.addOrigin(origin);
+			}
+
+			shiftPrintElementIds(partitionPrint.getPages(), printIdOffsets);
+			for (JRPrintPage page : partitionPrint.getPages())
+			{
+				jasperPrint.addPage(page);
+			}
+
+			if (partitionPrint.hasParts())
+			{
+				for (Iterator<Map.Entry<Integer, PrintPart>> it = partitionPrint.getParts().partsIterator(); it.hasNext();)
+				{
+					Map.Entry<Integer, PrintPart> partEntry = it.next();
+					jasperPrint.addPart(pageIndexOffset + partEntry.getKey(), partEntry.getValue());
+				}
+			}
+
+			BookmarkHelper partitionBookmarks = partition.getFiller().bookmarkHelper;
+			if (bookmarkHelper != null && partitionBookmarks != null)
+			{
+				bookmarkHelper.appendBookmarks(partitionBookmarks, pageIndexOffset);
+			}
+		}
+
+		if (bookmarkHelper != null)
+		{
+			jasperPrint.setBookmarks(bookmarkHelper.getRootBookmarks());
+		}
+
+		return jasperPrint;
+	}
+
+
+	/**
+	 * Shifts the print element Ids of a partition after the ones of the previous partitions,
+	 * so that the Ids are the same as the ones produced by a sequential fill.
+	 *
+	 * @param pages the partition pages
+	 * @param printIdOffsets the last print Ids of the previous partitions for each source element,
+	 * updated with the last print Ids of the partition
+	 */
+	protected void shiftPrintElementIds(List<JRPrintPage> pages, Map<Integer, Integer> printIdOffsets)
+	{
+		Map<Integer, Integer> lastPrintIds = new HashMap<Integer, Integer>();
+		for (JRPrintPage page : pages)
+		{
+			List<JRPrintElement> elements = page.getElements();
+			for (int i = 0; i < elements.size(); i++)
+			{
+				JRPrintElement element = elements.get(i);
+				if (shiftPrintElementIds(element, printIdOffsets, lastPrintIds))
+				{
+					// setting the element back so that the change is kept for virtualized pages
+					elements.set(i, element);
+				}
+			}
+		}
+		printIdOffsets.putAll(lastPrintIds);
+	}
+
+
+	protected boolean shiftPrintElementIds(JRPrintElement element, Map<Integer, Integer> printIdOffsets,
+			Map<Integer, Integer> lastPrintIds)
+	{
+		boolean shifted = false;
+		int sourceElementId = element.getSourceElementId();
+		int printElementId = element.getPrintElementId();
+		if (
+			sourceElementId != JRPrintElement.UNSET_SOURCE_ELEMENT_ID
+			&& printElementId != JRPrintElement.UNSET_PRINT_ELEMENT_ID
+			)
+		{
+			Integer offset = printIdOffsets.get(sourceElementId);
+			if (offset != null)
+			{
+				printElementId += offset;
+				if (element instanceof JRTemplatePrintElement)
+				{
+					((JRTemplatePrintElement) element).setPrintElementId(printElementId);
+					shifted = true;
+				}
+				else if (element instanceof JRBasePrintElement)
+				{
+					((JRBasePrintElement) element).setPrintElementId(printElementId);
+					shifted = true;
+				}
+			}
+
+			Integer lastPrintId = lastPrintIds.get(sourceElementId);
+			if (lastPrintId == null || lastPrintId < printElementId)
+			{
+				lastPrintIds.put(sourceElementId, printElementId);
+			}
+		}
+
+		if (element instanceof JRPrintFrame)
+		{
+			for (JRPrintElement child : ((JRPrintFrame) element).getElements())
+			{
+				shifted |= shiftPrintElementIds(child, printIdOffsets, lastPrintIds);
+			}
+		}
+		return shifted;
+	}
+
+
+	/**
+	 * Creates the partition worker threads with the context class loader of the thread that
+	 * started the fill, so that report classes and extensions are loaded the same way as
+	 * in a sequential fill.
+	 */
+	protected static class PartitionThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory
+	{
+		private final ClassLoader contextClassLoader;
+
+		public PartitionThreadFactory(ClassLoader contextClassLoader)
+		{
+			this.contextClassLoader = contextClassLoader;
+		}
+
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool)
+		{
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setContextClassLoader(contextClassLoader);
+			return thread;
+		}
+	}
+}
@@ -246,6 +246,12 @@ public class PartReportFiller extends BaseReportFiller
 			{
 				// commit the cached data
 				fillContext.cacheDone();
+				
+				if (virtualizationContext != null)
+				{
+					// the pages can now be read ahead
+					virtualizationContext.fillFinished();
+				}
 			}
 
 /*			if (parent != null)
@@ -151,6 +151,7 @@ public class StoreFactoryVirtualizer extends JRAbstractLRUVirtualizer
 		{
 			// mark as disposed
 			context.dispose();
+			discardQueuedPageOuts(context);
 
 			VirtualizerStore store = store(context, false);
 			if (log.isDebugEnabled())
@@ -177,6 +178,7 @@ public class StoreFactoryVirtualizer extends JRAbstractLRUVirtualizer
 			log.debug("disposing " + this);
 		}
 
+		disposeWriteBehind();
 		synchronized (contextStores)
 		{
 			for (Iterator<?> it = contextStores.values().iterator(); it.hasNext();)
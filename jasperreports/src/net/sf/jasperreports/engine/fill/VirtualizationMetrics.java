@@ -0,0 +1,130 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtualization counters collected by a {@link JRConcurrentLRUVirtualizer} for a
+ * virtualization context.
+ * <p>
+ * Accesses to objects whose data is in memory count as hits, while accesses that
+ * require the object data to be paged in count as misses.
+ * The first access of a newly registered object is not counted as a hit.
+ *
+ * @see JRConcurrentLRUVirtualizer#getMetrics(JRVirtualizationContext)
+ */
+public class VirtualizationMetrics
+{
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong pageInCount = new AtomicLong();
+	private final AtomicLong pageOutCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	protected void hit()
+	{
+		hitCount.incrementAndGet();
+	}
+
+	protected void miss()
+	{
+		missCount.incrementAndGet();
+	}
+
+	protected void pageIn()
+	{
+		pageInCount.incrementAndGet();
+	}
+
+	protected void pageOut()
+	{
+		pageOutCount.incrementAndGet();
+	}
+
+	protected void eviction()
+	{
+		evictionCount.incrementAndGet();
+	}
+
+	/**
+	 * Returns the number of accesses to objects that had their data in memory.
+	 */
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns the number of accesses to objects that had their data paged out.
+	 */
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+
+	/**
+	 * Returns the ratio of hits in the total number of accesses,
+	 * or <code>1</code> if there were no accesses.
+	 */
+	public double getHitRate()
+	{
+		long hits = hitCount.get();
+		long total = hits + missCount.get();
+		return total == 0 ? 1d : (double) hits / total;
+	}
+
+	/**
+	 * Returns the number of times object data has been read from the external storage.
+	 */
+	public long getPageInCount()
+	{
+		return pageInCount.get();
+	}
+
+	/**
+	 * Returns the number of times object data has been written to the external storage.
+	 */
+	public long getPageOutCount()
+	{
+		return pageOutCount.get();
+	}
+
+	/**
+	 * Returns the number of objects that have been selected for eviction
+	 * from the in-memory cache.
+	 */
+	public long getEvictionCount()
+	{
+		return evictionCount.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "{hits: " + getHitCount() + ", misses: " + getMissCount()
+				+ ", page-ins: " + getPageInCount() + ", page-outs: " + getPageOutCount()
+				+ ", evictions: " + getEvictionCount() + "}";
+	}
+}
@@ -0,0 +1,424 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.fill;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRVirtualizable;
+
+/**
+ * Bounded queue of virtualizable objects that have been evicted from memory
+ * and wait to be written to the external storage by a background thread.
+ * <p>
+ * The virtualizer hands over the virtual data of an evicted object and releases the object
+ * data right away, the queue keeping the virtual data until it has been written.
+ * When an object is requested while its data is still in the queue, the write is cancelled
+ * and the virtual data is returned to the object without reading it from the external storage.
+ * If the data is being written at that moment, the object waits for the write to finish
+ * so that the data is not changed while it is serialized.
+ * <p>
+ * When the queue is full, the thread that evicts objects blocks until a queued object
+ * has been written.
+ * The background thread does not need any virtualization context lock, therefore
+ * blocking while holding a context lock is safe.
+ *
+ * @see JRAbstractLRUVirtualizer#setWriteBehind(int)
+ */
+public class WriteBehindQueue
+{
+	private static final Log log = LogFactory.getLog(WriteBehindQueue.class);
+
+	/**
+	 * Writes object data for a write-behind queue.
+	 */
+	public interface Writer
+	{
+		/**
+		 * Writes the data of a virtualizable object to the external storage.
+		 *
+		 * @param o the object, which only provides the UID, the context and the virtual data
+		 */
+		void write(JRVirtualizable<?> o) throws IOException;
+
+		/**
+		 * Removes the data written for an object whose write has been cancelled or has failed.
+		 *
+		 * @param o the object, which only provides the UID, the context and the virtual data
+		 */
+		void discard(JRVirtualizable<?> o);
+	}
+
+	private static final int STATE_QUEUED = 0;
+	private static final int STATE_WRITING = 1;
+	private static final int STATE_WRITTEN = 2;
+	private static final int STATE_CANCELLED = 3;
+	private static final int STATE_FAILED = 4;
+
+	private static final AtomicInteger queueCounter = new AtomicInteger();
+
+	private final int capacity;
+	private final Writer writer;
+	private final Semaphore permits;
+	private final ConcurrentHashMap<String, PendingObject> pending;
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Creates a write-behind queue with a single background writer thread.
+	 *
+	 * @param capacity the maximum number of objects waiting to be written
+	 * @param writer the object data writer
+	 */
+	public WriteBehindQueue(int capacity, Writer writer)
+	{
+		this.capacity = capacity;
+		this.writer = writer;
+		this.permits = new Semaphore(capacity);
+		this.pending = new ConcurrentHashMap<String, PendingObject>();
+
+		// a single writer thread so that objects are written in the order in which they were queued
+		this.executor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new WriterThreadFactory());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Returns the maximum number of objects waiting to be written.
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of objects currently waiting to be written.
+	 */
+	public int size()
+	{
+		return pending.size();
+	}
+
+	/**
+	 * Queues the virtual data of an object to be written.
+	 * <p>
+	 * The method is called after {@link JRVirtualizable#beforeExternalization()} and blocks
+	 * if the queue is full.
+	 *
+	 * @param o the evicted object
+	 */
+	public void enqueue(JRVirtualizable<?> o)
+	{
+		PendingObject pendingObject = new PendingObject(o.getUID(), o.getContext(), o.getVirtualData());
+
+		permits.acquireUninterruptibly();
+		pending.put(pendingObject.id, pendingObject);
+		if (log.isDebugEnabled())
+		{
+			log.debug("queued " + pendingObject.id + " for write-behind");
+		}
+
+		executor.execute(new WriteTask(pendingObject));
+	}
+
+	/**
+	 * Cancels the write of an object, if the object has not yet been written.
+	 * <p>
+	 * If the object is being written, the method waits for the write to finish
+	 * and for the written data to be discarded.
+	 *
+	 * @param id the object UID
+	 * @return the object virtual data if the write was cancelled, or <code>null</code>
+	 * if the object was not in the queue or has already been written
+	 */
+	public Object cancel(String id)
+	{
+		PendingObject pendingObject = pending.get(id);
+		if (pendingObject == null)
+		{
+			return null;
+		}
+
+		while (true)
+		{
+			int state = pendingObject.state.get();
+			if (state == STATE_WRITTEN || state == STATE_CANCELLED)
+			{
+				return null;
+			}
+
+			if (pendingObject.state.compareAndSet(state, STATE_CANCELLED))
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("cancelled write-behind for " + id);
+				}
+
+				if (state == STATE_WRITING)
+				{
+					// the writer thread discards the data and removes the object,
+					// the data is not handed back while it is being serialized
+					awaitWrite(pendingObject);
+				}
+				else
+				{
+					pending.remove(id, pendingObject);
+				}
+				return pendingObject.virtualData;
+			}
+		}
+	}
+
+	/**
+	 * Cancels the writes of the queued objects that belong to a context, and waits for the
+	 * write in progress to complete if it belongs to the context.
+	 * <p>
+	 * The writes of other contexts are not waited for.
+	 *
+	 * @param masterContext the master virtualization context, or <code>null</code> for all objects
+	 */
+	public void discard(JRVirtualizationContext masterContext)
+	{
+		for (PendingObject pendingObject : pending.values())
+		{
+			if (masterContext == null || pendingObject.context.getMasterContext() == masterContext)
+			{
+				// waits for the write to finish if the object is being written
+				cancel(pendingObject.id);
+			}
+		}
+	}
+
+	/**
+	 * Discards all queued objects and stops the writer thread.
+	 */
+	public void dispose()
+	{
+		discard(null);
+		executor.shutdown();
+	}
+
+	protected void awaitWrite(PendingObject pendingObject)
+	{
+		boolean interrupted = false;
+		while (true)
+		{
+			try
+			{
+				pendingObject.writeDone.await();
+				break;
+			}
+			catch (InterruptedException e)
+			{
+				interrupted = true;
+			}
+		}
+
+		if (interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	protected void write(PendingObject pendingObject)
+	{
+		if (!pendingObject.state.compareAndSet(STATE_QUEUED, STATE_WRITING))
+		{
+			// cancelled
+			return;
+		}
+
+		boolean written = false;
+		try
+		{
+			writer.write(pendingObject);
+			written = true;
+		}
+		catch (Exception e)
+		{
+			if (pendingObject.state.get() == STATE_CANCELLED)
+			{
+				// the object data has been changed while writing
+				if (log.isDebugEnabled())
+				{
+					log.debug("error writing cancelled object " + pendingObject.id, e);
+				}
+			}
+			else
+			{
+				log.error("Error virtualizing object " + pendingObject.id, e);
+			}
+		}
+
+		if (written && pendingObject.state.compareAndSet(STATE_WRITING, STATE_WRITTEN))
+		{
+			pending.remove(pendingObject.id, pendingObject);
+			if (log.isDebugEnabled())
+			{
+				log.debug("wrote " + pendingObject.id);
+			}
+			return;
+		}
+
+		// cancelled or failed, removing the data written so far so that the object can be written again.
+		// the state is still WRITING or CANCELLED here, so a cancelling thread waits for the data removal.
+		try
+		{
+			writer.discard(pendingObject);
+		}
+		catch (Exception e)
+		{
+			log.error("Error removing virtual data", e);
+		}
+
+		if (!pendingObject.state.compareAndSet(STATE_WRITING, STATE_FAILED))
+		{
+			// cancelled while writing
+			pending.remove(pendingObject.id, pendingObject);
+		}
+		// if the write failed, the data is kept in the queue so that the object can still be paged in
+	}
+
+	protected class WriteTask implements Runnable
+	{
+		private final PendingObject pendingObject;
+
+		protected WriteTask(PendingObject pendingObject)
+		{
+			this.pendingObject = pendingObject;
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				write(pendingObject);
+			}
+			finally
+			{
+				pendingObject.writeDone.countDown();
+				permits.release();
+			}
+		}
+	}
+
+	/**
+	 * Holds the data of a queued object.
+	 * <p>
+	 * Only the UID, context and virtual data are available, the other methods do nothing.
+	 */
+	@SuppressWarnings("rawtypes")
+	protected static class PendingObject implements JRVirtualizable
+	{
+		private final String id;
+		private final JRVirtualizationContext context;
+		private final Object virtualData;
+		private final AtomicInteger state;
+		private final CountDownLatch writeDone;
+
+		protected PendingObject(String id, JRVirtualizationContext context, Object virtualData)
+		{
+			this.id = id;
+			this.context = context;
+			this.virtualData = virtualData;
+			this.state = new AtomicInteger(STATE_QUEUED);
+			this.writeDone = new CountDownLatch(1);
+		}
+
+		@Override
+		public String getUID()
+		{
+			return id;
+		}
+
+		@Override
+		public JRVirtualizationContext getContext()
+		{
+			return context;
+		}
+
+		@Override
+		public Object getVirtualData()
+		{
+			return virtualData;
+		}
+
+		@Override
+		public void ensureVirtualData()
+		{
+		}
+
+		@Override
+		public void setVirtualData(Object o)
+		{
+		}
+
+		@Override
+		public void removeVirtualData()
+		{
+		}
+
+		@Override
+		public void beforeExternalization()
+		{
+		}
+
+		@Override
+		public void afterExternalization()
+		{
+		}
+
+		@Override
+		public void afterInternalization()
+		{
+		}
+	}
+
+	protected static class WriterThreadFactory implements ThreadFactory
+	{
+		private final int queueIndex = queueCounter.incrementAndGet();
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = new Thread(r, "JasperReports virtualizer write-behind #" + queueIndex);
+			thread.setDaemon(true);
+			if (log.isDebugEnabled())
+			{
+				log.debug("created thread " + thread);
+			}
+			return thread;
+		}
+	}
+}
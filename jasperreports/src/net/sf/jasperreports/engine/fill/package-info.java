@@ -239,6 +239,10 @@
  * represents an enhanced implementation of the JRSwapFile that only works with JRE 
  * version 1.4 or later, because it uses a <code>java.nio.channels.FileChannel</code> to perform 
  * concurrent I/O on the swap file. 
+ * </p><p>
+ * The {@link net.sf.jasperreports.engine.util.JRMappedSwapFile} class maps the swap file 
+ * in memory in fixed size segments and allocates blocks without locking, which makes it 
+ * suitable for swap files shared by several virtualizers used in concurrent report fills. 
  * </p>
  * <h3>In-Memory GZIP Virtualizer</h3>
  * The {@link net.sf.jasperreports.engine.fill.JRGzipVirtualizer} is a convenient 
@@ -247,6 +251,35 @@
  * memory consumption by compressing those pages in-memory using a GZIP algorithm. 
  * Tests indicate that memory consumption during large report-generating processes is 
  * reduced up to a factor of ten when the in-memory GZIP report virtualizer is used. 
+ * <h3>Off-Heap Virtualizer</h3>
+ * The {@link net.sf.jasperreports.engine.fill.JROffHeapVirtualizer} keeps the serialized 
+ * pages in direct memory, outside the Java heap, up to a configurable number of bytes. 
+ * Pages that do not fit in the memory budget are written to a swap file, which is only 
+ * created when the budget is exceeded. 
+ * <h3>Concurrent Virtualizers</h3>
+ * Virtualizers extending {@link net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer} 
+ * keep their paged in objects under a single lock, which becomes a point of contention when 
+ * the virtualizer is shared by several report fills, exporters and viewers. 
+ * The {@link net.sf.jasperreports.engine.fill.JRConcurrentLRUVirtualizer} base keeps 
+ * separate segments for each report, uses a clock replacement policy that does not 
+ * require locking when objects are accessed, and collects 
+ * {@link net.sf.jasperreports.engine.fill.VirtualizationMetrics metrics} for each report. 
+ * The {@link net.sf.jasperreports.engine.fill.ConcurrentStoreVirtualizer} implementation 
+ * can be used with any thread-safe virtualizer store. 
+ * <h3>Write-Behind Page-Out</h3>
+ * By default, pages evicted from the in-memory cache are serialized and written on the 
+ * filling thread. Calling <code>setWriteBehind(queueSize)</code> on a virtualizer hands the 
+ * evicted pages to a bounded {@link net.sf.jasperreports.engine.fill.WriteBehindQueue queue} 
+ * which is written by a background thread. The filling thread only waits when the queue 
+ * is full, and pages requested while still in the queue are paged in directly from the queue. 
+ * <h3>Page Read-Ahead</h3>
+ * Exporters access the pages of a report in order, each virtualized page being paged in 
+ * when accessed. Setting the 
+ * {@link net.sf.jasperreports.engine.fill.JRVirtualizationContext#PROPERTY_READ_AHEAD_PAGES net.sf.jasperreports.virtualizer.read.ahead.pages} 
+ * property, or calling <code>setReadAheadPages(pageCount)</code> on the virtualization context 
+ * {@link net.sf.jasperreports.engine.fill.JRVirtualizationContext#getRegistered(net.sf.jasperreports.engine.JasperPrint) registered} 
+ * for the report, makes a {@link net.sf.jasperreports.engine.fill.PageReadAhead background thread} 
+ * page in the next pages while the exporter processes the current one. 
  * <h3>Related Documentation</h3>
  * <a href="http://community.jaspersoft.com/wiki/jasperreports-library-tutorial">JasperReports Tutorial</a>
  * 
@@ -257,6 +290,8 @@
  * @see net.sf.jasperreports.engine.JRVirtualizer
  * @see net.sf.jasperreports.engine.util.JRConcurrentSwapFile
  * @see net.sf.jasperreports.engine.util.JRLoader
+ * @see net.sf.jasperreports.engine.util.JRMappedSwapFile
+ * @see net.sf.jasperreports.engine.util.OffHeapVirtualizerStore
  * @see net.sf.jasperreports.engine.util.JRSwapFile
  */
 package net.sf.jasperreports.engine.fill;
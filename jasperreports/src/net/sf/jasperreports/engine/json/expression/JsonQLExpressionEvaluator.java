@@ -45,26 +45,37 @@ public class JsonQLExpressionEvaluator {
     private EvaluationContext evaluationContext;
 
 
+    /**
+     * The visitors keep the evaluators created for the expression nodes, so that evaluating 
+     * the same expression object repeatedly does not create new evaluators.
+     * <p>
+     * The evaluator is not thread safe.
+     */
     public JsonQLExpressionEvaluator() {
         evaluationContext = new EvaluationContext() {
+            private final FilterExpressionEvaluatorVisitor filterVisitor = new DefaultFilterExpressionEvaluatorVisitor(this);
+            private final MemberExpressionEvaluatorVisitor memberVisitor = new DefaultMemberExpressionEvaluatorVisitor(this);
+            private final MemberExpressionEvaluatorVisitor memberVisitorForFilter = new DefaultMemberExpressionEvaluatorVisitorForFilter(this);
+            private final ObjectMapper objectMapper = JsonUtil.createObjectMapper();
+
             @Override
             public FilterExpressionEvaluatorVisitor getFilterExpressionEvaluatorVisitor() {
-                return new DefaultFilterExpressionEvaluatorVisitor(this);
+                return filterVisitor;
             }
 
             @Override
             public MemberExpressionEvaluatorVisitor getMemberExpressionEvaluatorVisitor() {
-                return new DefaultMemberExpressionEvaluatorVisitor(this);
+                return memberVisitor;
             }
 
             @Override
             public MemberExpressionEvaluatorVisitor getMemberExpressionEvaluatorVisitorForFilter() {
-                return new DefaultMemberExpressionEvaluatorVisitorForFilter(this);
+                return memberVisitorForFilter;
             }
 
             @Override
             public ObjectMapper getObjectMapper() {
-                return JsonUtil.createObjectMapper();
+                return objectMapper;
             }
         };
     }
@@ -75,8 +86,9 @@ public class JsonQLExpressionEvaluator {
         JsonNodeContainer result = new JsonNodeContainer(contextNode);
 
         if (memberExpressionList != null) {
+            MemberExpressionEvaluatorVisitor memberVisitor = evaluationContext.getMemberExpressionEvaluatorVisitor();
             for (MemberExpression me: memberExpressionList) {
-                result = me.evaluate(result, evaluationContext.getMemberExpressionEvaluatorVisitor());
+                result = me.evaluate(result, memberVisitor);
 
                 if (result == null) {
                     return null;
@@ -32,6 +32,7 @@ import net.sf.jasperreports.engine.json.expression.filter.BasicFilterExpression;
 import net.sf.jasperreports.engine.json.expression.filter.FilterExpression;
 import net.sf.jasperreports.engine.json.expression.filter.ValueDescriptor;
 import net.sf.jasperreports.engine.json.expression.member.MemberExpression;
+import net.sf.jasperreports.engine.json.expression.member.evaluation.MemberExpressionEvaluatorVisitor;
 import net.sf.jasperreports.engine.type.JsonOperatorEnum;
 
 import org.apache.commons.logging.Log;
@@ -47,16 +48,32 @@ public class BasicFilterExpressionEvaluator implements FilterExpressionEvaluator
 
     private EvaluationContext evaluationContext;
     private BasicFilterExpression expression;
+    private BigDecimal numericOperand;
+    private int sizeOperand;
 
 
     public BasicFilterExpressionEvaluator(EvaluationContext evaluationContext, BasicFilterExpression expression) {
         this.evaluationContext = evaluationContext;
         this.expression = expression;
+
+        // parse the operand once, the evaluator is reused for all the evaluated nodes
+        ValueDescriptor valueDescriptor = expression.getValueDescriptor();
+        if (valueDescriptor != null) {
+            FilterExpression.VALUE_TYPE type = valueDescriptor.getType();
+            if (expression.isSizeFunction()) {
+                if (FilterExpression.VALUE_TYPE.INTEGER.equals(type)) {
+                    sizeOperand = Integer.parseInt(valueDescriptor.getValue());
+                }
+            } else if (FilterExpression.VALUE_TYPE.INTEGER.equals(type) || FilterExpression.VALUE_TYPE.DOUBLE.equals(type)) {
+                numericOperand = new BigDecimal(valueDescriptor.getValue());
+            }
+        }
     }
 
     @Override
     public boolean evaluate(JRJsonNode jsonNode) {
         JsonNodeContainer memberEval = new JsonNodeContainer(jsonNode);
+        MemberExpressionEvaluatorVisitor memberVisitor = evaluationContext.getMemberExpressionEvaluatorVisitorForFilter();
         boolean result = false;
 
         if (log.isDebugEnabled()) {
@@ -65,7 +82,7 @@ public class BasicFilterExpressionEvaluator implements FilterExpressionEvaluator
 
         // traverse the members
         outer: for (MemberExpression me: expression.getMemberExpressionList()) {
-            memberEval = me.evaluate(memberEval, evaluationContext.getMemberExpressionEvaluatorVisitorForFilter());
+            memberEval = me.evaluate(memberEval, memberVisitor);
 
             // exit on first null
             if (memberEval == null) {
@@ -169,7 +186,7 @@ public class BasicFilterExpressionEvaluator implements FilterExpressionEvaluator
 
     protected boolean applySizeOperator(int size) {
         if (expression.getValueDescriptor().getType() == FilterExpression.VALUE_TYPE.INTEGER) {
-            int operand = Integer.parseInt(expression.getValueDescriptor().getValue());
+            int operand = sizeOperand;
 
             switch(expression.getOperator()) {
                 case EQ:
@@ -208,7 +225,7 @@ public class BasicFilterExpressionEvaluator implements FilterExpressionEvaluator
             if (valueNode.isNumber() &&
                     (FilterExpression.VALUE_TYPE.INTEGER.equals(type) || FilterExpression.VALUE_TYPE.DOUBLE.equals(type))) {
 
-                BigDecimal opRight = new BigDecimal(valueDescriptor.getValue());
+                BigDecimal opRight = numericOperand;
                 BigDecimal opLeft;
 
                 if (valueNode.isBigDecimal()) {
@@ -23,17 +23,24 @@
  */
 package net.sf.jasperreports.engine.json.expression.filter.evaluation;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import net.sf.jasperreports.engine.json.JRJsonNode;
 import net.sf.jasperreports.engine.json.expression.EvaluationContext;
 import net.sf.jasperreports.engine.json.expression.filter.BasicFilterExpression;
 import net.sf.jasperreports.engine.json.expression.filter.CompoundFilterExpression;
+import net.sf.jasperreports.engine.json.expression.filter.FilterExpression;
 import net.sf.jasperreports.engine.json.expression.filter.NotFilterExpression;
 
 /**
+ * The evaluators are created once for each filter expression and reused on subsequent evaluations.
+ * 
  * @author Narcis Marcu (narcism@users.sourceforge.net)
  */
 public class DefaultFilterExpressionEvaluatorVisitor implements FilterExpressionEvaluatorVisitor {
     private EvaluationContext evaluationContext;
+    private Map<FilterExpression, FilterExpressionEvaluator> evaluators = new IdentityHashMap<>();
 
 
     public DefaultFilterExpressionEvaluatorVisitor(EvaluationContext evaluationContext) {
@@ -42,19 +49,31 @@ public class DefaultFilterExpressionEvaluatorVisitor implements FilterExpression
 
     @Override
     public boolean evaluateBasicFilter(BasicFilterExpression expression, JRJsonNode contextNode) {
-        FilterExpressionEvaluator evaluator = new BasicFilterExpressionEvaluator(evaluationContext, expression);
+        FilterExpressionEvaluator evaluator = evaluators.get(expression);
+        if (evaluator == null) {
+            evaluator = new BasicFilterExpressionEvaluator(evaluationContext, expression);
+            evaluators.put(expression, evaluator);
+        }
         return evaluator.evaluate(contextNode);
     }
 
     @Override
     public boolean evaluateCompoundFilter(CompoundFilterExpression expression, JRJsonNode contextNode) {
-        FilterExpressionEvaluator evaluator = new CompoundFilterExpressionEvaluator(evaluationContext, expression);
+        FilterExpressionEvaluator evaluator = evaluators.get(expression);
+        if (evaluator == null) {
+            evaluator = new CompoundFilterExpressionEvaluator(evaluationContext, expression);
+            evaluators.put(expression, evaluator);
+        }
         return evaluator.evaluate(contextNode);
     }
 
     @Override
     public boolean evaluateNotFilter(NotFilterExpression expression, JRJsonNode contextNode) {
-        FilterExpressionEvaluator evaluator = new NotFilterExpressionEvaluator(evaluationContext, expression);
+        FilterExpressionEvaluator evaluator = evaluators.get(expression);
+        if (evaluator == null) {
+            evaluator = new NotFilterExpressionEvaluator(evaluationContext, expression);
+            evaluators.put(expression, evaluator);
+        }
         return evaluator.evaluate(contextNode);
     }
 }
@@ -23,20 +23,27 @@
  */
 package net.sf.jasperreports.engine.json.expression.member.evaluation;
 
+import java.util.IdentityHashMap;
+import java.util.Map;
+
 import net.sf.jasperreports.engine.json.JsonNodeContainer;
 import net.sf.jasperreports.engine.json.expression.EvaluationContext;
 import net.sf.jasperreports.engine.json.expression.member.ArrayConstructionExpression;
 import net.sf.jasperreports.engine.json.expression.member.ArrayIndexExpression;
 import net.sf.jasperreports.engine.json.expression.member.ArraySliceExpression;
+import net.sf.jasperreports.engine.json.expression.member.MemberExpression;
 import net.sf.jasperreports.engine.json.expression.member.MultiLevelUpExpression;
 import net.sf.jasperreports.engine.json.expression.member.ObjectConstructionExpression;
 import net.sf.jasperreports.engine.json.expression.member.ObjectKeyExpression;
 
 /**
+ * The evaluators are created once for each member expression and reused on subsequent evaluations.
+ * 
  * @author Narcis Marcu (narcism@users.sourceforge.net)
  */
 public class DefaultMemberExpressionEvaluatorVisitor implements MemberExpressionEvaluatorVisitor {
     private EvaluationContext evaluationContext;
+    private Map<MemberExpression, MemberExpressionEvaluator> evaluators = new IdentityHashMap<>();
 
 
     public DefaultMemberExpressionEvaluatorVisitor(EvaluationContext evaluationContext) {
@@ -45,40 +52,68 @@ public class DefaultMemberExpressionEvaluatorVisitor implements MemberExpression
 
     @Override
     public JsonNodeContainer evaluateObjectKey(ObjectKeyExpression expression, JsonNodeContainer contextNode) {
-        MemberExpressionEvaluator evaluator = new ObjectKeyExpressionEvaluator(evaluationContext, expression);
+        MemberExpressionEvaluator evaluator = evaluators.get(expression);
+        if (evaluator == null) {
+            evaluator = createObjectKeyEvaluator(expression);
+            evaluators.put(expression, evaluator);
+        }
         return evaluator.evaluate(contextNode);
     }
 
     @Override
     public JsonNodeContainer evaluateMultiLevelUp(MultiLevelUpExpression expression, JsonNodeContainer contextNode) {
-        MemberExpressionEvaluator evaluator = new MultiLevelUpExpressionEvaluator(evaluationContext, expression);
+        MemberExpressionEvaluator evaluator = evaluators.get(expression);
+        if (evaluator == null) {
+            evaluator = new MultiLevelUpExpressionEvaluator(evaluationContext, expression);
+            evaluators.put(expression, evaluator);
+        }
         return evaluator.evaluate(contextNode);
     }
 
     @Override
     public JsonNodeContainer evaluateArrayIndex(ArrayIndexExpression expression, JsonNodeContainer contextNode) {
-        MemberExpressionEvaluator evaluator = new ArrayIndexExpressionEvaluator(evaluationContext, expression);
+        MemberExpressionEvaluator evaluator = evaluators.get(expression);
+        if (evaluator == null) {
+            evaluator = new ArrayIndexExpressionEvaluator(evaluationContext, expression);
+            evaluators.put(expression, evaluator);
+        }
         return evaluator.evaluate(contextNode);
     }
 
     @Override
     public JsonNodeContainer evaluateArraySlice(ArraySliceExpression expression, JsonNodeContainer contextNode) {
-        MemberExpressionEvaluator evaluator = new ArraySliceExpressionEvaluator(evaluationContext, expression);
+        MemberExpressionEvaluator evaluator = evaluators.get(expression);
+        if (evaluator == null) {
+            evaluator = new ArraySliceExpressionEvaluator(evaluationContext, expression);
+            evaluators.put(expression, evaluator);
+        }
         return evaluator.evaluate(contextNode);
     }
 
     @Override
     public JsonNodeContainer evaluateObjectConstruction(ObjectConstructionExpression expression, JsonNodeContainer contextNode) {
-        MemberExpressionEvaluator evaluator = new ObjectConstructionExpressionEvaluator(evaluationContext, expression);
+        MemberExpressionEvaluator evaluator = evaluators.get(expression);
+        if (evaluator == null) {
+            evaluator = new ObjectConstructionExpressionEvaluator(evaluationContext, expression);
+            evaluators.put(expression, evaluator);
+        }
         return evaluator.evaluate(contextNode);
     }
 
     @Override
     public JsonNodeContainer evaluateArrayConstruction(ArrayConstructionExpression expression, JsonNodeContainer contextNode) {
-        MemberExpressionEvaluator evaluator = new ArrayConstructionExpressionEvaluator(evaluationContext, expression);
+        MemberExpressionEvaluator evaluator = evaluators.get(expression);
+        if (evaluator == null) {
+            evaluator = new ArrayConstructionExpressionEvaluator(evaluationContext, expression);
+            evaluators.put(expression, evaluator);
+        }
         return evaluator.evaluate(contextNode);
     }
 
+    protected MemberExpressionEvaluator createObjectKeyEvaluator(ObjectKeyExpression expression) {
+        return new ObjectKeyExpressionEvaluator(evaluationContext, expression);
+    }
+
     public EvaluationContext getEvaluationContext() {
         return evaluationContext;
     }
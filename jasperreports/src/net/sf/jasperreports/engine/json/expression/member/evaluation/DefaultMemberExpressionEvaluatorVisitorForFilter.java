@@ -23,7 +23,6 @@
  */
 package net.sf.jasperreports.engine.json.expression.member.evaluation;
 
-import net.sf.jasperreports.engine.json.JsonNodeContainer;
 import net.sf.jasperreports.engine.json.expression.EvaluationContext;
 import net.sf.jasperreports.engine.json.expression.member.ObjectKeyExpression;
 
@@ -40,9 +39,8 @@ public class DefaultMemberExpressionEvaluatorVisitorForFilter extends DefaultMem
      * Filters need to keep missing nodes for null checks and keep the array containment when traversing arrays
      */
     @Override
-    public JsonNodeContainer evaluateObjectKey(ObjectKeyExpression expression, JsonNodeContainer contextNode) {
-        ObjectKeyExpressionEvaluator evaluator = new ObjectKeyExpressionEvaluator(getEvaluationContext(), expression, true);
-        return evaluator.evaluate(contextNode);
+    protected MemberExpressionEvaluator createObjectKeyEvaluator(ObjectKeyExpression expression) {
+        return new ObjectKeyExpressionEvaluator(getEvaluationContext(), expression, true);
     }
 
 }
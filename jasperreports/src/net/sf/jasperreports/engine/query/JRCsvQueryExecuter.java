@@ -48,6 +48,7 @@ import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JRPropertiesUtil.PropertySuffix;
 import net.sf.jasperreports.engine.JRValueParameter;
 import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.data.FastCsvDataSource;
 import net.sf.jasperreports.engine.data.JRCsvDataSource;
 
 /**
@@ -86,42 +87,43 @@ public class JRCsvQueryExecuter extends JRAbstractQueryExecuter
 	@Override
 	public JRDataSource createDatasource() throws JRException {
 		String csvCharset = getStringParameterOrProperty(JRCsvQueryExecuterFactory.CSV_ENCODING);
+		boolean fastParser = getBooleanParameterOrProperty(JRCsvQueryExecuterFactory.CSV_FAST_PARSER, false);
 		
 		try {
 			Reader csvReader = (Reader) getParameterValue(JRCsvQueryExecuterFactory.CSV_READER); 
 			if (csvReader != null) {
-				datasource = new JRCsvDataSource(csvReader);
+				datasource = fastParser ? new FastCsvDataSource(csvReader) : new JRCsvDataSource(csvReader);
 			} else {
 				InputStream csvInputStream = (InputStream) getParameterValue(JRCsvQueryExecuterFactory.CSV_INPUT_STREAM);
 				if (csvInputStream != null) {
 					if (csvCharset != null) {
-						datasource = new JRCsvDataSource(csvInputStream, csvCharset);
+						datasource = fastParser ? new FastCsvDataSource(csvInputStream, csvCharset) : new JRCsvDataSource(csvInputStream, csvCharset);
 					} else {
-						datasource = new JRCsvDataSource(csvInputStream);
+						datasource = fastParser ? new FastCsvDataSource(csvInputStream) : new JRCsvDataSource(csvInputStream);
 					}
 				} else {
 					File csvFile = (File) getParameterValue(JRCsvQueryExecuterFactory.CSV_FILE);
 					if (csvFile != null) {
 						if (csvCharset != null) {
-							datasource = new JRCsvDataSource(csvFile, csvCharset);
+							datasource = fastParser ? new FastCsvDataSource(csvFile, csvCharset) : new JRCsvDataSource(csvFile, csvCharset);
 						} else {
-							datasource = new JRCsvDataSource(csvFile);
+							datasource = fastParser ? new FastCsvDataSource(csvFile) : new JRCsvDataSource(csvFile);
 						}
 					} else {
 						URL csvUrl = (URL) getParameterValue(JRCsvQueryExecuterFactory.CSV_URL);
 						if (csvUrl != null) {
 							if (csvCharset != null) {
-								datasource = new JRCsvDataSource(csvUrl, csvCharset);
+								datasource = fastParser ? new FastCsvDataSource(csvUrl, csvCharset) : new JRCsvDataSource(csvUrl, csvCharset);
 							} else {
-								datasource = new JRCsvDataSource(csvUrl);
+								datasource = fastParser ? new FastCsvDataSource(csvUrl) : new JRCsvDataSource(csvUrl);
 							}
 						} else {
 							String csvSource = getStringParameterOrProperty(JRCsvQueryExecuterFactory.CSV_SOURCE);
 							if (csvSource != null) {
 								if (csvCharset != null) {
-									datasource = new JRCsvDataSource(getRepositoryContext(), csvSource, csvCharset);
+									datasource = fastParser ? new FastCsvDataSource(getRepositoryContext(), csvSource, csvCharset) : new JRCsvDataSource(getRepositoryContext(), csvSource, csvCharset);
 								} else {
-									datasource = new JRCsvDataSource(getRepositoryContext(), csvSource);
+									datasource = fastParser ? new FastCsvDataSource(getRepositoryContext(), csvSource) : new JRCsvDataSource(getRepositoryContext(), csvSource);
 								}
 							} else {
 								if (log.isWarnEnabled()){
@@ -136,6 +138,11 @@ public class JRCsvQueryExecuter extends JRAbstractQueryExecuter
 			throw new JRException(e);
 		}
 		
+		if (datasource instanceof FastCsvDataSource) {
+			((FastCsvDataSource) datasource).setMemoryMapped(
+					getBooleanParameterOrProperty(JRCsvQueryExecuterFactory.CSV_MEMORY_MAPPED, false));
+		}
+		
 		if (datasource != null) {
 			List<String> columnNamesList = null;
 			String columnNames = getStringParameterOrProperty(JRCsvQueryExecuterFactory.CSV_COLUMN_NAMES);
@@ -34,6 +34,7 @@ import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRValueParameter;
 import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.data.FastCsvDataSource;
 import net.sf.jasperreports.engine.util.Designated;
 import net.sf.jasperreports.properties.PropertyConstants;
 
@@ -229,6 +230,35 @@ public class JRCsvQueryExecuterFactory extends AbstractQueryExecuterFactory impl
 	 */
 	public static final String CSV_USE_FIRST_ROW_AS_HEADER = "CSV_USE_FIRST_ROW_AS_HEADER";
 
+	/**
+	 * Built-in parameter/property specifying whether the CSV data should be read by a {@link FastCsvDataSource},
+	 * which tokenizes large blocks of CSV data in place and only creates the values of the fields used by the report.
+	 * As parameter, it should hold a <code>java.lang.Boolean</code> value, while as custom dataset property, it should be true or false. 
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			scopeQualifications = {JRCsvQueryExecuterFactory.QUERY_EXECUTER_NAME},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Boolean.class
+			)
+	public static final String CSV_FAST_PARSER = JRPropertiesUtil.PROPERTY_PREFIX + "csv.fast.parser";
+	
+	/**
+	 * Built-in parameter/property specifying whether CSV files read by a {@link FastCsvDataSource} should be memory mapped.
+	 * It only applies when {@link #CSV_FAST_PARSER} is set and the CSV data comes from a file.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			scopeQualifications = {JRCsvQueryExecuterFactory.QUERY_EXECUTER_NAME},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Boolean.class
+			)
+	public static final String CSV_MEMORY_MAPPED = JRPropertiesUtil.PROPERTY_PREFIX + "csv.memory.mapped";
+
 	private final static Object[] CSV_BUILTIN_PARAMETERS = {
 			CSV_SOURCE, "java.lang.String",
 			CSV_INPUT_STREAM, "java.io.InputStream",
@@ -248,7 +278,9 @@ public class JRCsvQueryExecuterFactory extends AbstractQueryExecuterFactory impl
 			CSV_LOCALE, "java.util.Locale",
 			CSV_LOCALE_CODE, "java.lang.String",
 			CSV_TIMEZONE, "java.util.TimeZone",
-			CSV_TIMEZONE_ID, "java.lang.String"
+			CSV_TIMEZONE_ID, "java.lang.String",
+			CSV_FAST_PARSER, "java.lang.Boolean",
+			CSV_MEMORY_MAPPED, "java.lang.Boolean"
 			};
 	
 	@Override
@@ -26,7 +26,9 @@ package net.sf.jasperreports.engine.query;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.math.BigDecimal;
+import java.sql.Blob;
 import java.sql.CallableStatement;
+import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
@@ -50,12 +52,14 @@ import org.apache.commons.logging.LogFactory;
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRDataset;
 import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
 import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JRPropertiesHolder;
 import net.sf.jasperreports.engine.JRResultSetDataSource;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JRValueParameter;
 import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.PrefetchResultSetDataSource;
 
 
 /**
@@ -118,6 +122,10 @@ public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
 	protected ResultSet resultSet;
 	
 	private boolean isCachedRowSet;
+	
+	private boolean isPrefetch;
+	private int prefetchBlockSize;
+	private PrefetchResultSetDataSource prefetchDataSource;
 
 	private TimeZone parametersTimeZone;
 	private boolean parametersTimeZoneOverride;
@@ -171,6 +179,8 @@ public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
 		
 		isCachedRowSet = getBooleanParameterOrProperty(JRJdbcQueryExecuterFactory.PROPERTY_CACHED_ROWSET, false);
 		
+		setPrefetch();
+		
 		setTimeZone();
 
 		registerFunctions();
@@ -196,6 +206,33 @@ public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
 		return CANONICAL_LANGUAGE;
 	}
 
+	protected void setPrefetch()
+	{
+		isPrefetch = !isCachedRowSet 
+				&& getBooleanParameterOrProperty(JRJdbcQueryExecuterFactory.PROPERTY_JDBC_PREFETCH, false);
+		if (isPrefetch && dataset.getFields() != null)
+		{
+			for (JRField field : dataset.getFields())
+			{
+				Class<?> valueClass = field.getValueClass();
+				if (Blob.class.equals(valueClass) || Clob.class.equals(valueClass))
+				{
+					// LOB locators are not guaranteed to be valid after the result set advances
+					if (log.isDebugEnabled())
+					{
+						log.debug("not prefetching rows because of LOB field " + field.getName());
+					}
+					isPrefetch = false;
+					break;
+				}
+			}
+		}
+		
+		prefetchBlockSize = getPropertiesUtil().getIntegerProperty(dataset, 
+				JRJdbcQueryExecuterFactory.PROPERTY_JDBC_PREFETCH_BLOCK_SIZE, 
+				PrefetchResultSetDataSource.DEFAULT_BLOCK_SIZE);
+	}
+
 	protected void setTimeZone()
 	{
 		String timeZoneIdParam = (String) getParameterValue(JRJdbcQueryExecuterFactory.PROPERTY_TIME_ZONE, true);
@@ -335,7 +372,18 @@ public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
 					resultSet = queryResult;
 				}
 				
-				dataSource = new JRResultSetDataSource(getJasperReportsContext(), resultSet);
+				if (isPrefetch)
+				{
+					int blockCount = getPropertiesUtil().getIntegerProperty(dataset, 
+							JRJdbcQueryExecuterFactory.PROPERTY_JDBC_PREFETCH_BLOCK_COUNT, 
+							PrefetchResultSetDataSource.DEFAULT_BLOCK_COUNT);
+					dataSource = prefetchDataSource = new PrefetchResultSetDataSource(getJasperReportsContext(), 
+							resultSet, dataset.getFields(), prefetchBlockSize, blockCount);
+				}
+				else
+				{
+					dataSource = new JRResultSetDataSource(getJasperReportsContext(), resultSet);
+				}
 				dataSource.setTimeZone(fieldsTimeZone, fieldsTimeZoneOverride);
 				
 				TimeZone reportTimeZone = (TimeZone) getParameterValue(JRParameter.REPORT_TIME_ZONE, true);
@@ -448,6 +496,11 @@ public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
 				int fetchSize = getPropertiesUtil().getIntegerProperty(dataset,
 						JRJdbcQueryExecuterFactory.PROPERTY_JDBC_FETCH_SIZE,
 						0);
+				if (fetchSize == 0 && isPrefetch)
+				{
+					// fetching rows from the database in batches that match the prefetch blocks
+					fetchSize = prefetchBlockSize;
+				}
 				if (fetchSize != 0)
 				{
 					statement.setFetchSize(fetchSize);
@@ -919,8 +972,29 @@ public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
 	 * @see net.sf.jasperreports.engine.util.JRQueryExecuter#close()
 	 */
 	@Override
-	public synchronized void close()
+	public void close()
 	{
+		PrefetchResultSetDataSource prefetch;
+		synchronized (this)
+		{
+			prefetch = prefetchDataSource;
+		}
+		
+		if (prefetch != null)
+		{
+			// stopping the prefetch thread before closing the result set;
+			// not holding the lock while waiting so that cancelQuery() can still
+			// cancel the statement if the producer is blocked in the database
+			prefetch.close();
+		}
+		
+		closeResources();
+	}
+
+	protected synchronized void closeResources()
+	{
+		prefetchDataSource = null;
+		
 		if (resultSet != null)
 		{
 			try
@@ -965,6 +1039,11 @@ public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
 	@Override
 	public synchronized boolean cancelQuery() throws JRException
 	{
+		if (prefetchDataSource != null)
+		{
+			prefetchDataSource.cancel();
+		}
+		
 		if (statement != null)
 		{
 			try
@@ -982,7 +1061,7 @@ public class JRJdbcQueryExecuter extends JRAbstractQueryExecuter
 			}
 		}
 		
-		return false;
+		return prefetchDataSource != null;
 	}
 	
 	protected static int getResultSetType(String type)
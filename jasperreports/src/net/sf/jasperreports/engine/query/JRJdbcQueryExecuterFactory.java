@@ -35,6 +35,7 @@ import net.sf.jasperreports.engine.JRPropertiesUtil;
 import net.sf.jasperreports.engine.JRResultSetDataSource;
 import net.sf.jasperreports.engine.JRValueParameter;
 import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.PrefetchResultSetDataSource;
 import net.sf.jasperreports.engine.util.Designated;
 import net.sf.jasperreports.properties.PropertyConstants;
 
@@ -137,6 +138,62 @@ public class JRJdbcQueryExecuterFactory extends AbstractQueryExecuterFactory imp
 			)
 	public static final String PROPERTY_CACHED_ROWSET = JRPropertiesUtil.PROPERTY_PREFIX + "jdbc.cached.rowset";
 
+	/**
+	 * Flag property specifying whether the result set rows should be read by a background thread
+	 * while the report is being filled.
+	 * 
+	 * <p>
+	 * If set, the values of the dataset fields are read in blocks of rows by a 
+	 * {@link PrefetchResultSetDataSource}, overlapping the database round trips with the report filling.
+	 * Prefetching is not used for cached row sets and for datasets that have <code>java.sql.Blob</code> 
+	 * or <code>java.sql.Clob</code> fields.
+	 * If {@link #PROPERTY_JDBC_FETCH_SIZE} is not set, the fetch size is set to the prefetch block size.
+	 * </p>
+	 * 
+	 * <p>
+	 * The property can be set globally, at dataset level, or as a report/dataset parameter.
+	 * </p>
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			scopeQualifications = {QUERY_EXECUTER_NAME},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_JDBC_PREFETCH = JRPropertiesUtil.PROPERTY_PREFIX + "jdbc.prefetch";
+
+	/**
+	 * Property specifying the number of rows in a block read by the prefetch thread.
+	 * 
+	 * @see #PROPERTY_JDBC_PREFETCH
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = "256",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			scopeQualifications = {QUERY_EXECUTER_NAME},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_JDBC_PREFETCH_BLOCK_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "jdbc.prefetch.block.size";
+
+	/**
+	 * Property specifying the maximum number of row blocks read ahead by the prefetch thread.
+	 * 
+	 * @see #PROPERTY_JDBC_PREFETCH
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_DATA_SOURCE,
+			defaultValue = "4",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.DATASET},
+			scopeQualifications = {QUERY_EXECUTER_NAME},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_JDBC_PREFETCH_BLOCK_COUNT = JRPropertiesUtil.PROPERTY_PREFIX + "jdbc.prefetch.block.count";
+
 	/**
 	 * Property specifying the default time zone to be used for sending and retrieving 
 	 * date/time values to and from the database.
@@ -0,0 +1,111 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.query;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import net.sf.jasperreports.data.RewindableDataSourceProvider;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRValueParameter;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.data.JsonStreamingDataSource;
+import net.sf.jasperreports.engine.data.JsonStreamingDataSourceProvider;
+import net.sf.jasperreports.engine.data.TextDataSourceAttributes;
+
+/**
+ * Streaming JSON query executer implementation.
+ * <p/>
+ * The query executer creates {@link JsonStreamingDataSource} instances, which read 
+ * the JSON data as a token stream.
+ */
+public class JsonStreamingQueryExecuter extends AbstractJsonQueryExecuter<JsonStreamingDataSource>
+{
+	public static final String CANONICAL_LANGUAGE = "JSONSTREAM";
+	
+	private JsonStreamingDataSource dataSource;
+	
+	public JsonStreamingQueryExecuter(
+		JasperReportsContext jasperReportsContext,
+		JRDataset dataset, 
+		Map<String, ? extends JRValueParameter> parametersMap
+		)
+	{
+		this(SimpleQueryExecutionContext.of(jasperReportsContext),
+				dataset, parametersMap);
+	}
+
+	public JsonStreamingQueryExecuter(
+		QueryExecutionContext context,
+		JRDataset dataset, 
+		Map<String, ? extends JRValueParameter> parametersMap
+		)
+	{
+		super(context, dataset, parametersMap);
+	}
+	
+	@Override
+	protected String getCanonicalQueryLanguage()
+	{
+		return CANONICAL_LANGUAGE;
+	}
+
+	@Override
+	protected String getParameterReplacement(String parameterName)
+	{
+		return String.valueOf(getParameterValue(parameterName));
+	}
+
+	@Override
+	protected JsonStreamingDataSource getJsonDataInstance(InputStream jsonInputStream) throws JRException
+	{
+		dataSource = new JsonStreamingDataSource(jsonInputStream, getQueryString());
+		return dataSource;
+	}
+
+	@Override
+	protected JsonStreamingDataSource getJsonDataInstance(String jsonSource) throws JRException
+	{
+		dataSource = new JsonStreamingDataSource(getRepositoryContext(), jsonSource, getQueryString());
+		return dataSource;
+	}
+
+	@Override
+	protected RewindableDataSourceProvider<JsonStreamingDataSource> getJsonDataProviderInstance(String source, 
+			TextDataSourceAttributes textAttributes)
+	{
+		return new JsonStreamingDataSourceProvider(getJasperReportsContext(), source, getQueryString(), textAttributes);
+	}
+
+	@Override
+	public void close()
+	{
+		if (dataSource != null)
+		{
+			dataSource.close();
+			dataSource = null;
+		}
+	}
+}
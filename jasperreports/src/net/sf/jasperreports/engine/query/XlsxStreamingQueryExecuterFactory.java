@@ -0,0 +1,70 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.query;
+
+import java.util.Map;
+
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRValueParameter;
+import net.sf.jasperreports.engine.JasperReportsContext;
+
+/**
+ * Streaming XLSX query executer factory.
+ * <p/>
+ * The factory creates {@link net.sf.jasperreports.engine.query.XlsxStreamingQueryExecuter XlsxStreamingQueryExecuter}
+ * query executers, which accept the same parameters and properties as the XLSX query executers.
+ */
+public class XlsxStreamingQueryExecuterFactory extends JRXlsxQueryExecuterFactory 
+{
+	
+	public static final String XLSX_STREAMING_QUERY_EXECUTER_NAME = "net.sf.jasperreports.query.executer:XLSXSTREAM";
+
+	@Override
+	public JRQueryExecuter createQueryExecuter(
+		JasperReportsContext jasperReportsContext,
+		JRDataset dataset, 
+		Map<String,? extends JRValueParameter> parameters
+		) throws JRException 
+	{
+		return createQueryExecuter(SimpleQueryExecutionContext.of(jasperReportsContext), 
+				dataset, parameters);
+	}
+
+	@Override
+	public JRQueryExecuter createQueryExecuter(
+		QueryExecutionContext context,
+		JRDataset dataset, 
+		Map<String,? extends JRValueParameter> parameters
+		) throws JRException 
+	{
+		return new XlsxStreamingQueryExecuter(context, dataset, parameters);
+	}
+
+	@Override
+	public String getDesignation()
+	{
+		return XLSX_STREAMING_QUERY_EXECUTER_NAME;
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.query;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Document;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRValueParameter;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.data.AbstractXmlDataSource;
+import net.sf.jasperreports.engine.data.JRXmlDataSource;
+import net.sf.jasperreports.engine.data.XmlStreamingDataSource;
+
+/**
+ * Streaming XPath query executer implementation.
+ * <p/>
+ * The query executer creates {@link XmlStreamingDataSource} instances that read the XML data
+ * as a stream, using the query string as select expression.
+ * If the XML data is provided as a DOM document via the 
+ * {@link JRXPathQueryExecuterFactory#PARAMETER_XML_DATA_DOCUMENT XML_DATA_DOCUMENT} parameter,
+ * a {@link JRXmlDataSource} is created instead.
+ */
+public class XmlStreamingQueryExecuter extends JRAbstractQueryExecuter
+{
+	private static final Log log = LogFactory.getLog(XmlStreamingQueryExecuter.class);
+
+	public static final String CANONICAL_LANGUAGE = "XPathStream";
+	
+	private XmlStreamingDataSource datasource;
+
+	public XmlStreamingQueryExecuter(
+		JasperReportsContext jasperReportsContext,
+		JRDataset dataset, 
+		Map<String,? extends JRValueParameter> parametersMap
+		)
+	{
+		this(SimpleQueryExecutionContext.of(jasperReportsContext),
+				dataset, parametersMap);
+	}
+	
+	public XmlStreamingQueryExecuter(
+		QueryExecutionContext context,
+		JRDataset dataset, 
+		Map<String,? extends JRValueParameter> parametersMap
+		)
+	{
+		super(context, dataset, parametersMap);
+				
+		parseQuery();
+	}
+
+	@Override
+	protected String getCanonicalQueryLanguage()
+	{
+		return CANONICAL_LANGUAGE;
+	}
+
+	@Override
+	protected String getParameterReplacement(String parameterName)
+	{
+		return String.valueOf(getParameterValue(parameterName));
+	}
+
+	@Override
+	public JRDataSource createDatasource() throws JRException
+	{
+		AbstractXmlDataSource<?> xmlDatasource = null;
+		
+		String xPath = getQueryString();
+		
+		if (log.isDebugEnabled())
+		{
+			log.debug("XPath query: " + xPath);
+		}
+		
+		if (xPath != null)
+		{
+			Document document = (Document) getParameterValue(JRXPathQueryExecuterFactory.PARAMETER_XML_DATA_DOCUMENT);
+			if (document != null) {
+				// the document is already in memory
+				xmlDatasource = new JRXmlDataSource(getJasperReportsContext(), document, xPath);
+			} else {
+				InputStream xmlInputStream = (InputStream) getParameterValue(JRXPathQueryExecuterFactory.XML_INPUT_STREAM);
+				if (xmlInputStream != null) {
+					datasource = new XmlStreamingDataSource(getJasperReportsContext(), xmlInputStream, xPath);
+				} else {
+					File xmlFile = (File) getParameterValue(JRXPathQueryExecuterFactory.XML_FILE);
+					if (xmlFile != null) {
+						datasource = new XmlStreamingDataSource(getJasperReportsContext(), xmlFile, xPath);
+					} else {
+						String xmlSource = getStringParameterOrProperty(JRXPathQueryExecuterFactory.XML_SOURCE);
+						if (xmlSource != null) {
+							datasource = new XmlStreamingDataSource(getRepositoryContext(), xmlSource, xPath, false);
+						} else {
+							if (log.isWarnEnabled()){
+								log.warn("No XML source was provided.");
+							}
+						}
+					}
+				}
+				xmlDatasource = datasource;
+			}
+
+			if (xmlDatasource != null)
+			{
+				xmlDatasource.setLocale((Locale)getParameterValue(JRXPathQueryExecuterFactory.XML_LOCALE, true));
+				xmlDatasource.setDatePattern(getStringParameter(JRXPathQueryExecuterFactory.XML_DATE_PATTERN, JRXPathQueryExecuterFactory.PROPERTY_XML_DATE_PATTERN));
+				xmlDatasource.setNumberPattern(getStringParameter(JRXPathQueryExecuterFactory.XML_NUMBER_PATTERN, JRXPathQueryExecuterFactory.PROPERTY_XML_NUMBER_PATTERN));
+				xmlDatasource.setTimeZone((TimeZone)getParameterValue(JRXPathQueryExecuterFactory.XML_TIME_ZONE, true));
+			}
+		}
+		
+		return xmlDatasource;
+	}
+
+	@Override
+	public void close()
+	{
+		if (datasource != null)
+		{
+			datasource.close();
+			datasource = null;
+		}
+	}
+
+	@Override
+	public boolean cancelQuery() throws JRException
+	{
+		//nothing to cancel
+		return false;
+	}
+	
+}
@@ -0,0 +1,117 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectStreamClass;
+import java.util.List;
+
+import net.sf.jasperreports.engine.JasperReportsContext;
+
+/**
+ * A {@link ContextClassLoaderObjectInputStream} that only deserializes classes
+ * whose names start with one of a list of prefixes.
+ * <p>
+ * Arrays are allowed when their component type is allowed, primitive types are always allowed.
+ * Dynamic proxy classes are rejected.
+ * </p>
+ */
+public class ClassFilterObjectInputStream extends ContextClassLoaderObjectInputStream
+{
+	private final List<String> allowedPrefixes;
+
+	/**
+	 * Creates an object input stream that only deserializes allowed classes.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @param in the input stream to read data from
+	 * @param allowedPrefixes the prefixes of the allowed class names, e.g. package names ending with a dot
+	 * @throws IOException
+	 */
+	public ClassFilterObjectInputStream(JasperReportsContext jasperReportsContext, InputStream in, 
+			List<String> allowedPrefixes) throws IOException
+	{
+		super(jasperReportsContext, in);
+		
+		this.allowedPrefixes = allowedPrefixes;
+	}
+
+	@Override
+	protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException
+	{
+		String name = desc.getName();
+		if (!isAllowed(name))
+		{
+			throw new InvalidClassException(name, "Class not allowed for deserialization");
+		}
+		
+		return super.resolveClass(desc);
+	}
+
+	@Override
+	protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException
+	{
+		throw new InvalidClassException("Proxy classes not allowed for deserialization");
+	}
+
+	protected boolean isAllowed(String className)
+	{
+		String name = className;
+		int dimensions = 0;
+		while (dimensions < name.length() && name.charAt(dimensions) == '[')
+		{
+			++dimensions;
+		}
+		
+		if (dimensions > 0)
+		{
+			name = name.substring(dimensions);
+			if (name.length() == 1)
+			{
+				// array of primitives
+				return true;
+			}
+			
+			if (name.length() > 2 && name.charAt(0) == 'L' && name.charAt(name.length() - 1) == ';')
+			{
+				name = name.substring(1, name.length() - 1);
+			}
+			else
+			{
+				return false;
+			}
+		}
+		
+		for (String prefix : allowedPrefixes)
+		{
+			if (name.startsWith(prefix))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+}
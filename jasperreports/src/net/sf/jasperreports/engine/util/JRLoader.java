@@ -51,6 +51,7 @@ import net.sf.jasperreports.engine.JRVirtualizationHelper;
 import net.sf.jasperreports.engine.JRVirtualizer;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.virtualization.JasperPrintBinaryReader;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -987,6 +988,115 @@ public final class JRLoader
 		}
 	}
 	
+	/**
+	 * Loads a JasperPrint object saved in the binary format from a file, optionally using 
+	 * a virtualizer for the object.
+	 * 
+	 * @param file the file
+	 * @param virtualizer the virtualizer
+	 * @return a JasperPrint object
+	 * @throws JRException
+	 * @see JRSaver#saveJasperPrintBinary(JasperPrint, File)
+	 */
+	public static JasperPrint loadJasperPrintBinary(File file, JRVirtualizer virtualizer) throws JRException
+	{
+		return loadJasperPrintBinary(DefaultJasperReportsContext.getInstance(), file, virtualizer);
+	}
+	
+	/**
+	 * Loads a JasperPrint object saved in the binary format from a file, optionally using 
+	 * a virtualizer for the object.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @param file the file
+	 * @param virtualizer the virtualizer
+	 * @return a JasperPrint object
+	 * @throws JRException
+	 * @see JRSaver#saveJasperPrintBinary(JasperReportsContext, JasperPrint, File)
+	 */
+	public static JasperPrint loadJasperPrintBinary(JasperReportsContext jasperReportsContext, 
+			File file, JRVirtualizer virtualizer) throws JRException
+	{
+		if (!file.exists() || !file.isFile())
+		{
+			throw new JRException( new FileNotFoundException(String.valueOf(file)) );
+		}
+
+		FileInputStream fis = null;
+		try
+		{
+			fis = new FileInputStream(file);
+			JasperPrintBinaryReader reader = new JasperPrintBinaryReader(jasperReportsContext, 
+					new BufferedInputStream(fis), virtualizer);
+			return reader.read();
+		}
+		catch (IOException e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_OBJECT_FROM_FILE_LOADING_ERROR,
+					new Object[]{file},
+					e);
+		}
+		finally
+		{
+			if (fis != null)
+			{
+				try
+				{
+					fis.close();
+				}
+				catch(IOException e)
+				{
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Loads a JasperPrint object saved in the binary format from a stream, optionally using 
+	 * a virtualizer for the object.
+	 * 
+	 * @param is the stream
+	 * @param virtualizer the virtualizer
+	 * @return a JasperPrint object
+	 * @throws JRException
+	 * @see JRSaver#saveJasperPrintBinary(JasperPrint, OutputStream)
+	 */
+	public static JasperPrint loadJasperPrintBinary(InputStream is, JRVirtualizer virtualizer) throws JRException
+	{
+		return loadJasperPrintBinary(DefaultJasperReportsContext.getInstance(), is, virtualizer);
+	}
+	
+	/**
+	 * Loads a JasperPrint object saved in the binary format from a stream, optionally using 
+	 * a virtualizer for the object.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @param is the stream
+	 * @param virtualizer the virtualizer
+	 * @return a JasperPrint object
+	 * @throws JRException
+	 * @see JRSaver#saveJasperPrintBinary(JasperReportsContext, JasperPrint, OutputStream)
+	 */
+	public static JasperPrint loadJasperPrintBinary(JasperReportsContext jasperReportsContext, 
+			InputStream is, JRVirtualizer virtualizer) throws JRException
+	{
+		try
+		{
+			JasperPrintBinaryReader reader = new JasperPrintBinaryReader(jasperReportsContext, is, virtualizer);
+			return reader.read();
+		}
+		catch (IOException e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_OBJECT_FROM_INPUT_STREAM_LOADING_ERROR,
+					null,
+					e);
+		}
+	}
+	
 	private JRLoader()
 	{
 	}
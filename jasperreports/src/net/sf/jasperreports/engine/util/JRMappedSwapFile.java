@@ -0,0 +1,308 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+
+
+/**
+ * {@link net.sf.jasperreports.engine.util.JRSwapFile JRSwapFile} derived class that maps
+ * the swap file in memory in fixed size segments and performs block reads and writes
+ * without any locking.
+ * <p>
+ * Blocks are allocated from a lock-free free blocks list, new blocks being appended at
+ * the end of the file by atomically incrementing a block counter.
+ * A lock is only acquired when the file grows and a new segment needs to be mapped,
+ * so that several virtualizers sharing the swap file can page data in and out concurrently.
+ * <p>
+ * Each segment holds a fixed number of blocks, hence a block never spans over two segments.
+ * Mapped segments are released when the swap file is {@link #dispose() disposed}, the
+ * underlying memory being unmapped when the buffers are garbage collected.
+ */
+public class JRMappedSwapFile extends JRSwapFile
+{
+	private static final Log log = LogFactory.getLog(JRMappedSwapFile.class);
+
+	public static final String EXCEPTION_MESSAGE_KEY_INVALID_SEGMENT_SIZE = "util.mapped.swap.file.invalid.segment.size";
+
+	/**
+	 * The default number of blocks in a mapped segment.
+	 */
+	public static final int DEFAULT_SEGMENT_BLOCK_COUNT = 1024;
+
+	private static final MappedByteBuffer[] NO_SEGMENTS = new MappedByteBuffer[0];
+
+	private final FileChannel fileChannel;
+	private final int blockSize;
+	private final int segmentBlockCount;
+	private final long segmentSize;
+
+	private final AtomicLong allocatedBlockCount;
+	private final AtomicReference<FreeBlock> freeBlocks;
+
+	private final Object segmentsLock = new Object();
+	private volatile MappedByteBuffer[] segments;
+
+	/**
+	 * Creates a memory mapped swap file.
+	 *
+	 * The file name is generated automatically.
+	 *
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the swap file grows when full
+	 */
+	public JRMappedSwapFile(String directory, int blockSize, int minGrowCount)
+	{
+		this(DefaultJasperReportsContext.getInstance(), directory, blockSize, minGrowCount);
+	}
+
+	/**
+	 * Creates a memory mapped swap file.
+	 *
+	 * The file name is generated automatically.
+	 *
+	 * @param jasperReportsContext the JasperReportsContext to read configuration from.
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the swap file grows when full,
+	 * also used as the minimum number of blocks in a mapped segment
+	 */
+	public JRMappedSwapFile(JasperReportsContext jasperReportsContext, String directory, int blockSize, int minGrowCount)
+	{
+		this(jasperReportsContext, directory, blockSize, minGrowCount,
+				Math.max(minGrowCount, DEFAULT_SEGMENT_BLOCK_COUNT));
+	}
+
+	/**
+	 * Creates a memory mapped swap file.
+	 *
+	 * The file name is generated automatically.
+	 *
+	 * @param jasperReportsContext the JasperReportsContext to read configuration from.
+	 * @param directory the directory where the file should be created.
+	 * @param blockSize the size of the blocks allocated by the swap file
+	 * @param minGrowCount the minimum number of blocks by which the swap file grows when full
+	 * @param segmentBlockCount the number of blocks in a mapped segment
+	 */
+	public JRMappedSwapFile(JasperReportsContext jasperReportsContext, String directory, int blockSize, int minGrowCount,
+			int segmentBlockCount)
+	{
+		super(jasperReportsContext, directory, blockSize, minGrowCount);
+
+		long segmentSize = (long) blockSize * segmentBlockCount;
+		if (segmentBlockCount <= 0 || segmentSize > Integer.MAX_VALUE)
+		{
+			throw
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_INVALID_SEGMENT_SIZE,
+					new Object[]{blockSize, segmentBlockCount});
+		}
+
+		this.fileChannel = file.getChannel();
+		this.blockSize = blockSize;
+		this.segmentBlockCount = segmentBlockCount;
+		this.segmentSize = segmentSize;
+		this.allocatedBlockCount = new AtomicLong();
+		this.freeBlocks = new AtomicReference<FreeBlock>();
+		this.segments = NO_SEGMENTS;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "JRMappedSwapFile " + swapFile.getAbsolutePath();
+	}
+
+	@Override
+	protected void write(byte[] data, int dataSize, int dataOffset, long fileOffset) throws IOException
+	{
+		ByteBuffer buffer = blockBuffer(fileOffset);
+		buffer.put(data, dataOffset, dataSize);
+	}
+
+	@Override
+	protected void read(byte[] data, int dataOffset, int dataLength, long fileOffset) throws IOException
+	{
+		ByteBuffer buffer = blockBuffer(fileOffset);
+		buffer.get(data, dataOffset, dataLength);
+	}
+
+	protected ByteBuffer blockBuffer(long fileOffset) throws IOException
+	{
+		int segmentIndex = (int) (fileOffset / segmentSize);
+		MappedByteBuffer segment = segment(segmentIndex);
+
+		// each thread works on its own view of the segment, the blocks are not shared between threads
+		ByteBuffer buffer = segment.duplicate();
+		buffer.position((int) (fileOffset % segmentSize));
+		return buffer;
+	}
+
+	protected MappedByteBuffer segment(int segmentIndex) throws IOException
+	{
+		MappedByteBuffer[] currentSegments = segments;
+		if (segmentIndex < currentSegments.length)
+		{
+			return currentSegments[segmentIndex];
+		}
+
+		return mapSegments(segmentIndex);
+	}
+
+	protected MappedByteBuffer mapSegments(int segmentIndex) throws IOException
+	{
+		synchronized (segmentsLock)
+		{
+			MappedByteBuffer[] currentSegments = segments;
+			if (segmentIndex < currentSegments.length)
+			{
+				return currentSegments[segmentIndex];
+			}
+
+			MappedByteBuffer[] newSegments = new MappedByteBuffer[segmentIndex + 1];
+			System.arraycopy(currentSegments, 0, newSegments, 0, currentSegments.length);
+			for (int i = currentSegments.length; i <= segmentIndex; i++)
+			{
+				if (log.isDebugEnabled())
+				{
+					log.debug("Mapping segment " + i + " of swap file " + swapFile.getPath()
+							+ " with " + segmentBlockCount + " blocks x " + blockSize + " bytes");
+				}
+
+				newSegments[i] = fileChannel.map(FileChannel.MapMode.READ_WRITE, i * segmentSize, segmentSize);
+			}
+
+			segments = newSegments;
+			return newSegments[segmentIndex];
+		}
+	}
+
+	@Override
+	protected long[] reserveFreeBlocks(int blockCount) throws IOException
+	{
+		long[] offsets = new long[blockCount];
+		int reservedCount = 0;
+		while (reservedCount < blockCount)
+		{
+			FreeBlock block = popFreeBlock();
+			if (block == null)
+			{
+				break;
+			}
+			offsets[reservedCount++] = block.offset;
+		}
+
+		if (reservedCount < blockCount)
+		{
+			int newCount = blockCount - reservedCount;
+			long firstBlock = allocatedBlockCount.getAndAdd(newCount);
+			for (int i = 0; i < newCount; i++)
+			{
+				offsets[reservedCount++] = (firstBlock + i) * blockSize;
+			}
+
+			// make sure that all segments up to the last allocated block are mapped
+			segment((int) ((firstBlock + newCount - 1) / segmentBlockCount));
+		}
+
+		return offsets;
+	}
+
+	protected FreeBlock popFreeBlock()
+	{
+		FreeBlock head;
+		do
+		{
+			head = freeBlocks.get();
+			if (head == null)
+			{
+				return null;
+			}
+		}
+		while (!freeBlocks.compareAndSet(head, head.next));
+		return head;
+	}
+
+	@Override
+	protected void freeBlocks(long[] offsets)
+	{
+		if (offsets.length == 0)
+		{
+			return;
+		}
+
+		// chain the blocks so that they are reused in the original order, and push them at once
+		FreeBlock first = new FreeBlock(offsets[0]);
+		FreeBlock last = first;
+		for (int i = 1; i < offsets.length; i++)
+		{
+			FreeBlock block = new FreeBlock(offsets[i]);
+			last.next = block;
+			last = block;
+		}
+
+		FreeBlock head;
+		do
+		{
+			head = freeBlocks.get();
+			last.next = head;
+		}
+		while (!freeBlocks.compareAndSet(head, first));
+	}
+
+	@Override
+	public void dispose()
+	{
+		synchronized (segmentsLock)
+		{
+			segments = NO_SEGMENTS;
+		}
+
+		super.dispose();
+	}
+
+	protected static class FreeBlock
+	{
+		protected final long offset;
+		protected FreeBlock next;
+
+		protected FreeBlock(long offset)
+		{
+			this.offset = offset;
+		}
+	}
+}
@@ -32,8 +32,12 @@ import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.virtualization.JasperPrintBinaryWriter;
 
 
 /**
@@ -151,6 +155,110 @@ public final class JRSaver
 	}
 		
 
+	/**
+	 * Saves a JasperPrint object to a file using the compact binary format.
+	 * 
+	 * @see JRLoader#loadJasperPrintBinary(File, net.sf.jasperreports.engine.JRVirtualizer)
+	 */
+	public static void saveJasperPrintBinary(
+		JasperPrint jasperPrint, 
+		File file
+		) throws JRException
+	{
+		saveJasperPrintBinary(DefaultJasperReportsContext.getInstance(), jasperPrint, file);
+	}
+
+
+	/**
+	 * Saves a JasperPrint object to a file using the compact binary format.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @param jasperPrint the JasperPrint object
+	 * @param file the file
+	 * @see JRLoader#loadJasperPrintBinary(JasperReportsContext, File, net.sf.jasperreports.engine.JRVirtualizer)
+	 */
+	public static void saveJasperPrintBinary(
+		JasperReportsContext jasperReportsContext,
+		JasperPrint jasperPrint, 
+		File file
+		) throws JRException
+	{
+		FileOutputStream fos = null;
+
+		try
+		{
+			fos = new FileOutputStream(file);
+			BufferedOutputStream bos = new BufferedOutputStream(fos);
+			new JasperPrintBinaryWriter(jasperReportsContext, bos).write(jasperPrint);
+			bos.flush();
+		}
+		catch (IOException e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_FILE_SAVE_ERROR,
+					new Object[]{file},
+					e);
+		}
+		finally
+		{
+			if (fos != null)
+			{
+				try
+				{
+					fos.close();
+				}
+				catch(IOException e)
+				{
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Saves a JasperPrint object to a stream using the compact binary format.
+	 * 
+	 * @see JRLoader#loadJasperPrintBinary(java.io.InputStream, net.sf.jasperreports.engine.JRVirtualizer)
+	 */
+	public static void saveJasperPrintBinary(
+		JasperPrint jasperPrint, 
+		OutputStream os
+		) throws JRException
+	{
+		saveJasperPrintBinary(DefaultJasperReportsContext.getInstance(), jasperPrint, os);
+	}
+		
+
+	/**
+	 * Saves a JasperPrint object to a stream using the compact binary format.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @param jasperPrint the JasperPrint object
+	 * @param os the stream
+	 * @see JRLoader#loadJasperPrintBinary(JasperReportsContext, InputStream, net.sf.jasperreports.engine.JRVirtualizer)
+	 */
+	public static void saveJasperPrintBinary(
+		JasperReportsContext jasperReportsContext,
+		JasperPrint jasperPrint, 
+		OutputStream os
+		) throws JRException
+	{
+		try
+		{
+			new JasperPrintBinaryWriter(jasperReportsContext, os).write(jasperPrint);
+		}
+		catch (IOException e)
+		{
+			throw 
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_OUTPUT_STREAM_SAVE_ERROR,
+					null,
+					e);
+		}
+	}
+		
+
 	/**
 	 *
 	 */
@@ -72,7 +72,7 @@ public class LocalVirtualizationSerializer extends VirtualizationSerializer
 	{
 	}
 	
-	public int getClassloaderIdx(Class<?> clazz)
+	public synchronized int getClassloaderIdx(Class<?> clazz)
 	{
 		ClassLoader classLoader = clazz.getClassLoader();
 		int loaderIdx;
@@ -96,7 +96,7 @@ public class LocalVirtualizationSerializer extends VirtualizationSerializer
 		return loaderIdx;
 	}
 	
-	public Class<?> resolveClass(ObjectStreamClass desc, int loaderIdx) throws ClassNotFoundException
+	public synchronized Class<?> resolveClass(ObjectStreamClass desc, int loaderIdx) throws ClassNotFoundException
 	{
 		if (loaderIdx == CLASSLOADER_IDX_NOT_SET)
 		{
@@ -108,7 +108,7 @@ public class LocalVirtualizationSerializer extends VirtualizationSerializer
 		return clazz;
 	}
 	
-	public int getClassDescriptorIdx(Class<?> clazz)
+	public synchronized int getClassDescriptorIdx(Class<?> clazz)
 	{
 		Integer classIdx = classIndexes.get(clazz);
 		if (classIdx == null)
@@ -120,7 +120,7 @@ public class LocalVirtualizationSerializer extends VirtualizationSerializer
 		return classIdx;
 	}
 	
-	public Class<?> getClassForDescriptorIdx(int descriptorIdx)
+	public synchronized Class<?> getClassForDescriptorIdx(int descriptorIdx)
 	{
 		return classes.get(descriptorIdx);
 	}
@@ -0,0 +1,679 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.fill.VirtualizerStore;
+
+/**
+ * Virtualizer store that keeps serialized data outside the Java heap, in direct memory
+ * slabs, up to a fixed memory budget.
+ * <p>
+ * Direct memory is allocated in slabs of fixed size which are divided into blocks,
+ * serialized objects being stored in one or more blocks.
+ * The slabs are allocated on demand until the memory budget is reached and are kept
+ * until the store is disposed; the blocks freed by retrieved or removed objects are reused.
+ * <p>
+ * Objects are serialized directly into the memory blocks and read back from them without
+ * intermediate heap copies.
+ * Objects that do not fit in the remaining memory are spilled to a
+ * {@link JRSwapFile swap file}, which is only created when the budget is first exceeded.
+ */
+public class OffHeapVirtualizerStore implements VirtualizerStore
+{
+	private static final Log log = LogFactory.getLog(OffHeapVirtualizerStore.class);
+	public static final String EXCEPTION_MESSAGE_KEY_DEVIRTUALIZING_ERROR = "util.off.heap.virtualizer.devirtualizing.error";
+	public static final String EXCEPTION_MESSAGE_KEY_INVALID_SLAB_SIZE = "util.off.heap.virtualizer.invalid.slab.size";
+	public static final String EXCEPTION_MESSAGE_KEY_UNABLE_TO_READ_DATA = "util.off.heap.virtualizer.unable.to.read.data";
+	public static final String EXCEPTION_MESSAGE_KEY_VIRTUALIZING_ERROR = "util.off.heap.virtualizer.virtualizing.error";
+
+	/**
+	 * The default size of memory blocks.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	/**
+	 * The default number of blocks in a direct memory slab.
+	 */
+	public static final int DEFAULT_SLAB_BLOCK_COUNT = 256;
+
+	/**
+	 * The default number of blocks by which the spill swap file grows.
+	 */
+	public static final int DEFAULT_SWAP_MIN_GROW_COUNT = 20;
+
+	private static final int[] NO_BLOCKS = new int[0];
+
+	private final int blockSize;
+	private final int slabBlockCount;
+	private final int maxSlabCount;
+	private final int maxBlockCount;
+	private final String swapDirectory;
+	private final int swapMinGrowCount;
+	private final StreamCompression compression;
+	private final Map<String,StoredData> handles;
+
+	private ByteBuffer[] slabs;
+	private int slabCount;
+	private int allocatedBlockCount;
+	private int[] freeBlocks;
+	private int freeBlockCount;
+	private JRSwapFile swap;
+	private boolean disposed;
+
+	private final AtomicLong memoryStoreCount = new AtomicLong();
+	private final AtomicLong swapStoreCount = new AtomicLong();
+
+	/**
+	 * Creates an off-heap store using default block and slab sizes.
+	 *
+	 * @param maxMemorySize the maximum number of bytes of direct memory used by the store
+	 * @param swapDirectory the directory in which the spill swap file is created
+	 * @param compression stream compression to apply to serialized data, can be <code>null</code>
+	 */
+	public OffHeapVirtualizerStore(long maxMemorySize, String swapDirectory, StreamCompression compression)
+	{
+		this(maxMemorySize, DEFAULT_BLOCK_SIZE, DEFAULT_SLAB_BLOCK_COUNT,
+				swapDirectory, DEFAULT_SWAP_MIN_GROW_COUNT, compression);
+	}
+
+	/**
+	 * Creates an off-heap store.
+	 *
+	 * @param maxMemorySize the maximum number of bytes of direct memory used by the store
+	 * @param blockSize the size of the memory blocks, also used for the spill swap file
+	 * @param slabBlockCount the number of blocks in a direct memory slab
+	 * @param swapDirectory the directory in which the spill swap file is created
+	 * @param swapMinGrowCount the minimum number of blocks by which the spill swap file grows when full
+	 * @param compression stream compression to apply to serialized data, can be <code>null</code>
+	 */
+	public OffHeapVirtualizerStore(long maxMemorySize, int blockSize, int slabBlockCount,
+			String swapDirectory, int swapMinGrowCount, StreamCompression compression)
+	{
+		long slabSize = (long) blockSize * slabBlockCount;
+		if (blockSize <= 0 || slabBlockCount <= 0 || slabSize > Integer.MAX_VALUE)
+		{
+			throw
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_INVALID_SLAB_SIZE,
+					new Object[]{blockSize, slabBlockCount});
+		}
+
+		this.blockSize = blockSize;
+		this.slabBlockCount = slabBlockCount;
+		this.maxSlabCount = (int) Math.min(Math.max(maxMemorySize, 0) / slabSize, Integer.MAX_VALUE / slabBlockCount);
+		this.maxBlockCount = maxSlabCount * slabBlockCount;
+		this.swapDirectory = swapDirectory;
+		this.swapMinGrowCount = swapMinGrowCount;
+		this.compression = compression;
+		this.handles = Collections.synchronizedMap(new HashMap<String,StoredData>());
+
+		this.slabs = new ByteBuffer[0];
+		this.freeBlocks = NO_BLOCKS;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "OffHeapVirtualizerStore " + maxBlockCount + " x " + blockSize;
+	}
+
+	protected boolean isStored(JRVirtualizable<?> o)
+	{
+		return handles.containsKey(o.getUID());
+	}
+
+	@Override
+	public boolean store(JRVirtualizable<?> o, VirtualizationSerializer serializer)
+	{
+		if (isStored(o))
+		{
+			if (log.isTraceEnabled())
+			{
+				log.trace("object " + o.getUID() + " already stored");
+			}
+			return false;
+		}
+
+		BlocksOutputStream blocksOut = new BlocksOutputStream();
+		boolean stored = false;
+		try
+		{
+			OutputStream out = compression == null ? blocksOut : compression.compressedOutput(blocksOut);
+			serializer.writeData(o, out);
+			out.close();
+
+			StoredData storedData = blocksOut.storedData(o.getUID());
+			handles.put(o.getUID(), storedData);
+			stored = true;
+			return true;
+		}
+		catch (IOException e)
+		{
+			log.error("Error virtualizing object " + o.getUID() + " to " + this, e);
+			throw
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_VIRTUALIZING_ERROR,
+					(Object[])null,
+					e);
+		}
+		finally
+		{
+			if (!stored)
+			{
+				blocksOut.discard();
+			}
+		}
+	}
+
+	protected StoredData writeSwap(String objectId, byte[] data) throws IOException
+	{
+		JRSwapFile swapFile = swapFile();
+		if (log.isTraceEnabled())
+		{
+			log.trace("writing " + data.length + " for object " + objectId + " to " + swapFile);
+		}
+
+		SwapData swapData = new SwapData(swapFile, swapFile.write(data), data.length);
+		swapStoreCount.incrementAndGet();
+		return swapData;
+	}
+
+	@Override
+	public void retrieve(JRVirtualizable<?> o, boolean remove, VirtualizationSerializer serializer)
+	{
+		StoredData storedData = handles.get(o.getUID());
+		if (storedData == null)
+		{
+			// should not happen
+			log.error("No stored data found for " + o.getUID() + " in " + this);
+			throw
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_UNABLE_TO_READ_DATA,
+					(Object[])null);
+		}
+
+		try
+		{
+			if (log.isTraceEnabled())
+			{
+				log.trace("reading " + storedData.size() + " for object " + o.getUID() + " from " + this);
+			}
+
+			InputStream rawInput = storedData.input();
+			InputStream input = compression == null ? rawInput : compression.uncompressedInput(rawInput);
+			serializer.readData(o, input);
+			input.close();
+		}
+		catch (IOException e)
+		{
+			log.error("Error reading object data " + o.getUID() + " from " + this, e);
+			throw
+				new JRRuntimeException(
+					EXCEPTION_MESSAGE_KEY_DEVIRTUALIZING_ERROR,
+					(Object[])null,
+					e);
+		}
+
+		if (remove)
+		{
+			// the blocks are only freed after the data has been read from them
+			handles.remove(o.getUID());
+			storedData.free();
+		}
+	}
+
+	@Override
+	public void remove(String objectId)
+	{
+		StoredData storedData = handles.remove(objectId);
+		if (storedData == null)
+		{
+			if (log.isTraceEnabled())
+			{
+				log.trace("object " + objectId + " not found for removal");
+			}
+		}
+		else
+		{
+			if (log.isTraceEnabled())
+			{
+				log.trace("removing object " + objectId + " from " + this);
+			}
+
+			storedData.free();
+		}
+	}
+
+	/**
+	 * Releases the direct memory slabs and disposes the spill swap file, if created.
+	 */
+	@Override
+	public void dispose()
+	{
+		handles.clear();
+
+		JRSwapFile swapFile;
+		synchronized (this)
+		{
+			disposed = true;
+
+			// direct memory is released when the buffers are garbage collected
+			slabs = new ByteBuffer[0];
+			slabCount = 0;
+			allocatedBlockCount = 0;
+			freeBlocks = NO_BLOCKS;
+			freeBlockCount = 0;
+
+			swapFile = swap;
+			swap = null;
+		}
+
+		if (swapFile != null)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("disposing " + swapFile);
+			}
+
+			swapFile.dispose();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of direct memory currently allocated by the store.
+	 */
+	public synchronized long getAllocatedMemorySize()
+	{
+		return (long) slabCount * slabBlockCount * blockSize;
+	}
+
+	/**
+	 * Returns the number of bytes of direct memory blocks currently used by stored objects.
+	 */
+	public synchronized long getUsedMemorySize()
+	{
+		return (long) (allocatedBlockCount - freeBlockCount) * blockSize;
+	}
+
+	/**
+	 * Returns the number of objects that have been stored in direct memory since the store was created.
+	 */
+	public long getMemoryStoreCount()
+	{
+		return memoryStoreCount.get();
+	}
+
+	/**
+	 * Returns the number of objects that have been spilled to the swap file since the store was created.
+	 */
+	public long getSwapStoreCount()
+	{
+		return swapStoreCount.get();
+	}
+
+	protected synchronized int[] reserveBlocks(int blockCount)
+	{
+		if (disposed || freeBlockCount + (maxBlockCount - allocatedBlockCount) < blockCount)
+		{
+			return null;
+		}
+
+		int[] blocks = new int[blockCount];
+		int reservedCount = Math.min(blockCount, freeBlockCount);
+		for (int i = 0; i < reservedCount; i++)
+		{
+			blocks[i] = freeBlocks[--freeBlockCount];
+		}
+
+		for (int i = reservedCount; i < blockCount; i++)
+		{
+			int block = allocatedBlockCount++;
+			if (block / slabBlockCount >= slabCount)
+			{
+				allocateSlab();
+			}
+			blocks[i] = block;
+		}
+		return blocks;
+	}
+
+	protected void allocateSlab()
+	{
+		if (slabCount == slabs.length)
+		{
+			ByteBuffer[] newSlabs = new ByteBuffer[Math.min(Math.max(2 * slabCount, 4), maxSlabCount)];
+			System.arraycopy(slabs, 0, newSlabs, 0, slabCount);
+			slabs = newSlabs;
+		}
+
+		if (log.isDebugEnabled())
+		{
+			log.debug("allocating direct memory slab " + slabCount + " of " + slabBlockCount
+					+ " blocks x " + blockSize + " bytes for " + this);
+		}
+
+		slabs[slabCount++] = ByteBuffer.allocateDirect(slabBlockCount * blockSize);
+	}
+
+	protected synchronized void freeBlocks(int[] blocks)
+	{
+		if (disposed)
+		{
+			return;
+		}
+
+		if (freeBlockCount + blocks.length > freeBlocks.length)
+		{
+			int[] newFreeBlocks = new int[Math.max(freeBlockCount + blocks.length, 2 * freeBlocks.length)];
+			System.arraycopy(freeBlocks, 0, newFreeBlocks, 0, freeBlockCount);
+			freeBlocks = newFreeBlocks;
+		}
+
+		// pushing in reverse order so that the blocks are reused in their original order
+		for (int i = blocks.length - 1; i >= 0; --i)
+		{
+			freeBlocks[freeBlockCount++] = blocks[i];
+		}
+	}
+
+	protected ByteBuffer blockBuffer(int block)
+	{
+		ByteBuffer slab;
+		synchronized (this)
+		{
+			slab = slabs[block / slabBlockCount];
+		}
+
+		// the block is owned by the caller, so it can be accessed without locking through a view of the slab
+		ByteBuffer buffer = slab.duplicate();
+		int offset = (block % slabBlockCount) * blockSize;
+		buffer.limit(offset + blockSize);
+		buffer.position(offset);
+		return buffer;
+	}
+
+	protected synchronized JRSwapFile swapFile()
+	{
+		if (swap == null)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("memory budget of " + this + " exceeded, creating spill swap file");
+			}
+
+			swap = new JRSwapFile(swapDirectory, blockSize, swapMinGrowCount);
+		}
+		return swap;
+	}
+
+	/**
+	 * Writes serialized data in memory blocks reserved one at a time.
+	 * When the memory budget is exhausted, the data written so far is moved to a heap buffer
+	 * and the object is spilled to the swap file.
+	 */
+	protected class BlocksOutputStream extends OutputStream
+	{
+		private int[] blocks = new int[4];
+		private int blockCount;
+		private ByteBuffer currentBlock;
+		private int size;
+		private ByteArrayOutputStream spill;
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			while (len > 0)
+			{
+				if (spill != null)
+				{
+					spill.write(b, off, len);
+					size += len;
+					return;
+				}
+
+				if (currentBlock == null || !currentBlock.hasRemaining())
+				{
+					if (!nextBlock())
+					{
+						startSpill();
+						continue;
+					}
+				}
+
+				int count = Math.min(len, currentBlock.remaining());
+				currentBlock.put(b, off, count);
+				off += count;
+				len -= count;
+				size += count;
+			}
+		}
+
+		protected boolean nextBlock()
+		{
+			int[] reserved = reserveBlocks(1);
+			if (reserved == null)
+			{
+				return false;
+			}
+
+			if (blockCount == blocks.length)
+			{
+				blocks = Arrays.copyOf(blocks, 2 * blockCount);
+			}
+			blocks[blockCount++] = reserved[0];
+			currentBlock = blockBuffer(reserved[0]);
+			return true;
+		}
+
+		protected void startSpill()
+		{
+			spill = new ByteArrayOutputStream(size + blockSize);
+			byte[] blockData = new byte[blockSize];
+			for (int i = 0; i < blockCount; i++)
+			{
+				int length = Math.min(blockSize, size - i * blockSize);
+				blockBuffer(blocks[i]).get(blockData, 0, length);
+				spill.write(blockData, 0, length);
+			}
+			discard();
+		}
+
+		protected StoredData storedData(String objectId) throws IOException
+		{
+			if (spill != null)
+			{
+				return writeSwap(objectId, spill.toByteArray());
+			}
+
+			if (log.isTraceEnabled())
+			{
+				log.trace("wrote " + size + " in " + blockCount + " memory blocks for object " + objectId);
+			}
+
+			MemoryData memoryData = new MemoryData(Arrays.copyOf(blocks, blockCount), size);
+			memoryStoreCount.incrementAndGet();
+			return memoryData;
+		}
+
+		/**
+		 * Frees the memory blocks written so far.
+		 */
+		protected void discard()
+		{
+			if (blockCount > 0)
+			{
+				freeBlocks(Arrays.copyOf(blocks, blockCount));
+				blockCount = 0;
+			}
+			currentBlock = null;
+		}
+	}
+
+	/**
+	 * Reads serialized data from memory blocks.
+	 */
+	protected class BlocksInputStream extends InputStream
+	{
+		private final int[] blocks;
+		private int remaining;
+		private int blockIndex;
+		private ByteBuffer currentBlock;
+
+		protected BlocksInputStream(int[] blocks, int size)
+		{
+			this.blocks = blocks;
+			this.remaining = size;
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : (b[0] & 0xff);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			if (len == 0)
+			{
+				return 0;
+			}
+			if (remaining == 0)
+			{
+				return -1;
+			}
+
+			if (currentBlock == null || !currentBlock.hasRemaining())
+			{
+				currentBlock = blockBuffer(blocks[blockIndex++]);
+			}
+
+			int count = Math.min(Math.min(len, remaining), currentBlock.remaining());
+			currentBlock.get(b, off, count);
+			remaining -= count;
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException
+		{
+			return remaining;
+		}
+	}
+
+	protected abstract static class StoredData
+	{
+		protected abstract int size();
+
+		protected abstract InputStream input() throws IOException;
+
+		protected abstract void free();
+	}
+
+	protected class MemoryData extends StoredData
+	{
+		private final int[] blocks;
+		private final int size;
+
+		protected MemoryData(int[] blocks, int size)
+		{
+			this.blocks = blocks;
+			this.size = size;
+		}
+
+		@Override
+		protected int size()
+		{
+			return size;
+		}
+
+		@Override
+		protected InputStream input()
+		{
+			return new BlocksInputStream(blocks, size);
+		}
+
+		@Override
+		protected void free()
+		{
+			freeBlocks(blocks);
+		}
+	}
+
+	protected static class SwapData extends StoredData
+	{
+		private final JRSwapFile swapFile;
+		private final JRSwapFile.SwapHandle handle;
+		private final int size;
+
+		protected SwapData(JRSwapFile swapFile, JRSwapFile.SwapHandle handle, int size)
+		{
+			this.swapFile = swapFile;
+			this.handle = handle;
+			this.size = size;
+		}
+
+		@Override
+		protected int size()
+		{
+			return size;
+		}
+
+		@Override
+		protected InputStream input() throws IOException
+		{
+			return new ByteArrayInputStream(swapFile.read(handle, false));
+		}
+
+		@Override
+		protected void free()
+		{
+			swapFile.free(handle);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.util;
+
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.fill.VirtualizerStore;
+import net.sf.jasperreports.engine.fill.VirtualizerStoreFactory;
+
+/**
+ * Creates {@link OffHeapVirtualizerStore off-heap stores}, the memory budget applying
+ * separately to each store.
+ */
+public class OffHeapVirtualizerStoreFactory implements VirtualizerStoreFactory
+{
+	private long maxMemorySize = 64L * 1024 * 1024;//default value
+	private int blockSize = OffHeapVirtualizerStore.DEFAULT_BLOCK_SIZE;
+	private int slabBlockCount = OffHeapVirtualizerStore.DEFAULT_SLAB_BLOCK_COUNT;
+	private String swapDirectory = System.getProperty("java.io.tmpdir");//default value
+	private int swapMinGrowCount = OffHeapVirtualizerStore.DEFAULT_SWAP_MIN_GROW_COUNT;
+	private StreamCompression compression;
+
+	@Override
+	public VirtualizerStore createStore(JRVirtualizationContext virtualizationContext)
+	{
+		return new OffHeapVirtualizerStore(maxMemorySize, blockSize, slabBlockCount,
+				swapDirectory, swapMinGrowCount, compression);
+	}
+
+	public long getMaxMemorySize()
+	{
+		return maxMemorySize;
+	}
+
+	public void setMaxMemorySize(long maxMemorySize)
+	{
+		this.maxMemorySize = maxMemorySize;
+	}
+
+	public int getBlockSize()
+	{
+		return blockSize;
+	}
+
+	public void setBlockSize(int blockSize)
+	{
+		this.blockSize = blockSize;
+	}
+
+	public int getSlabBlockCount()
+	{
+		return slabBlockCount;
+	}
+
+	public void setSlabBlockCount(int slabBlockCount)
+	{
+		this.slabBlockCount = slabBlockCount;
+	}
+
+	public String getSwapDirectory()
+	{
+		return swapDirectory;
+	}
+
+	public void setSwapDirectory(String swapDirectory)
+	{
+		this.swapDirectory = swapDirectory;
+	}
+
+	public int getSwapMinGrowCount()
+	{
+		return swapMinGrowCount;
+	}
+
+	public void setSwapMinGrowCount(int swapMinGrowCount)
+	{
+		this.swapMinGrowCount = swapMinGrowCount;
+	}
+
+	public StreamCompression getCompression()
+	{
+		return compression;
+	}
+
+	public void setCompression(StreamCompression compression)
+	{
+		this.compression = compression;
+	}
+}
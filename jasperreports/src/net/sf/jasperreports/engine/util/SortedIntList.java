@@ -40,6 +40,17 @@ public class SortedIntList
 		this.values = new int[64];
 	}
 
+	/**
+	 * Creates a list containing the specified values.
+	 * 
+	 * @param sortedValues distinct values in ascending order
+	 */
+	public SortedIntList(int[] sortedValues)
+	{
+		this.size = sortedValues.length;
+		this.values = Arrays.copyOf(sortedValues, Math.max(64, sortedValues.length));
+	}
+
 	public int size()
 	{
 		return size;
@@ -102,6 +113,11 @@ public class SortedIntList
 		return true;
 	}
 	
+	public int[] toArray()
+	{
+		return Arrays.copyOf(values, size);
+	}
+	
 	public int indexOf(int value)
 	{
 		int idx = Arrays.binarySearch(values, 0, size, value);
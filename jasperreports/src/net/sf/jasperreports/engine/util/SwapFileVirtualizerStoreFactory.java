@@ -36,11 +36,14 @@ public class SwapFileVirtualizerStoreFactory implements VirtualizerStoreFactory
 	private int blockSize = 4096;//default value
 	private int minGrowCount = 20;//default value
 	private StreamCompression compression;
+	private boolean memoryMapped;
 	
 	@Override
 	public VirtualizerStore createStore(JRVirtualizationContext virtualizationContext)
 	{
-		JRSwapFile swapFile = new JRSwapFile(directory, blockSize, minGrowCount);
+		JRSwapFile swapFile = memoryMapped 
+				? new JRMappedSwapFile(directory, blockSize, minGrowCount)
+				: new JRSwapFile(directory, blockSize, minGrowCount);
 		return new SwapFileVirtualizerStore(swapFile, true, compression);
 	}
 
@@ -83,4 +86,17 @@ public class SwapFileVirtualizerStoreFactory implements VirtualizerStoreFactory
 	{
 		this.compression = compression;
 	}
+
+	public boolean isMemoryMapped()
+	{
+		return memoryMapped;
+	}
+
+	/**
+	 * Specifies whether the created stores use {@link JRMappedSwapFile memory mapped swap files}.
+	 */
+	public void setMemoryMapped(boolean memoryMapped)
+	{
+		this.memoryMapped = memoryMapped;
+	}
 }
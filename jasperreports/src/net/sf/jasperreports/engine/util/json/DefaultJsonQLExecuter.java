@@ -24,7 +24,9 @@
 package net.sf.jasperreports.engine.util.json;
 
 import java.io.StringReader;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRRuntimeException;
@@ -46,9 +48,11 @@ public class DefaultJsonQLExecuter implements JsonQLExecuter {
     private static final Log log = LogFactory.getLog(DefaultJsonQLExecuter.class);
 
     private JsonQLExpressionEvaluator evaluator;
+    private Map<String, JsonQLExpression> expressionCache;
 
     public DefaultJsonQLExecuter() {
         evaluator = new JsonQLExpressionEvaluator();
+        expressionCache = new HashMap<>();
     }
 
     @Override
@@ -104,7 +108,22 @@ public class DefaultJsonQLExecuter implements JsonQLExecuter {
         return evaluator;
     }
 
+    /**
+     * Returns the parsed expression, parsing each distinct expression text only once.
+     * <p>
+     * Reusing the same expression objects also allows the evaluator to reuse the member and filter evaluators
+     * created for the expression when evaluating it for subsequent nodes.
+     */
     protected JsonQLExpression getJsonQLExpression(String expression) {
+        JsonQLExpression jsonQLExpression = expressionCache.get(expression);
+        if (jsonQLExpression == null) {
+            jsonQLExpression = parseJsonQLExpression(expression);
+            expressionCache.put(expression, jsonQLExpression);
+        }
+        return jsonQLExpression;
+    }
+
+    protected JsonQLExpression parseJsonQLExpression(String expression) {
         try {
             JsonQueryLexer lexer = new JsonQueryLexer(new StringReader(expression.trim()));
 
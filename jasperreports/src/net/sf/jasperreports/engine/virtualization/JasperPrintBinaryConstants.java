@@ -0,0 +1,87 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.virtualization;
+
+/**
+ * Constants of the binary {@link net.sf.jasperreports.engine.JasperPrint JasperPrint} format.
+ * <p>
+ * A binary document starts with the {@link #MAGIC magic number} and the format version,
+ * followed by a sequence of records.
+ * Each record consists of the record type byte, the length of the record data as an integer
+ * and the record data.
+ * The data of each record is written with a separate {@link VirtualizationOutput},
+ * therefore records can be read independently of each other.
+ * <p>
+ * The trailer record is followed by the {@link #RECORD_PAGE_INDEX page index} record and by a footer
+ * of {@link #FOOTER_SIZE} bytes, which contains the offset of the page index record and the magic number.
+ *
+ * @see JasperPrintBinaryWriter
+ * @see JasperPrintBinaryReader
+ */
+public interface JasperPrintBinaryConstants
+{
+
+	/**
+	 * The bytes "JRPB" that start a binary document.
+	 */
+	int MAGIC = 0x4A525042;
+
+	/**
+	 * The current format version.
+	 * <p>
+	 * Readers are able to read documents written with the same or older format versions.
+	 */
+	int FORMAT_VERSION = 1;
+
+	/**
+	 * Document attributes, properties, styles and origins.
+	 */
+	int RECORD_HEADER = 0x01;
+
+	/**
+	 * A page, preceded by the element templates and image renderers first used by the page.
+	 */
+	int RECORD_PAGE = 0x02;
+
+	/**
+	 * The page count, bookmarks and parts, following the page records.
+	 */
+	int RECORD_TRAILER = 0x03;
+
+	/**
+	 * The offsets of the page records and of the trailer record.
+	 */
+	int RECORD_PAGE_INDEX = 0x04;
+
+	/**
+	 * The size of the record header, consisting of the record type and the data length.
+	 */
+	int RECORD_HEADER_SIZE = 5;
+
+	/**
+	 * The size of the document footer, consisting of the page index offset and the magic number.
+	 */
+	int FOOTER_SIZE = 12;
+
+}
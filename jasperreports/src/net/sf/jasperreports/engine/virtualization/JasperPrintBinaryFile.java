@@ -0,0 +1,333 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.virtualization;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import net.sf.jasperreports.engine.JRConstants;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReportsContext;
+
+/**
+ * Provides a {@link JasperPrint} object whose pages are read on demand from a file written by
+ * {@link JasperPrintBinaryWriter}.
+ * <p>
+ * Only the document header and trailer are read when the file is opened, the pages being
+ * read when accessed based on the page index at the end of the file.
+ * A small number of recently accessed pages is kept in memory, therefore a large document can be
+ * exported with constant memory by passing the print object to the exporter, for instance via
+ * {@link net.sf.jasperreports.export.SimpleExporterInput SimpleExporterInput}.
+ * <p>
+ * The element templates and image renderers used by the pages are kept in memory once read.
+ * The print object is read-only and needs to be used while the file is open.
+ */
+public class JasperPrintBinaryFile implements JasperPrintBinaryConstants, Closeable
+{
+	public static final String EXCEPTION_MESSAGE_KEY_MISSING_PAGE_INDEX = "engine.virtualization.print.file.missing.page.index";
+	public static final String EXCEPTION_MESSAGE_KEY_PAGE_READ_ERROR = "engine.virtualization.print.file.page.read.error";
+	public static final String EXCEPTION_MESSAGE_KEY_READ_ERROR = "engine.virtualization.print.file.read.error";
+
+	/**
+	 * The default number of pages kept in memory.
+	 */
+	public static final int DEFAULT_CACHED_PAGE_COUNT = 2;
+
+	private final File file;
+	private final FileChannel channel;
+	private final FileReader reader;
+	private final Map<Integer, JRPrintPage> pageCache;
+
+	private long[] pageOffsets;
+	private int resourcesPageIndex = -1;
+	private JasperPrint jasperPrint;
+
+	public JasperPrintBinaryFile(JasperReportsContext jasperReportsContext, File file) throws JRException
+	{
+		this(jasperReportsContext, file, DEFAULT_CACHED_PAGE_COUNT);
+	}
+
+	/**
+	 * Opens a binary document file.
+	 *
+	 * @param jasperReportsContext the JasperReports context
+	 * @param file the file
+	 * @param cachedPageCount the number of recently accessed pages to keep in memory
+	 */
+	public JasperPrintBinaryFile(JasperReportsContext jasperReportsContext, File file,
+			final int cachedPageCount) throws JRException
+	{
+		this.file = file;
+		this.pageCache = new LinkedHashMap<Integer, JRPrintPage>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, JRPrintPage> eldest)
+			{
+				return size() > cachedPageCount;
+			}
+		};
+
+		try
+		{
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		}
+		catch (IOException e)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_READ_ERROR,
+					new Object[]{file},
+					e);
+		}
+
+		try
+		{
+			// the header is read sequentially from the start of the file
+			this.reader = new FileReader(jasperReportsContext,
+					new BufferedInputStream(Channels.newInputStream(channel)));
+			this.jasperPrint = reader.readHeader();
+
+			readIndex();
+		}
+		catch (IOException e)
+		{
+			closeChannel();
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_READ_ERROR,
+					new Object[]{file},
+					e);
+		}
+		catch (JRException | RuntimeException e)
+		{
+			closeChannel();
+			throw e;
+		}
+	}
+
+	protected void readIndex() throws IOException, JRException
+	{
+		long size = channel.size();
+		ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+		if (size < FOOTER_SIZE || !readFully(footer, size - FOOTER_SIZE) || footer.getInt(8) != MAGIC)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_MISSING_PAGE_INDEX,
+					new Object[]{file});
+		}
+
+		long indexOffset = footer.getLong(0);
+		VirtualizationInput indexRecord = readRecord(indexOffset, RECORD_PAGE_INDEX);
+		int pageCount = indexRecord.readIntCompressed();
+		long[] offsets = new long[pageCount];
+		for (int i = 0; i < pageCount; i++)
+		{
+			offsets[i] = indexRecord.readLong();
+		}
+		long trailerOffset = indexRecord.readLong();
+		pageOffsets = offsets;
+
+		reader.readTrailer(readRecord(trailerOffset, RECORD_TRAILER));
+	}
+
+	/**
+	 * Returns the print object whose pages are read from the file.
+	 */
+	public JasperPrint getJasperPrint()
+	{
+		return jasperPrint;
+	}
+
+	/**
+	 * Returns the number of pages in the document.
+	 */
+	public int getPageCount()
+	{
+		return pageOffsets.length;
+	}
+
+	/**
+	 * Reads a page from the file, unless the page is already in memory.
+	 *
+	 * @param pageIndex the page index
+	 * @return the page
+	 */
+	public synchronized JRPrintPage getPage(int pageIndex)
+	{
+		JRPrintPage page = pageCache.get(pageIndex);
+		if (page == null)
+		{
+			try
+			{
+				// loading the templates and renderers first used by the preceding pages
+				for (int i = resourcesPageIndex + 1; i < pageIndex; i++)
+				{
+					reader.readPageResources(readRecord(pageOffsets[i], RECORD_PAGE));
+				}
+
+				VirtualizationInput record = readRecord(pageOffsets[pageIndex], RECORD_PAGE);
+				reader.readPageResources(record);
+				resourcesPageIndex = Math.max(resourcesPageIndex, pageIndex);
+
+				page = reader.readPageElements(record);
+			}
+			catch (IOException | JRException e)
+			{
+				throw
+					new JRRuntimeException(
+						EXCEPTION_MESSAGE_KEY_PAGE_READ_ERROR,
+						new Object[]{pageIndex, file},
+						e);
+			}
+
+			pageCache.put(pageIndex, page);
+		}
+		return page;
+	}
+
+	protected VirtualizationInput readRecord(long offset, int expectedType) throws IOException, JRException
+	{
+		ByteBuffer recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		if (!readFully(recordHeader, offset))
+		{
+			throw new EOFException();
+		}
+
+		int recordType = recordHeader.get(0) & 0xFF;
+		if (recordType != expectedType)
+		{
+			throw
+				new JRException(
+					JasperPrintBinaryReader.EXCEPTION_MESSAGE_KEY_UNEXPECTED_RECORD,
+					new Object[]{recordType});
+		}
+
+		ByteBuffer data = ByteBuffer.allocate(recordHeader.getInt(1));
+		if (!readFully(data, offset + RECORD_HEADER_SIZE))
+		{
+			throw new EOFException();
+		}
+		return reader.createRecordInput(data.array());
+	}
+
+	protected boolean readFully(ByteBuffer buffer, long position) throws IOException
+	{
+		long readPosition = position;
+		while (buffer.hasRemaining())
+		{
+			// positional reads, not affecting the channel position
+			int read = channel.read(buffer, readPosition);
+			if (read < 0)
+			{
+				return false;
+			}
+			readPosition += read;
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		pageCache.clear();
+		channel.close();
+	}
+
+	private void closeChannel()
+	{
+		try
+		{
+			channel.close();
+		}
+		catch (IOException e)
+		{
+			// ignore
+		}
+	}
+
+	protected class FileReader extends JasperPrintBinaryReader
+	{
+		protected FileReader(JasperReportsContext jasperReportsContext, InputStream in)
+		{
+			super(jasperReportsContext, in);
+		}
+
+		@Override
+		protected JasperPrint createJasperPrint()
+		{
+			return new FileJasperPrint(new FilePageList());
+		}
+	}
+
+	protected class FilePageList extends AbstractList<JRPrintPage> implements RandomAccess
+	{
+		@Override
+		public JRPrintPage get(int index)
+		{
+			if (index < 0 || index >= pageOffsets.length)
+			{
+				throw new IndexOutOfBoundsException("Page index " + index + ", page count " + pageOffsets.length);
+			}
+			return getPage(index);
+		}
+
+		@Override
+		public int size()
+		{
+			return pageOffsets == null ? 0 : pageOffsets.length;
+		}
+	}
+
+	/**
+	 * Print object whose pages are read from the file.
+	 */
+	protected static class FileJasperPrint extends JasperPrint
+	{
+		private static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+
+		protected FileJasperPrint(List<JRPrintPage> pages)
+		{
+			super(pages);
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.virtualization;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JROrigin;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRStyle;
+import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.PrintBookmark;
+import net.sf.jasperreports.engine.PrintPart;
+import net.sf.jasperreports.engine.PrintParts;
+import net.sf.jasperreports.engine.base.JRBasePrintPage;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
+import net.sf.jasperreports.engine.fill.JRTemplateElement;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.type.OrientationEnum;
+import net.sf.jasperreports.renderers.Renderable;
+
+/**
+ * Reads {@link JasperPrint} objects written by {@link JasperPrintBinaryWriter}.
+ * <p>
+ * The document can be read at once using {@link #read()}, or incrementally by calling
+ * {@link #readHeader()} and then {@link #readPage()} until no more pages are returned.
+ * <p>
+ * If a virtualizer is used, the pages are created as {@link JRVirtualPrintPage virtual pages}
+ * which can be paged out while the document is read.
+ *
+ * @see JasperPrintBinaryWriter
+ */
+public class JasperPrintBinaryReader implements JasperPrintBinaryConstants
+{
+	public static final String EXCEPTION_MESSAGE_KEY_INVALID_FORMAT = "engine.virtualization.print.reader.invalid.format";
+	public static final String EXCEPTION_MESSAGE_KEY_UNEXPECTED_RECORD = "engine.virtualization.print.reader.unexpected.record";
+	public static final String EXCEPTION_MESSAGE_KEY_UNSUPPORTED_VERSION = "engine.virtualization.print.reader.unsupported.version";
+
+	private final DataInputStream in;
+	private final JRVirtualizer virtualizer;
+	private final JRVirtualizationContext context;
+
+	private int formatVersion;
+	private JasperPrint print;
+	private boolean finished;
+	private int pageCount;
+
+	public JasperPrintBinaryReader(JasperReportsContext jasperReportsContext, InputStream in)
+	{
+		this(jasperReportsContext, in, null);
+	}
+
+	/**
+	 * Creates a reader which uses a virtualizer for the read pages.
+	 *
+	 * @param jasperReportsContext the JasperReports context
+	 * @param in the input stream
+	 * @param virtualizer the virtualizer, can be <code>null</code>
+	 */
+	public JasperPrintBinaryReader(JasperReportsContext jasperReportsContext, InputStream in,
+			JRVirtualizer virtualizer)
+	{
+		this.in = new DataInputStream(in);
+		this.virtualizer = virtualizer;
+		// the context keeps the templates and renderers read so far
+		this.context = new JRVirtualizationContext(jasperReportsContext);
+		if (virtualizer != null)
+		{
+			this.context.setVirtualizer(virtualizer);
+		}
+	}
+
+	/**
+	 * Reads an entire document.
+	 *
+	 * @return the document
+	 */
+	public JasperPrint read() throws IOException, JRException
+	{
+		JasperPrint jasperPrint = readHeader();
+
+		JRPrintPage page;
+		while ((page = readPage()) != null)
+		{
+			jasperPrint.addPage(page);
+		}
+
+		return jasperPrint;
+	}
+
+	/**
+	 * Reads the document header.
+	 *
+	 * @return the document, without any pages
+	 */
+	public JasperPrint readHeader() throws IOException, JRException
+	{
+		int magic = in.readInt();
+		if (magic != MAGIC)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_INVALID_FORMAT,
+					(Object[]) null);
+		}
+
+		formatVersion = in.readInt();
+		if (formatVersion > FORMAT_VERSION)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_UNSUPPORTED_VERSION,
+					new Object[]{formatVersion, FORMAT_VERSION});
+		}
+
+		readHeaderRecord(startRecord(RECORD_HEADER));
+		return print;
+	}
+
+	protected JasperPrint createJasperPrint()
+	{
+		return new JasperPrint();
+	}
+
+	protected void readHeaderRecord(VirtualizationInput record) throws IOException, JRException
+	{
+		print = createJasperPrint();
+		print.setName((String) record.readJRObject());
+		print.setPageWidth(record.readIntCompressed());
+		print.setPageHeight(record.readIntCompressed());
+		print.setTopMargin((Integer) record.readJRObject());
+		print.setLeftMargin((Integer) record.readJRObject());
+		print.setBottomMargin((Integer) record.readJRObject());
+		print.setRightMargin((Integer) record.readJRObject());
+		String orientation = (String) record.readJRObject();
+		if (orientation != null)
+		{
+			print.setOrientation(OrientationEnum.getByName(orientation));
+		}
+		print.setFormatFactoryClass((String) record.readJRObject());
+		print.setLocaleCode((String) record.readJRObject());
+		print.setTimeZoneId((String) record.readJRObject());
+
+		int propertyCount = record.readIntCompressed();
+		for (int i = 0; i < propertyCount; i++)
+		{
+			String propertyName = (String) record.readJRObject();
+			String value = (String) record.readJRObject();
+			print.setProperty(propertyName, value);
+		}
+
+		int styleCount = record.readIntCompressed();
+		JRStyle[] styles = new JRStyle[styleCount];
+		for (int i = 0; i < styleCount; i++)
+		{
+			styles[i] = (JRStyle) record.readJRObject();
+			print.addStyle(styles[i], true);
+		}
+		int defaultStyleIndex = record.readIntCompressed() - 1;
+		if (defaultStyleIndex >= 0)
+		{
+			print.setDefaultStyle(styles[defaultStyleIndex]);
+		}
+
+		int originCount = record.readIntCompressed();
+		for (int i = 0; i < originCount; i++)
+		{
+			print.addOrigin((JROrigin) record.readJRObject());
+		}
+
+		if (virtualizer != null)
+		{
+			JRVirtualizationContext.register(context, print);
+		}
+	}
+
+	/**
+	 * Reads the next page of the document.
+	 *
+	 * @return the next page, or <code>null</code> if all pages have been read
+	 */
+	public JRPrintPage readPage() throws IOException, JRException
+	{
+		if (finished)
+		{
+			return null;
+		}
+
+		int recordType = in.readUnsignedByte();
+		if (recordType == RECORD_TRAILER)
+		{
+			readTrailer(readRecord());
+			return null;
+		}
+
+		if (recordType != RECORD_PAGE)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_UNEXPECTED_RECORD,
+					new Object[]{recordType});
+		}
+
+		return readPageRecord(readRecord());
+	}
+
+	protected JRPrintPage readPageRecord(VirtualizationInput record) throws IOException
+	{
+		readPageResources(record);
+		JRPrintPage page = readPageElements(record);
+		++pageCount;
+		return page;
+	}
+
+	/**
+	 * Reads the element templates and image renderers at the start of a page record.
+	 */
+	protected void readPageResources(VirtualizationInput record) throws IOException
+	{
+		int templateCount = record.readIntCompressed();
+		for (int i = 0; i < templateCount; i++)
+		{
+			context.cacheTemplate((JRTemplateElement) record.readJRObject());
+		}
+
+		int rendererCount = record.readIntCompressed();
+		for (int i = 0; i < rendererCount; i++)
+		{
+			context.cacheRenderer((Renderable) record.readJRObject());
+		}
+	}
+
+	/**
+	 * Reads the elements of a page record, after the page resources have been read.
+	 */
+	protected JRPrintPage readPageElements(VirtualizationInput record) throws IOException
+	{
+		JRPrintPage page = virtualizer == null ? new JRBasePrintPage() : new JRVirtualPrintPage(context);
+		int elementCount = record.readIntCompressed();
+		for (int i = 0; i < elementCount; i++)
+		{
+			page.addElement((JRPrintElement) record.readJRObject());
+		}
+		return page;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected void readTrailer(VirtualizationInput record) throws IOException
+	{
+		finished = true;
+
+		// the page count is only informative
+		record.readIntCompressed();
+
+		List<PrintBookmark> bookmarks = (List<PrintBookmark>) record.readJRObject();
+		print.setBookmarks(bookmarks);
+
+		PrintParts parts = (PrintParts) record.readJRObject();
+		if (parts != null)
+		{
+			for (Iterator<Map.Entry<Integer, PrintPart>> it = parts.partsIterator(); it.hasNext();)
+			{
+				Map.Entry<Integer, PrintPart> partEntry = it.next();
+				print.addPart(partEntry.getKey(), partEntry.getValue());
+			}
+		}
+
+		if (virtualizer != null)
+		{
+			context.setReadOnly(true);
+		}
+	}
+
+	/**
+	 * Returns the format version of the document.
+	 */
+	public int getFormatVersion()
+	{
+		return formatVersion;
+	}
+
+	/**
+	 * Returns the number of pages read so far.
+	 */
+	public int getPageCount()
+	{
+		return pageCount;
+	}
+
+	/**
+	 * Returns the virtualization context used for the read document.
+	 */
+	public JRVirtualizationContext getVirtualizationContext()
+	{
+		return context;
+	}
+
+	protected VirtualizationInput startRecord(int expectedType) throws IOException, JRException
+	{
+		int recordType = in.readUnsignedByte();
+		if (recordType != expectedType)
+		{
+			throw
+				new JRException(
+					EXCEPTION_MESSAGE_KEY_UNEXPECTED_RECORD,
+					new Object[]{recordType});
+		}
+
+		return readRecord();
+	}
+
+	protected VirtualizationInput readRecord() throws IOException
+	{
+		int length = in.readInt();
+		byte[] data = new byte[length];
+		in.readFully(data);
+		return createRecordInput(data);
+	}
+
+	protected VirtualizationInput createRecordInput(byte[] data) throws IOException
+	{
+		return new VirtualizationInput(new ByteArrayInputStream(data), context);
+	}
+}
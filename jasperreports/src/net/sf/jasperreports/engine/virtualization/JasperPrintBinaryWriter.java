@@ -0,0 +1,302 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.engine.virtualization;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.jasperreports.engine.JROrigin;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintImage;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRStyle;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.fill.JRTemplateElement;
+import net.sf.jasperreports.engine.fill.JRTemplatePrintElement;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.renderers.Renderable;
+
+/**
+ * Writes {@link JasperPrint} objects in the binary format described by {@link JasperPrintBinaryConstants}.
+ * <p>
+ * Print elements are written using the compact {@link VirtualizationOutput} scheme, while
+ * element templates and image renderers are written only once, before the first page that uses them.
+ * <p>
+ * The document can be written at once using {@link #write(JasperPrint)}, or incrementally
+ * by calling {@link #writeHeader(JasperPrint)}, {@link #writePage(JRPrintPage)} for each page
+ * and {@link #writeTrailer(JasperPrint)}, in which case the pages do not need to be kept in memory.
+ * <p>
+ * The offsets of the pages are recorded in an index at the end of the document, which allows
+ * {@link JasperPrintBinaryFile} to read pages on demand.
+ *
+ * @see JasperPrintBinaryReader
+ */
+public class JasperPrintBinaryWriter implements JasperPrintBinaryConstants
+{
+
+	private final DataOutputStream out;
+	private final JRVirtualizationContext context;
+	private final ByteArrayOutputStream recordBuffer;
+
+	private boolean started;
+	private int pageCount;
+	private long position;
+	private long[] pageOffsets;
+
+	public JasperPrintBinaryWriter(JasperReportsContext jasperReportsContext, OutputStream out)
+	{
+		this.out = new DataOutputStream(out);
+		// the context keeps track of the templates and renderers already written
+		this.context = new JRVirtualizationContext(jasperReportsContext);
+		this.recordBuffer = new ByteArrayOutputStream();
+		this.pageOffsets = new long[16];
+	}
+
+	/**
+	 * Writes an entire document.
+	 *
+	 * @param print the document
+	 */
+	public void write(JasperPrint print) throws IOException
+	{
+		writeHeader(print);
+
+		for (JRPrintPage page : print.getPages())
+		{
+			writePage(page);
+		}
+
+		writeTrailer(print);
+		flush();
+	}
+
+	/**
+	 * Writes the document header, which includes the document attributes, properties, styles
+	 * and origins.
+	 *
+	 * @param print the document
+	 */
+	public void writeHeader(JasperPrint print) throws IOException
+	{
+		if (!started)
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			position += 8;
+			started = true;
+		}
+
+		VirtualizationOutput record = startRecord();
+
+		record.writeJRObject(print.getName());
+		record.writeIntCompressed(print.getPageWidth());
+		record.writeIntCompressed(print.getPageHeight());
+		record.writeJRObject(print.getTopMargin());
+		record.writeJRObject(print.getLeftMargin());
+		record.writeJRObject(print.getBottomMargin());
+		record.writeJRObject(print.getRightMargin());
+		record.writeJRObject(print.getOrientationValue() == null ? null : print.getOrientationValue().getName());
+		record.writeJRObject(print.getFormatFactoryClass());
+		record.writeJRObject(print.getLocaleCode());
+		record.writeJRObject(print.getTimeZoneId());
+
+		String[] propertyNames = print.getPropertyNames();
+		record.writeIntCompressed(propertyNames.length);
+		for (String propertyName : propertyNames)
+		{
+			record.writeJRObject(propertyName);
+			record.writeJRObject(print.getProperty(propertyName));
+		}
+
+		List<JRStyle> styles = print.getStylesList();
+		JRStyle defaultStyle = print.getDefaultStyle();
+		int defaultStyleIndex = -1;
+		record.writeIntCompressed(styles.size());
+		for (int i = 0; i < styles.size(); i++)
+		{
+			JRStyle style = styles.get(i);
+			if (style == defaultStyle)
+			{
+				defaultStyleIndex = i;
+			}
+			record.writeJRObject(style);
+		}
+		// writing the index plus 1 as the compressed format does not handle negative values
+		record.writeIntCompressed(defaultStyleIndex + 1);
+
+		List<JROrigin> origins = print.getOriginsList();
+		record.writeIntCompressed(origins.size());
+		for (JROrigin origin : origins)
+		{
+			record.writeJRObject(origin);
+		}
+
+		endRecord(RECORD_HEADER, record);
+	}
+
+	/**
+	 * Writes a page.
+	 * <p>
+	 * The page record also contains the element templates and the image renderers that
+	 * have not been written with a previous page.
+	 *
+	 * @param page the page
+	 */
+	public void writePage(JRPrintPage page) throws IOException
+	{
+		List<JRPrintElement> elements = page.getElements();
+
+		List<JRTemplateElement> newTemplates = new ArrayList<JRTemplateElement>();
+		List<Renderable> newRenderers = new ArrayList<Renderable>();
+		collectNewResources(elements, newTemplates, newRenderers);
+
+		VirtualizationOutput record = startRecord();
+
+		record.writeIntCompressed(newTemplates.size());
+		for (JRTemplateElement template : newTemplates)
+		{
+			record.writeJRObject(template);
+		}
+
+		record.writeIntCompressed(newRenderers.size());
+		for (Renderable renderer : newRenderers)
+		{
+			record.writeJRObject(renderer);
+		}
+
+		record.writeIntCompressed(elements.size());
+		for (JRPrintElement element : elements)
+		{
+			record.writeJRObject(element);
+		}
+
+		if (pageCount == pageOffsets.length)
+		{
+			pageOffsets = Arrays.copyOf(pageOffsets, pageOffsets.length * 2);
+		}
+		pageOffsets[pageCount] = position;
+		
+		endRecord(RECORD_PAGE, record);
+		++pageCount;
+	}
+
+	protected void collectNewResources(List<JRPrintElement> elements,
+			List<JRTemplateElement> newTemplates, List<Renderable> newRenderers)
+	{
+		for (JRPrintElement element : elements)
+		{
+			if (element instanceof JRTemplatePrintElement)
+			{
+				JRTemplateElement template = ((JRTemplatePrintElement) element).getTemplate();
+				String templateId = template.getId();
+				if (templateId != null && !context.hasCachedTemplate(templateId))
+				{
+					context.cacheTemplate(template);
+					newTemplates.add(template);
+				}
+			}
+
+			if (element instanceof JRPrintImage)
+			{
+				Renderable renderer = ((JRPrintImage) element).getRenderer();
+				if (renderer != null && renderer.getId() != null && !context.hasCachedRenderer(renderer.getId()))
+				{
+					context.cacheRenderer(renderer);
+					newRenderers.add(renderer);
+				}
+			}
+
+			if (element instanceof JRPrintFrame)
+			{
+				collectNewResources(((JRPrintFrame) element).getElements(), newTemplates, newRenderers);
+			}
+		}
+	}
+
+	/**
+	 * Writes the document trailer, which includes the bookmarks and the parts of the document,
+	 * followed by the index of the page records.
+	 *
+	 * @param print the document
+	 */
+	public void writeTrailer(JasperPrint print) throws IOException
+	{
+		long trailerOffset = position;
+		VirtualizationOutput record = startRecord();
+		record.writeIntCompressed(pageCount);
+		record.writeJRObject(print.getBookmarks());
+		record.writeJRObject(print.hasParts() ? print.getParts() : null);
+		endRecord(RECORD_TRAILER, record);
+
+		long indexOffset = position;
+		VirtualizationOutput indexRecord = startRecord();
+		indexRecord.writeIntCompressed(pageCount);
+		for (int i = 0; i < pageCount; i++)
+		{
+			indexRecord.writeLong(pageOffsets[i]);
+		}
+		indexRecord.writeLong(trailerOffset);
+		endRecord(RECORD_PAGE_INDEX, indexRecord);
+
+		out.writeLong(indexOffset);
+		out.writeInt(MAGIC);
+		position += FOOTER_SIZE;
+	}
+
+	/**
+	 * Returns the number of pages written so far.
+	 */
+	public int getPageCount()
+	{
+		return pageCount;
+	}
+
+	public void flush() throws IOException
+	{
+		out.flush();
+	}
+
+	protected VirtualizationOutput startRecord() throws IOException
+	{
+		recordBuffer.reset();
+		return new VirtualizationOutput(recordBuffer, context);
+	}
+
+	protected void endRecord(int recordType, VirtualizationOutput record) throws IOException
+	{
+		record.flush();
+
+		out.writeByte(recordType);
+		out.writeInt(recordBuffer.size());
+		recordBuffer.writeTo(out);
+		position += RECORD_HEADER_SIZE + recordBuffer.size();
+	}
+}
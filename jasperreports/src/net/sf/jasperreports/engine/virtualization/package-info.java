@@ -24,6 +24,13 @@
 /**
  * Contains classes and interfaces for serialization during the report virtualization. 
  * <br/>
+ * The same serialization scheme is used by the binary {@link net.sf.jasperreports.engine.JasperPrint JasperPrint} 
+ * format written by {@link net.sf.jasperreports.engine.virtualization.JasperPrintBinaryWriter JasperPrintBinaryWriter} 
+ * and read by {@link net.sf.jasperreports.engine.virtualization.JasperPrintBinaryReader JasperPrintBinaryReader}, 
+ * which is more compact and faster to load than the Java serialization of report documents. 
+ * Files in this format can also be opened as {@link net.sf.jasperreports.engine.virtualization.JasperPrintBinaryFile JasperPrintBinaryFile} 
+ * objects, whose pages are read on demand so that large documents can be exported without being loaded in memory. 
+ * <br/>
  * <h3>Related Documentation</h3>
  * <a href="http://community.jaspersoft.com/wiki/jasperreports-library-tutorial">JasperReports Tutorial</a>
  */
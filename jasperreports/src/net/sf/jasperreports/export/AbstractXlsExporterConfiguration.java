@@ -37,6 +37,7 @@ public abstract class AbstractXlsExporterConfiguration extends SimpleExporterCon
 	private String metadataSubject;
 	private String metadataKeywords;
 	private String metadataApplication;
+	private Integer layoutThreads;
 	
 	
 	/**
@@ -163,4 +164,18 @@ public abstract class AbstractXlsExporterConfiguration extends SimpleExporterCon
 	{
 		this.metadataApplication = metadataApplication;
 	}
+	
+	@Override
+	public Integer getLayoutThreads()
+	{
+		return layoutThreads;
+	}
+	
+	/**
+	 * 
+	 */
+	public void setLayoutThreads(Integer layoutThreads)
+	{
+		this.layoutThreads = layoutThreads;
+	}
 }
@@ -323,6 +323,18 @@ public interface PdfExporterConfiguration extends ExporterConfiguration
 			valueType = Boolean.class
 			)
 	public static final String PROPERTY_DISPLAY_METADATA_TITLE = JRPropertiesUtil.PROPERTY_PREFIX + "export.pdf.display.metadata.title";
+	
+	/**
+	 * Property whose value is used as default for the {@link #getRenderingThreads()} export configuration setting.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_EXPORT,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_RENDERING_THREADS = JRPropertiesUtil.PROPERTY_PREFIX + "export.pdf.rendering.threads";
 
 	/**
 	 * Property that determines whether justified text alignment can modify letter spacing in words.
@@ -613,4 +625,18 @@ public interface PdfExporterConfiguration extends ExporterConfiguration
 		booleanDefault=false
 		)
 	public Boolean isDisplayMetadataTitle();
+
+	/**
+	 * Specifies the number of worker threads that prepare the text and image elements of the following pages
+	 * while a page is written to the PDF document.
+	 * The value 0 means that the pages are processed only by the exporting thread.
+	 * The produced document does not depend on the number of threads.
+	 * @see #PROPERTY_RENDERING_THREADS
+	 * @see net.sf.jasperreports.engine.export.PdfPagePipeline
+	 */
+	@ExporterProperty(
+		value=PROPERTY_RENDERING_THREADS, 
+		intDefault=0
+		)
+	public Integer getRenderingThreads();
 }
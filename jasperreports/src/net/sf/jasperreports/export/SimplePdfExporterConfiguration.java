@@ -55,6 +55,7 @@ public class SimplePdfExporterConfiguration extends SimpleExporterConfiguration
 	private String metadataKeywords;
 	private String metadataCreator;
 	private Boolean displayMetadataTitle;
+	private Integer renderingThreads;
 
 	
 	/**
@@ -369,4 +370,18 @@ public class SimplePdfExporterConfiguration extends SimpleExporterConfiguration
 	public void setDisplayMetadataTitle(Boolean displayMetadataTitle) {
 		this.displayMetadataTitle = displayMetadataTitle;
 	}
+
+	@Override
+	public Integer getRenderingThreads()
+	{
+		return renderingThreads;
+	}
+
+	/**
+	 * 
+	 */
+	public void setRenderingThreads(Integer renderingThreads)
+	{
+		this.renderingThreads = renderingThreads;
+	}
 }
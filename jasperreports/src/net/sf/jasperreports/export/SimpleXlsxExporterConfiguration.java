@@ -30,6 +30,9 @@ package net.sf.jasperreports.export;
 public class SimpleXlsxExporterConfiguration extends SimpleXlsExporterConfiguration implements XlsxExporterConfiguration
 {
 	private String macroTemplate;
+	private Boolean useSharedStrings;
+	private Boolean streamSheets;
+	private Integer sheetThreads;
 	
 	/**
 	 * 
@@ -51,4 +54,46 @@ public class SimpleXlsxExporterConfiguration extends SimpleXlsExporterConfigurat
 	{
 		this.macroTemplate = macroTemplate;
 	}
+
+	@Override
+	public Boolean isUseSharedStrings()
+	{
+		return useSharedStrings;
+	}
+
+	/**
+	 * 
+	 */
+	public void setUseSharedStrings(Boolean useSharedStrings)
+	{
+		this.useSharedStrings = useSharedStrings;
+	}
+
+	@Override
+	public Boolean isStreamSheets()
+	{
+		return streamSheets;
+	}
+
+	/**
+	 * 
+	 */
+	public void setStreamSheets(Boolean streamSheets)
+	{
+		this.streamSheets = streamSheets;
+	}
+
+	@Override
+	public Integer getSheetThreads()
+	{
+		return sheetThreads;
+	}
+
+	/**
+	 * 
+	 */
+	public void setSheetThreads(Integer sheetThreads)
+	{
+		this.sheetThreads = sheetThreads;
+	}
 }
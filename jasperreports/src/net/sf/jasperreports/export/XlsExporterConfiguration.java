@@ -146,6 +146,18 @@ public interface XlsExporterConfiguration extends ExporterConfiguration
 			)
 	public static final String PROPERTY_METADATA_APPLICATION = JRPropertiesUtil.PROPERTY_PREFIX + "export.xls.metadata.application";
 	
+	/**
+	 * Property whose value is used as default for the {@link #getLayoutThreads()} export configuration setting.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_EXPORT,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_LAYOUT_THREADS = JRXlsAbstractExporter.XLS_EXPORTER_PROPERTIES_PREFIX + "layout.threads";
+	
 	/**
 	 * Returns a boolean value specifying whether the standard color palette should be customized
 	 * so that the XLS result uses the original report colors.
@@ -238,4 +250,28 @@ public interface XlsExporterConfiguration extends ExporterConfiguration
 	 */
 	@ExporterProperty(PROPERTY_METADATA_APPLICATION)
 	public String getMetadataApplication();
+
+	/**
+	 * Specifies the number of worker threads that compute the grid layouts of the following pages
+	 * while a sheet is written, when each page is exported on a separate sheet.
+	 * The value 0 means that the pages are laid out only by the exporting thread.
+	 * <p>
+	 * Only the layout computation is done in parallel.
+	 * The sheets are still serialized in page order by the exporting thread, which also registers
+	 * the cell styles, fonts and shared strings, therefore the produced document does not depend
+	 * on the number of threads, and the export is only faster by the time spent laying out the pages.
+	 * <p>
+	 * This setting is used by the grid based Excel exporters ({@link JRXlsExporter}, {@link JRXlsxExporter} 
+	 * and {@link JROdsExporter}), and only when no exporter filter is configured.
+	 * The XLSX exporter can also serialize the sheets on worker threads, 
+	 * see {@link XlsxExporterConfiguration#getSheetThreads()}.
+	 * 
+	 * @see #PROPERTY_LAYOUT_THREADS
+	 * @see net.sf.jasperreports.engine.export.GridLayoutPipeline
+	 */
+	@ExporterProperty(
+		value=PROPERTY_LAYOUT_THREADS, 
+		intDefault=0
+		)
+	public Integer getLayoutThreads();
 }
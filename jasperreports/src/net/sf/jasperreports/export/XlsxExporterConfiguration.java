@@ -64,4 +64,94 @@ public interface XlsxExporterConfiguration extends XlsExporterConfiguration
 	@ExporterProperty(PROPERTY_MACRO_TEMPLATE)
 	public String getMacroTemplate();
 
+	/**
+	 * Property used to provide a default value for the {@link #isUseSharedStrings()} export configuration setting.
+	 * 
+	 * @see JRPropertiesUtil
+	 * @since 6.9.0
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_EXPORT,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_USE_SHARED_STRINGS = JRPropertiesUtil.PROPERTY_PREFIX + "export.xlsx.use.shared.strings";
+
+	/**
+	 * Property used to provide a default value for the {@link #isStreamSheets()} export configuration setting.
+	 * 
+	 * @see JRPropertiesUtil
+	 * @since 6.9.0
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_EXPORT,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Boolean.class
+			)
+	public static final String PROPERTY_STREAM_SHEETS = JRPropertiesUtil.PROPERTY_PREFIX + "export.xlsx.stream.sheets";
+
+	/**
+	 * Property used to provide a default value for the {@link #getSheetThreads()} export configuration setting.
+	 * 
+	 * @see JRPropertiesUtil
+	 * @since 6.9.0
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_EXPORT,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Integer.class
+			)
+	public static final String PROPERTY_SHEET_THREADS = JRPropertiesUtil.PROPERTY_PREFIX + "export.xlsx.sheet.threads";
+
+	/**
+	 * Specifies whether text cells should refer to entries of a shared strings table instead of containing inline strings.
+	 * Each distinct text is written only once in the document, which reduces the size of documents 
+	 * having many repeated values and makes them faster to load in Excel.
+	 * @see #PROPERTY_USE_SHARED_STRINGS
+	 */
+	@ExporterProperty(
+		value=PROPERTY_USE_SHARED_STRINGS, 
+		booleanDefault=false
+		)
+	public Boolean isUseSharedStrings();
+
+	/**
+	 * Specifies whether the sheet contents should be written directly into the output ZIP stream as they are produced,
+	 * instead of being buffered in memory or temporary files until the whole workbook has been exported.
+	 * @see #PROPERTY_STREAM_SHEETS
+	 */
+	@ExporterProperty(
+		value=PROPERTY_STREAM_SHEETS, 
+		booleanDefault=false
+		)
+	public Boolean isStreamSheets();
+
+	/**
+	 * Specifies the number of worker threads that lay out and serialize the sheets of the following pages
+	 * while the current sheet is written, when each page is exported on a separate sheet.
+	 * The value 0 means that the sheets are serialized only by the exporting thread.
+	 * <p>
+	 * The workers write the sheet contents in buffers and record the cell styles and shared strings they use.
+	 * The exporting thread copies the buffers into the document in page order and registers the recorded 
+	 * styles and strings at that point, so the document does not depend on the number of threads.
+	 * Pages that contain images or generic elements are exported by the exporting thread.
+	 * <p>
+	 * This setting takes precedence over {@link #getLayoutThreads()}.
+	 * It is only used by {@link net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter} itself, 
+	 * not by its subclasses, and only when no exporter filter is configured.
+	 * 
+	 * @see #PROPERTY_SHEET_THREADS
+	 */
+	@ExporterProperty(
+		value=PROPERTY_SHEET_THREADS, 
+		intDefault=0
+		)
+	public Integer getSheetThreads();
+
 }
@@ -0,0 +1,472 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JROrigin;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.fill.BaseReportFiller;
+import net.sf.jasperreports.engine.fill.FillInstrumentation;
+import net.sf.jasperreports.engine.fill.JRFillBand;
+import net.sf.jasperreports.engine.fill.JRFillDataset;
+import net.sf.jasperreports.engine.fill.JRFillElement;
+import net.sf.jasperreports.properties.PropertyConstants;
+import net.sf.jasperreports.web.util.JacksonUtil;
+
+/**
+ * Fill instrumentation that collects timings and counts for a report fill.
+ * <p>
+ * The statistics are collected for reports and subreports, dataset queries and records,
+ * bands, elements and expressions.
+ * When the fill completes, the statistics are attached in JSON format to the generated document
+ * as the {@link #PRINT_PROPERTY_STATISTICS} property, and are optionally added to the
+ * {@link FillStatisticsMXBean} JMX bean of the report.
+ * 
+ * @see FillStatisticsFactory
+ */
+public class FillStatistics implements FillInstrumentation
+{
+	private static final Log log = LogFactory.getLog(FillStatistics.class);
+	
+	public static final String PROPERTY_PREFIX = JRPropertiesUtil.PROPERTY_PREFIX + "fill.statistics.";
+
+	/**
+	 * Property that enables the collection of fill statistics.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			valueType = Boolean.class,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0
+			)
+	public static final String PROPERTY_ENABLED = PROPERTY_PREFIX + "enabled";
+
+	/**
+	 * Property that determines whether the fill statistics are attached to the generated document
+	 * as the {@link #PRINT_PROPERTY_STATISTICS} property.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			valueType = Boolean.class,
+			defaultValue = PropertyConstants.BOOLEAN_TRUE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0
+			)
+	public static final String PROPERTY_PRINT = PROPERTY_PREFIX + "print";
+
+	/**
+	 * Property that determines whether the fill statistics are aggregated per report name
+	 * and exposed as {@link FillStatisticsMXBean} JMX beans.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			valueType = Boolean.class,
+			defaultValue = PropertyConstants.BOOLEAN_FALSE,
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0
+			)
+	public static final String PROPERTY_JMX = PROPERTY_PREFIX + "jmx";
+
+	/**
+	 * Property that specifies the number of elements and expressions with the longest
+	 * total times that are included in the fill statistics.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_FILL,
+			valueType = Integer.class,
+			defaultValue = "20",
+			scopes = {PropertyScope.CONTEXT, PropertyScope.REPORT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0
+			)
+	public static final String PROPERTY_TOP_COUNT = PROPERTY_PREFIX + "top.count";
+
+	/**
+	 * The name of the document property that contains the fill statistics in JSON format.
+	 */
+	public static final String PRINT_PROPERTY_STATISTICS = PROPERTY_PREFIX + "data";
+
+	private final JasperReportsContext jasperReportsContext;
+	private final String reportName;
+	private final boolean attachToPrint;
+	private final boolean jmx;
+	private final int topCount;
+
+	private final ConcurrentMap<String, Timing> reportTimings = new ConcurrentHashMap<String, Timing>();
+	private final ConcurrentMap<String, Timing> queryTimings = new ConcurrentHashMap<String, Timing>();
+	private final ConcurrentMap<String, Timing> recordTimings = new ConcurrentHashMap<String, Timing>();
+	private final ConcurrentMap<JROrigin, Timing> bandTimings = new ConcurrentHashMap<JROrigin, Timing>();
+	private final ConcurrentMap<Object, Timing> elementTimings = new ConcurrentHashMap<Object, Timing>();
+	// expressions do not override equals, they are identified by the instance
+	private final ConcurrentMap<JRExpression, Timing> expressionTimings = new ConcurrentHashMap<JRExpression, Timing>();
+
+	private volatile long fillTime;
+
+	public FillStatistics(JasperReportsContext jasperReportsContext, JasperReport jasperReport)
+	{
+		this.jasperReportsContext = jasperReportsContext;
+		this.reportName = jasperReport.getName();
+
+		JRPropertiesUtil propertiesUtil = JRPropertiesUtil.getInstance(jasperReportsContext);
+		this.attachToPrint = propertiesUtil.getBooleanProperty(jasperReport, PROPERTY_PRINT, true);
+		this.jmx = propertiesUtil.getBooleanProperty(jasperReport, PROPERTY_JMX, false);
+		this.topCount = propertiesUtil.getIntegerProperty(jasperReport, PROPERTY_TOP_COUNT, 20);
+	}
+
+	@Override
+	public void fillStarted(BaseReportFiller filler)
+	{
+		//NOP
+	}
+
+	@Override
+	public void fillEnded(BaseReportFiller filler, long duration)
+	{
+		String name = filler.getJasperReport().getName();
+		timing(reportTimings, name, name, null).add(duration);
+
+		if (filler.getFillContext().getMasterFiller() == filler)
+		{
+			fillTime = duration;
+		}
+	}
+
+	@Override
+	public void queryExecuted(JRFillDataset dataset, long duration)
+	{
+		String name = dataset.getName();
+		timing(queryTimings, name, name, null).add(duration);
+	}
+
+	@Override
+	public void recordRead(JRFillDataset dataset, boolean hasRecord, long duration)
+	{
+		String name = dataset.getName();
+		Timing timing = timing(recordTimings, name, name, null);
+		if (hasRecord)
+		{
+			timing.add(duration);
+		}
+		else
+		{
+			// the time needed to detect the end of the data is counted without a record
+			timing.addTime(duration);
+		}
+	}
+
+	@Override
+	public void bandFilled(JRFillBand band, long duration)
+	{
+		JROrigin origin = band.getOrigin();
+		if (origin != null)
+		{
+			Timing timing = bandTimings.get(origin);
+			if (timing == null)
+			{
+				timing = timing(bandTimings, origin, bandLabel(origin), null);
+			}
+			timing.add(duration);
+		}
+	}
+
+	protected String bandLabel(JROrigin origin)
+	{
+		StringBuilder label = new StringBuilder();
+		label.append(origin.getReportName()).append('/').append(origin.getBandTypeValue().getName());
+		if (origin.getGroupName() != null)
+		{
+			label.append('[').append(origin.getGroupName()).append(']');
+		}
+		return label.toString();
+	}
+
+	@Override
+	public void elementEvaluated(JRFillElement element, long duration)
+	{
+		Object key = element.getUUID();
+		Timing timing = elementTimings.get(key);
+		if (timing == null)
+		{
+			String label = element.getFiller().getJasperReport().getName() + "/" 
+					+ (element.getKey() == null ? element.getUUID().toString() : element.getKey());
+			timing = timing(elementTimings, key, label, element.getClass().getSimpleName());
+		}
+		timing.add(duration);
+	}
+
+	@Override
+	public void expressionEvaluated(JRFillDataset dataset, JRExpression expression, long duration)
+	{
+		Timing timing = expressionTimings.get(expression);
+		if (timing == null)
+		{
+			timing = timing(expressionTimings, expression, 
+					dataset.getName() + "#" + expression.getId(), expression.getText());
+		}
+		timing.add(duration);
+	}
+
+	protected <K> Timing timing(ConcurrentMap<K, Timing> timings, K key, String label, String detail)
+	{
+		Timing timing = timings.get(key);
+		if (timing == null)
+		{
+			Timing newTiming = new Timing(label, detail);
+			timing = timings.putIfAbsent(key, newTiming);
+			if (timing == null)
+			{
+				timing = newTiming;
+			}
+		}
+		return timing;
+	}
+
+	@Override
+	public void fillCompleted(JasperPrint jasperPrint)
+	{
+		String json = null;
+		if (attachToPrint || jmx || log.isDebugEnabled())
+		{
+			json = toJson();
+		}
+
+		if (log.isDebugEnabled())
+		{
+			log.debug("fill statistics for " + reportName + ": " + json);
+		}
+
+		if (attachToPrint)
+		{
+			jasperPrint.setProperty(PRINT_PROPERTY_STATISTICS, json);
+		}
+
+		if (jmx)
+		{
+			ReportFillStatistics.getInstance(reportName).add(this, json);
+		}
+	}
+
+	/**
+	 * Returns the statistics in JSON format.
+	 */
+	public String toJson()
+	{
+		JacksonUtil jacksonUtil = JacksonUtil.getInstance(jasperReportsContext);
+		ObjectNode statistics = jacksonUtil.getObjectMapper().createObjectNode();
+		statistics.put("report", reportName);
+		statistics.put("fillTime", millis(fillTime));
+		addTimings(statistics.putArray("reports"), "report", reportTimings.values(), Integer.MAX_VALUE, null);
+		addTimings(statistics.putArray("queries"), "dataset", queryTimings.values(), Integer.MAX_VALUE, null);
+		addTimings(statistics.putArray("records"), "dataset", recordTimings.values(), Integer.MAX_VALUE, null);
+		addTimings(statistics.putArray("bands"), "band", bandTimings.values(), Integer.MAX_VALUE, null);
+		addTimings(statistics.putArray("elements"), "element", elementTimings.values(), topCount, "type");
+		addTimings(statistics.putArray("expressions"), "expression", expressionTimings.values(), topCount, "text");
+		return jacksonUtil.getJsonString(statistics);
+	}
+
+	protected void addTimings(ArrayNode array, String labelName, Collection<Timing> timings, 
+			int count, String detailName)
+	{
+		for (Timing timing : sorted(timings, count))
+		{
+			ObjectNode node = array.addObject();
+			node.put(labelName, timing.getLabel());
+			if (detailName != null)
+			{
+				node.put(detailName, timing.getDetail());
+			}
+			node.put("count", timing.getCount());
+			node.put("time", millis(timing.getTime()));
+		}
+	}
+
+	protected static double millis(long nanos)
+	{
+		return Math.round(nanos / 1000d) / 1000d;
+	}
+
+	/**
+	 * Returns the timings with the longest total times.
+	 * 
+	 * @param timings the timings
+	 * @param count the maximum number of timings to return
+	 * @return the timings sorted descending by total time
+	 */
+	public static List<Timing> sorted(Collection<Timing> timings, int count)
+	{
+		List<Timing> sorted = new ArrayList<Timing>(timings);
+		Collections.sort(sorted, new Comparator<Timing>()
+		{
+			@Override
+			public int compare(Timing t1, Timing t2)
+			{
+				return Long.compare(t2.getTime(), t1.getTime());
+			}
+		});
+		return sorted.size() > count ? sorted.subList(0, count) : sorted;
+	}
+
+	/**
+	 * Returns the duration of the master report fill in nanoseconds.
+	 */
+	public long getFillTime()
+	{
+		return fillTime;
+	}
+
+	public String getReportName()
+	{
+		return reportName;
+	}
+
+	/**
+	 * Returns the fill timings of the master report and of the subreports.
+	 */
+	public Collection<Timing> getReportTimings()
+	{
+		return Collections.unmodifiableCollection(reportTimings.values());
+	}
+
+	/**
+	 * Returns the query execution timings per dataset.
+	 */
+	public Collection<Timing> getQueryTimings()
+	{
+		return Collections.unmodifiableCollection(queryTimings.values());
+	}
+
+	/**
+	 * Returns the data source timings per dataset, counting the records read.
+	 */
+	public Collection<Timing> getRecordTimings()
+	{
+		return Collections.unmodifiableCollection(recordTimings.values());
+	}
+
+	public Collection<Timing> getBandTimings()
+	{
+		return Collections.unmodifiableCollection(bandTimings.values());
+	}
+
+	public Collection<Timing> getElementTimings()
+	{
+		return Collections.unmodifiableCollection(elementTimings.values());
+	}
+
+	public Collection<Timing> getExpressionTimings()
+	{
+		return Collections.unmodifiableCollection(expressionTimings.values());
+	}
+
+	/**
+	 * Count and total duration of an operation.
+	 */
+	public static class Timing
+	{
+		private final String label;
+		private final String detail;
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong time = new AtomicLong();
+
+		protected Timing(String label, String detail)
+		{
+			this.label = label;
+			this.detail = detail;
+		}
+
+		protected void add(long duration)
+		{
+			count.incrementAndGet();
+			time.addAndGet(duration);
+		}
+
+		protected void addTime(long duration)
+		{
+			time.addAndGet(duration);
+		}
+
+		/**
+		 * Returns the name of the report, dataset, band, element or expression.
+		 */
+		public String getLabel()
+		{
+			return label;
+		}
+
+		/**
+		 * Returns the element type or the expression text, if available.
+		 */
+		public String getDetail()
+		{
+			return detail;
+		}
+
+		public long getCount()
+		{
+			return count.get();
+		}
+
+		/**
+		 * Returns the total duration in nanoseconds.
+		 */
+		public long getTime()
+		{
+			return time.get();
+		}
+
+		/**
+		 * Returns the sum of the counts and durations of several timings.
+		 */
+		public static Timing sum(String label, Collection<Timing> timings)
+		{
+			Timing sum = new Timing(label, null);
+			for (Timing timing : timings)
+			{
+				sum.count.addAndGet(timing.getCount());
+				sum.time.addAndGet(timing.getTime());
+			}
+			return sum;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.instrumentation;
+
+import net.sf.jasperreports.engine.JRPropertiesMap;
+import net.sf.jasperreports.engine.fill.FillInstrumentationFactory;
+import net.sf.jasperreports.extensions.ExtensionsRegistry;
+import net.sf.jasperreports.extensions.ExtensionsRegistryFactory;
+import net.sf.jasperreports.extensions.SingletonExtensionRegistry;
+
+/**
+ * Extension factory for {@link FillStatisticsFactory}.
+ */
+public class FillStatisticsExtensionsRegistryFactory implements ExtensionsRegistryFactory
+{
+	private static final ExtensionsRegistry REGISTRY = 
+			new SingletonExtensionRegistry<FillInstrumentationFactory>(
+					FillInstrumentationFactory.class, FillStatisticsFactory.getInstance());
+	
+	@Override
+	public ExtensionsRegistry createRegistry(String registryId, JRPropertiesMap properties) 
+	{
+		return REGISTRY;
+	}
+}
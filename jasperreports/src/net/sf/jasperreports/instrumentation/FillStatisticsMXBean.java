@@ -0,0 +1,76 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.instrumentation;
+
+/**
+ * JMX interface of the fill statistics aggregated for a report.
+ * <p>
+ * Times are expressed in milliseconds.
+ * 
+ * @see FillStatistics#PROPERTY_JMX
+ */
+public interface FillStatisticsMXBean
+{
+
+	String getReportName();
+
+	long getFillCount();
+
+	double getTotalFillTime();
+
+	double getAverageFillTime();
+
+	double getMaxFillTime();
+
+	long getQueryCount();
+
+	double getQueryTime();
+
+	long getRecordCount();
+
+	double getRecordReadTime();
+
+	long getBandFillCount();
+
+	double getBandFillTime();
+
+	long getElementEvaluationCount();
+
+	double getElementEvaluationTime();
+
+	long getExpressionEvaluationCount();
+
+	double getExpressionEvaluationTime();
+
+	/**
+	 * Returns the statistics of the last fill in JSON format.
+	 */
+	String getLastFillStatistics();
+
+	/**
+	 * Resets the aggregated statistics.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,259 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import net.sf.jasperreports.instrumentation.FillStatistics.Timing;
+
+/**
+ * Fill statistics aggregated for all the fills of a report, registered as a JMX bean
+ * named <code>net.sf.jasperreports:type=FillStatistics,report=&lt;report name&gt;</code>.
+ */
+public class ReportFillStatistics implements FillStatisticsMXBean
+{
+	private static final Log log = LogFactory.getLog(ReportFillStatistics.class);
+	
+	public static final String OBJECT_NAME_PREFIX = "net.sf.jasperreports:type=FillStatistics,report=";
+	
+	private static final ConcurrentMap<String, ReportFillStatistics> instances = 
+			new ConcurrentHashMap<String, ReportFillStatistics>();
+
+	/**
+	 * Returns the aggregated statistics of a report, registering the JMX bean
+	 * if not already registered.
+	 * 
+	 * @param reportName the report name
+	 * @return the aggregated statistics
+	 */
+	public static ReportFillStatistics getInstance(String reportName)
+	{
+		ReportFillStatistics statistics = instances.get(reportName);
+		if (statistics == null)
+		{
+			ReportFillStatistics newStatistics = new ReportFillStatistics(reportName);
+			statistics = instances.putIfAbsent(reportName, newStatistics);
+			if (statistics == null)
+			{
+				statistics = newStatistics;
+				statistics.register();
+			}
+		}
+		return statistics;
+	}
+
+	private final String reportName;
+	
+	private long fillCount;
+	private long totalFillTime;
+	private long maxFillTime;
+	private long queryCount;
+	private long queryTime;
+	private long recordCount;
+	private long recordReadTime;
+	private long bandFillCount;
+	private long bandFillTime;
+	private long elementEvaluationCount;
+	private long elementEvaluationTime;
+	private long expressionEvaluationCount;
+	private long expressionEvaluationTime;
+	private String lastFillStatistics;
+
+	protected ReportFillStatistics(String reportName)
+	{
+		this.reportName = reportName;
+	}
+
+	protected void register()
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(reportName)));
+		}
+		catch (JMException e)
+		{
+			log.warn("Failed to register fill statistics JMX bean for report " + reportName, e);
+		}
+	}
+
+	/**
+	 * Adds the statistics of a report fill.
+	 * 
+	 * @param statistics the fill statistics
+	 * @param json the fill statistics in JSON format
+	 */
+	public synchronized void add(FillStatistics statistics, String json)
+	{
+		++fillCount;
+		totalFillTime += statistics.getFillTime();
+		maxFillTime = Math.max(maxFillTime, statistics.getFillTime());
+		
+		Timing queries = Timing.sum(null, statistics.getQueryTimings());
+		queryCount += queries.getCount();
+		queryTime += queries.getTime();
+		
+		Timing records = Timing.sum(null, statistics.getRecordTimings());
+		recordCount += records.getCount();
+		recordReadTime += records.getTime();
+		
+		Timing bands = Timing.sum(null, statistics.getBandTimings());
+		bandFillCount += bands.getCount();
+		bandFillTime += bands.getTime();
+		
+		Timing elements = Timing.sum(null, statistics.getElementTimings());
+		elementEvaluationCount += elements.getCount();
+		elementEvaluationTime += elements.getTime();
+		
+		Timing expressions = Timing.sum(null, statistics.getExpressionTimings());
+		expressionEvaluationCount += expressions.getCount();
+		expressionEvaluationTime += expressions.getTime();
+		
+		lastFillStatistics = json;
+	}
+
+	@Override
+	public String getReportName()
+	{
+		return reportName;
+	}
+
+	@Override
+	public synchronized long getFillCount()
+	{
+		return fillCount;
+	}
+
+	@Override
+	public synchronized double getTotalFillTime()
+	{
+		return FillStatistics.millis(totalFillTime);
+	}
+
+	@Override
+	public synchronized double getAverageFillTime()
+	{
+		return fillCount == 0 ? 0d : FillStatistics.millis(totalFillTime / fillCount);
+	}
+
+	@Override
+	public synchronized double getMaxFillTime()
+	{
+		return FillStatistics.millis(maxFillTime);
+	}
+
+	@Override
+	public synchronized long getQueryCount()
+	{
+		return queryCount;
+	}
+
+	@Override
+	public synchronized double getQueryTime()
+	{
+		return FillStatistics.millis(queryTime);
+	}
+
+	@Override
+	public synchronized long getRecordCount()
+	{
+		return recordCount;
+	}
+
+	@Override
+	public synchronized double getRecordReadTime()
+	{
+		return FillStatistics.millis(recordReadTime);
+	}
+
+	@Override
+	public synchronized long getBandFillCount()
+	{
+		return bandFillCount;
+	}
+
+	@Override
+	public synchronized double getBandFillTime()
+	{
+		return FillStatistics.millis(bandFillTime);
+	}
+
+	@Override
+	public synchronized long getElementEvaluationCount()
+	{
+		return elementEvaluationCount;
+	}
+
+	@Override
+	public synchronized double getElementEvaluationTime()
+	{
+		return FillStatistics.millis(elementEvaluationTime);
+	}
+
+	@Override
+	public synchronized long getExpressionEvaluationCount()
+	{
+		return expressionEvaluationCount;
+	}
+
+	@Override
+	public synchronized double getExpressionEvaluationTime()
+	{
+		return FillStatistics.millis(expressionEvaluationTime);
+	}
+
+	@Override
+	public synchronized String getLastFillStatistics()
+	{
+		return lastFillStatistics;
+	}
+
+	@Override
+	public synchronized void reset()
+	{
+		fillCount = 0;
+		totalFillTime = 0;
+		maxFillTime = 0;
+		queryCount = 0;
+		queryTime = 0;
+		recordCount = 0;
+		recordReadTime = 0;
+		bandFillCount = 0;
+		bandFillTime = 0;
+		elementEvaluationCount = 0;
+		elementEvaluationTime = 0;
+		expressionEvaluationCount = 0;
+		expressionEvaluationTime = 0;
+		lastFillStatistics = null;
+	}
+}
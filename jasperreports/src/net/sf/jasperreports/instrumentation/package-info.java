@@ -0,0 +1,45 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * Provides support for fill statistics.
+ * <br/>
+ * <h3>Fill Statistics</h3>
+ * Report fills can be instrumented via {@link net.sf.jasperreports.engine.fill.FillInstrumentationFactory}
+ * extensions, which are notified with the timings of report and subreport fills, dataset queries, 
+ * data source records, bands, elements and expressions.
+ * When no instrumentation is used for a fill, the fill operations are not timed.
+ * <p>
+ * The built-in {@link net.sf.jasperreports.instrumentation.FillStatistics} instrumentation 
+ * collects counts and total times for each report, dataset, band, element and expression.
+ * It is enabled by the following configuration property, which can be set globally or at report level:</p>
+ * <pre>
+ *   net.sf.jasperreports.fill.statistics.enabled=[true|false]</pre>
+ * The collected statistics are attached in JSON format to the generated document as the
+ * <code>net.sf.jasperreports.fill.statistics.data</code> property, unless 
+ * <code>net.sf.jasperreports.fill.statistics.print</code> is set to false.
+ * When <code>net.sf.jasperreports.fill.statistics.jmx</code> is set, the statistics are also 
+ * aggregated per report name and exposed as 
+ * {@link net.sf.jasperreports.instrumentation.FillStatisticsMXBean} JMX beans.
+ */
+package net.sf.jasperreports.instrumentation;
@@ -34,6 +34,7 @@ import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.util.JRImageLoader;
+import net.sf.jasperreports.renderers.util.ImageCache;
 
 
 /**
@@ -73,7 +74,11 @@ public class WrappingImageDataToGraphics2DRenderer extends AbstractRenderer impl
 	{
 		if (awtImageRef == null || awtImageRef.get() == null)
 		{
-			Image awtImage = JRImageLoader.getInstance(jasperReportsContext).loadAwtImageFromBytes(getData(jasperReportsContext));
+			ImageCache imageCache = ImageCache.getInstance(jasperReportsContext);
+			Image awtImage = 
+				imageCache == null
+				? JRImageLoader.getInstance(jasperReportsContext).loadAwtImageFromBytes(getData(jasperReportsContext))
+				: imageCache.getDecodedImage(getData(jasperReportsContext));
 			awtImageRef = new SoftReference<Image>(awtImage);
 		}
 		return awtImageRef.get();
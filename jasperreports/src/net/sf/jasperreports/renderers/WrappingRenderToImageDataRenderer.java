@@ -28,10 +28,12 @@ import java.awt.Graphics2D;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.util.List;
 
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.renderers.util.ImageCache;
 
 
 /**
@@ -129,6 +131,44 @@ public class WrappingRenderToImageDataRenderer extends AbstractRenderToImageData
 		return imageDimension;
 	}
 
+	@Override
+	public byte[] getData(JasperReportsContext jasperReportsContext) throws JRException
+	{
+		ImageCache imageCache = isCacheable() ? ImageCache.getInstance(jasperReportsContext) : null;
+		if (imageCache == null)
+		{
+			return super.getData(jasperReportsContext);
+		}
+		
+		Dimension2D imageDimension = getDimension(jasperReportsContext);
+		List<Object> key = 
+			imageCache.createKey(
+				ImageCache.KIND_PNG, 
+				((DataRenderable) renderer).getData(jasperReportsContext),
+				imageDimension == null ? null : imageDimension.getWidth(),
+				imageDimension == null ? null : imageDimension.getHeight(),
+				getImageDataDPI(jasperReportsContext),
+				backcolor
+				);
+		byte[] data = (byte[]) imageCache.get(key);
+		if (data == null)
+		{
+			data = super.getData(jasperReportsContext);
+			imageCache.put(key, data, data.length);
+		}
+		return data;
+	}
+
+	/**
+	 * Determines whether the rendered image only depends on the data of the wrapped renderer,
+	 * and can be shared across exports via the context image cache.
+	 */
+	protected boolean isCacheable()
+	{
+		return renderer instanceof WrappingSvgDataToGraphics2DRenderer
+				|| renderer instanceof WrappingImageDataToGraphics2DRenderer;
+	}
+
 	@Override
 	public Color getBackcolor()
 	{
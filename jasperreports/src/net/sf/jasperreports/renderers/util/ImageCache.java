@@ -0,0 +1,334 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.renderers.util;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import net.sf.jasperreports.annotations.properties.Property;
+import net.sf.jasperreports.annotations.properties.PropertyScope;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.JRImageLoader;
+import net.sf.jasperreports.properties.PropertyConstants;
+
+/**
+ * Size bounded cache of decoded and encoded images shared by the report fills and exports
+ * that use the same JasperReports context.
+ * <p>
+ * Entries are keyed by the digest of the source image data, together with the parameters
+ * used to produce the cached form (such as the image dimension and DPI for rendered images).
+ * Identical images, such as logos read from the same resource or charts rendered from the same SVG data,
+ * are therefore decoded or rendered once, regardless of the renderer instances that carry them.
+ * When the total estimated size of the entries exceeds the configured limit, the least recently
+ * used entries are evicted.
+ * </p>
+ * <p>
+ * The cache is enabled by setting {@link #PROPERTY_MAX_SIZE} to a positive value.
+ * Cached values are shared between threads and must not be modified by callers.
+ * </p>
+ */
+public class ImageCache
+{
+	private static final String CONTEXT_KEY_IMAGE_CACHE = "net.sf.jasperreports.image.cache";
+
+	/**
+	 * Property that specifies the maximum estimated size in bytes of the images kept in the
+	 * context level image cache.
+	 * A value of <code>0</code> means that images are not cached across fills and exports.
+	 */
+	@Property(
+			category = PropertyConstants.CATEGORY_OTHER,
+			defaultValue = "0",
+			scopes = {PropertyScope.CONTEXT},
+			sinceVersion = PropertyConstants.VERSION_6_9_0,
+			valueType = Long.class
+			)
+	public static final String PROPERTY_MAX_SIZE = JRPropertiesUtil.PROPERTY_PREFIX + "image.cache.max.size";
+
+	/**
+	 * Kind of entries holding images decoded to AWT images.
+	 */
+	public static final String KIND_DECODED = "decoded";
+
+	/**
+	 * Kind of entries holding PNG data produced by rendering an image.
+	 */
+	public static final String KIND_PNG = "png";
+
+	/**
+	 * Kind of entries holding images decoded by the PDF exporter.
+	 */
+	public static final String KIND_PDF = "pdf";
+
+	/**
+	 * Returns the image cache of a JasperReports context, creating it if needed.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @return the image cache, or <code>null</code> if image caching is not enabled in the context
+	 * @see #PROPERTY_MAX_SIZE
+	 */
+	public static ImageCache getInstance(JasperReportsContext jasperReportsContext)
+	{
+		ImageCache cache = (ImageCache) jasperReportsContext.getValue(CONTEXT_KEY_IMAGE_CACHE);
+		if (cache == null)
+		{
+			String maxSizeProp = JRPropertiesUtil.getInstance(jasperReportsContext).getProperty(PROPERTY_MAX_SIZE);
+			long maxSize = maxSizeProp == null || maxSizeProp.trim().length() == 0 ? 0 : JRPropertiesUtil.asLong(maxSizeProp);
+			if (maxSize <= 0)
+			{
+				return null;
+			}
+			
+			synchronized (ImageCache.class)
+			{
+				cache = (ImageCache) jasperReportsContext.getValue(CONTEXT_KEY_IMAGE_CACHE);
+				if (cache == null)
+				{
+					cache = new ImageCache(jasperReportsContext, maxSize);
+					jasperReportsContext.setValue(CONTEXT_KEY_IMAGE_CACHE, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	private final JasperReportsContext jasperReportsContext;
+	private final long maxSize;
+	// access ordered for LRU eviction
+	private final LinkedHashMap<List<Object>, CacheEntry> entries = new LinkedHashMap<List<Object>, CacheEntry>(16, 0.75f, true);
+	
+	private long size;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	/**
+	 * Creates an image cache.
+	 * 
+	 * @param jasperReportsContext the JasperReports context
+	 * @param maxSize the maximum estimated size in bytes of the cached images
+	 */
+	public ImageCache(JasperReportsContext jasperReportsContext, long maxSize)
+	{
+		this.jasperReportsContext = jasperReportsContext;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Creates a cache key for a form of an image.
+	 * 
+	 * @param kind the kind of the cached form, such as {@link #KIND_DECODED}
+	 * @param data the source image data
+	 * @param parameters additional parameters that determine the cached form
+	 * @return the cache key
+	 */
+	public List<Object> createKey(String kind, byte[] data, Object... parameters)
+	{
+		List<Object> key = new ArrayList<Object>(2 + parameters.length);
+		key.add(kind);
+		key.add(digest(data));
+		key.addAll(Arrays.asList(parameters));
+		return key;
+	}
+
+	protected ByteBuffer digest(byte[] data)
+	{
+		MessageDigest digest;
+		try
+		{
+			digest = MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new JRRuntimeException(e);
+		}
+		
+		// the data length is included to further reduce the chance of collisions
+		digest.update(ByteBuffer.allocate(4).putInt(data.length).array());
+		digest.update(data);
+		// byte buffers compare by content
+		return ByteBuffer.wrap(digest.digest());
+	}
+
+	/**
+	 * Returns a cached value.
+	 * 
+	 * @param key the cache key
+	 * @return the cached value, or <code>null</code> if not found
+	 */
+	public synchronized Object get(List<Object> key)
+	{
+		CacheEntry entry = entries.get(key);
+		if (entry == null)
+		{
+			++missCount;
+			return null;
+		}
+		
+		++hitCount;
+		return entry.value;
+	}
+
+	/**
+	 * Adds a value to the cache, evicting the least recently used entries if needed.
+	 * Values larger than the cache size limit are not cached.
+	 * 
+	 * @param key the cache key
+	 * @param value the value
+	 * @param valueSize the estimated size in bytes of the value
+	 */
+	public synchronized void put(List<Object> key, Object value, long valueSize)
+	{
+		if (valueSize > maxSize)
+		{
+			return;
+		}
+		
+		CacheEntry previous = entries.put(key, new CacheEntry(value, valueSize));
+		if (previous != null)
+		{
+			size -= previous.size;
+		}
+		size += valueSize;
+		
+		for (Iterator<CacheEntry> it = entries.values().iterator(); size > maxSize && it.hasNext();)
+		{
+			CacheEntry eldest = it.next();
+			it.remove();
+			size -= eldest.size;
+			++evictionCount;
+		}
+	}
+
+	/**
+	 * Returns an image decoded from data, decoding the image if not already cached.
+	 * 
+	 * @param data the image data
+	 * @return the decoded image
+	 */
+	public Image getDecodedImage(byte[] data) throws JRException
+	{
+		List<Object> key = createKey(KIND_DECODED, data);
+		Image image = (Image) get(key);
+		if (image == null)
+		{
+			// concurrent decoding of the same image is harmless
+			image = JRImageLoader.getInstance(jasperReportsContext).loadAwtImageFromBytes(data);
+			put(key, image, imageSize(image));
+		}
+		return image;
+	}
+
+	protected long imageSize(Image image)
+	{
+		if (image instanceof BufferedImage)
+		{
+			BufferedImage bufferedImage = (BufferedImage) image;
+			int pixelSize = bufferedImage.getColorModel().getPixelSize();
+			return (long) bufferedImage.getWidth() * bufferedImage.getHeight() * Math.max(1, pixelSize / 8);
+		}
+		
+		return 4L * Math.max(0, image.getWidth(null)) * Math.max(0, image.getHeight(null));
+	}
+
+	/**
+	 * Removes all the entries from the cache.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		size = 0;
+	}
+
+	/**
+	 * Returns the maximum estimated size in bytes of the cached images.
+	 */
+	public long getMaxSize()
+	{
+		return maxSize;
+	}
+
+	/**
+	 * Returns the estimated size in bytes of the cached images.
+	 */
+	public synchronized long getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the number of cache entries.
+	 */
+	public synchronized int getEntryCount()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of lookups that found a cached value.
+	 */
+	public synchronized long getHitCount()
+	{
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of lookups that did not find a cached value.
+	 */
+	public synchronized long getMissCount()
+	{
+		return missCount;
+	}
+
+	/**
+	 * Returns the number of entries evicted to keep the cache within its size limit.
+	 */
+	public synchronized long getEvictionCount()
+	{
+		return evictionCount;
+	}
+
+	protected static class CacheEntry
+	{
+		private final Object value;
+		private final long size;
+		
+		public CacheEntry(Object value, long size)
+		{
+			this.value = value;
+			this.size = size;
+		}
+	}
+}
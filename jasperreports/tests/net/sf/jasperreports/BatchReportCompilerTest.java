@@ -0,0 +1,86 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.design.BatchCompileResult;
+import net.sf.jasperreports.engine.design.BatchReportCompiler;
+import net.sf.jasperreports.engine.util.JRLoader;
+
+public class BatchReportCompilerTest
+{
+
+	@Test
+	public void parallelCompile() throws JRException, IOException, URISyntaxException
+	{
+		File directory = Files.createTempDirectory("BatchReportCompilerTest").toFile();
+		try
+		{
+			Map<String, String> reportFiles = new LinkedHashMap<String, String>();
+			for (int i = 1; i <= 4; i++)
+			{
+				String jrxml = "net/sf/jasperreports/bands/evaluation/repo/BandEvaluationReport." + i + ".jrxml";
+				File source = new File(BatchReportCompilerTest.class.getClassLoader().getResource(jrxml).toURI());
+				reportFiles.put(source.getPath(), new File(directory, "BandEvaluationReport." + i + ".jasper").getPath());
+			}
+			reportFiles.put(new File(directory, "missing.jrxml").getPath(), new File(directory, "missing.jasper").getPath());
+
+			BatchReportCompiler compiler = new BatchReportCompiler(DefaultJasperReportsContext.getInstance(), 3);
+			List<BatchCompileResult> results = compiler.compileToFiles(reportFiles);
+			assert results.size() == reportFiles.size();
+
+			for (int i = 0; i < 4; i++)
+			{
+				BatchCompileResult result = results.get(i);
+				assert result.isSuccess() : result.getError();
+				JasperReport report = (JasperReport) JRLoader.loadObjectFromFile(result.getDestFileName());
+				assert report.getName() != null;
+			}
+
+			BatchCompileResult missing = results.get(4);
+			assert !missing.isSuccess();
+			assert !new File(missing.getDestFileName()).exists();
+		}
+		finally
+		{
+			for (File file : directory.listFiles())
+			{
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+}
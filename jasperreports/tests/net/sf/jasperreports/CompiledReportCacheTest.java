@@ -0,0 +1,214 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.design.CompiledReportCache;
+import net.sf.jasperreports.engine.design.JRDesignElement;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+public class CompiledReportCacheTest
+{
+	private static final String JRXML = "net/sf/jasperreports/bands/evaluation/repo/BandEvaluationReport.1.jrxml";
+
+	protected JasperDesign loadDesign() throws JRException, IOException
+	{
+		InputStream jrxmlInput = JRLoader.getResourceInputStream(JRXML);
+		try
+		{
+			return JRXmlLoader.load(jrxmlInput);
+		}
+		finally
+		{
+			jrxmlInput.close();
+		}
+	}
+
+	protected JasperDesign setElementUUID(JasperDesign design, UUID uuid)
+	{
+		JRDesignElement element = (JRDesignElement) design.getDetailSection().getBands()[0].getElements()[0];
+		element.setUUID(uuid);
+		return design;
+	}
+
+	protected File[] cacheFiles(File directory)
+	{
+		return directory.listFiles(new FilenameFilter()
+		{
+			@Override
+			public boolean accept(File dir, String name)
+			{
+				return name.endsWith(".jasper");
+			}
+		});
+	}
+
+	@Test
+	public void cachedCompile() throws JRException, IOException
+	{
+		File directory = Files.createTempDirectory("CompiledReportCacheTest").toFile();
+		try
+		{
+			SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+			context.setProperty(CompiledReportCache.PROPERTY_CACHE_DIR, directory.getAbsolutePath());
+
+			JasperReport report = JasperCompileManager.getInstance(context).compile(loadDesign());
+			assert cacheFiles(directory).length == 1;
+
+			// designs loaded again have the same key
+			JasperReport cachedReport = JasperCompileManager.getInstance(context).compile(loadDesign());
+			assert cacheFiles(directory).length == 1;
+			assert cachedReport != report;
+			assert cachedReport.getName().equals(report.getName());
+			assert cachedReport.getCompilerClass().equals(report.getCompilerClass());
+
+			JasperDesign changedDesign = loadDesign();
+			changedDesign.setPageWidth(changedDesign.getPageWidth() + 1);
+			JasperCompileManager.getInstance(context).compile(changedDesign);
+			assert cacheFiles(directory).length == 2;
+		}
+		finally
+		{
+			for (File file : directory.listFiles())
+			{
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void explicitUUIDs() throws JRException, IOException
+	{
+		File directory = Files.createTempDirectory("CompiledReportCacheTest").toFile();
+		try
+		{
+			SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+			context.setProperty(CompiledReportCache.PROPERTY_CACHE_DIR, directory.getAbsolutePath());
+
+			JasperCompileManager.getInstance(context).compile(loadDesign());
+			assert cacheFiles(directory).length == 1;
+
+			// designs that only differ in an element UUID have different keys
+			UUID uuid = UUID.randomUUID();
+			JasperCompileManager.getInstance(context).compile(setElementUUID(loadDesign(), uuid));
+			assert cacheFiles(directory).length == 2;
+
+			JasperReport cachedReport = JasperCompileManager.getInstance(context).compile(
+					setElementUUID(loadDesign(), uuid));
+			assert cacheFiles(directory).length == 2;
+			assert cachedReport.getDetailSection().getBands()[0].getElements()[0].getUUID().equals(uuid);
+		}
+		finally
+		{
+			for (File file : directory.listFiles())
+			{
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void disallowedClass() throws JRException, IOException
+	{
+		File directory = Files.createTempDirectory("CompiledReportCacheTest").toFile();
+		try
+		{
+			SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+			context.setProperty(CompiledReportCache.PROPERTY_CACHE_DIR, directory.getAbsolutePath());
+
+			JasperCompileManager.getInstance(context).compile(loadDesign());
+			File[] files = cacheFiles(directory);
+			assert files.length == 1;
+
+			// replacing the entry with an object of a class that is not allowed
+			ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(files[0]));
+			try
+			{
+				out.writeObject(new QName("test"));
+			}
+			finally
+			{
+				out.close();
+			}
+
+			JasperReport report = JasperCompileManager.getInstance(context).compile(loadDesign());
+			assert report.getName().equals(loadDesign().getName());
+			
+			// the entry has been written again
+			CompiledReportCache cache = CompiledReportCache.getInstance(context);
+			assert cache.get(files[0].getName().substring(0, files[0].getName().length() - ".jasper".length())) != null;
+		}
+		finally
+		{
+			for (File file : directory.listFiles())
+			{
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void eviction() throws JRException, IOException
+	{
+		File directory = Files.createTempDirectory("CompiledReportCacheTest").toFile();
+		try
+		{
+			SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+			context.setProperty(CompiledReportCache.PROPERTY_CACHE_DIR, directory.getAbsolutePath());
+			context.setProperty(CompiledReportCache.PROPERTY_CACHE_MAX_SIZE, "1");
+
+			JasperCompileManager.getInstance(context).compile(loadDesign());
+			assert cacheFiles(directory).length == 0;
+		}
+		finally
+		{
+			for (File file : directory.listFiles())
+			{
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+}
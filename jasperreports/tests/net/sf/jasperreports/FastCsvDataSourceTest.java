@@ -0,0 +1,97 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.data.FastCsvDataSource;
+import net.sf.jasperreports.engine.data.JRCsvDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class FastCsvDataSourceTest
+{
+	
+	@Test(dataProvider = "csvData")
+	public void compareValues(String csvData) throws JRException
+	{
+		JRDesignField[] fields = new JRDesignField[]{
+				field("name", String.class), 
+				field("count", Integer.class), 
+				field("amount", Double.class), 
+				field("date", Date.class), 
+				field("flag", Boolean.class), 
+				field("total", Long.class), 
+		};
+		
+		JRCsvDataSource dataSource = new JRCsvDataSource(new StringReader(csvData));
+		FastCsvDataSource fastDataSource = new FastCsvDataSource(new StringReader(csvData));
+		for (JRCsvDataSource source : new JRCsvDataSource[]{dataSource, fastDataSource})
+		{
+			source.setUseFirstRowAsHeader(true);
+			source.setDatePattern("yyyy-MM-dd");
+			source.setLocale(Locale.US);
+		}
+		
+		boolean next;
+		while ((next = dataSource.next()) == fastDataSource.next() && next)
+		{
+			for (JRDesignField field : fields)
+			{
+				Object value = dataSource.getFieldValue(field);
+				Object fastValue = fastDataSource.getFieldValue(field);
+				assert value == null ? fastValue == null : value.equals(fastValue) 
+						: field.getName() + ": " + value + " vs " + fastValue;
+			}
+		}
+		assert !next && !fastDataSource.next();
+	}
+	
+	protected JRDesignField field(String name, Class<?> valueClass)
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(name);
+		field.setValueClass(valueClass);
+		return field;
+	}
+	
+	@DataProvider
+	public Object[][] csvData()
+	{
+		List<Object[]> data = new ArrayList<Object[]>();
+		data.add(new Object[]{"name,count,amount,date,flag,total\nx,1,2.5,2019-01-05,true,10\ny,-2,-0.125,2019-12-31,False,-7\n"});
+		data.add(new Object[]{"\ufeffname,count,amount,date,flag,total\r\n \"a, \"\"b\"\"\" , 007 , 3 ,2019-02-01 ,TRUE,0\r\n"});
+		data.add(new Object[]{"name,count,amount,date,flag,total\n\"multi\nline\",\"12\",\"1.0\"\n\n,,,,,\n"});
+		data.add(new Object[]{"name,count,amount,date,flag,total\nz,42,123456789012345678901,2019-3-4,yes,1,000"});
+		return data.toArray(new Object[data.size()][]);
+	}
+
+}
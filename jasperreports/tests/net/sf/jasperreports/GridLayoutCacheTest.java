@@ -0,0 +1,90 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.ExporterNature;
+import net.sf.jasperreports.engine.export.GridLayoutCache;
+import net.sf.jasperreports.engine.export.JRGridLayout;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporterNature;
+
+public class GridLayoutCacheTest
+{
+
+	@Test
+	public void cachedLayouts() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		Report report = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml",
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print)
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				super.reportComplete(params, print);
+				
+				checkLayouts(print, true);
+				checkLayouts(print, false);
+			}
+		};
+		report.init();
+		report.runReport(null);
+	}
+	
+	protected void checkLayouts(JasperPrint print, boolean ignorePageMargins)
+	{
+		ExporterNature nature = new JRXlsxExporterNature(DefaultJasperReportsContext.getInstance(), 
+				null, false, ignorePageMargins);
+		int pageCount = print.getPages().size();
+		GridLayoutCache cache = new GridLayoutCache(Math.max(pageCount, 1));
+		// each page is laid out twice, the second layout reusing the cached cuts
+		for (int i = 0; i < 2 * pageCount; i++)
+		{
+			JRPrintPage page = print.getPages().get(i % pageCount);
+			JRGridLayout layout = new JRGridLayout(nature, page.getElements(), 
+					print.getPageWidth(), print.getPageHeight(), 0, 0, null);
+			JRGridLayout cachedLayout = new JRGridLayout(nature, page.getElements(), 
+					print.getPageWidth(), print.getPageHeight(), 0, 0, null, cache);
+			
+			assert Arrays.equals(layout.getXCuts().getCutOffsets(), cachedLayout.getXCuts().getCutOffsets());
+			assert Arrays.equals(layout.getYCuts().getCutOffsets(), cachedLayout.getYCuts().getCutOffsets());
+			assert layout.getGrid().getRowCount() == cachedLayout.getGrid().getRowCount();
+			assert layout.getGrid().getColumnCount() == cachedLayout.getGrid().getColumnCount();
+			assert layout.getWidth() == cachedLayout.getWidth();
+		}
+		
+		assert cache.getHitCount() >= pageCount;
+		assert cache.getHitCount() + cache.getMissCount() == 2 * pageCount;
+	}
+}
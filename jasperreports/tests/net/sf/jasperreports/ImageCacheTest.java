@@ -0,0 +1,107 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.renderers.util.ImageCache;
+
+public class ImageCacheTest
+{
+
+	@Test
+	public void contextInstance()
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		assert ImageCache.getInstance(context) == null;
+		
+		context.setProperty(ImageCache.PROPERTY_MAX_SIZE, "100000");
+		ImageCache cache = ImageCache.getInstance(context);
+		assert cache != null;
+		assert cache.getMaxSize() == 100000;
+		assert ImageCache.getInstance(context) == cache;
+	}
+
+	@Test
+	public void decodedImages() throws IOException, JRException
+	{
+		ImageCache cache = new ImageCache(DefaultJasperReportsContext.getInstance(), 100000);
+		byte[] data = pngData(10, 20);
+		
+		Image image = cache.getDecodedImage(data);
+		assert image.getWidth(null) == 10 && image.getHeight(null) == 20;
+		assert cache.getMissCount() == 1 && cache.getHitCount() == 0;
+		
+		// equal data in a different array
+		assert cache.getDecodedImage(data.clone()) == image;
+		assert cache.getMissCount() == 1 && cache.getHitCount() == 1;
+		assert cache.getEntryCount() == 1 && cache.getSize() > 0;
+	}
+
+	@Test
+	public void eviction()
+	{
+		ImageCache cache = new ImageCache(DefaultJasperReportsContext.getInstance(), 100);
+		List<Object> key1 = cache.createKey(ImageCache.KIND_PNG, new byte[]{1}, 72);
+		List<Object> key2 = cache.createKey(ImageCache.KIND_PNG, new byte[]{2}, 72);
+		List<Object> key3 = cache.createKey(ImageCache.KIND_PNG, new byte[]{1}, 144);
+		assert !key1.equals(key3);
+		
+		cache.put(key1, "1", 40);
+		cache.put(key2, "2", 40);
+		// key1 becomes the most recently used
+		assert "1".equals(cache.get(key1));
+		cache.put(key3, "3", 40);
+		
+		assert cache.get(key2) == null;
+		assert "1".equals(cache.get(key1));
+		assert "3".equals(cache.get(key3));
+		assert cache.getSize() == 80;
+		assert cache.getEvictionCount() == 1;
+		
+		// too large to be cached
+		cache.put(key2, "2", 101);
+		assert cache.get(key2) == null;
+		assert cache.getEntryCount() == 2;
+	}
+	
+	protected byte[] pngData(int width, int height) throws IOException
+	{
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
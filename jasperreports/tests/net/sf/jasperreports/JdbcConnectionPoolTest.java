@@ -0,0 +1,447 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.data.jdbc.JdbcConnectionPool;
+import net.sf.jasperreports.data.jdbc.JdbcConnectionPoolStatistics;
+import net.sf.jasperreports.data.jdbc.JdbcConnectionPools;
+import net.sf.jasperreports.data.jdbc.JdbcDataAdapterImpl;
+import net.sf.jasperreports.data.jdbc.JdbcDataAdapterService;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.ParameterContributorContext;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+
+public class JdbcConnectionPoolTest
+{
+	
+	@Test
+	public void borrowAndReturn() throws SQLException
+	{
+		TestConnectionService service = new TestConnectionService();
+		JdbcConnectionPool pool = new JdbcConnectionPool("test", 2, 1000, 0, null);
+		
+		Connection connection1 = pool.getConnection(service);
+		assert pool.getStatistics().getActiveCount() == 1;
+		connection1.close();
+		assert connection1.isClosed();
+		assert !service.connections.get(0).closed;
+		assert pool.getStatistics().getActiveCount() == 0;
+		assert pool.getStatistics().getIdleCount() == 1;
+		
+		try
+		{
+			connection1.createStatement();
+			assert false;
+		}
+		catch (SQLException e)
+		{
+			// expected, the connection has been returned
+		}
+		
+		Connection connection2 = pool.getConnection(service);
+		assert connection2 != connection1;
+		assert service.connections.size() == 1;
+		connection2.close();
+		
+		JdbcConnectionPoolStatistics statistics = pool.getStatistics();
+		assert statistics.getCreatedCount() == 1;
+		assert statistics.getBorrowedCount() == 2;
+		
+		pool.close();
+		assert service.connections.get(0).closed;
+	}
+	
+	@Test
+	public void resetState() throws SQLException
+	{
+		TestConnectionService service = new TestConnectionService();
+		JdbcConnectionPool pool = new JdbcConnectionPool("test", 1, 1000, 0, null);
+		
+		Connection connection = pool.getConnection(service);
+		TestConnection physical = service.connections.get(0);
+		connection.setAutoCommit(false);
+		connection.setReadOnly(true);
+		connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		connection.setCatalog("otherCatalog");
+		connection.setSchema("otherSchema");
+		connection.close();
+		
+		assert physical.rollbackCount == 1;
+		assert physical.autoCommit;
+		assert !physical.readOnly;
+		assert physical.transactionIsolation == Connection.TRANSACTION_READ_COMMITTED;
+		assert "catalog".equals(physical.catalog);
+		assert "schema".equals(physical.schema);
+		
+		pool.close();
+	}
+	
+	@Test
+	public void statementConnection() throws SQLException
+	{
+		TestConnectionService service = new TestConnectionService();
+		JdbcConnectionPool pool = new JdbcConnectionPool("test", 1, 1000, 0, null);
+		
+		Connection connection = pool.getConnection(service);
+		Statement statement = connection.createStatement();
+		assert statement.getConnection() == connection;
+		PreparedStatement preparedStatement = connection.prepareStatement("select 1");
+		assert preparedStatement.getConnection() == connection;
+		CallableStatement callableStatement = connection.prepareCall("call test()");
+		assert callableStatement.getConnection() == connection;
+		DatabaseMetaData metaData = connection.getMetaData();
+		assert metaData.getConnection() == connection;
+		
+		// result sets expose the pooled statement and connection
+		ResultSet resultSet = statement.executeQuery("select 1");
+		assert resultSet.getStatement() == statement;
+		assert resultSet.getStatement().getConnection() == connection;
+		ResultSet metaDataResultSet = metaData.getTables(null, null, null, null);
+		assert metaDataResultSet.getStatement().getConnection() == connection;
+		
+		// closing through the statement returns the connection to the pool
+		statement.getConnection().close();
+		assert !service.connections.get(0).closed;
+		assert pool.getStatistics().getIdleCount() == 1;
+		
+		pool.close();
+	}
+	
+	@Test(timeOut = 10000)
+	public void waitTimeout() throws SQLException
+	{
+		TestConnectionService service = new TestConnectionService();
+		JdbcConnectionPool pool = new JdbcConnectionPool("test", 1, 200, 0, null);
+		
+		Connection connection = pool.getConnection(service);
+		long start = System.currentTimeMillis();
+		try
+		{
+			pool.getConnection(service);
+			assert false;
+		}
+		catch (JRRuntimeException e)
+		{
+			assert JdbcConnectionPool.EXCEPTION_MESSAGE_KEY_POOL_WAIT_TIMEOUT.equals(e.getMessageKey());
+		}
+		assert System.currentTimeMillis() - start >= 200;
+		
+		JdbcConnectionPoolStatistics statistics = pool.getStatistics();
+		assert statistics.getWaitCount() == 1;
+		assert statistics.getTimeoutCount() == 1;
+		assert service.connections.size() == 1;
+		
+		connection.close();
+		pool.close();
+	}
+	
+	@Test(timeOut = 10000)
+	public void waitForReturn() throws Exception
+	{
+		final TestConnectionService service = new TestConnectionService();
+		final JdbcConnectionPool pool = new JdbcConnectionPool("test", 1, 5000, 0, null);
+		
+		Connection connection = pool.getConnection(service);
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waitingThread = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					Connection waitedConnection = pool.getConnection(service);
+					result.set(waitedConnection);
+					waitedConnection.close();
+				}
+				catch (Exception e)
+				{
+					result.set(e);
+				}
+			}
+		};
+		waitingThread.start();
+		
+		while (pool.getStatistics().getWaitCount() == 0)
+		{
+			Thread.sleep(10);
+		}
+		assert result.get() == null;
+		
+		connection.close();
+		waitingThread.join();
+		
+		assert result.get() instanceof Connection;
+		// the returned connection has been reused
+		assert service.connections.size() == 1;
+		assert pool.getStatistics().getBorrowedCount() == 2;
+		
+		pool.close();
+	}
+	
+	@Test
+	public void idleEviction() throws Exception
+	{
+		TestConnectionService service = new TestConnectionService();
+		JdbcConnectionPool pool = new JdbcConnectionPool("test", 2, 1000, 50, null);
+		
+		pool.getConnection(service).close();
+		Thread.sleep(100);
+		
+		Connection connection = pool.getConnection(service);
+		assert service.connections.size() == 2;
+		assert service.connections.get(0).closed;
+		assert !service.connections.get(1).closed;
+		assert pool.getStatistics().getEvictedCount() == 1;
+		
+		connection.close();
+		pool.close();
+	}
+	
+	@Test
+	public void backgroundIdleEviction() throws Exception
+	{
+		TestConnectionService service = new TestConnectionService();
+		JdbcConnectionPool pool = new JdbcConnectionPool("test", 2, 1000, 50, null);
+		
+		pool.getConnection(service).close();
+		assert pool.getStatistics().getIdleCount() == 1;
+		
+		// the idle connection is closed without further use of the pool
+		long deadline = System.currentTimeMillis() + 5000;
+		while (pool.getStatistics().getEvictedCount() == 0 && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(20);
+		}
+		assert pool.getStatistics().getEvictedCount() == 1;
+		assert pool.getStatistics().getIdleCount() == 0;
+		
+		pool.close();
+		assert service.connections.get(0).closed;
+	}
+	
+	@Test
+	public void validation() throws SQLException
+	{
+		TestConnectionService service = new TestConnectionService();
+		JdbcConnectionPool pool = new JdbcConnectionPool("test", 2, 1000, 0, "select 1");
+		
+		pool.getConnection(service).close();
+		pool.getConnection(service).close();
+		assert service.connections.size() == 1;
+		assert service.connections.get(0).validationCount == 1;
+		
+		service.connections.get(0).valid = false;
+		Connection connection = pool.getConnection(service);
+		assert service.connections.size() == 2;
+		assert service.connections.get(0).closed;
+		assert pool.getStatistics().getValidationFailureCount() == 1;
+		
+		connection.close();
+		pool.close();
+	}
+	
+	@Test
+	public void poolKeys()
+	{
+		SimpleJasperReportsContext context = new SimpleJasperReportsContext();
+		JdbcConnectionPools pools = JdbcConnectionPools.getInstance(context);
+		assert JdbcConnectionPools.getInstance(context) == pools;
+		
+		JdbcConnectionPool pool = pools.getPool(dataAdapter("jdbc:test:a", "user"));
+		assert pools.getPool(dataAdapter("jdbc:test:a", "user")) == pool;
+		assert pools.getPool(dataAdapter("jdbc:test:b", "user")) != pool;
+		assert pools.getPool(dataAdapter("jdbc:test:a", "other")) != pool;
+		
+		JdbcDataAdapterImpl withProperties = dataAdapter("jdbc:test:a", "user");
+		HashMap<String, String> properties = new HashMap<String, String>();
+		properties.put("ssl", "true");
+		withProperties.setProperties(properties);
+		assert pools.getPool(withProperties) != pool;
+		assert pools.getPools().size() == 4;
+		
+		SimpleJasperReportsContext otherContext = new SimpleJasperReportsContext();
+		assert JdbcConnectionPools.getInstance(otherContext).getPool(dataAdapter("jdbc:test:a", "user")) != pool;
+		
+		pools.close();
+		assert pools.getPools().isEmpty();
+	}
+	
+	protected static JdbcDataAdapterImpl dataAdapter(String url, String username)
+	{
+		JdbcDataAdapterImpl dataAdapter = new JdbcDataAdapterImpl();
+		dataAdapter.setDriver("test.Driver");
+		dataAdapter.setUrl(url);
+		dataAdapter.setUsername(username);
+		dataAdapter.setPassword("password");
+		return dataAdapter;
+	}
+	
+	protected static class TestConnectionService extends JdbcDataAdapterService
+	{
+		private final List<TestConnection> connections = new ArrayList<TestConnection>();
+		
+		public TestConnectionService()
+		{
+			super(new ParameterContributorContext(DefaultJasperReportsContext.getInstance(), null, new HashMap<String, Object>()), 
+					dataAdapter("jdbc:test", "user"));
+		}
+
+		@Override
+		public Connection createConnection() throws SQLException
+		{
+			TestConnection connection = new TestConnection();
+			synchronized (connections)
+			{
+				connections.add(connection);
+			}
+			return connection.proxy;
+		}
+	}
+	
+	/**
+	 * Connection that keeps its settings in memory.
+	 */
+	protected static class TestConnection implements InvocationHandler
+	{
+		private final Connection proxy;
+		private boolean closed;
+		private boolean valid = true;
+		private boolean autoCommit = true;
+		private boolean readOnly;
+		private int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+		private String catalog = "catalog";
+		private String schema = "schema";
+		private int rollbackCount;
+		private int validationCount;
+		
+		public TestConnection()
+		{
+			proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), 
+					new Class<?>[]{Connection.class}, this);
+		}
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			switch (method.getName())
+			{
+			case "close":
+				closed = true;
+				return null;
+			case "isClosed":
+				return closed;
+			case "getAutoCommit":
+				return autoCommit;
+			case "setAutoCommit":
+				autoCommit = (Boolean) args[0];
+				return null;
+			case "isReadOnly":
+				return readOnly;
+			case "setReadOnly":
+				readOnly = (Boolean) args[0];
+				return null;
+			case "getTransactionIsolation":
+				return transactionIsolation;
+			case "setTransactionIsolation":
+				transactionIsolation = (Integer) args[0];
+				return null;
+			case "getCatalog":
+				return catalog;
+			case "setCatalog":
+				catalog = (String) args[0];
+				return null;
+			case "getSchema":
+				return schema;
+			case "setSchema":
+				schema = (String) args[0];
+				return null;
+			case "rollback":
+				++rollbackCount;
+				return null;
+			case "clearWarnings":
+				return null;
+			case "createStatement":
+			case "prepareStatement":
+			case "prepareCall":
+			case "getMetaData":
+				return child(method.getReturnType(), null);
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		}
+		
+		protected Object child(Class<?> type, final Object parent)
+		{
+			return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new InvocationHandler()
+			{
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+				{
+					switch (method.getName())
+					{
+					case "getConnection":
+						return TestConnection.this.proxy;
+					case "executeQuery":
+						return child(ResultSet.class, proxy);
+					case "getTables":
+						// metadata result sets use an internal statement
+						return child(ResultSet.class, child(Statement.class, null));
+					case "getStatement":
+						return parent;
+					case "execute":
+						++validationCount;
+						if (!valid)
+						{
+							throw new SQLException("connection broken");
+						}
+						return true;
+					case "close":
+						return null;
+					default:
+						throw new UnsupportedOperationException(method.getName());
+					}
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.data.JsonDataSource;
+import net.sf.jasperreports.engine.data.JsonStreamingDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class JsonStreamingDataSourceTest
+{
+	
+	private static final String JSON_DATA = "{\"count\": 3, \"orders\": ["
+			+ "{\"id\": 1, \"status\": \"open\", \"lines\": [{\"product\": \"p1\"}, {\"product\": \"p2\"}], \"customer\": {\"name\": \"c1\"}},"
+			+ "{\"id\": 2, \"status\": \"closed\", \"lines\": {\"product\": \"p3\"}, \"customer\": {\"name\": \"c2\"}},"
+			+ "{\"id\": 3, \"status\": \"open\", \"lines\": [], \"customer\": {\"name\": \"c3\"}}"
+			+ "], \"summary\": {\"orders\": 3}}";
+	
+	@DataProvider
+	public Object[][] selectExpressions()
+	{
+		return new Object[][]{
+			{null, "count"},
+			{"orders", "id"},
+			{"orders.lines", "product"},
+			{"orders(status == open)", "id"},
+			{"orders(status == open).lines", "product"},
+			{"orders.lines(product == p2)", "product"},
+			{"orders.customer", "name"},
+			{"orders[1]", "id"},
+			{"orders[0].lines", "product"},
+			{"summary", "orders"},
+			{"missing", "id"},
+		};
+	}
+
+	@Test(dataProvider = "selectExpressions")
+	public void sameRecords(String selectExpression, String fieldName) throws JRException, UnsupportedEncodingException
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(fieldName);
+		field.setValueClass(String.class);
+		
+		List<Object> values = readValues(new JsonDataSource(jsonInput(), selectExpression), field);
+		List<Object> streamingValues = readValues(new JsonStreamingDataSource(jsonInput(), selectExpression), field);
+		assert values.equals(streamingValues) : streamingValues + " instead of " + values;
+	}
+	
+	@Test
+	public void rootArray() throws JRException, UnsupportedEncodingException
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName("id");
+		field.setValueClass(Integer.class);
+		
+		JsonStreamingDataSource dataSource = new JsonStreamingDataSource(
+				new ByteArrayInputStream("[{\"id\": 1}, {\"id\": 2}]".getBytes("UTF-8")));
+		List<Object> values = readValues(dataSource, field);
+		assert values.size() == 2;
+		assert values.get(0).equals(1);
+		assert values.get(1).equals(2);
+	}
+
+	protected ByteArrayInputStream jsonInput() throws UnsupportedEncodingException
+	{
+		return new ByteArrayInputStream(JSON_DATA.getBytes("UTF-8"));
+	}
+	
+	protected List<Object> readValues(JRDataSource dataSource, JRDesignField field) throws JRException
+	{
+		List<Object> values = new ArrayList<Object>();
+		while (dataSource.next())
+		{
+			values.add(dataSource.getFieldValue(field));
+		}
+		return values;
+	}
+}
@@ -0,0 +1,192 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+import org.testng.annotations.Test;
+
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfDate;
+import com.lowagie.text.pdf.PdfName;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.base.JRBasePrintImage;
+import net.sf.jasperreports.engine.base.JRBasePrintPage;
+import net.sf.jasperreports.engine.base.JRBasePrintText;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.type.ScaleImageEnum;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
+import net.sf.jasperreports.renderers.SimpleDataRenderer;
+
+public class PdfRenderingThreadsExportTest
+{
+	
+	private static final Pattern DOCUMENT_ID_PATTERN = Pattern.compile("/ID ?\\[<([0-9a-fA-F]+)> ?<([0-9a-fA-F]+)>\\]");
+
+	@Test
+	public void renderingThreadsExport() throws JRException, IOException
+	{
+		JasperPrint print = createPrint(12);
+		
+		byte[] sequentialData = pdfExport(print, 0);
+		byte[] parallelData = pdfExport(print, 3);
+		
+		assert sequentialData.length > 0;
+		// the images and fonts are written in the same order
+		assert Arrays.equals(sequentialData, parallelData);
+		
+		// exporting again with the images already decoded
+		assert Arrays.equals(sequentialData, pdfExport(print, 3));
+	}
+	
+	protected JasperPrint createPrint(int pageCount) throws IOException
+	{
+		JasperPrint print = new JasperPrint();
+		print.setName("PdfRenderingThreadsExportTest");
+		print.setPageWidth(595);
+		print.setPageHeight(842);
+		
+		byte[] pngData = imageData("png", Color.RED);
+		byte[] jpegData = imageData("jpeg", Color.BLUE);
+		// the same renderer instance is used for all cached images
+		SimpleDataRenderer cachedRenderer = SimpleDataRenderer.getInstance(pngData);
+		
+		for (int pageIndex = 0; pageIndex < pageCount; pageIndex++)
+		{
+			JRPrintPage page = new JRBasePrintPage();
+			
+			JRBasePrintText text = new JRBasePrintText(print.getDefaultStyleProvider());
+			text.setX(20);
+			text.setY(20);
+			text.setWidth(400);
+			text.setHeight(40);
+			text.setMarkup("styled");
+			text.setText("Page <style isBold=\"true\">" + (pageIndex + 1) + "</style> with "
+					+ "<style forecolor=\"#0000FF\" isItalic=\"true\">styled</style> text");
+			text.setTextHeight(14);
+			text.setLineSpacingFactor(1.15f);
+			text.setLeadingOffset(-2);
+			page.addElement(text);
+			
+			page.addElement(image(print, cachedRenderer, true, 20, 80));
+			// a distinct renderer with the same data for each element
+			page.addElement(image(print, SimpleDataRenderer.getInstance(pngData), false, 140, 80));
+			page.addElement(image(print, SimpleDataRenderer.getInstance(jpegData), pageIndex % 2 == 0, 260, 80));
+			
+			print.addPage(page);
+		}
+		return print;
+	}
+	
+	protected JRBasePrintImage image(JasperPrint print, SimpleDataRenderer renderer, boolean usingCache, int x, int y)
+	{
+		JRBasePrintImage image = new JRBasePrintImage(print.getDefaultStyleProvider());
+		image.setX(x);
+		image.setY(y);
+		image.setWidth(100);
+		image.setHeight(60);
+		image.setScaleImage(ScaleImageEnum.RETAIN_SHAPE);
+		image.setRenderer(renderer);
+		image.setUsingCache(usingCache);
+		return image;
+	}
+	
+	protected byte[] imageData(String format, Color color) throws IOException
+	{
+		BufferedImage image = new BufferedImage(50, 30, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.WHITE);
+		graphics.fillRect(0, 0, 50, 30);
+		graphics.setColor(color);
+		graphics.fillOval(5, 5, 40, 20);
+		graphics.dispose();
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, format, out);
+		return out.toByteArray();
+	}
+	
+	protected byte[] pdfExport(JasperPrint print, int renderingThreads) throws JRException
+	{
+		SimplePdfExporterConfiguration configuration = new SimplePdfExporterConfiguration();
+		configuration.setRenderingThreads(renderingThreads);
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JRPdfExporter exporter = new FixedDatePdfExporter();
+		exporter.setExporterInput(new SimpleExporterInput(print));
+		exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+		exporter.setConfiguration(configuration);
+		exporter.exportReport();
+		return fixDocumentId(out.toByteArray());
+	}
+	
+	protected byte[] fixDocumentId(byte[] data)
+	{
+		// iText generates the document ID from the current time, replacing it with a fixed value
+		String content = new String(data, StandardCharsets.ISO_8859_1);
+		Matcher matcher = DOCUMENT_ID_PATTERN.matcher(content);
+		boolean found = matcher.find();
+		assert found;
+		
+		byte[] fixedData = data.clone();
+		for (int group = 1; group <= 2; group++)
+		{
+			Arrays.fill(fixedData, matcher.start(group), matcher.end(group), (byte) '0');
+		}
+		return fixedData;
+	}
+	
+	protected static class FixedDatePdfExporter extends JRPdfExporter
+	{
+		@Override
+		protected void exportPage(JRPrintPage page) throws JRException, DocumentException, IOException
+		{
+			Calendar date = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+			date.clear();
+			date.set(2019, Calendar.JANUARY, 1);
+			PdfDate pdfDate = new PdfDate(date);
+			pdfWriter.getInfo().put(PdfName.CREATIONDATE, pdfDate);
+			pdfWriter.getInfo().put(PdfName.MODDATE, pdfDate);
+			
+			super.exportPage(page);
+		}
+	}
+}
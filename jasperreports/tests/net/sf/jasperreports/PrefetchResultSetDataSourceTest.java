@@ -0,0 +1,396 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.PrefetchResultSetDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class PrefetchResultSetDataSourceTest
+{
+	
+	@Test
+	public void rowOrder() throws JRException
+	{
+		TestResultSet resultSet = new TestResultSet(1000);
+		PrefetchResultSetDataSource dataSource = dataSource(resultSet, 7, 3);
+		try
+		{
+			JRField field = field();
+			for (int row = 1; row <= 1000; row++)
+			{
+				assert dataSource.next();
+				assert Integer.valueOf(row).equals(dataSource.getFieldValue(field));
+			}
+			assert !dataSource.next();
+			assert !dataSource.next();
+		}
+		finally
+		{
+			dataSource.close();
+		}
+	}
+	
+	@Test
+	public void emptyResultSet() throws JRException
+	{
+		PrefetchResultSetDataSource dataSource = dataSource(new TestResultSet(0), 5, 2);
+		try
+		{
+			assert !dataSource.next();
+		}
+		finally
+		{
+			dataSource.close();
+		}
+	}
+	
+	@Test
+	public void blockReuse() throws JRException
+	{
+		final Set<Object> blocks = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+		final AtomicInteger takenBlocks = new AtomicInteger();
+		PrefetchResultSetDataSource dataSource = new PrefetchResultSetDataSource(DefaultJasperReportsContext.getInstance(), 
+				new TestResultSet(100).proxy(), new JRField[]{field()}, 5, 2)
+		{
+			@Override
+			protected RowBlock takeBlock() throws JRException
+			{
+				RowBlock block = super.takeBlock();
+				blocks.add(block);
+				takenBlocks.incrementAndGet();
+				return block;
+			}
+		};
+		try
+		{
+			JRField field = field();
+			int row = 0;
+			while (dataSource.next())
+			{
+				++row;
+				assert Integer.valueOf(row).equals(dataSource.getFieldValue(field));
+			}
+			assert row == 100;
+		}
+		finally
+		{
+			dataSource.close();
+		}
+		
+		// 20 full blocks and an empty last one, all read into the same 2 blocks
+		assert takenBlocks.get() == 21;
+		assert blocks.size() == 2;
+	}
+	
+	@Test
+	public void producerError() throws JRException
+	{
+		TestResultSet resultSet = new TestResultSet(100);
+		resultSet.failAtRow = 23;
+		PrefetchResultSetDataSource dataSource = dataSource(resultSet, 10, 2);
+		try
+		{
+			JRField field = field();
+			for (int row = 1; row < 23; row++)
+			{
+				assert dataSource.next();
+				assert Integer.valueOf(row).equals(dataSource.getFieldValue(field));
+			}
+			
+			try
+			{
+				dataSource.next();
+				assert false;
+			}
+			catch (JRException e)
+			{
+				assert e.getCause() instanceof SQLException;
+			}
+		}
+		finally
+		{
+			dataSource.close();
+		}
+	}
+	
+	@Test(timeOut = 10000)
+	public void earlyClose() throws JRException
+	{
+		TestResultSet resultSet = new TestResultSet(Integer.MAX_VALUE);
+		PrefetchResultSetDataSource dataSource = dataSource(resultSet, 10, 3);
+		JRField field = field();
+		for (int row = 1; row <= 15; row++)
+		{
+			assert dataSource.next();
+			assert Integer.valueOf(row).equals(dataSource.getFieldValue(field));
+		}
+		dataSource.close();
+		
+		// the producer has stopped and does not read past the free blocks
+		int readRows = resultSet.readRows.get();
+		assert readRows <= 15 + 10 * 3 + 1;
+		assert resultSet.readRows.get() == readRows;
+		
+		try
+		{
+			dataSource.next();
+			assert false;
+		}
+		catch (JRException e)
+		{
+			assert PrefetchResultSetDataSource.EXCEPTION_MESSAGE_KEY_PREFETCH_CANCELED.equals(e.getMessageKey());
+		}
+	}
+	
+	@Test(timeOut = 10000)
+	public void cancel() throws Exception
+	{
+		TestResultSet resultSet = new TestResultSet(Integer.MAX_VALUE);
+		// the producer waits in the database after the first rows
+		resultSet.blockAtRow = 5;
+		final PrefetchResultSetDataSource dataSource = dataSource(resultSet, 10, 2);
+		
+		final CountDownLatch consumed = new CountDownLatch(1);
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread fillThread = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					while (dataSource.next())
+					{
+						if (dataSource.getFieldValue(field()).equals(4))
+						{
+							consumed.countDown();
+						}
+					}
+					result.set(Boolean.FALSE);
+				}
+				catch (JRException e)
+				{
+					result.set(e);
+				}
+			}
+		};
+		fillThread.start();
+		
+		// the rows read before the blocked one are not delivered until their block is complete
+		assert !consumed.await(200, TimeUnit.MILLISECONDS);
+		assert resultSet.blocked.await(5, TimeUnit.SECONDS);
+		
+		dataSource.cancel();
+		fillThread.join();
+		dataSource.close();
+		
+		assert result.get() instanceof JRException;
+		assert PrefetchResultSetDataSource.EXCEPTION_MESSAGE_KEY_PREFETCH_CANCELED.equals(
+				((JRException) result.get()).getMessageKey());
+		
+		// the producer has been stopped by canceling the statement, not by interrupting it
+		assert resultSet.canceled.getCount() == 0;
+		assert !resultSet.interrupted;
+	}
+	
+	@Test(timeOut = 10000)
+	public void closeWhileReading() throws Exception
+	{
+		TestResultSet resultSet = new TestResultSet(Integer.MAX_VALUE);
+		resultSet.blockAtRow = 5;
+		PrefetchResultSetDataSource dataSource = dataSource(resultSet, 10, 2);
+		dataSource.start();
+		assert resultSet.blocked.await(5, TimeUnit.SECONDS);
+		
+		// the statement is canceled and close waits for the producer to end
+		dataSource.close();
+		
+		assert resultSet.canceled.getCount() == 0;
+		assert !resultSet.interrupted;
+		assert resultSet.readRows.get() == 4;
+	}
+	
+	protected PrefetchResultSetDataSource dataSource(TestResultSet resultSet, int blockSize, int blockCount)
+	{
+		return new PrefetchResultSetDataSource(DefaultJasperReportsContext.getInstance(), 
+				resultSet.proxy(), new JRField[]{field()}, blockSize, blockCount);
+	}
+	
+	protected static JRDesignField field()
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName("ID");
+		field.setValueClass(Integer.class);
+		return field;
+	}
+	
+	/**
+	 * Single column result set with consecutive integer values.
+	 */
+	protected static class TestResultSet implements InvocationHandler
+	{
+		private final int rowCount;
+		private final AtomicInteger readRows = new AtomicInteger();
+		private final CountDownLatch blocked = new CountDownLatch(1);
+		private final CountDownLatch canceled = new CountDownLatch(1);
+		private volatile boolean interrupted;
+		private int failAtRow = -1;
+		private int blockAtRow = -1;
+		private int row;
+		
+		public TestResultSet(int rowCount)
+		{
+			this.rowCount = rowCount;
+		}
+		
+		public ResultSet proxy()
+		{
+			return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), 
+					new Class<?>[]{ResultSet.class}, this);
+		}
+		
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+		{
+			switch (method.getName())
+			{
+			case "next":
+				return next();
+			case "getInt":
+				return row;
+			case "wasNull":
+				return false;
+			case "getMetaData":
+				return metadata();
+			case "getStatement":
+				return statement();
+			case "close":
+				return null;
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		}
+		
+		protected boolean next() throws SQLException
+		{
+			if (row + 1 == failAtRow)
+			{
+				throw new SQLException("failed at row " + failAtRow);
+			}
+			
+			if (row + 1 == blockAtRow)
+			{
+				blocked.countDown();
+				try
+				{
+					// waiting for the statement to be canceled, as a driver would
+					canceled.await();
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+					throw new SQLException("interrupted", e);
+				}
+				throw new SQLException("canceled");
+			}
+			
+			if (row >= rowCount)
+			{
+				return false;
+			}
+			
+			++row;
+			readRows.incrementAndGet();
+			return true;
+		}
+		
+		protected Statement statement()
+		{
+			return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), 
+					new Class<?>[]{Statement.class}, new InvocationHandler()
+					{
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+						{
+							switch (method.getName())
+							{
+							case "cancel":
+								canceled.countDown();
+								return null;
+							default:
+								throw new UnsupportedOperationException(method.getName());
+							}
+						}
+					});
+		}
+		
+		protected ResultSetMetaData metadata()
+		{
+			return (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(), 
+					new Class<?>[]{ResultSetMetaData.class}, new InvocationHandler()
+					{
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+						{
+							switch (method.getName())
+							{
+							case "getColumnCount":
+								return 1;
+							case "getColumnName":
+							case "getColumnLabel":
+								return "ID";
+							case "getColumnType":
+								return java.sql.Types.INTEGER;
+							case "getColumnTypeName":
+								return "INTEGER";
+							case "getColumnClassName":
+								return Integer.class.getName();
+							default:
+								throw new UnsupportedOperationException(method.getName());
+							}
+						}
+					});
+		}
+	}
+}
@@ -56,6 +56,7 @@ import net.sf.jasperreports.engine.SimpleJasperReportsContext;
 import net.sf.jasperreports.engine.design.JasperDesign;
 import net.sf.jasperreports.engine.export.JRXmlExporter;
 import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRConcurrentLRUVirtualizer;
 import net.sf.jasperreports.engine.util.JRLoader;
 import net.sf.jasperreports.engine.xml.JRXmlLoader;
 import net.sf.jasperreports.export.SimpleExporterInput;
@@ -171,6 +172,10 @@ public class Report
 		{
 			((JRAbstractLRUVirtualizer) virtualizer).setReadOnly(true);
 		}
+		else if (virtualizer instanceof JRConcurrentLRUVirtualizer)
+		{
+			((JRConcurrentLRUVirtualizer) virtualizer).setReadOnly(true);
+		}
 		
 		assert !print.getPages().isEmpty();
 		
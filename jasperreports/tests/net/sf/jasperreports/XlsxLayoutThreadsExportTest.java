@@ -0,0 +1,192 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimpleXlsxExporterConfiguration;
+import net.sf.jasperreports.export.SimpleXlsxReportConfiguration;
+import net.sf.jasperreports.export.XlsxReportConfiguration;
+
+public class XlsxLayoutThreadsExportTest
+{
+
+	@Test
+	public void layoutThreadsExport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		Report report = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml",
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print)
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				super.reportComplete(params, print);
+				assert print.getPages().size() > 1;
+				
+				byte[] sequentialData = xlsxExport(print, 0, 0, false, null);
+				byte[] parallelData = xlsxExport(print, 2, 0, false, null);
+				assertSameEntries(sequentialData, parallelData);
+			}
+		};
+		report.init();
+		report.runReport(null);
+	}
+
+	@Test
+	public void sheetThreadsExport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		Report report = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml",
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print)
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				super.reportComplete(params, print);
+				// the first and the last pages contain images and are exported by the exporter thread
+				assert print.getPages().size() > 2;
+				
+				for (boolean sharedStrings : new boolean[]{false, true})
+				{
+					byte[] sequentialData = xlsxExport(print, 0, 0, sharedStrings, null);
+					
+					Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+					byte[] parallelData = xlsxExport(print, 0, 2, sharedStrings, threadNames);
+					assertSameEntries(sequentialData, parallelData);
+					
+					boolean sheetThreadsUsed = false;
+					synchronized (threadNames)
+					{
+						for (String threadName : threadNames)
+						{
+							sheetThreadsUsed |= threadName.startsWith("JasperReports XLSX sheet");
+						}
+					}
+					assert sheetThreadsUsed;
+				}
+			}
+		};
+		report.init();
+		report.runReport(null);
+	}
+	
+	protected void assertSameEntries(byte[] sequentialData, byte[] parallelData) throws IOException
+	{
+		Map<String, byte[]> sequentialEntries = zipEntries(sequentialData);
+		Map<String, byte[]> parallelEntries = zipEntries(parallelData);
+		assert sequentialEntries.containsKey("xl/worksheets/sheet2.xml");
+		assert sequentialEntries.keySet().equals(parallelEntries.keySet());
+		for (Map.Entry<String, byte[]> entry : sequentialEntries.entrySet())
+		{
+			// the sheets, the styles and the shared strings are written in the same order
+			assert Arrays.equals(entry.getValue(), parallelEntries.get(entry.getKey())) : entry.getKey();
+		}
+	}
+	
+	protected byte[] xlsxExport(JasperPrint print, int layoutThreads, int sheetThreads, 
+			boolean sharedStrings, final Set<String> threadNames) throws JRException
+	{
+		final SimpleXlsxReportConfiguration reportConfiguration = new SimpleXlsxReportConfiguration();
+		reportConfiguration.setOnePagePerSheet(true);
+		SimpleXlsxExporterConfiguration configuration = new SimpleXlsxExporterConfiguration();
+		configuration.setLayoutThreads(layoutThreads);
+		configuration.setSheetThreads(sheetThreads);
+		configuration.setUseSharedStrings(sharedStrings);
+		
+		XlsxReportConfiguration itemConfiguration = reportConfiguration;
+		if (threadNames != null)
+		{
+			// records the threads that read the configuration while exporting the pages
+			itemConfiguration = (XlsxReportConfiguration) Proxy.newProxyInstance(
+				XlsxReportConfiguration.class.getClassLoader(), 
+				new Class<?>[]{XlsxReportConfiguration.class}, 
+				new InvocationHandler()
+				{
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+					{
+						threadNames.add(Thread.currentThread().getName());
+						return method.invoke(reportConfiguration, args);
+					}
+				});
+		}
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JRXlsxExporter exporter = new JRXlsxExporter();
+		exporter.setExporterInput(new SimpleExporterInput(print));
+		exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+		exporter.setConfiguration(itemConfiguration);
+		exporter.setConfiguration(configuration);
+		exporter.exportReport();
+		return out.toByteArray();
+	}
+	
+	protected Map<String, byte[]> zipEntries(byte[] data) throws IOException
+	{
+		Map<String, byte[]> entries = new TreeMap<String, byte[]>();
+		ZipInputStream zipInput = new ZipInputStream(new ByteArrayInputStream(data));
+		try
+		{
+			ZipEntry entry;
+			while ((entry = zipInput.getNextEntry()) != null)
+			{
+				ByteArrayOutputStream entryData = new ByteArrayOutputStream();
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = zipInput.read(buffer)) > 0)
+				{
+					entryData.write(buffer, 0, read);
+				}
+				entries.put(entry.getName(), entryData.toByteArray());
+			}
+		}
+		finally
+		{
+			zipInput.close();
+		}
+		return entries;
+	}
+}
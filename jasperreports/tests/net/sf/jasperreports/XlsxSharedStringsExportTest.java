@@ -0,0 +1,166 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.engine.export.ooxml.XlsxSharedStringsHelper;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimpleXlsxExporterConfiguration;
+
+public class XlsxSharedStringsExportTest
+{
+
+	@Test
+	public void sharedStringsExport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		Report report = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml",
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print)
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				super.reportComplete(params, print);
+				
+				byte[] inlineData = xlsxExport(print, false, false);
+				byte[] sharedData = xlsxExport(print, true, true);
+				
+				Set<String> entries = zipEntryNames(sharedData);
+				assert entries.contains("xl/sharedStrings.xml");
+				assert entries.contains("xl/worksheets/sheet1.xml");
+				assert !zipEntryNames(inlineData).contains("xl/sharedStrings.xml");
+				
+				List<String> inlineValues = cellValues(inlineData);
+				assert !inlineValues.isEmpty();
+				assert inlineValues.equals(cellValues(sharedData));
+			}
+		};
+		report.init();
+		report.runReport(null);
+	}
+	
+	protected byte[] xlsxExport(JasperPrint print, boolean useSharedStrings, boolean streamSheets) throws JRException
+	{
+		SimpleXlsxExporterConfiguration configuration = new SimpleXlsxExporterConfiguration();
+		configuration.setUseSharedStrings(useSharedStrings);
+		configuration.setStreamSheets(streamSheets);
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JRXlsxExporter exporter = new JRXlsxExporter();
+		exporter.setExporterInput(new SimpleExporterInput(print));
+		exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+		exporter.setConfiguration(configuration);
+		exporter.exportReport();
+		return out.toByteArray();
+	}
+	
+	protected Set<String> zipEntryNames(byte[] data) throws IOException
+	{
+		Set<String> names = new HashSet<String>();
+		ZipInputStream zipInput = new ZipInputStream(new ByteArrayInputStream(data));
+		try
+		{
+			ZipEntry entry;
+			while ((entry = zipInput.getNextEntry()) != null)
+			{
+				// no duplicate entries
+				assert names.add(entry.getName());
+			}
+		}
+		finally
+		{
+			zipInput.close();
+		}
+		return names;
+	}
+	
+	@Test
+	public void sharedStringsIndexes()
+	{
+		StringWriter writer = new StringWriter();
+		XlsxSharedStringsHelper helper = new XlsxSharedStringsHelper(DefaultJasperReportsContext.getInstance(), writer);
+		assert helper.getItemIndex("<t>first</t>") == 0;
+		assert helper.getItemIndex("<t>second</t>") == 1;
+		assert helper.getItemIndex("<t>first</t>") == 0;
+		assert helper.getItemIndex("<t>second</t>") == 1;
+		helper.export();
+		
+		String table = writer.toString();
+		assert table.contains("count=\"4\" uniqueCount=\"2\"");
+		// each distinct item is written once, in the order of the indexes
+		assert table.indexOf("<si><t>first</t></si>") > 0;
+		assert table.indexOf("<si><t>first</t></si>") == table.lastIndexOf("<si><t>first</t></si>");
+		assert table.indexOf("<si><t>second</t></si>") > table.indexOf("<si><t>first</t></si>");
+		assert table.indexOf("<si><t>second</t></si>") == table.lastIndexOf("<si><t>second</t></si>");
+	}
+	
+	protected List<String> cellValues(byte[] data) throws IOException
+	{
+		List<String> values = new ArrayList<String>();
+		DataFormatter formatter = new DataFormatter();
+		XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(data));
+		try
+		{
+			for (Sheet sheet : workbook)
+			{
+				for (Row row : sheet)
+				{
+					for (Cell cell : row)
+					{
+						values.add(cell.getAddress() + ":" + formatter.formatCellValue(cell));
+					}
+				}
+			}
+		}
+		finally
+		{
+			workbook.close();
+		}
+		return values;
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.data.AbstractXlsDataSource;
+import net.sf.jasperreports.engine.data.JRXlsxDataSource;
+import net.sf.jasperreports.engine.data.XlsxStreamingDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class XlsxStreamingDataSourceTest
+{
+	
+	private byte[] xlsxData;
+	
+	protected byte[] xlsxData() throws IOException
+	{
+		if (xlsxData == null)
+		{
+			XSSFWorkbook workbook = new XSSFWorkbook();
+			try
+			{
+				CellStyle dateStyle = workbook.createCellStyle();
+				dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+				
+				Sheet orders = workbook.createSheet("Orders");
+				Row header = orders.createRow(0);
+				header.createCell(0).setCellValue("name");
+				header.createCell(1).setCellValue("amount");
+				header.createCell(2).setCellValue("date");
+				header.createCell(3).setCellValue("active");
+				for (int i = 1; i <= 20; i++)
+				{
+					Row row = orders.createRow(i);
+					row.createCell(0).setCellValue("order " + i);
+					row.createCell(1).setCellValue(i * 1.5);
+					row.createCell(2).setCellValue(new Date(1546300800000L + i * 86400000L));
+					row.getCell(2).setCellStyle(dateStyle);
+					row.createCell(3).setCellValue(i % 2 == 0);
+					if (i % 5 == 0)
+					{
+						row.createCell(4).setCellFormula("B" + (i + 1) + "*2");
+					}
+				}
+				
+				Sheet customers = workbook.createSheet("Customers");
+				for (int i = 0; i < 5; i++)
+				{
+					Row row = customers.createRow(i);
+					row.createCell(0).setCellValue("customer " + i);
+					row.createCell(1).setCellValue(i);
+				}
+				
+				// caching the formula values, as the streaming data source does not evaluate formulas
+				workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+				
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				workbook.write(out);
+				xlsxData = out.toByteArray();
+			}
+			finally
+			{
+				workbook.close();
+			}
+		}
+		return xlsxData;
+	}
+	
+	@DataProvider
+	public Object[][] fields()
+	{
+		return new Object[][]{
+			{"Orders", true, "name", String.class},
+			{"Orders", true, "amount", Double.class},
+			{"Orders", true, "amount", Integer.class},
+			{"Orders", true, "date", Date.class},
+			{"Orders", true, "active", Boolean.class},
+			{"0", true, "COLUMN_4", Double.class},
+			{"Customers", false, "COLUMN_0", String.class},
+			{"1", false, "COLUMN_1", Long.class},
+			{null, false, "COLUMN_0", String.class},
+		};
+	}
+
+	@Test(dataProvider = "fields")
+	public void sameValues(String sheetSelection, boolean useFirstRowAsHeader, 
+			String fieldName, Class<?> valueClass) throws JRException, IOException
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName(fieldName);
+		field.setValueClass(valueClass);
+		
+		JRXlsxDataSource dataSource = new JRXlsxDataSource(new ByteArrayInputStream(xlsxData()));
+		List<Object> values = readValues(dataSource, sheetSelection, useFirstRowAsHeader, field);
+		
+		XlsxStreamingDataSource streamingDataSource = new XlsxStreamingDataSource(new ByteArrayInputStream(xlsxData()));
+		List<Object> streamingValues = readValues(streamingDataSource, sheetSelection, useFirstRowAsHeader, field);
+		
+		assert !values.isEmpty();
+		assert values.equals(streamingValues) : streamingValues + " instead of " + values;
+	}
+
+	protected List<Object> readValues(AbstractXlsDataSource dataSource, 
+			String sheetSelection, boolean useFirstRowAsHeader, JRDesignField field) throws JRException
+	{
+		try
+		{
+			dataSource.setSheetSelection(sheetSelection);
+			dataSource.setUseFirstRowAsHeader(useFirstRowAsHeader);
+			
+			List<Object> values = new ArrayList<Object>();
+			while (dataSource.next())
+			{
+				values.add(dataSource.getFieldValue(field));
+			}
+			return values;
+		}
+		finally
+		{
+			dataSource.close();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.data.JRXmlDataSource;
+import net.sf.jasperreports.engine.data.XmlStreamingDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+
+public class XmlStreamingDataSourceTest
+{
+	
+	private static final String XML_DATA = "<?xml version=\"1.0\"?>"
+			+ "<data count=\"4\">"
+			+ "<orders region=\"eu\">"
+			+ "<order id=\"1\" status=\"open\"><amount>10</amount><line product=\"p1\"/><line product=\"p2\"/></order>"
+			+ "<order id=\"2\" status=\"closed\"><amount>200</amount><line product=\"p3\"/></order>"
+			+ "<archive><order id=\"3\" status=\"open\"><amount>300</amount></order></archive>"
+			+ "</orders>"
+			+ "<orders region=\"us\">"
+			+ "<order id=\"4\" status=\"open\"><amount>5</amount></order>"
+			+ "</orders>"
+			+ "</data>";
+	
+	@DataProvider
+	public Object[][] selectExpressions()
+	{
+		return new Object[][]{
+			{"/", "/data/@count"},
+			{"/data/orders/order", "@id"},
+			{"//order", "@id"},
+			{"/data/orders/order[@status='open']", "@id"},
+			{"/data/orders/order[2]", "@id"},
+			{"//order[@id=4]", "amount"},
+			{"/data/orders[@region='us']/order", "@id"},
+			{"//order[amount > 50]", "@id"},
+			{"/data/*/order/line", "@product"},
+			{"//line[@product!='p1']", "@product"},
+			{"//order[1]", "../@region"},
+			{"/data/missing", "@id"},
+		};
+	}
+
+	@Test(dataProvider = "selectExpressions")
+	public void sameRecords(String selectExpression, String fieldExpression) throws JRException, UnsupportedEncodingException
+	{
+		JRDesignField field = new JRDesignField();
+		field.setName("field");
+		field.setDescription(fieldExpression);
+		field.setValueClass(String.class);
+		
+		List<Object> values = readValues(new JRXmlDataSource(xmlInput(), selectExpression), field);
+		XmlStreamingDataSource streamingDataSource = new XmlStreamingDataSource(
+				DefaultJasperReportsContext.getInstance(), xmlInput(), selectExpression);
+		List<Object> streamingValues = readValues(streamingDataSource, field);
+		assert values.equals(streamingValues) : streamingValues + " instead of " + values;
+	}
+	
+	@Test(expectedExceptions = JRException.class)
+	public void unsupportedExpression() throws JRException, UnsupportedEncodingException
+	{
+		new XmlStreamingDataSource(DefaultJasperReportsContext.getInstance(), xmlInput(), "//order/../line");
+	}
+
+	protected ByteArrayInputStream xmlInput() throws UnsupportedEncodingException
+	{
+		return new ByteArrayInputStream(XML_DATA.getBytes("UTF-8"));
+	}
+	
+	protected List<Object> readValues(JRDataSource dataSource, JRDesignField field) throws JRException
+	{
+		List<Object> values = new ArrayList<Object>();
+		while (dataSource.next())
+		{
+			values.add(dataSource.getFieldValue(field));
+		}
+		return values;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.bands.evaluation;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.design.JRClassGenerator;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+/**
+ * Runs the band evaluation reports compiled with a separate method for each expression.
+ */
+public class BandEvaluationExpressionMethodsTest extends BandEvaluationTest
+{
+	@Override
+	public JasperReport compileReport(String jrxmlFileName) throws JRException, IOException
+	{
+		JasperReport jasperReport = null;
+		
+		InputStream jrxmlInput = JRLoader.getResourceInputStream(jrxmlFileName);
+		if (jrxmlInput != null)
+		{
+			JasperDesign design;
+			try
+			{
+				design = JRXmlLoader.load(jrxmlInput);
+			}
+			finally
+			{
+				jrxmlInput.close();
+			}
+			
+			SimpleJasperReportsContext compileContext = new SimpleJasperReportsContext();
+			compileContext.setProperty(JRClassGenerator.PROPERTY_EXPRESSION_METHODS, "true");
+			jasperReport = JasperCompileManager.getInstance(compileContext).compile(design);
+		}
+		
+		return jasperReport;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.instrumentation;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.Report;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+
+public class FillStatisticsTest
+{
+
+	@Test
+	public void fillStatistics() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		Report report = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml",
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			public void init()
+			{
+				super.init();
+				jasperReportsContext.setProperty(FillStatistics.PROPERTY_ENABLED, "true");
+			}
+
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print)
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				String statistics = print.getProperty(FillStatistics.PRINT_PROPERTY_STATISTICS);
+				assert statistics != null;
+				assert statistics.contains("\"fillTime\"");
+
+				// the statistics do not affect the generated content
+				print.getPropertiesMap().removeProperty(FillStatistics.PRINT_PROPERTY_STATISTICS);
+				super.reportComplete(params, print);
+			}
+		};
+		report.init();
+		report.runReport(null);
+	}
+}
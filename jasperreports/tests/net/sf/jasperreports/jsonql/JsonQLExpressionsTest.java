@@ -31,6 +31,7 @@ import org.testng.annotations.Test;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRException;
@@ -190,6 +191,39 @@ public class JsonQLExpressionsTest {
         JsonNodeContainer jsonQL_1_result = jsonQLExecuter.evaluateExpression(jrJsonNode, jsonQL_1);
 
         assert toArrayNode(jsonQL_1_result).equals(expectedResult);
+
+        // the second evaluation reuses the parsed expression and its evaluators
+        JsonNodeContainer jsonQL_1_reevaluated = jsonQLExecuter.evaluateExpression(jrJsonNode, jsonQL_1);
+
+        assert toArrayNode(jsonQL_1_reevaluated).equals(expectedResult);
+    }
+
+    @Test
+    public void cachedEvaluatorsOnDifferentRoots() throws JRException {
+        String[] expressions = {
+                "..[prodId, prodQty]",
+                "..*(prodId != null && prodQty > 4)",
+                "..*(prodId != null && ^^.shippedOn != null)",
+                "..products(*@size >=2)..*(prodId != null)"
+        };
+        String[] customers = {"customerXorders", "customerYorders"};
+
+        // the same parsed expressions and evaluators are used alternately for the orders of each customer
+        for (int pass = 0; pass < 2; pass++) {
+            for (String customer: customers) {
+                ObjectNode customerRoot = jsonQLExecuter.getEvaluator().getEvaluationContext().getObjectMapper().createObjectNode();
+                customerRoot.set("orders", jrJsonNode.getDataNode().get(customer));
+                JRJsonNode rootNode = new JRJsonNode(null, customerRoot);
+
+                for (int i = 0; i < expressions.length; i++) {
+                    JsonNodeContainer result = jsonQLExecuter.evaluateExpression(rootNode, expressions[i]);
+                    JsonNodeContainer uncachedResult = new DefaultJsonQLExecuter().evaluateExpression(rootNode, expressions[i]);
+
+                    assert toArrayNode(result).equals(expectedResult.get(customer).get(i));
+                    assert toArrayNode(result).equals(toArrayNode(uncachedResult));
+                }
+            }
+        }
     }
 
     private ArrayNode toArrayNode(JsonNodeContainer container) {
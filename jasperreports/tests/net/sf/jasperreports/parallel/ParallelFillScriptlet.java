@@ -0,0 +1,60 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.parallel;
+
+import java.util.concurrent.CountDownLatch;
+
+import net.sf.jasperreports.engine.JRDefaultScriptlet;
+import net.sf.jasperreports.engine.JRScriptletException;
+
+/**
+ * Scriptlet that fails or blocks when reaching a record with a given value.
+ */
+public class ParallelFillScriptlet extends JRDefaultScriptlet
+{
+
+	@Override
+	public void afterDetailEval() throws JRScriptletException
+	{
+		Object value = getFieldValue("value");
+		if (value.equals(getParameterValue("FailValue")))
+		{
+			throw new JRScriptletException("Failed at value " + value);
+		}
+		
+		if (value.equals(getParameterValue("BlockValue")))
+		{
+			((CountDownLatch) getParameterValue("BlockedLatch")).countDown();
+			try
+			{
+				// waiting until the fill is canceled
+				Thread.sleep(Long.MAX_VALUE);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,389 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.parallel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRScriptletException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.SimpleJasperReportsContext;
+import net.sf.jasperreports.engine.data.ListOfArrayDataSource;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JRDesignExpression;
+import net.sf.jasperreports.engine.design.JRDesignGroup;
+import net.sf.jasperreports.engine.design.JRDesignTextField;
+import net.sf.jasperreports.engine.design.JRDesignVariable;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.export.JRXmlExporter;
+import net.sf.jasperreports.engine.fill.FillPartition;
+import net.sf.jasperreports.engine.fill.JRFillInterruptedException;
+import net.sf.jasperreports.engine.fill.JRFiller;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.ParallelReportFiller;
+import net.sf.jasperreports.engine.fill.SimpleJasperReportSource;
+import net.sf.jasperreports.engine.type.CalculationEnum;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleXmlExporterOutput;
+
+public class ParallelFillTest
+{
+	
+	private static final String JRXML = "net/sf/jasperreports/parallel/repo/ParallelFillReport.jrxml";
+	private static final String REFERENCE_JRPXML = "net/sf/jasperreports/parallel/repo/ParallelFillReport.reference.jrpxml";
+	
+	private static final int CATEGORY_COUNT = 12;
+	private static final int CATEGORY_SIZE = 30;
+	
+	private SimpleJasperReportsContext jasperReportsContext;
+	
+	@BeforeClass
+	public void init()
+	{
+		jasperReportsContext = new SimpleJasperReportsContext();
+		jasperReportsContext.setProperty(ParallelReportFiller.PROPERTY_PARALLEL_FILL_PARTITIONS, "4");
+		jasperReportsContext.setProperty(ParallelReportFiller.PROPERTY_PARALLEL_FILL_MIN_PARTITION_SIZE, 
+				String.valueOf(CATEGORY_SIZE));
+		// the test scriptlet only looks at the current record
+		jasperReportsContext.setProperty(ParallelReportFiller.PROPERTY_PARALLEL_FILL_SCRIPTLETS, "true");
+	}
+	
+	@Test
+	public void sequentialFill() throws JRException, IOException
+	{
+		JasperReport report = JasperCompileManager.compileReport(loadDesign());
+		JasperPrint print = JRFiller.createReportFiller(jasperReportsContext, report).fill(parameters());
+		assert Arrays.equals(xmlExport(print), JRLoader.loadBytesFromResource(REFERENCE_JRPXML));
+	}
+	
+	@Test
+	public void parallelFill() throws JRException, IOException
+	{
+		JasperReport report = JasperCompileManager.compileReport(loadDesign());
+		AtomicInteger partitionCount = new AtomicInteger();
+		JasperPrint print = parallelFiller(report, partitionCount).fill(parameters());
+		
+		assert partitionCount.get() == 4;
+		assert Arrays.equals(xmlExport(print), JRLoader.loadBytesFromResource(REFERENCE_JRPXML));
+	}
+	
+	@Test
+	public void fillManager() throws JRException, IOException
+	{
+		JasperDesign design = loadDesign();
+		design.setProperty(ParallelReportFiller.PROPERTY_PARALLEL_FILL, "true");
+		JasperReport report = JasperCompileManager.compileReport(design);
+		
+		JasperPrint print = JasperFillManager.getInstance(jasperReportsContext).fill(report, parameters());
+		assert Arrays.equals(xmlExport(print), JRLoader.loadBytesFromResource(REFERENCE_JRPXML));
+	}
+	
+	@Test
+	public void virtualizedFill() throws JRException, IOException
+	{
+		JasperReport report = JasperCompileManager.compileReport(loadDesign());
+		AtomicInteger partitionCount = new AtomicInteger();
+		Map<String, Object> parameters = parameters();
+		JRGzipVirtualizer virtualizer = new JRGzipVirtualizer(2);
+		parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+		try
+		{
+			JasperPrint print = parallelFiller(report, partitionCount).fill(parameters);
+			
+			assert partitionCount.get() == 4;
+			assert Arrays.equals(xmlExport(print), JRLoader.loadBytesFromResource(REFERENCE_JRPXML));
+		}
+		finally
+		{
+			virtualizer.cleanup();
+		}
+	}
+	
+	@Test
+	public void pageNumberFallback() throws JRException, IOException
+	{
+		JasperDesign design = loadDesign();
+		JRDesignBand pageFooter = (JRDesignBand) design.getPageFooter();
+		pageFooter.addElement(textField("\"Partition page \" + $V{PAGE_NUMBER}"));
+		assertSequential(design);
+	}
+	
+	@Test
+	public void dataSourceFallback() throws JRException, IOException
+	{
+		JasperDesign design = loadDesign();
+		JRDesignBand title = (JRDesignBand) design.getTitle();
+		title.addElement(textField("String.valueOf($P{REPORT_DATA_SOURCE} != null)"));
+		assertSequential(design);
+	}
+	
+	@Test
+	public void reportVariableFallback() throws JRException, IOException
+	{
+		JasperDesign design = loadDesign();
+		JRDesignBand pageFooter = (JRDesignBand) design.getPageFooter();
+		pageFooter.addElement(textField("\"Running total \" + $V{Total}"));
+		assertSequential(design);
+	}
+	
+	@Test
+	public void scriptletFallback() throws JRException, IOException
+	{
+		JasperDesign design = loadDesign();
+		design.setProperty(ParallelReportFiller.PROPERTY_PARALLEL_FILL_SCRIPTLETS, "false");
+		assertSequential(design);
+	}
+	
+	@Test
+	public void bigDecimalAverage() throws JRException, IOException
+	{
+		JasperDesign design = loadDesign();
+		// the average has more digits than the division precision
+		design.addVariable(variable("Remainder", BigDecimal.class, CalculationEnum.AVERAGE, 
+				"new java.math.BigDecimal($F{value} % 7)"));
+		design.addVariable(variable("RemainderTotal", BigDecimal.class, CalculationEnum.SUM, 
+				"new java.math.BigDecimal($F{value}).divide(new java.math.BigDecimal(7), 5, java.math.RoundingMode.HALF_UP)"));
+		JRDesignBand summary = (JRDesignBand) design.getSummary();
+		summary.addElement(textField("\"Remainder average \" + $V{Remainder} + \", total \" + $V{RemainderTotal}"));
+		assertParallel(design);
+	}
+	
+	@Test
+	public void doubleSumFallback() throws JRException, IOException
+	{
+		JasperDesign design = loadDesign();
+		design.addVariable(variable("DoubleTotal", Double.class, CalculationEnum.SUM, "$F{value} / 7d"));
+		JRDesignBand summary = (JRDesignBand) design.getSummary();
+		summary.addElement(textField("\"Double total \" + $V{DoubleTotal}"));
+		assertSequential(design);
+	}
+	
+	@Test
+	public void doubleAverageFallback() throws JRException, IOException
+	{
+		JasperDesign design = loadDesign();
+		design.addVariable(variable("DoubleAverage", Double.class, CalculationEnum.AVERAGE, "$F{value} / 7d"));
+		JRDesignBand summary = (JRDesignBand) design.getSummary();
+		summary.addElement(textField("\"Double average \" + $V{DoubleAverage}"));
+		assertSequential(design);
+	}
+	
+	@Test
+	public void groupPaginationFallback() throws JRException, IOException
+	{
+		JasperDesign design = loadDesign();
+		((JRDesignGroup) design.getGroupsMap().get("Category")).setStartNewPage(false);
+		assertSequential(design);
+	}
+	
+	@Test(timeOut = 60000)
+	public void partitionFailure() throws JRException, IOException
+	{
+		JasperReport report = JasperCompileManager.compileReport(loadDesign());
+		Map<String, Object> parameters = parameters();
+		// failing in the third partition
+		parameters.put("FailValue", 7 * CATEGORY_SIZE + 3);
+		
+		try
+		{
+			parallelFiller(report, new AtomicInteger()).fill(parameters);
+			assert false;
+		}
+		catch (JRScriptletException e)
+		{
+			// the original exception is thrown, not the ones of the stopped partitions
+			assert e.getMessage().contains("Failed at value " + (7 * CATEGORY_SIZE + 3));
+		}
+	}
+	
+	@Test(timeOut = 60000)
+	public void cancel() throws Exception
+	{
+		JasperReport report = JasperCompileManager.compileReport(loadDesign());
+		final Map<String, Object> parameters = parameters();
+		CountDownLatch blockedLatch = new CountDownLatch(1);
+		// blocking in the last partition while the others wait for it to end
+		parameters.put("BlockValue", 11 * CATEGORY_SIZE + 3);
+		parameters.put("BlockedLatch", blockedLatch);
+		
+		final CountDownLatch waitingLatch = new CountDownLatch(3);
+		final ParallelReportFiller filler = new ParallelReportFiller(jasperReportsContext, SimpleJasperReportSource.from(report))
+		{
+			@Override
+			protected void partitionDataEnded(FillPartition partition) throws JRException
+			{
+				waitingLatch.countDown();
+				super.partitionDataEnded(partition);
+			}
+		};
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread fillThread = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					result.set(filler.fill(parameters));
+				}
+				catch (Throwable e)
+				{
+					result.set(e);
+				}
+			}
+		};
+		fillThread.start();
+		
+		assert blockedLatch.await(30, TimeUnit.SECONDS);
+		assert waitingLatch.await(30, TimeUnit.SECONDS);
+		filler.cancelFill();
+		fillThread.join();
+		
+		assert result.get() instanceof JRFillInterruptedException;
+	}
+	
+	protected void assertSequential(JasperDesign design) throws JRException, IOException
+	{
+		JasperReport report = JasperCompileManager.compileReport(design);
+		AtomicInteger partitionCount = new AtomicInteger();
+		JasperPrint print = parallelFiller(report, partitionCount).fill(parameters());
+		assert partitionCount.get() == 0;
+		
+		JasperPrint sequentialPrint = JRFiller.createReportFiller(jasperReportsContext, report).fill(parameters());
+		assert Arrays.equals(xmlExport(print), xmlExport(sequentialPrint));
+	}
+	
+	protected void assertParallel(JasperDesign design) throws JRException, IOException
+	{
+		JasperReport report = JasperCompileManager.compileReport(design);
+		AtomicInteger partitionCount = new AtomicInteger();
+		JasperPrint print = parallelFiller(report, partitionCount).fill(parameters());
+		assert partitionCount.get() == 4;
+		
+		JasperPrint sequentialPrint = JRFiller.createReportFiller(jasperReportsContext, report).fill(parameters());
+		assert Arrays.equals(xmlExport(print), xmlExport(sequentialPrint));
+	}
+	
+	protected ParallelReportFiller parallelFiller(JasperReport report, final AtomicInteger partitionCount)
+	{
+		return new ParallelReportFiller(jasperReportsContext, SimpleJasperReportSource.from(report))
+		{
+			@Override
+			protected JasperPrint fillPartition(FillPartition partition, Map<String, Object> parameterValues,
+					String[] fieldNames) throws JRException
+			{
+				partitionCount.incrementAndGet();
+				return super.fillPartition(partition, parameterValues, fieldNames);
+			}
+		};
+	}
+	
+	protected JasperDesign loadDesign() throws JRException, IOException
+	{
+		InputStream jrxmlInput = JRLoader.getResourceInputStream(JRXML);
+		try
+		{
+			return JRXmlLoader.load(jrxmlInput);
+		}
+		finally
+		{
+			jrxmlInput.close();
+		}
+	}
+	
+	protected JRDesignTextField textField(String expression)
+	{
+		JRDesignTextField textField = new JRDesignTextField();
+		textField.setX(200);
+		textField.setWidth(160);
+		textField.setHeight(15);
+		textField.setUUID(UUID.nameUUIDFromBytes(expression.getBytes()));
+		textField.setExpression(new JRDesignExpression(expression));
+		return textField;
+	}
+	
+	protected JRDesignVariable variable(String name, Class<?> valueClass, CalculationEnum calculation, 
+			String expression)
+	{
+		JRDesignVariable variable = new JRDesignVariable();
+		variable.setName(name);
+		variable.setValueClass(valueClass);
+		variable.setCalculation(calculation);
+		variable.setExpression(new JRDesignExpression(expression));
+		return variable;
+	}
+	
+	protected Map<String, Object> parameters()
+	{
+		List<Object[]> records = new ArrayList<Object[]>();
+		for (int category = 0; category < CATEGORY_COUNT; category++)
+		{
+			for (int i = 0; i < CATEGORY_SIZE; i++)
+			{
+				records.add(new Object[]{"C" + (category + 10), category * CATEGORY_SIZE + i});
+			}
+		}
+		
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		parameters.put(JRParameter.REPORT_LOCALE, Locale.US);
+		parameters.put(JRParameter.REPORT_TIME_ZONE, TimeZone.getTimeZone("GMT"));
+		parameters.put(JRParameter.REPORT_DATA_SOURCE, 
+				new ListOfArrayDataSource(records, new String[]{"category", "value"}));
+		return parameters;
+	}
+	
+	protected byte[] xmlExport(JasperPrint print) throws JRException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JRXmlExporter exporter = new JRXmlExporter();
+		exporter.setExporterInput(new SimpleExporterInput(print));
+		exporter.setExporterOutput(new SimpleXmlExporterOutput(out));
+		exporter.exportReport();
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.Report;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSaver;
+import net.sf.jasperreports.engine.virtualization.JasperPrintBinaryFile;
+
+public class BinaryPrintTest
+{
+
+	protected Report binaryReport(final boolean virtualizedLoad)
+	{
+		Report report = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml",
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print)
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				JRSaver.saveJasperPrintBinary(print, out);
+
+				HashMap<String, Object> loadParams = new HashMap<String, Object>(params);
+				JRGzipVirtualizer loadVirtualizer = virtualizedLoad ? new JRGzipVirtualizer(3) : null;
+				loadParams.put(JRParameter.REPORT_VIRTUALIZER, loadVirtualizer);
+
+				JasperPrint loadedPrint = JRLoader.loadJasperPrintBinary(
+						new ByteArrayInputStream(out.toByteArray()), loadVirtualizer);
+				assert loadedPrint.getPages().size() == print.getPages().size();
+
+				// checking the XML export of the loaded document
+				super.reportComplete(loadParams, loadedPrint);
+			}
+		};
+		report.init();
+		return report;
+	}
+
+	@Test
+	public void binaryReport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		binaryReport(false).runReport(null);
+	}
+
+	@Test
+	public void binaryFileReport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		Report report = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml",
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print)
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				File file = File.createTempFile("BinaryPrintTest", ".jrpb");
+				try
+				{
+					JRSaver.saveJasperPrintBinary(print, file);
+
+					// keeping a single page in memory
+					JasperPrintBinaryFile printFile = new JasperPrintBinaryFile(
+							DefaultJasperReportsContext.getInstance(), file, 1);
+					try
+					{
+						JasperPrint filePrint = printFile.getJasperPrint();
+						int pageCount = print.getPages().size();
+						assert filePrint.getPages().size() == pageCount;
+
+						// random page access
+						for (int i = pageCount - 1; i >= 0; i--)
+						{
+							assert filePrint.getPages().get(i).getElements().size() 
+									== print.getPages().get(i).getElements().size();
+						}
+
+						// checking the XML export of the file document
+						super.reportComplete(params, filePrint);
+					}
+					finally
+					{
+						printFile.close();
+					}
+				}
+				finally
+				{
+					file.delete();
+				}
+			}
+		};
+		report.init();
+		report.runReport(null);
+	}
+
+	@Test
+	public void virtualizedBinaryReport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		HashMap<String, Object> params = new HashMap<String, Object>();
+		JRGzipVirtualizer virtualizer = new JRGzipVirtualizer(3);
+		params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+
+		try
+		{
+			binaryReport(true).runReport(params);
+		}
+		finally
+		{
+			virtualizer.cleanup();
+		}
+	}
+}
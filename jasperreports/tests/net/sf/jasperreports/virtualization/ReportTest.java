@@ -26,6 +26,9 @@ package net.sf.jasperreports.virtualization;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -33,7 +36,17 @@ import org.testng.annotations.Test;
 import net.sf.jasperreports.Report;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.fill.ConcurrentStoreVirtualizer;
 import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.fill.StoreVirtualizer;
+import net.sf.jasperreports.engine.fill.VirtualizationMetrics;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.engine.util.OffHeapVirtualizerStore;
+import net.sf.jasperreports.engine.util.SwapFileVirtualizerStore;
 
 /**
  * @author Lucian Chirita (lucianc@users.sourceforge.net)
@@ -66,4 +79,172 @@ public class ReportTest
 		
 		report.runReport(params);
 	}
+	
+	@Test
+	public void writeBehindVirtualizedReport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		HashMap<String, Object> params = new HashMap<String, Object>();
+		JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"), 4096, 20);
+		final AtomicInteger writeBehindCount = new AtomicInteger();
+		JRSwapFileVirtualizer virtualizer = new JRSwapFileVirtualizer(3, swapFile, true)
+		{
+			@Override
+			protected void pageOut(JRVirtualizable o) throws IOException
+			{
+				if (Thread.currentThread().getName().startsWith("JasperReports virtualizer write-behind"))
+				{
+					writeBehindCount.incrementAndGet();
+				}
+				super.pageOut(o);
+			}
+		};
+		virtualizer.setWriteBehind(2);
+		params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+		
+		report.runReport(params);
+		
+		// the pages have been written by the write-behind thread
+		assert writeBehindCount.get() > 0;
+	}
+	
+	@Test
+	public void readAheadVirtualizedReport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		Report readAheadReport = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml", 
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print) 
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				JRVirtualizationContext.getRegistered(print).setReadAheadPages(2);
+				super.reportComplete(params, print);
+			}
+		};
+		readAheadReport.init();
+		
+		HashMap<String, Object> params = new HashMap<String, Object>();
+		JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"), 4096, 20);
+		final AtomicInteger readAheadCount = new AtomicInteger();
+		params.put(JRParameter.REPORT_VIRTUALIZER, new JRSwapFileVirtualizer(4, swapFile, true)
+		{
+			@Override
+			protected void pageIn(JRVirtualizable o) throws IOException
+			{
+				if (Thread.currentThread().getName().startsWith("JasperReports virtualizer read-ahead"))
+				{
+					readAheadCount.incrementAndGet();
+				}
+				super.pageIn(o);
+			}
+		});
+		
+		readAheadReport.runReport(params);
+		
+		// some pages have been paged in by the read-ahead thread
+		assert readAheadCount.get() > 0;
+	}
+	
+	@Test
+	public void readAheadAfterFillVirtualizedReport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		final AtomicBoolean filled = new AtomicBoolean();
+		Report readAheadReport = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml", 
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			public void init()
+			{
+				super.init();
+				jasperReportsContext.setProperty(JRVirtualizationContext.PROPERTY_READ_AHEAD_PAGES, "2");
+			}
+			
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print) 
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				filled.set(true);
+				super.reportComplete(params, print);
+			}
+		};
+		readAheadReport.init();
+		
+		HashMap<String, Object> params = new HashMap<String, Object>();
+		JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"), 4096, 20);
+		final AtomicInteger fillReadAheadCount = new AtomicInteger();
+		final AtomicInteger readAheadCount = new AtomicInteger();
+		params.put(JRParameter.REPORT_VIRTUALIZER, new JRSwapFileVirtualizer(4, swapFile, true)
+		{
+			@Override
+			protected void pageIn(JRVirtualizable o) throws IOException
+			{
+				if (Thread.currentThread().getName().startsWith("JasperReports virtualizer read-ahead"))
+				{
+					(filled.get() ? readAheadCount : fillReadAheadCount).incrementAndGet();
+				}
+				super.pageIn(o);
+			}
+		});
+		
+		readAheadReport.runReport(params);
+		
+		// no pages are read ahead while the report is filled
+		assert fillReadAheadCount.get() == 0;
+		assert readAheadCount.get() > 0;
+	}
+	
+	@Test
+	public void offHeapVirtualizedReport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		// small budget and slabs so that some of the pages are spilled to the swap file
+		HashMap<String, Object> params = new HashMap<String, Object>();
+		OffHeapVirtualizerStore store = new OffHeapVirtualizerStore(128 * 1024, 1024, 16, 
+				System.getProperty("java.io.tmpdir"), 4, null);
+		StoreVirtualizer virtualizer = new StoreVirtualizer(3, store);
+		params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+		
+		try
+		{
+			report.runReport(params);
+		}
+		finally
+		{
+			virtualizer.cleanup();
+		}
+		
+		// pages have been stored both in direct memory and in the swap file
+		assert store.getMemoryStoreCount() > 0;
+		assert store.getSwapStoreCount() > 0;
+	}
+	
+	@Test
+	public void concurrentVirtualizedReport() throws JRException, NoSuchAlgorithmException, IOException
+	{
+		JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"), 4096, 20);
+		final ConcurrentStoreVirtualizer virtualizer = new ConcurrentStoreVirtualizer(3, 
+				new SwapFileVirtualizerStore(swapFile, true));
+		final VirtualizationMetrics[] metrics = new VirtualizationMetrics[1];
+		
+		Report metricsReport = new Report("net/sf/jasperreports/virtualization/repo/FirstJasper.jrxml", 
+				"net/sf/jasperreports/virtualization/FirstJasper.reference.jrpxml")
+		{
+			@Override
+			protected void reportComplete(Map<String, Object> params, JasperPrint print) 
+					throws NoSuchAlgorithmException, IOException, JRException
+			{
+				// collecting the metrics before the virtualizer is cleaned up after the export
+				metrics[0] = virtualizer.getMetrics(JRVirtualizationContext.getRegistered(print));
+				super.reportComplete(params, print);
+			}
+		};
+		metricsReport.init();
+		
+		HashMap<String, Object> params = new HashMap<String, Object>();
+		params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+		metricsReport.runReport(params);
+		
+		assert metrics[0] != null;
+		assert metrics[0].getPageOutCount() > 0;
+		assert metrics[0].getPageInCount() > 0;
+	}
 }
@@ -0,0 +1,138 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.util.JRConcurrentSwapFile;
+import net.sf.jasperreports.engine.util.JRMappedSwapFile;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.engine.util.JRSwapFile.SwapHandle;
+
+public class SwapFileTest
+{
+	private static final int BLOCK_SIZE = 512;
+	private static final int MIN_GROW_COUNT = 4;
+
+	@DataProvider
+	public Object[][] swapFiles()
+	{
+		String directory = System.getProperty("java.io.tmpdir");
+		return new Object[][] {
+			{new JRSwapFile(directory, BLOCK_SIZE, MIN_GROW_COUNT)},
+			{new JRConcurrentSwapFile(directory, BLOCK_SIZE, MIN_GROW_COUNT)},
+			// small segments so that the test crosses segment boundaries
+			{new JRMappedSwapFile(DefaultJasperReportsContext.getInstance(), directory, BLOCK_SIZE, MIN_GROW_COUNT, 8)},
+		};
+	}
+
+	@Test(dataProvider = "swapFiles")
+	public void writeRead(JRSwapFile swapFile) throws IOException
+	{
+		try
+		{
+			Random random = new Random(1);
+			List<byte[]> data = new ArrayList<byte[]>();
+			List<SwapHandle> handles = new ArrayList<SwapHandle>();
+			for (int i = 0; i < 50; i++)
+			{
+				byte[] bytes = new byte[1 + random.nextInt(5 * BLOCK_SIZE)];
+				random.nextBytes(bytes);
+				data.add(bytes);
+				handles.add(swapFile.write(bytes));
+
+				// free some of the areas to have blocks reused
+				if (i % 3 == 0)
+				{
+					byte[] read = swapFile.read(handles.get(i / 2), true);
+					assert Arrays.equals(read, data.get(i / 2));
+					handles.set(i / 2, swapFile.write(read));
+				}
+			}
+
+			for (int i = 0; i < data.size(); i++)
+			{
+				assert Arrays.equals(swapFile.read(handles.get(i), false), data.get(i));
+			}
+		}
+		finally
+		{
+			swapFile.dispose();
+		}
+	}
+
+	@Test(dataProvider = "swapFiles")
+	public void concurrentWriteRead(final JRSwapFile swapFile) throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int t = 0; t < 4; t++)
+			{
+				final Random random = new Random(t);
+				results.add(executor.submit(new Callable<Boolean>()
+				{
+					@Override
+					public Boolean call() throws Exception
+					{
+						for (int i = 0; i < 200; i++)
+						{
+							byte[] bytes = new byte[1 + random.nextInt(3 * BLOCK_SIZE)];
+							random.nextBytes(bytes);
+							SwapHandle handle = swapFile.write(bytes);
+							if (!Arrays.equals(swapFile.read(handle, true), bytes))
+							{
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+
+			for (Future<Boolean> result : results)
+			{
+				assert result.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+			swapFile.dispose();
+		}
+	}
+}
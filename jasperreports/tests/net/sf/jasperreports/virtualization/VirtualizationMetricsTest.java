@@ -0,0 +1,84 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.base.JRBasePrintText;
+import net.sf.jasperreports.engine.base.JRVirtualPrintPage;
+import net.sf.jasperreports.engine.fill.ConcurrentStoreVirtualizer;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.fill.VirtualizationMetrics;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.engine.util.SwapFileVirtualizerStore;
+
+public class VirtualizationMetricsTest
+{
+
+	@Test
+	public void hitsAndMisses()
+	{
+		JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"), 4096, 10);
+		// a single page kept in memory
+		ConcurrentStoreVirtualizer virtualizer = new ConcurrentStoreVirtualizer(1, 
+				new SwapFileVirtualizerStore(swapFile, true));
+		try
+		{
+			JRVirtualizationContext context = new JRVirtualizationContext(DefaultJasperReportsContext.getInstance());
+			context.setVirtualizer(virtualizer);
+			
+			JRVirtualPrintPage page1 = new JRVirtualPrintPage(context);
+			page1.addElement(new JRBasePrintText(null));
+			VirtualizationMetrics metrics = virtualizer.getMetrics(context);
+			
+			// the first access after the page has been registered is not a hit
+			page1.addElement(new JRBasePrintText(null));
+			assert metrics.getHitCount() == 0 : metrics;
+			
+			page1.getElements().get(0);
+			assert metrics.getHitCount() == 1 : metrics;
+			assert metrics.getMissCount() == 0 : metrics;
+			
+			// registering the second page evicts the first one
+			JRVirtualPrintPage page2 = new JRVirtualPrintPage(context);
+			page2.addElement(new JRBasePrintText(null));
+			assert metrics.getPageOutCount() == 1 : metrics;
+			
+			page1.getElements().get(0);
+			assert metrics.getMissCount() == 1 : metrics;
+			assert metrics.getPageInCount() == 1 : metrics;
+			assert metrics.getHitCount() == 1 : metrics;
+			
+			// the page in was counted as a miss, the next access is a hit
+			page1.getElements().get(1);
+			assert metrics.getHitCount() == 2 : metrics;
+			assert metrics.getMissCount() == 1 : metrics;
+		}
+		finally
+		{
+			virtualizer.cleanup();
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.fill.WriteBehindQueue;
+
+public class WriteBehindQueueTest
+{
+
+	@Test(timeOut = 30000)
+	public void discardOtherContext() throws Exception
+	{
+		final CountDownLatch writingLatch = new CountDownLatch(1);
+		final CountDownLatch releaseLatch = new CountDownLatch(1);
+		WriteBehindQueue queue = new WriteBehindQueue(4, new WriteBehindQueue.Writer()
+		{
+			@Override
+			public void write(JRVirtualizable<?> o) throws IOException
+			{
+				if (o.getUID().equals("blocked"))
+				{
+					writingLatch.countDown();
+					try
+					{
+						releaseLatch.await();
+					}
+					catch (InterruptedException e)
+					{
+						throw new IOException(e);
+					}
+				}
+			}
+
+			@Override
+			public void discard(JRVirtualizable<?> o)
+			{
+			}
+		});
+		
+		try
+		{
+			JRVirtualizationContext blockedContext = new JRVirtualizationContext(DefaultJasperReportsContext.getInstance());
+			JRVirtualizationContext context = new JRVirtualizationContext(DefaultJasperReportsContext.getInstance());
+			queue.enqueue(new TestVirtualizable("blocked", blockedContext));
+			assert writingLatch.await(10, TimeUnit.SECONDS);
+			
+			queue.enqueue(new TestVirtualizable("queued", context));
+			
+			// does not wait for the write of the other context
+			queue.discard(context);
+			assert queue.size() == 1;
+		}
+		finally
+		{
+			releaseLatch.countDown();
+			queue.dispose();
+		}
+		
+		assert queue.size() == 0;
+	}
+
+	protected static class TestVirtualizable implements JRVirtualizable<Object>
+	{
+		private final String id;
+		private final JRVirtualizationContext context;
+		private final Object data = new Object();
+
+		protected TestVirtualizable(String id, JRVirtualizationContext context)
+		{
+			this.id = id;
+			this.context = context;
+		}
+
+		@Override
+		public String getUID()
+		{
+			return id;
+		}
+
+		@Override
+		public JRVirtualizationContext getContext()
+		{
+			return context;
+		}
+
+		@Override
+		public Object getVirtualData()
+		{
+			return data;
+		}
+
+		@Override
+		public void ensureVirtualData()
+		{
+		}
+
+		@Override
+		public void setVirtualData(Object o)
+		{
+		}
+
+		@Override
+		public void removeVirtualData()
+		{
+		}
+
+		@Override
+		public void beforeExternalization()
+		{
+		}
+
+		@Override
+		public void afterExternalization()
+		{
+		}
+
+		@Override
+		public void afterInternalization()
+		{
+		}
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.virtualization;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.fill.JRVirtualizationContext;
+import net.sf.jasperreports.engine.fill.StoreFactoryVirtualizer;
+import net.sf.jasperreports.engine.fill.VirtualizerStore;
+import net.sf.jasperreports.engine.fill.VirtualizerStoreFactory;
+import net.sf.jasperreports.engine.util.VirtualizationSerializer;
+
+public class WriteBehindTest
+{
+	
+	@Test(timeOut = 60000)
+	public void cancelWhileWriting() throws Exception
+	{
+		final BlockingStore store = new BlockingStore("a");
+		StoreFactoryVirtualizer virtualizer = new StoreFactoryVirtualizer(1, new VirtualizerStoreFactory()
+		{
+			@Override
+			public VirtualizerStore createStore(JRVirtualizationContext virtualizationContext)
+			{
+				return store;
+			}
+		});
+		virtualizer.setWriteBehind(2);
+		try
+		{
+			JRVirtualizationContext context = new JRVirtualizationContext(DefaultJasperReportsContext.getInstance());
+			context.setVirtualizer(virtualizer);
+			
+			final TestObject a = new TestObject("a", context, "data a");
+			TestObject b = new TestObject("b", context, "data b");
+			virtualizer.registerObject(a);
+			// evicts a, whose write blocks in the store
+			virtualizer.registerObject(b);
+			assert store.storing.await(30, TimeUnit.SECONDS);
+			assert a.getVirtualData() == null;
+			
+			final StoreFactoryVirtualizer requestVirtualizer = virtualizer;
+			Thread requestThread = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					requestVirtualizer.requestData(a);
+				}
+			};
+			requestThread.start();
+			
+			// the data is not handed back while it is being written
+			requestThread.join(500);
+			assert requestThread.isAlive();
+			assert a.getVirtualData() == null;
+			
+			store.proceed.countDown();
+			requestThread.join();
+			
+			assert "data a".equals(a.getVirtualData());
+			// the cancelled write has been removed from the store
+			assert !store.data.containsKey("a");
+			
+			// the object can be written again
+			a.setVirtualData("data a2");
+			virtualizer.registerObject(new TestObject("c", context, "data c"));
+			long end = System.currentTimeMillis() + 30000;
+			while (!store.data.containsKey("a") && System.currentTimeMillis() < end)
+			{
+				Thread.sleep(10);
+			}
+			assert "data a2".equals(store.data.get("a"));
+			
+			virtualizer.requestData(a);
+			assert "data a2".equals(a.getVirtualData());
+		}
+		finally
+		{
+			store.proceed.countDown();
+			virtualizer.cleanup();
+		}
+	}
+	
+	protected static class BlockingStore implements VirtualizerStore
+	{
+		private final String blockedId;
+		private final CountDownLatch storing = new CountDownLatch(1);
+		private final CountDownLatch proceed = new CountDownLatch(1);
+		private final ConcurrentHashMap<String, Object> data = new ConcurrentHashMap<String, Object>();
+		
+		public BlockingStore(String blockedId)
+		{
+			this.blockedId = blockedId;
+		}
+		
+		@Override
+		public boolean store(JRVirtualizable<?> o, VirtualizationSerializer serializer)
+		{
+			if (blockedId.equals(o.getUID()) && storing.getCount() > 0)
+			{
+				storing.countDown();
+				try
+				{
+					proceed.await();
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+			return data.putIfAbsent(o.getUID(), o.getVirtualData()) == null;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void retrieve(JRVirtualizable<?> o, boolean remove, VirtualizationSerializer serializer)
+		{
+			Object value = remove ? data.remove(o.getUID()) : data.get(o.getUID());
+			((JRVirtualizable<Object>) o).setVirtualData(value);
+		}
+
+		@Override
+		public void remove(String objectId)
+		{
+			data.remove(objectId);
+		}
+
+		@Override
+		public void dispose()
+		{
+			data.clear();
+		}
+	}
+	
+	protected static class TestObject implements JRVirtualizable<Object>
+	{
+		private final String id;
+		private final JRVirtualizationContext context;
+		private volatile Object data;
+		
+		public TestObject(String id, JRVirtualizationContext context, Object data)
+		{
+			this.id = id;
+			this.context = context;
+			this.data = data;
+		}
+
+		@Override
+		public String getUID()
+		{
+			return id;
+		}
+
+		@Override
+		public void ensureVirtualData()
+		{
+			context.getVirtualizer().requestData(this);
+		}
+
+		@Override
+		public void setVirtualData(Object o)
+		{
+			data = o;
+		}
+
+		@Override
+		public Object getVirtualData()
+		{
+			return data;
+		}
+
+		@Override
+		public void removeVirtualData()
+		{
+			data = null;
+		}
+
+		@Override
+		public void beforeExternalization()
+		{
+		}
+
+		@Override
+		public void afterExternalization()
+		{
+		}
+
+		@Override
+		public void afterInternalization()
+		{
+		}
+
+		@Override
+		public JRVirtualizationContext getContext()
+		{
+			return context;
+		}
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.benchmarks.data;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.json.JRJsonNode;
+import net.sf.jasperreports.engine.json.JsonNodeContainer;
+import net.sf.jasperreports.engine.json.expression.EvaluationContext;
+import net.sf.jasperreports.engine.json.expression.JsonQLExpression;
+import net.sf.jasperreports.engine.json.expression.filter.BasicFilterExpression;
+import net.sf.jasperreports.engine.json.expression.filter.CompoundFilterExpression;
+import net.sf.jasperreports.engine.json.expression.filter.NotFilterExpression;
+import net.sf.jasperreports.engine.json.expression.filter.evaluation.BasicFilterExpressionEvaluator;
+import net.sf.jasperreports.engine.json.expression.filter.evaluation.CompoundFilterExpressionEvaluator;
+import net.sf.jasperreports.engine.json.expression.filter.evaluation.FilterExpressionEvaluatorVisitor;
+import net.sf.jasperreports.engine.json.expression.filter.evaluation.NotFilterExpressionEvaluator;
+import net.sf.jasperreports.engine.json.expression.member.ArrayConstructionExpression;
+import net.sf.jasperreports.engine.json.expression.member.ArrayIndexExpression;
+import net.sf.jasperreports.engine.json.expression.member.ArraySliceExpression;
+import net.sf.jasperreports.engine.json.expression.member.MemberExpression;
+import net.sf.jasperreports.engine.json.expression.member.MultiLevelUpExpression;
+import net.sf.jasperreports.engine.json.expression.member.ObjectConstructionExpression;
+import net.sf.jasperreports.engine.json.expression.member.ObjectKeyExpression;
+import net.sf.jasperreports.engine.json.expression.member.evaluation.ArrayConstructionExpressionEvaluator;
+import net.sf.jasperreports.engine.json.expression.member.evaluation.ArrayIndexExpressionEvaluator;
+import net.sf.jasperreports.engine.json.expression.member.evaluation.ArraySliceExpressionEvaluator;
+import net.sf.jasperreports.engine.json.expression.member.evaluation.MemberExpressionEvaluatorVisitor;
+import net.sf.jasperreports.engine.json.expression.member.evaluation.MultiLevelUpExpressionEvaluator;
+import net.sf.jasperreports.engine.json.expression.member.evaluation.ObjectConstructionExpressionEvaluator;
+import net.sf.jasperreports.engine.json.expression.member.evaluation.ObjectKeyExpressionEvaluator;
+import net.sf.jasperreports.engine.util.JsonUtil;
+import net.sf.jasperreports.engine.util.json.DefaultJsonQLExecuter;
+
+/**
+ * Measures JsonQL expression evaluation the way {@link net.sf.jasperreports.engine.data.JsonQLDataSource}
+ * uses it: a select expression producing the records, and field expressions evaluated for each record.
+ * <p>
+ * With <code>cachedExpressions=false</code> the expressions are evaluated the way the data source
+ * evaluated them before parsed expressions and their evaluators were reused: every evaluation parses
+ * the expression text, and the evaluation context creates new visitors, new evaluators for each
+ * expression node and new Jackson object mappers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonQLBenchmark
+{
+	@Param({"true", "false"})
+	public boolean cachedExpressions;
+
+	@Param({"1000"})
+	public int orderCount;
+
+	@Param({"5"})
+	public int productsPerOrder;
+
+	/**
+	 * The record select expression.
+	 */
+	@Param({"orders.products.*(prodQty > 2)"})
+	public String selectExpression;
+
+	private String[] fieldExpressions = {"prodId", "prodName", "prodQty", "^{2}.orderId"};
+
+	private JRJsonNode root;
+
+	@Setup(Level.Trial)
+	public void createJson()
+	{
+		ObjectMapper mapper = new ObjectMapper();
+		Random random = new Random(orderCount);
+		ObjectNode rootNode = mapper.createObjectNode();
+		ArrayNode orders = rootNode.putArray("orders");
+		for (int i = 0; i < orderCount; i++)
+		{
+			ObjectNode order = orders.addObject();
+			order.put("orderId", 1000 + i);
+			order.put("shipped", random.nextBoolean());
+			ArrayNode products = order.putArray("products");
+			for (int j = 0; j < productsPerOrder; j++)
+			{
+				ObjectNode product = products.addObject();
+				product.put("prodId", random.nextInt(10000));
+				product.put("prodName", SyntheticDataSource.text(random, 2));
+				product.put("prodQty", random.nextInt(5));
+			}
+		}
+		root = new JRJsonNode(null, rootNode);
+	}
+
+	@Benchmark
+	public void readRecords(Blackhole blackhole) throws JRException
+	{
+		DefaultJsonQLExecuter executer = cachedExpressions ? new DefaultJsonQLExecuter() : new PreviousJsonQLExecuter();
+		List<JRJsonNode> records = executer.selectNodes(root, selectExpression);
+		for (JRJsonNode record : records)
+		{
+			for (String fieldExpression : fieldExpressions)
+			{
+				blackhole.consume(executer.selectNode(record, root, fieldExpression));
+			}
+		}
+	}
+
+	/**
+	 * Evaluates expressions as they were evaluated before the parsed expressions and their evaluators were reused.
+	 */
+	protected static class PreviousJsonQLExecuter extends DefaultJsonQLExecuter
+	{
+		private final EvaluationContext evaluationContext = new PreviousEvaluationContext();
+
+		@Override
+		public List<JRJsonNode> selectNodes(JRJsonNode rootNode, String expression) throws JRException
+		{
+			JsonNodeContainer container = evaluate(parseJsonQLExpression(expression), rootNode);
+			return container == null ? null : container.getContainerNodes();
+		}
+
+		@Override
+		public JRJsonNode selectNode(JRJsonNode contextNode, JRJsonNode rootNode, String expression) throws JRException
+		{
+			JsonQLExpression jsonQLExpression = parseJsonQLExpression(expression);
+			JsonNodeContainer container = evaluate(jsonQLExpression, jsonQLExpression.isAbsolute() ? rootNode : contextNode);
+			return container == null ? null : container.getNodes().get(0);
+		}
+
+		protected JsonNodeContainer evaluate(JsonQLExpression expression, JRJsonNode contextNode)
+		{
+			JsonNodeContainer result = new JsonNodeContainer(contextNode);
+			if (expression.getMemberExpressionList() != null)
+			{
+				for (MemberExpression me : expression.getMemberExpressionList())
+				{
+					result = me.evaluate(result, evaluationContext.getMemberExpressionEvaluatorVisitor());
+					if (result == null)
+					{
+						return null;
+					}
+				}
+			}
+			return result;
+		}
+	}
+
+	protected static class PreviousEvaluationContext implements EvaluationContext
+	{
+		@Override
+		public FilterExpressionEvaluatorVisitor getFilterExpressionEvaluatorVisitor()
+		{
+			return new PreviousFilterVisitor(this);
+		}
+
+		@Override
+		public MemberExpressionEvaluatorVisitor getMemberExpressionEvaluatorVisitor()
+		{
+			return new PreviousMemberVisitor(this, false);
+		}
+
+		@Override
+		public MemberExpressionEvaluatorVisitor getMemberExpressionEvaluatorVisitorForFilter()
+		{
+			return new PreviousMemberVisitor(this, true);
+		}
+
+		@Override
+		public ObjectMapper getObjectMapper()
+		{
+			return JsonUtil.createObjectMapper();
+		}
+	}
+
+	/**
+	 * Creates a new evaluator for each evaluated node.
+	 */
+	protected static class PreviousMemberVisitor implements MemberExpressionEvaluatorVisitor
+	{
+		private final EvaluationContext evaluationContext;
+		private final boolean forFilter;
+
+		public PreviousMemberVisitor(EvaluationContext evaluationContext, boolean forFilter)
+		{
+			this.evaluationContext = evaluationContext;
+			this.forFilter = forFilter;
+		}
+
+		@Override
+		public JsonNodeContainer evaluateObjectKey(ObjectKeyExpression expression, JsonNodeContainer contextNode)
+		{
+			return new ObjectKeyExpressionEvaluator(evaluationContext, expression, forFilter).evaluate(contextNode);
+		}
+
+		@Override
+		public JsonNodeContainer evaluateMultiLevelUp(MultiLevelUpExpression expression, JsonNodeContainer contextNode)
+		{
+			return new MultiLevelUpExpressionEvaluator(evaluationContext, expression).evaluate(contextNode);
+		}
+
+		@Override
+		public JsonNodeContainer evaluateArrayIndex(ArrayIndexExpression expression, JsonNodeContainer contextNode)
+		{
+			return new ArrayIndexExpressionEvaluator(evaluationContext, expression).evaluate(contextNode);
+		}
+
+		@Override
+		public JsonNodeContainer evaluateArraySlice(ArraySliceExpression expression, JsonNodeContainer contextNode)
+		{
+			return new ArraySliceExpressionEvaluator(evaluationContext, expression).evaluate(contextNode);
+		}
+
+		@Override
+		public JsonNodeContainer evaluateObjectConstruction(ObjectConstructionExpression expression, JsonNodeContainer contextNode)
+		{
+			return new ObjectConstructionExpressionEvaluator(evaluationContext, expression).evaluate(contextNode);
+		}
+
+		@Override
+		public JsonNodeContainer evaluateArrayConstruction(ArrayConstructionExpression expression, JsonNodeContainer contextNode)
+		{
+			return new ArrayConstructionExpressionEvaluator(evaluationContext, expression).evaluate(contextNode);
+		}
+	}
+
+	/**
+	 * Creates a new evaluator for each evaluated node.
+	 */
+	protected static class PreviousFilterVisitor implements FilterExpressionEvaluatorVisitor
+	{
+		private final EvaluationContext evaluationContext;
+
+		public PreviousFilterVisitor(EvaluationContext evaluationContext)
+		{
+			this.evaluationContext = evaluationContext;
+		}
+
+		@Override
+		public boolean evaluateBasicFilter(BasicFilterExpression expression, JRJsonNode contextNode)
+		{
+			return new BasicFilterExpressionEvaluator(evaluationContext, expression).evaluate(contextNode);
+		}
+
+		@Override
+		public boolean evaluateCompoundFilter(CompoundFilterExpression expression, JRJsonNode contextNode)
+		{
+			return new CompoundFilterExpressionEvaluator(evaluationContext, expression).evaluate(contextNode);
+		}
+
+		@Override
+		public boolean evaluateNotFilter(NotFilterExpression expression, JRJsonNode contextNode)
+		{
+			return new NotFilterExpressionEvaluator(evaluationContext, expression).evaluate(contextNode);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.benchmarks.data;
+
+import java.util.Date;
+import java.util.Random;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+
+/**
+ * Data source that produces a reproducible sequence of synthetic order records.
+ * <p>
+ * The records are generated from a seeded random generator, therefore two data sources created
+ * with the same arguments produce the same values, including after {@link #moveFirst()}.
+ * The records are ordered by the <code>category</code> field so that the field can be used
+ * as a report group expression.
+ * <p>
+ * The data source provides the following fields:
+ * <ul>
+ * <li><code>id</code> - <code>java.lang.Integer</code>, the record number starting from 1</li>
+ * <li><code>category</code> - <code>java.lang.String</code></li>
+ * <li><code>region</code> - <code>java.lang.String</code></li>
+ * <li><code>product</code> - <code>java.lang.String</code></li>
+ * <li><code>quantity</code> - <code>java.lang.Integer</code></li>
+ * <li><code>price</code> - <code>java.lang.Double</code></li>
+ * <li><code>amount</code> - <code>java.lang.Double</code></li>
+ * <li><code>orderDate</code> - <code>java.util.Date</code></li>
+ * <li><code>description</code> - <code>java.lang.String</code>, a text of variable length</li>
+ * </ul>
+ */
+public class SyntheticDataSource implements JRRewindableDataSource
+{
+
+	public static final long DEFAULT_SEED = 20190101L;
+
+	public static final int DEFAULT_CATEGORY_COUNT = 10;
+
+	private static final String[] REGIONS = {"North", "South", "East", "West", "Central"};
+
+	private static final String[] WORDS = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur",
+			"adipiscing", "elit", "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore",
+			"et", "dolore", "magna", "aliqua", "enim", "ad", "minim", "veniam", "quis", "nostrud",
+			"exercitation", "ullamco", "laboris", "nisi", "aliquip", "ex", "ea", "commodo", "consequat"};
+
+	// 2019-01-01 00:00:00 UTC
+	private static final long START_DATE = 1546300800000L;
+	private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+	private final int recordCount;
+	private final long seed;
+	private final int categoryCount;
+
+	private Random random;
+	private int index;
+
+	private String category;
+	private String region;
+	private String product;
+	private Integer quantity;
+	private Double price;
+	private Date orderDate;
+	private String description;
+
+	public SyntheticDataSource(int recordCount)
+	{
+		this(recordCount, DEFAULT_SEED);
+	}
+
+	public SyntheticDataSource(int recordCount, long seed)
+	{
+		this(recordCount, seed, DEFAULT_CATEGORY_COUNT);
+	}
+
+	/**
+	 * Creates a synthetic data source.
+	 *
+	 * @param recordCount the number of records
+	 * @param seed the seed of the random values
+	 * @param categoryCount the number of distinct <code>category</code> values
+	 */
+	public SyntheticDataSource(int recordCount, long seed, int categoryCount)
+	{
+		this.recordCount = recordCount;
+		this.seed = seed;
+		this.categoryCount = categoryCount;
+		moveFirst();
+	}
+
+	@Override
+	public final void moveFirst()
+	{
+		random = new Random(seed);
+		index = 0;
+	}
+
+	@Override
+	public boolean next() throws JRException
+	{
+		if (index >= recordCount)
+		{
+			return false;
+		}
+
+		// the categories are assigned in ascending order
+		category = String.format("Category %02d", (long) index * categoryCount / recordCount + 1);
+		region = REGIONS[random.nextInt(REGIONS.length)];
+		product = "Product " + (random.nextInt(100) + 1);
+		quantity = random.nextInt(50) + 1;
+		price = Math.round(random.nextDouble() * 100000) / 100d;
+		orderDate = new Date(START_DATE + random.nextInt(365) * DAY_MILLIS);
+		description = text(random, 3 + random.nextInt(40));
+
+		++index;
+		return true;
+	}
+
+	@Override
+	public Object getFieldValue(JRField jrField) throws JRException
+	{
+		switch (jrField.getName())
+		{
+			case "id":
+				return index;
+			case "category":
+				return category;
+			case "region":
+				return region;
+			case "product":
+				return product;
+			case "quantity":
+				return quantity;
+			case "price":
+				return price;
+			case "amount":
+				return quantity * price;
+			case "orderDate":
+				return orderDate;
+			case "description":
+				return description;
+			default:
+				return null;
+		}
+	}
+
+	public int getRecordCount()
+	{
+		return recordCount;
+	}
+
+	/**
+	 * Generates a text of random words.
+	 *
+	 * @param random the random generator
+	 * @param wordCount the number of words
+	 * @return the text
+	 */
+	public static String text(Random random, int wordCount)
+	{
+		StringBuilder text = new StringBuilder(wordCount * 8);
+		for (int i = 0; i < wordCount; i++)
+		{
+			if (i > 0)
+			{
+				text.append(' ');
+			}
+			text.append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return text.toString();
+	}
+}
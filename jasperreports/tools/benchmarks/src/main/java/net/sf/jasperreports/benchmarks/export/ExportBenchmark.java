@@ -0,0 +1,158 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.benchmarks.export;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.jasperreports.benchmarks.fill.SampleReport;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.export.HtmlExporter;
+import net.sf.jasperreports.engine.export.JRCsvExporter;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleHtmlExporterOutput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimpleWriterExporterOutput;
+
+/**
+ * Measures the throughput of the PDF, XLSX, HTML and CSV exporters.
+ * <p>
+ * The {@link SampleReport sample report} is filled once per trial, and each benchmark
+ * invocation exports the whole document to an output stream that discards the data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExportBenchmark
+{
+	@Param({"pdf", "xlsx", "html", "csv"})
+	public String format;
+
+	@Param({"GROUPS", "CROSSTAB"})
+	public SampleReport report;
+
+	@Param({"1000"})
+	public int recordCount;
+
+	private JasperReportsContext jasperReportsContext;
+	private JasperPrint jasperPrint;
+
+	@Setup(Level.Trial)
+	public void fillReport() throws JRException
+	{
+		jasperReportsContext = DefaultJasperReportsContext.getInstance();
+		jasperPrint = report.compile(jasperReportsContext).fill(recordCount, null);
+	}
+
+	@Benchmark
+	public long export() throws JRException
+	{
+		CountingOutputStream out = new CountingOutputStream();
+		switch (format)
+		{
+			case "pdf":
+			{
+				JRPdfExporter exporter = new JRPdfExporter(jasperReportsContext);
+				exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+				exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+				exporter.exportReport();
+				break;
+			}
+			case "xlsx":
+			{
+				JRXlsxExporter exporter = new JRXlsxExporter(jasperReportsContext);
+				exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+				exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+				exporter.exportReport();
+				break;
+			}
+			case "html":
+			{
+				HtmlExporter exporter = new HtmlExporter(jasperReportsContext);
+				exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+				exporter.setExporterOutput(new SimpleHtmlExporterOutput(out));
+				exporter.exportReport();
+				break;
+			}
+			case "csv":
+			{
+				JRCsvExporter exporter = new JRCsvExporter(jasperReportsContext);
+				exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+				exporter.setExporterOutput(new SimpleWriterExporterOutput(out));
+				exporter.exportReport();
+				break;
+			}
+			default:
+				throw new IllegalArgumentException("Unknown format " + format);
+		}
+		// returning the size so that the export is not optimized away
+		return out.getCount();
+	}
+
+	/**
+	 * Output stream that only counts the written bytes.
+	 */
+	protected static class CountingOutputStream extends OutputStream
+	{
+		private long count;
+
+		@Override
+		public void write(int b)
+		{
+			++count;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			count += len;
+		}
+
+		public long getCount()
+		{
+			return count;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.benchmarks.export;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.jasperreports.benchmarks.fill.SampleReport;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.export.ExporterNature;
+import net.sf.jasperreports.engine.export.GridLayoutCache;
+import net.sf.jasperreports.engine.export.JRGridLayout;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporterNature;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimpleXlsxReportConfiguration;
+
+/**
+ * Measures the grid layout of long tabular documents, with and without a {@link GridLayoutCache},
+ * and the XLSX export of such documents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class GridLayoutBenchmark
+{
+	@Param({"TABLE", "GROUPS"})
+	public SampleReport report;
+
+	@Param({"50000"})
+	public int recordCount;
+
+	@Param({"true", "false"})
+	public boolean onePagePerSheet;
+
+	private JasperReportsContext jasperReportsContext;
+	private JasperPrint jasperPrint;
+	private ExporterNature nature;
+
+	@Setup(Level.Trial)
+	public void fillReport() throws JRException
+	{
+		jasperReportsContext = DefaultJasperReportsContext.getInstance();
+		jasperPrint = report.compile(jasperReportsContext).fill(recordCount, null);
+		nature = new JRXlsxExporterNature(jasperReportsContext, null, false, false);
+	}
+
+	@Benchmark
+	public int layout()
+	{
+		return layoutPages(null);
+	}
+
+	@Benchmark
+	public int cachedLayout()
+	{
+		return layoutPages(new GridLayoutCache());
+	}
+
+	protected int layoutPages(GridLayoutCache cache)
+	{
+		int rowCount = 0;
+		List<JRPrintPage> pages = jasperPrint.getPages();
+		for (JRPrintPage page : pages)
+		{
+			JRGridLayout layout = new JRGridLayout(nature, page.getElements(), 
+					jasperPrint.getPageWidth(), jasperPrint.getPageHeight(), 0, 0, null, cache);
+			rowCount += layout.getGrid().getRowCount();
+		}
+		return rowCount;
+	}
+
+	@Benchmark
+	public long xlsxExport() throws JRException
+	{
+		SimpleXlsxReportConfiguration configuration = new SimpleXlsxReportConfiguration();
+		configuration.setOnePagePerSheet(onePagePerSheet);
+		
+		ExportBenchmark.CountingOutputStream out = new ExportBenchmark.CountingOutputStream();
+		JRXlsxExporter exporter = new JRXlsxExporter(jasperReportsContext);
+		exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+		exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(out));
+		exporter.setConfiguration(configuration);
+		exporter.exportReport();
+		return out.getCount();
+	}
+}
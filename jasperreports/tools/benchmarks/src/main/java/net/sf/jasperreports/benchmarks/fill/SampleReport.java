@@ -0,0 +1,154 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.benchmarks.fill;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.jasperreports.benchmarks.data.SyntheticDataSource;
+import net.sf.jasperreports.engine.JREmptyDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+
+/**
+ * The sample reports used by the benchmarks, filled with {@link SyntheticDataSource} data.
+ */
+public enum SampleReport
+{
+	/**
+	 * Orders grouped by category and region, with group totals.
+	 */
+	GROUPS("GroupsReport", true),
+	/**
+	 * Orders with a subreport for the order lines.
+	 */
+	SUBREPORTS("SubreportsReport", true, "OrderLinesReport"),
+	/**
+	 * Crosstab with nested row groups and totals.
+	 */
+	CROSSTAB("CrosstabReport", true),
+	/**
+	 * Table component over a dataset run.
+	 */
+	TABLE("TableReport", false);
+
+	public static final String PARAMETER_RECORD_COUNT = "RecordCount";
+
+	private static final String LOCATION = "/net/sf/jasperreports/benchmarks/fill/";
+
+	private final String name;
+	private final boolean mainDataSource;
+	private final String[] subreports;
+
+	private SampleReport(String name, boolean mainDataSource, String... subreports)
+	{
+		this.name = name;
+		this.mainDataSource = mainDataSource;
+		this.subreports = subreports;
+	}
+
+	/**
+	 * Compiles the report and its subreports.
+	 *
+	 * @param jasperReportsContext the context
+	 * @return the compiled report
+	 */
+	public Compiled compile(JasperReportsContext jasperReportsContext) throws JRException
+	{
+		JasperCompileManager compileManager = JasperCompileManager.getInstance(jasperReportsContext);
+		JasperReport jasperReport = compile(compileManager, name);
+
+		Map<String, Object> parameters = new HashMap<String, Object>();
+		for (String subreport : subreports)
+		{
+			// subreports are passed as parameters having the same name
+			parameters.put(subreport, compile(compileManager, subreport));
+		}
+
+		return new Compiled(jasperReportsContext, jasperReport, parameters);
+	}
+
+	protected JasperReport compile(JasperCompileManager compileManager, String reportName) throws JRException
+	{
+		try (InputStream jrxml = SampleReport.class.getResourceAsStream(LOCATION + reportName + ".jrxml"))
+		{
+			return compileManager.compile(jrxml);
+		}
+		catch (IOException e)
+		{
+			throw new JRException(e);
+		}
+	}
+
+	/**
+	 * A compiled sample report.
+	 */
+	public class Compiled
+	{
+		private final JasperReportsContext jasperReportsContext;
+		private final JasperReport jasperReport;
+		private final Map<String, Object> parameters;
+
+		protected Compiled(JasperReportsContext jasperReportsContext, JasperReport jasperReport,
+				Map<String, Object> parameters)
+		{
+			this.jasperReportsContext = jasperReportsContext;
+			this.jasperReport = jasperReport;
+			this.parameters = parameters;
+		}
+
+		public JasperReport getJasperReport()
+		{
+			return jasperReport;
+		}
+
+		/**
+		 * Fills the report.
+		 *
+		 * @param recordCount the number of synthetic records
+		 * @param additionalParameters additional fill parameters, such as {@link JRParameter#REPORT_VIRTUALIZER},
+		 * can be <code>null</code>
+		 * @return the filled report
+		 */
+		public JasperPrint fill(int recordCount, Map<String, Object> additionalParameters) throws JRException
+		{
+			Map<String, Object> fillParameters = new HashMap<String, Object>(parameters);
+			fillParameters.put(PARAMETER_RECORD_COUNT, recordCount);
+			if (additionalParameters != null)
+			{
+				fillParameters.putAll(additionalParameters);
+			}
+
+			return JasperFillManager.getInstance(jasperReportsContext).fill(jasperReport, fillParameters,
+					mainDataSource ? new SyntheticDataSource(recordCount) : new JREmptyDataSource(1));
+		}
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.benchmarks.text;
+
+import java.awt.font.TextAttribute;
+import java.text.AttributedCharacterIterator.Attribute;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.jasperreports.benchmarks.data.SyntheticDataSource;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRCommonText;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.base.JRBasePrintText;
+import net.sf.jasperreports.engine.fill.JRMeasuredText;
+import net.sf.jasperreports.engine.fill.TextMeasurer;
+import net.sf.jasperreports.engine.fonts.FontUtil;
+import net.sf.jasperreports.engine.util.JRStyledText;
+import net.sf.jasperreports.engine.util.JRStyledTextParser;
+import net.sf.jasperreports.engine.util.JRStyledTextUtil;
+
+/**
+ * Measures {@link TextMeasurer} for texts of different lengths.
+ * <p>
+ * Texts without markup are measured by {@link net.sf.jasperreports.engine.fill.SimpleTextLineWrapper},
+ * while styled texts, which contain bold runs, are measured by
+ * {@link net.sf.jasperreports.engine.fill.ComplexTextLineWrapper}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextMeasurerBenchmark
+{
+	@Param({JRCommonText.MARKUP_NONE, JRCommonText.MARKUP_STYLED_TEXT})
+	public String markup;
+
+	@Param({"20", "500"})
+	public int wordCount;
+
+	@Param({"200"})
+	public int width;
+
+	/**
+	 * The height available to a text chunk when measuring the text in chunks, as it would be split across pages.
+	 */
+	@Param({"100"})
+	public int chunkHeight;
+
+	private TextMeasurer textMeasurer;
+	private JRStyledText styledText;
+
+	@Setup(Level.Trial)
+	public void createText()
+	{
+		JasperReportsContext jasperReportsContext = DefaultJasperReportsContext.getInstance();
+
+		JRBasePrintText textElement = new JRBasePrintText(null);
+		textElement.setWidth(width);
+		textElement.setHeight(15);
+		textElement.setFontSize(10f);
+		textElement.setMarkup(markup);
+
+		Random random = new Random(wordCount);
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < wordCount; i += 10)
+		{
+			if (i > 0)
+			{
+				text.append(' ');
+			}
+			String words = SyntheticDataSource.text(random, Math.min(10, wordCount - i));
+			if (JRCommonText.MARKUP_NONE.equals(markup))
+			{
+				text.append(words);
+			}
+			else
+			{
+				text.append("<style isBold=\"true\">").append(words, 0, words.indexOf(' ') + 1)
+					.append("</style>").append(words, words.indexOf(' ') + 1, words.length());
+			}
+		}
+
+		Map<Attribute, Object> attributes = new HashMap<Attribute, Object>();
+		FontUtil.getInstance(jasperReportsContext).getAttributesWithoutAwtFont(attributes, textElement);
+		attributes.put(TextAttribute.FOREGROUND, textElement.getForecolor());
+		JRStyledText parsedText = JRStyledTextParser.getInstance().getStyledText(attributes, text.toString(),
+				!JRCommonText.MARKUP_NONE.equals(markup), Locale.US);
+		styledText = JRStyledTextUtil.getInstance(jasperReportsContext).resolveFonts(parsedText, Locale.US);
+
+		textMeasurer = new TextMeasurer(jasperReportsContext, textElement);
+	}
+
+	/**
+	 * Measures the whole text, as done for a stretching text element.
+	 */
+	@Benchmark
+	public JRMeasuredText measure()
+	{
+		return textMeasurer.measure(styledText, 0, Integer.MAX_VALUE / 2, false);
+	}
+
+	/**
+	 * Measures the text in chunks of limited height, as done when the text overflows to next pages.
+	 */
+	@Benchmark
+	public int measureChunks()
+	{
+		int textLength = styledText.length();
+		int chunkCount = 0;
+		int offset = 0;
+		while (offset < textLength)
+		{
+			JRMeasuredText measuredText = textMeasurer.measure(styledText, offset, chunkHeight, true);
+			if (measuredText.getTextOffset() <= offset)
+			{
+				// not even a line fits
+				break;
+			}
+			offset = measuredText.getTextOffset();
+			++chunkCount;
+		}
+		return chunkCount;
+	}
+}
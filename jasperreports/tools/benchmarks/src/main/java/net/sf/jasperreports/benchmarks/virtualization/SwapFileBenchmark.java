@@ -0,0 +1,130 @@
+/*
+ * JasperReports - Free Java Reporting Library.
+ * Copyright (C) 2001 - 2019 TIBCO Software Inc. All rights reserved.
+ * http://www.jaspersoft.com
+ *
+ * Unless you have purchased a commercial license agreement from Jaspersoft,
+ * the following license terms apply:
+ *
+ * This program is part of JasperReports.
+ *
+ * JasperReports is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JasperReports is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with JasperReports. If not, see <http://www.gnu.org/licenses/>.
+ */
+package net.sf.jasperreports.benchmarks.virtualization;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sf.jasperreports.engine.util.JRConcurrentSwapFile;
+import net.sf.jasperreports.engine.util.JRMappedSwapFile;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.engine.util.JRSwapFile.SwapHandle;
+
+/**
+ * Compares the swap file implementations when several threads page data in and out
+ * of a single shared swap file, the way concurrent report fills do when sharing
+ * a {@link net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer} swap file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SwapFileBenchmark
+{
+	@Param({"JRSwapFile", "JRConcurrentSwapFile", "JRMappedSwapFile"})
+	public String swapFileType;
+
+	@Param({"4096"})
+	public int blockSize;
+
+	@Param({"20"})
+	public int minGrowCount;
+
+	/**
+	 * The size of the data written and read at once, corresponding to a serialized virtual page.
+	 */
+	@Param({"16384", "131072"})
+	public int dataSize;
+
+	private JRSwapFile swapFile;
+	private byte[] data;
+
+	@Setup(Level.Trial)
+	public void createSwapFile()
+	{
+		String directory = System.getProperty("java.io.tmpdir");
+		switch (swapFileType)
+		{
+			case "JRConcurrentSwapFile":
+				swapFile = new JRConcurrentSwapFile(directory, blockSize, minGrowCount);
+				break;
+			case "JRMappedSwapFile":
+				swapFile = new JRMappedSwapFile(directory, blockSize, minGrowCount);
+				break;
+			case "JRSwapFile":
+			default:
+				swapFile = new JRSwapFile(directory, blockSize, minGrowCount);
+				break;
+		}
+
+		data = new byte[dataSize];
+		new Random(dataSize).nextBytes(data);
+	}
+
+	@TearDown(Level.Trial)
+	public void disposeSwapFile()
+	{
+		swapFile.dispose();
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void pageOutPageIn(Blackhole blackhole) throws IOException
+	{
+		writeRead(blackhole);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public void concurrentPageOutPageIn(Blackhole blackhole) throws IOException
+	{
+		writeRead(blackhole);
+	}
+
+	protected void writeRead(Blackhole blackhole) throws IOException
+	{
+		SwapHandle handle = swapFile.write(data);
+		byte[] read = swapFile.read(handle, true);
+		blackhole.consume(read);
+	}
+}